@@ -0,0 +1,51 @@
+package org.zewang.benchmarks;
+
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 基准测试入口，参数与 JMH 命令行一致，只是默认值不同：
+ * - 结果默认写成 JSON（target/jmh-result.json），便于和基线结果做自动比对
+ * - 默认挂上 GC profiler，结果里带 gc.alloc.rate.norm（每次操作分配的字节数）
+ * 显式传入 -rf / -rff / -prof 时以命令行为准
+ * 用法：java -jar benchmarks/target/benchmarks.jar [JMH 参数] [正则过滤]
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 01:10
+ */
+
+public final class BenchmarkMain {
+
+    static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams() || cli.shouldListProfilers()
+            || cli.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT_FILE);
+        }
+        if (cli.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,166 @@
+package org.zewang.benchmarks;
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.zewang.common.constant.SentimentLabel;
+import org.zewang.common.constant.SentimentTier;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.dto.SentimentRollup;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.WarningAlert;
+import org.zewang.stream.config.AlertProperties;
+import org.zewang.stream.model.PendingMessage;
+import org.zewang.stream.model.SentimentStats;
+import org.zewang.stream.sentiment.LexiconSentimentScorer;
+import org.zewang.stream.sentiment.SentimentLexicon;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 基准测试的输入数据：真实风格的中文聊天语料，以及由它派生出的各个 DTO
+ * 固定随机种子，不同次运行、不同基准之间的输入完全一致，结果才可以比较
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 01:15
+ */
+
+public final class Corpus {
+
+    private static final String RESOURCE = "/corpus/chat-messages.txt";
+    private static final long SEED = 20261018L;
+    // 2023-11-14T22:13:20Z，时间戳的 varint 长度和线上一致
+    static final long BASE_TIMESTAMP = 1_700_000_000_000L;
+
+    private static final List<String> MESSAGES = load();
+    private static final LexiconSentimentScorer SCORER = LexiconSentimentScorer.compile(SentimentLexicon.defaults());
+
+    private Corpus() {
+    }
+
+    public static List<String> messages() {
+        return MESSAGES;
+    }
+
+    public static String userId(int index) {
+        return String.format("U%05d", index);
+    }
+
+    /**
+     * count 条聊天消息，用户在 [0, users) 中均匀选取，时间戳按 stepMs 递增
+     */
+    public static List<ChatMessage> chatMessages(int count, int users, long stepMs) {
+        Random random = new Random(SEED);
+        List<ChatMessage> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setUserId(userId(random.nextInt(users)));
+            message.setTimestamp(BASE_TIMESTAMP + i * stepMs);
+            message.setMessage(MESSAGES.get(random.nextInt(MESSAGES.size())));
+            result.add(message);
+        }
+        return result;
+    }
+
+    public static List<SentimentScore> sentimentScores(int count, int users, long stepMs) {
+        List<SentimentScore> result = new ArrayList<>(count);
+        for (ChatMessage message : chatMessages(count, users, stepMs)) {
+            double score = SCORER.score(message.getMessage());
+            SentimentScore sentimentScore = new SentimentScore();
+            sentimentScore.setUserId(message.getUserId());
+            sentimentScore.setTimestamp(message.getTimestamp());
+            sentimentScore.setSentimentScore(score);
+            sentimentScore.setSentimentLabel(SentimentLabel.of(score).getValue());
+            sentimentScore.setLexiconVersion(SCORER.getVersion());
+            sentimentScore.setTier(SentimentTier.LEXICON.getValue());
+            result.add(sentimentScore);
+        }
+        return result;
+    }
+
+    public static List<WarningAlert> warningAlerts(int count, int users) {
+        String alertMessage = new AlertProperties().getMessage();
+        List<WarningAlert> result = new ArrayList<>(count);
+        for (SentimentScore score : sentimentScores(count, users, 30_000L)) {
+            WarningAlert alert = new WarningAlert();
+            alert.setUserId(score.getUserId());
+            alert.setWindowEnd(score.getTimestamp() - score.getTimestamp() % 30_000L + 60_000L);
+            alert.setAverageScore(Math.min(score.getSentimentScore(), -0.3) - 0.1);
+            alert.setAlertMessage(alertMessage);
+            result.add(alert);
+        }
+        return result;
+    }
+
+    public static List<SentimentRollup> sentimentRollups(int count, int users) {
+        String[] horizons = {"1m", "5m", "1h"};
+        long[] sizes = {60_000L, 300_000L, 3_600_000L};
+        List<SentimentRollup> result = new ArrayList<>(count);
+        List<SentimentStats> stats = sentimentStats(count);
+        List<SentimentScore> scores = sentimentScores(count, users, 1_000L);
+        for (int i = 0; i < count; i++) {
+            int level = i % horizons.length;
+            SentimentStats window = stats.get(i);
+            SentimentRollup rollup = new SentimentRollup();
+            rollup.setUserId(scores.get(i).getUserId());
+            rollup.setHorizon(horizons[level]);
+            rollup.setWindowStart(scores.get(i).getTimestamp() - scores.get(i).getTimestamp() % sizes[level]);
+            rollup.setWindowEnd(rollup.getWindowStart() + sizes[level]);
+            rollup.setCount(window.getCount());
+            rollup.setAverageScore(window.average());
+            rollup.setMinScore(window.getMin());
+            rollup.setMaxScore(window.getMax());
+            result.add(rollup);
+        }
+        return result;
+    }
+
+    public static List<SentimentStats> sentimentStats(int count) {
+        Random random = new Random(SEED);
+        List<SentimentStats> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SentimentStats stats = new SentimentStats();
+            int samples = 1 + random.nextInt(50);
+            for (int j = 0; j < samples; j++) {
+                stats.add(SCORER.score(MESSAGES.get(random.nextInt(MESSAGES.size()))));
+            }
+            result.add(stats);
+        }
+        return result;
+    }
+
+    public static List<PendingMessage> pendingMessages(int count, int users) {
+        List<PendingMessage> result = new ArrayList<>(count);
+        for (ChatMessage message : chatMessages(count, users, 1_000L)) {
+            result.add(new PendingMessage(message.getUserId(), message.getTimestamp(), message));
+        }
+        return result;
+    }
+
+    private static List<String> load() {
+        try (InputStream in = Corpus.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("找不到基准测试语料: " + RESOURCE);
+            }
+            List<String> lines = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank() && !line.startsWith("#")) {
+                        lines.add(line);
+                    }
+                }
+            }
+            return Collections.unmodifiableList(lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取基准测试语料失败: " + RESOURCE, e);
+        }
+    }
+}
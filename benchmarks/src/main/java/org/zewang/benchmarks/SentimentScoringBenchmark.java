@@ -0,0 +1,203 @@
+package org.zewang.benchmarks;
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.serde.ChatMessageBinarySerde;
+import org.zewang.common.serde.JsonSerde;
+import org.zewang.common.serde.SentimentScoreBinarySerde;
+import org.zewang.stream.config.EngineProperties;
+import org.zewang.stream.metrics.StreamMetrics;
+import org.zewang.stream.model.PendingMessage;
+import org.zewang.stream.sentiment.LexiconRegistry;
+import org.zewang.stream.sentiment.LexiconSentimentEngine;
+import org.zewang.stream.sentiment.LexiconSentimentScorer;
+import org.zewang.stream.sentiment.NgramModelTrainer;
+import org.zewang.stream.sentiment.NgramSentimentModel;
+import org.zewang.stream.sentiment.SentimentLexicon;
+import org.zewang.stream.serde.PendingMessageBinarySerde;
+import org.zewang.stream.service.SentimentAnalysisProcessor;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 情感打分热点路径
+ * - lexicon / ngram：只测打分器本身（每条消息一次）
+ * - analyzeSentiment：用 TopologyTestDriver 驱动 SentimentAnalysisProcessor 的真实拓扑，
+ *   包含反序列化、打分、构建 SentimentScore 和序列化，输入是预先编码好的字节
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 01:40
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SentimentScoringBenchmark {
+
+    static final int BATCH = 512;
+    static final int USERS = 1_000;
+
+    @State(Scope.Thread)
+    public static class ScorerState {
+        LexiconSentimentScorer lexicon;
+        NgramSentimentModel ngram;
+        String[] messages;
+        private int index;
+
+        @Setup
+        public void setup() {
+            lexicon = LexiconSentimentScorer.compile(SentimentLexicon.defaults());
+            ngram = distill(lexicon);
+            messages = Corpus.messages().toArray(new String[0]);
+        }
+
+        String next() {
+            index = index + 1 == messages.length ? 0 : index + 1;
+            return messages[index];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class TopologyState {
+
+        @Param({"LEXICON", "NGRAM"})
+        public String mode;
+
+        @Param({"json", "binary"})
+        public String format;
+
+        private LexiconRegistry registry;
+        private Path modelFile;
+        private TopologyTestDriver driver;
+        TestInputTopic<String, byte[]> input;
+        TestOutputTopic<String, byte[]> output;
+        List<String> keys;
+        List<byte[]> values;
+        private long timestamp = Corpus.BASE_TIMESTAMP;
+
+        @Setup
+        public void setup() throws IOException {
+            boolean binary = "binary".equals(format);
+            Serde<ChatMessage> chatMessageSerde = binary ? new ChatMessageBinarySerde() : new JsonSerde<>(ChatMessage.class);
+            Serde<SentimentScore> sentimentScoreSerde = binary
+                ? new SentimentScoreBinarySerde() : new JsonSerde<>(SentimentScore.class);
+            Serde<PendingMessage> pendingMessageSerde = binary
+                ? new PendingMessageBinarySerde() : new JsonSerde<>(PendingMessage.class);
+
+            registry = new LexiconRegistry(SentimentLexicon.defaults());
+            EngineProperties engineProperties = new EngineProperties();
+            engineProperties.setMode(EngineProperties.Mode.valueOf(mode));
+            if (engineProperties.getMode() == EngineProperties.Mode.NGRAM) {
+                modelFile = Files.createTempFile("bench-ngram", ".bin");
+                try (OutputStream out = Files.newOutputStream(modelFile)) {
+                    distill(registry.current()).write(out);
+                }
+                engineProperties.setNgramModel(modelFile.toString());
+            }
+
+            StreamsBuilder builder = new StreamsBuilder();
+            new SentimentAnalysisProcessor(chatMessageSerde, sentimentScoreSerde, pendingMessageSerde, registry,
+                new LexiconSentimentEngine(registry), engineProperties, StreamMetrics.noop()).buildTopology(builder);
+            driver = new TopologyTestDriver(builder.build(), driverProperties("sentiment-scoring-benchmark"));
+            input = driver.createInputTopic(KafkaConstants.CHAT_MESSAGES_TOPIC,
+                new StringSerializer(), new ByteArraySerializer());
+            output = driver.createOutputTopic(KafkaConstants.SENTIMENT_SCORES_TOPIC,
+                new StringDeserializer(), new ByteArrayDeserializer());
+
+            keys = new ArrayList<>(BATCH);
+            values = new ArrayList<>(BATCH);
+            for (ChatMessage message : Corpus.chatMessages(BATCH, USERS, 10L)) {
+                keys.add(message.getUserId());
+                values.add(chatMessageSerde.serializer().serialize(KafkaConstants.CHAT_MESSAGES_TOPIC, message));
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            driver.close();
+            registry.close();
+            if (modelFile != null) {
+                Files.deleteIfExists(modelFile);
+            }
+        }
+
+        long nextTimestamp() {
+            return timestamp += 10L;
+        }
+    }
+
+    @Benchmark
+    public double lexicon(ScorerState state) {
+        return state.lexicon.score(state.next());
+    }
+
+    @Benchmark
+    public double ngram(ScorerState state) {
+        return state.ngram.score(state.next());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int analyzeSentiment(TopologyState state) {
+        for (int i = 0; i < BATCH; i++) {
+            state.input.pipeInput(state.keys.get(i), state.values.get(i), state.nextTimestamp());
+        }
+        // 取走输出，避免 driver 内部的输出队列无限增长
+        return state.output.readRecordsToList().size();
+    }
+
+    /**
+     * 用词典分数作为标签训练 n-gram 模型：权重分布接近真实模型，打分开销才有代表性
+     */
+    static NgramSentimentModel distill(LexiconSentimentScorer scorer) {
+        List<String> texts = Corpus.messages();
+        List<Double> scores = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            scores.add(scorer.score(text));
+        }
+        return new NgramModelTrainer().epochs(5).train("bench-distilled", texts, scores);
+    }
+
+    static Properties driverProperties(String applicationId) {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 0L);
+        return props;
+    }
+}
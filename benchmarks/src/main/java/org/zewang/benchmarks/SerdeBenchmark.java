@@ -0,0 +1,180 @@
+package org.zewang.benchmarks;
+
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.common.serialization.Serde;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.dto.SentimentRollup;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.SentimentScoreView;
+import org.zewang.common.dto.WarningAlert;
+import org.zewang.common.serde.ChatMessageBinarySerde;
+import org.zewang.common.serde.JsonSerde;
+import org.zewang.common.serde.ProjectionSerde;
+import org.zewang.common.serde.SentimentScoreBinarySerde;
+import org.zewang.common.serde.WarningAlertBinarySerde;
+import org.zewang.stream.model.PendingMessage;
+import org.zewang.stream.serde.PendingMessageBinarySerde;
+import org.zewang.stream.serde.SentimentStatsSerde;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 各个 DTO 在不同 Serde 下的序列化 / 反序列化吞吐和分配
+ * codec 参数的格式是 "DTO/格式"：json（默认 JsonSerde）、blackbird（JsonSerde + Blackbird）、binary（BinarySerde 系列）
+ * 另外比较 sentiment-scores 的整条反序列化和只取三个字段的投影反序列化
+ * 输入在多条样本之间轮换，避免每次都是同一条消息
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 01:25
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerdeBenchmark {
+
+    static final String TOPIC = "benchmark";
+    static final int SAMPLES = 256;
+    static final int USERS = 1_000;
+
+    @State(Scope.Thread)
+    public static class CodecState {
+
+        @Param({
+            "ChatMessage/json", "ChatMessage/blackbird", "ChatMessage/binary",
+            "SentimentScore/json", "SentimentScore/blackbird", "SentimentScore/binary",
+            "WarningAlert/json", "WarningAlert/blackbird", "WarningAlert/binary",
+            "SentimentRollup/json", "SentimentRollup/blackbird",
+            "PendingMessage/json", "PendingMessage/binary",
+            "SentimentStats/binary"
+        })
+        public String codec;
+
+        Serde<Object> serde;
+        Object[] values;
+        byte[][] encoded;
+        private int index;
+
+        @Setup
+        public void setup() {
+            String[] parts = codec.split("/");
+            String format = parts[1];
+            switch (parts[0]) {
+                case "ChatMessage" -> init(select(format, ChatMessage.class, new ChatMessageBinarySerde()),
+                    Corpus.chatMessages(SAMPLES, USERS, 1_000L));
+                case "SentimentScore" -> init(select(format, SentimentScore.class, new SentimentScoreBinarySerde()),
+                    Corpus.sentimentScores(SAMPLES, USERS, 1_000L));
+                case "WarningAlert" -> init(select(format, WarningAlert.class, new WarningAlertBinarySerde()),
+                    Corpus.warningAlerts(SAMPLES, USERS));
+                case "SentimentRollup" -> init(select(format, SentimentRollup.class, null),
+                    Corpus.sentimentRollups(SAMPLES, USERS));
+                case "PendingMessage" -> init(select(format, PendingMessage.class, new PendingMessageBinarySerde()),
+                    Corpus.pendingMessages(SAMPLES, USERS));
+                case "SentimentStats" -> init(new SentimentStatsSerde(), Corpus.sentimentStats(SAMPLES));
+                default -> throw new IllegalArgumentException("未知的 DTO: " + codec);
+            }
+        }
+
+        private static <T> Serde<T> select(String format, Class<T> type, Serde<T> binary) {
+            return switch (format) {
+                case "json" -> new JsonSerde<>(type, false);
+                case "blackbird" -> new JsonSerde<>(type, true);
+                case "binary" -> {
+                    if (binary == null) {
+                        throw new IllegalArgumentException(type.getSimpleName() + " 没有二进制 Serde");
+                    }
+                    yield binary;
+                }
+                default -> throw new IllegalArgumentException("未知的格式: " + format);
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> void init(Serde<T> typed, List<T> samples) {
+            this.serde = (Serde<Object>) typed;
+            this.values = samples.toArray();
+            this.encoded = new byte[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                encoded[i] = serde.serializer().serialize(TOPIC, values[i]);
+            }
+        }
+
+        int next() {
+            index = (index + 1) & (SAMPLES - 1);
+            return index;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ProjectionState {
+
+        // sentiment-scores 上游的编码格式，投影反序列化两种都能读
+        @Param({"json", "binary"})
+        public String source;
+
+        Serde<SentimentScore> full;
+        ProjectionSerde<SentimentScoreView> projection;
+        SentimentScoreView holder;
+        byte[][] encoded;
+        private int index;
+
+        @Setup
+        public void setup() {
+            Serde<SentimentScore> writer = "binary".equals(source)
+                ? new SentimentScoreBinarySerde()
+                : new JsonSerde<>(SentimentScore.class);
+            full = writer;
+            projection = ProjectionSerde.sentimentScoreView();
+            holder = new SentimentScoreView();
+            List<SentimentScore> samples = Corpus.sentimentScores(SAMPLES, USERS, 1_000L);
+            encoded = new byte[samples.size()][];
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = writer.serializer().serialize(TOPIC, samples.get(i));
+            }
+        }
+
+        byte[] next() {
+            index = (index + 1) & (SAMPLES - 1);
+            return encoded[index];
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize(CodecState state) {
+        return state.serde.serializer().serialize(TOPIC, state.values[state.next()]);
+    }
+
+    @Benchmark
+    public Object deserialize(CodecState state) {
+        return state.serde.deserializer().deserialize(TOPIC, state.encoded[state.next()]);
+    }
+
+    @Benchmark
+    public SentimentScore fullDecode(ProjectionState state) {
+        return state.full.deserializer().deserialize(TOPIC, state.next());
+    }
+
+    @Benchmark
+    public SentimentScoreView project(ProjectionState state) {
+        return state.projection.deserializer().deserialize(TOPIC, state.next());
+    }
+
+    @Benchmark
+    public SentimentScoreView projectInto(ProjectionState state) {
+        return state.projection.deserializeInto(TOPIC, state.next(), state.holder);
+    }
+}
@@ -0,0 +1,139 @@
+package org.zewang.benchmarks;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.WarningAlert;
+import org.zewang.common.serde.JsonSerde;
+import org.zewang.common.serde.ProjectionSerde;
+import org.zewang.common.serde.SentimentScoreBinarySerde;
+import org.zewang.stream.config.AlertProperties;
+import org.zewang.stream.config.AlertProperties.EmitMode;
+import org.zewang.stream.config.WindowProperties;
+import org.zewang.stream.config.WindowProperties.Aggregation;
+import org.zewang.stream.metrics.StreamMetrics;
+import org.zewang.stream.serde.SentimentStatsSerde;
+import org.zewang.stream.service.WarningAlertProcessor;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: WarningAlertProcessor 的窗口聚合路径（sentiment-scores -> 窗口统计 -> warning-alerts）
+ * 用 TopologyTestDriver 驱动真实拓扑和持久化（RocksDB）窗口存储，比较 DSL 跳动窗口和 pane 聚合、EAGER 和 FINAL 输出
+ * 记录按 100ms 递增时间戳写入，窗口会持续关闭、过期，状态大小保持稳定
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 01:55
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WindowAggregationBenchmark {
+
+    static final int BATCH = 1_024;
+    static final long STEP_MS = 100L;
+
+    @Param({"HOPPING", "PANE"})
+    public String aggregation;
+
+    @Param({"EAGER", "FINAL"})
+    public String emitMode;
+
+    @Param({"100", "10000"})
+    public int users;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    private Path stateDir;
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, byte[]> input;
+    private TestOutputTopic<byte[], byte[]> output;
+    private List<String> keys;
+    private List<byte[]> values;
+    private long timestamp = Corpus.BASE_TIMESTAMP;
+
+    @Setup
+    public void setup() throws IOException {
+        AlertProperties alertProperties = new AlertProperties();
+        alertProperties.setEmitMode(EmitMode.valueOf(emitMode));
+        WindowProperties windowProperties = new WindowProperties();
+        windowProperties.setAggregation(Aggregation.valueOf(aggregation));
+
+        StreamsBuilder builder = new StreamsBuilder();
+        new WarningAlertProcessor(ProjectionSerde.sentimentScoreView(), new JsonSerde<>(WarningAlert.class),
+            new SentimentStatsSerde(), alertProperties, windowProperties, StreamMetrics.noop()).buildTopology(builder);
+
+        stateDir = Files.createTempDirectory("bench-window-state");
+        Properties props = SentimentScoringBenchmark.driverProperties("window-aggregation-benchmark");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        driver = new TopologyTestDriver(builder.build(), props);
+        input = driver.createInputTopic(KafkaConstants.SENTIMENT_SCORES_TOPIC,
+            new StringSerializer(), new ByteArraySerializer());
+        output = driver.createOutputTopic(KafkaConstants.WARNING_ALERTS_TOPIC,
+            new ByteArrayDeserializer(), new ByteArrayDeserializer());
+
+        Serde<SentimentScore> encoder = "binary".equals(format)
+            ? new SentimentScoreBinarySerde() : new JsonSerde<>(SentimentScore.class);
+        keys = new ArrayList<>(BATCH);
+        values = new ArrayList<>(BATCH);
+        for (SentimentScore score : Corpus.sentimentScores(BATCH, users, STEP_MS)) {
+            keys.add(score.getUserId());
+            values.add(encoder.serializer().serialize(KafkaConstants.SENTIMENT_SCORES_TOPIC, score));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        driver.close();
+        try (Stream<Path> paths = Files.walk(stateDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int aggregate() {
+        for (int i = 0; i < BATCH; i++) {
+            input.pipeInput(keys.get(i), values.get(i), timestamp += STEP_MS);
+        }
+        // 取走预警输出，避免 driver 内部的输出队列无限增长
+        return output.readRecordsToList().size();
+    }
+}
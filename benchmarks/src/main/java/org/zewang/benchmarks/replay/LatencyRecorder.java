@@ -0,0 +1,57 @@
+package org.zewang.benchmarks.replay;
+
+
+import java.util.Arrays;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 记录每条记录的处理耗时（纳秒），回放结束后排序求分位数
+ * 回放的数据量是有限的，直接保存全部样本，分位数是精确值
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 02:30
+ */
+
+public final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long total;
+    private boolean sorted = true;
+
+    public void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        total += nanos;
+        sorted = false;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long totalNanos() {
+        return total;
+    }
+
+    public double meanNanos() {
+        return count == 0 ? 0.0 : (double) total / count;
+    }
+
+    /**
+     * 最近秩分位数，percentile 取 [0, 100]
+     */
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0L;
+        }
+        if (!sorted) {
+            Arrays.sort(samples, 0, count);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return samples[Math.min(count, Math.max(rank, 1)) - 1];
+    }
+}
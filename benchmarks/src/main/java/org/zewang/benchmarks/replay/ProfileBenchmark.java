@@ -0,0 +1,340 @@
+package org.zewang.benchmarks.replay;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.zewang.benchmarks.Corpus;
+import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.serde.JsonSerde;
+import org.zewang.stream.config.AlertProperties;
+import org.zewang.stream.config.BoundedMemoryRocksDBConfigSetter;
+import org.zewang.stream.config.EngineProperties;
+import org.zewang.stream.config.LexiconProperties;
+import org.zewang.stream.config.RollupProperties;
+import org.zewang.stream.config.RuntimeProfile;
+import org.zewang.stream.config.RuntimeProperties;
+import org.zewang.stream.config.SerdeProperties;
+import org.zewang.stream.config.StateStoreProperties;
+import org.zewang.stream.config.StreamTopologyBuilder;
+import org.zewang.stream.config.TopologyProperties;
+import org.zewang.stream.config.WindowProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 运行档位基准：在内嵌的单节点 KRaft broker 上启动真实的 KafkaStreams，对比各档位的延迟和吞吐
+ * 线程数、缓存、提交间隔、攒批、拉取等待和事务只有在真实的 broker 往返中才有效果，TopologyTestDriver 测不出来
+ * 每个档位使用一个全新的 broker，分两个阶段：
+ * - 延迟：按固定速率写入 chat-messages（记录时间戳为发送时刻），在 sentiment-scores 上以 read_committed 读取，
+ *   统计 发送 -> 结果可见 的端到端延迟分位数
+ * - 吞吐：一次性写入一批消息，统计从开始写入到最后一条结果可见的速率
+ * 用法：java -cp benchmarks.jar org.zewang.benchmarks.replay.ProfileBenchmark [--key=value ...]
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 04:50
+ */
+
+public class ProfileBenchmark {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 100};
+    private static final int USERS = 500;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(120);
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+
+    private int rate = 500;
+    private Duration duration = Duration.ofSeconds(10);
+    private int burst = 50_000;
+    private Integer streamThreads;
+
+    /**
+     * 跑一个档位，返回结果（延迟单位 ms，吞吐单位 records/s）
+     */
+    public Map<String, Object> run(RuntimeProfile profile) throws Exception {
+        EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, 3,
+            KafkaConstants.CHAT_MESSAGES_TOPIC, KafkaConstants.SENTIMENT_SCORES_TOPIC, KafkaConstants.WARNING_ALERTS_TOPIC);
+        // 单节点 broker 上的事务和 consumer group 内部 topic 只能有一个副本
+        broker.brokerProperty("transaction.state.log.replication.factor", "1");
+        broker.brokerProperty("transaction.state.log.min.isr", "1");
+        broker.brokerProperty("offsets.topic.replication.factor", "1");
+        broker.brokerProperty("group.initial.rebalance.delay.ms", "0");
+        broker.afterPropertiesSet();
+
+        Path stateDir = Files.createTempDirectory("stream-mind-profile");
+        SerdeProperties serdeProperties = new SerdeProperties();
+        try (TopologyComponents components = new TopologyComponents(new AlertProperties(), new WindowProperties(),
+                new RollupProperties(), new EngineProperties(), new LexiconProperties(), serdeProperties);
+             KafkaProducer<String, ChatMessage> producer = new KafkaProducer<>(producerProps(broker),
+                 new StringSerializer(), components.chatMessageSerde.serializer());
+             ScoreReader reader = new ScoreReader(broker.getBrokersAsString())) {
+
+            StreamsBuilder builder = new StreamsBuilder();
+            // 两段式拓扑：延迟在 sentiment-scores 上测量，需要完整的分数输出
+            new StreamTopologyBuilder(components.sentimentAnalysis, components.warningAlert, components.sentimentRollup,
+                new TopologyProperties()).buildTopology(builder);
+            KafkaStreams streams = new KafkaStreams(builder.build(), streamsProps(profile, broker, stateDir));
+            try {
+                streams.start();
+                awaitRunning(streams);
+                reader.start();
+
+                // 0. 预热：等读取端拿到分区，先按同样速率写一段，排除加入 group 和 JIT 的影响
+                List<ChatMessage> warmup = Corpus.chatMessages(rate * (int) WARMUP.toSeconds(), USERS, 0L);
+                sendAtRate(producer, warmup);
+                reader.await(warmup.size());
+                reader.takeLatency();
+
+                // 1. 固定速率写入，统计端到端延迟
+                List<ChatMessage> messages = Corpus.chatMessages(rate * (int) duration.toSeconds(), USERS, 0L);
+                long expectedAfterRate = reader.consumed() + messages.size();
+                sendAtRate(producer, messages);
+                reader.await(expectedAfterRate);
+                LatencyRecorder latency = reader.takeLatency();
+
+                // 2. 一次性写入一批，统计追赶吞吐
+                List<ChatMessage> batch = Corpus.chatMessages(burst, USERS, 0L);
+                long expected = reader.consumed() + batch.size();
+                long started = System.nanoTime();
+                for (ChatMessage message : batch) {
+                    send(producer, message);
+                }
+                producer.flush();
+                long finished = reader.await(expected);
+
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("profile", profile.name());
+                result.put("streamThreads", streamThreads != null ? streamThreads : profile.getStreamThreads());
+                result.put("rate", rate);
+                Map<String, Object> latencyMillis = new LinkedHashMap<>();
+                for (double percentile : PERCENTILES) {
+                    latencyMillis.put("p" + formatPercentile(percentile), latency.percentile(percentile) / 1e6);
+                }
+                result.put("latencyMillis", latencyMillis);
+                result.put("burst", burst);
+                result.put("recordsPerSecond", burst * 1e9 / (finished - started));
+                return result;
+            } finally {
+                streams.close(Duration.ofSeconds(30));
+            }
+        } finally {
+            broker.destroy();
+            deleteRecursively(stateDir);
+        }
+    }
+
+    private void sendAtRate(KafkaProducer<String, ChatMessage> producer, List<ChatMessage> messages) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long next = System.nanoTime();
+        for (ChatMessage message : messages) {
+            while (System.nanoTime() < next) {
+                Thread.onSpinWait();
+            }
+            next += intervalNanos;
+            send(producer, message);
+        }
+        producer.flush();
+    }
+
+    private static void send(KafkaProducer<String, ChatMessage> producer, ChatMessage message) {
+        long now = System.currentTimeMillis();
+        message.setTimestamp(now);
+        producer.send(new ProducerRecord<>(KafkaConstants.CHAT_MESSAGES_TOPIC, null, now, message.getUserId(), message));
+    }
+
+    // 与 KafkaStreamConfig 一致：默认 Serde、有上限的 RocksDB 内存，再叠加运行档位
+    private Properties streamsProps(RuntimeProfile profile, EmbeddedKafkaKraftBroker broker, Path stateDir) {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "stream-mind-profile-" + profile.name().toLowerCase(Locale.ROOT));
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, JsonSerde.class.getName());
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        props.put(StreamsConfig.REPLICATION_FACTOR_CONFIG, 1);
+        StateStoreProperties.RocksDb rocksDb = new StateStoreProperties().getRocksdb();
+        props.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, BoundedMemoryRocksDBConfigSetter.class);
+        props.putAll(BoundedMemoryRocksDBConfigSetter.configs(rocksDb));
+
+        RuntimeProperties runtime = new RuntimeProperties();
+        runtime.setProfile(profile);
+        runtime.setStreamThreads(streamThreads);
+        props.putAll(runtime.streamsConfigs());
+        return props;
+    }
+
+    // 压测客户端本身不做攒批，避免把发送端的 linger 计入各档位的延迟
+    private static Properties producerProps(EmbeddedKafkaKraftBroker broker) {
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+        return props;
+    }
+
+    private static void awaitRunning(KafkaStreams streams) throws InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (streams.state() != KafkaStreams.State.RUNNING) {
+            if (System.nanoTime() > deadline || streams.state() == KafkaStreams.State.ERROR) {
+                throw new IllegalStateException("KafkaStreams 未能进入 RUNNING: " + streams.state());
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile);
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * 在独立线程上读取 sentiment-scores（read_committed，与下游服务看到的一致），记录每条结果的可见延迟
+     */
+    private static final class ScoreReader implements AutoCloseable {
+        private final KafkaConsumer<String, byte[]> consumer;
+        private final AtomicLong consumed = new AtomicLong();
+        private final AtomicLong lastConsumedNanos = new AtomicLong();
+        private final Thread thread;
+        private volatile boolean running = true;
+        private LatencyRecorder latency = new LatencyRecorder();
+
+        private ScoreReader(String bootstrapServers) {
+            Properties props = new Properties();
+            props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            props.put(ConsumerConfig.GROUP_ID_CONFIG, "stream-mind-profile-reader");
+            props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+            props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+            props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 10);
+            this.consumer = new KafkaConsumer<>(props, new StringDeserializer(), new ByteArrayDeserializer());
+            this.thread = new Thread(this::poll, "profile-score-reader");
+            this.thread.setDaemon(true);
+        }
+
+        private void start() {
+            consumer.subscribe(List.of(KafkaConstants.SENTIMENT_SCORES_TOPIC));
+            thread.start();
+        }
+
+        private void poll() {
+            while (running) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(50))) {
+                    long now = System.currentTimeMillis();
+                    synchronized (this) {
+                        latency.record(TimeUnit.MILLISECONDS.toNanos(Math.max(0L, now - record.timestamp())));
+                    }
+                    lastConsumedNanos.set(System.nanoTime());
+                    consumed.incrementAndGet();
+                }
+            }
+            consumer.close();
+        }
+
+        private long consumed() {
+            return consumed.get();
+        }
+
+        /**
+         * 等到累计读到 expected 条结果，返回最后一条结果被读到的时刻（System.nanoTime）
+         */
+        private long await(long expected) throws InterruptedException {
+            long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+            while (consumed.get() < expected) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("等待结果超时: expected=" + expected + ", consumed=" + consumed.get());
+                }
+                Thread.sleep(10);
+            }
+            return lastConsumedNanos.get();
+        }
+
+        private synchronized LatencyRecorder takeLatency() {
+            LatencyRecorder taken = latency;
+            latency = new LatencyRecorder();
+            return taken;
+        }
+
+        // 不抛 InterruptedException：被中断时保留中断标记，由调用方处理
+        @Override
+        public void close() {
+            running = false;
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 参数（均可选）：
+     * --profiles=low-latency,throughput,exactly-once  --rate=500（延迟阶段每秒写入条数）  --duration=10s
+     * --burst=50000（吞吐阶段写入条数）  --stream-threads=N（覆盖档位线程数）  --report=profiles.json
+     */
+    public static void main(String[] args) throws Exception {
+        ProfileBenchmark benchmark = new ProfileBenchmark();
+        List<RuntimeProfile> profiles = List.of(RuntimeProfile.values());
+        Path reportPath = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("参数格式应为 --key=value: " + arg);
+            }
+            String key = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "profiles" -> profiles = Stream.of(value.split(","))
+                    .map(name -> RuntimeProfile.valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT)))
+                    .toList();
+                case "rate" -> benchmark.rate = Integer.parseInt(value);
+                case "duration" -> benchmark.duration = Duration.ofSeconds(Long.parseLong(value.replace("s", "")));
+                case "burst" -> benchmark.burst = Integer.parseInt(value);
+                case "stream-threads" -> benchmark.streamThreads = Integer.parseInt(value);
+                case "report" -> reportPath = Path.of(value);
+                default -> throw new IllegalArgumentException("未知参数: " + arg);
+            }
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (RuntimeProfile profile : profiles) {
+            Map<String, Object> result = benchmark.run(profile);
+            results.add(result);
+            System.out.printf(Locale.ROOT, "%-13s threads=%s latency(ms)=%s throughput=%.0f records/s%n",
+                profile, result.get("streamThreads"), result.get("latencyMillis"), (double) result.get("recordsPerSecond"));
+        }
+        if (reportPath != null) {
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), results);
+        }
+    }
+}
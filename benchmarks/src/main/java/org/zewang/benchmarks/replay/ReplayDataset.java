@@ -0,0 +1,128 @@
+package org.zewang.benchmarks.replay;
+
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.zewang.common.dto.ChatMessage;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 回放数据集：chat-messages 的离线副本
+ * - JSONL（.jsonl / .json）：每行一个 ChatMessage JSON，与生产者写入 topic 的格式一致
+ * - CSV（.csv）：userId,timestamp,message，message 可以用双引号包裹（"" 转义），首行表头可选
+ * 空行和 # 开头的行忽略；记录保持文件中的顺序（即回放顺序）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 02:20
+ */
+
+public final class ReplayDataset {
+
+    public enum Format {
+        JSONL,
+        CSV
+    }
+
+    private static final ObjectReader CHAT_MESSAGE_READER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+        .readerFor(ChatMessage.class);
+
+    private ReplayDataset() {
+    }
+
+    public static List<ChatMessage> load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return read(reader, formatOf(path));
+        }
+    }
+
+    public static Format formatOf(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return Format.CSV;
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".json")) {
+            return Format.JSONL;
+        }
+        throw new IllegalArgumentException("无法识别的数据集格式（支持 .jsonl / .csv）: " + path);
+    }
+
+    public static List<ChatMessage> read(Reader reader, Format format) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        List<ChatMessage> messages = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                ChatMessage message = format == Format.JSONL ? CHAT_MESSAGE_READER.readValue(line) : parseCsv(line);
+                if (message != null) {
+                    messages.add(message);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                throw new IOException("数据集第 " + lineNumber + " 行格式错误: " + e.getMessage(), e);
+            }
+        }
+        return messages;
+    }
+
+    // 表头行返回 null
+    private static ChatMessage parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() != 3) {
+            throw new IllegalArgumentException("CSV 需要 3 列 userId,timestamp,message，实际 " + fields.size() + " 列");
+        }
+        if ("timestamp".equalsIgnoreCase(fields.get(1).trim())) {
+            return null;
+        }
+        ChatMessage message = new ChatMessage();
+        message.setUserId(fields.get(0));
+        message.setTimestamp(Long.parseLong(fields.get(1).trim()));
+        message.setMessage(fields.get(2));
+        return message;
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("引号未闭合");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,109 @@
+package org.zewang.benchmarks.replay;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 一次回放的结果：吞吐、整条拓扑和各阶段的单条记录耗时分位数、状态存储大小、各输出 topic 的记录数
+ * 以及按输出顺序排列的预警（用于回归比对）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 02:35
+ */
+
+@Getter
+public class ReplayReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 100};
+
+    private final int records;
+    private final long elapsedNanos;
+    private final LatencyRecorder topologyLatency;
+    private final Map<String, LatencyRecorder> stageLatencies;
+    private final Map<String, Long> storeSizes;
+    private final Map<String, Long> outputCounts;
+    private final List<String> alerts;
+
+    ReplayReport(int records, long elapsedNanos, LatencyRecorder topologyLatency,
+        Map<String, LatencyRecorder> stageLatencies, Map<String, Long> storeSizes, Map<String, Long> outputCounts,
+        List<String> alerts) {
+        this.records = records;
+        this.elapsedNanos = elapsedNanos;
+        this.topologyLatency = topologyLatency;
+        this.stageLatencies = Collections.unmodifiableMap(new LinkedHashMap<>(stageLatencies));
+        this.storeSizes = Collections.unmodifiableMap(new LinkedHashMap<>(storeSizes));
+        this.outputCounts = Collections.unmodifiableMap(new LinkedHashMap<>(outputCounts));
+        this.alerts = Collections.unmodifiableList(new ArrayList<>(alerts));
+    }
+
+    /**
+     * 单个 stream 线程每秒处理的输入记录数（TopologyTestDriver 在调用线程上同步执行整条拓扑）
+     */
+    public double recordsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : records * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * 机器可读的结果（预警明细不包含在内，只给出数量）
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("records", records);
+        result.put("elapsedMs", elapsedNanos / 1_000_000.0);
+        result.put("recordsPerSecond", recordsPerSecond());
+        result.put("topologyLatencyMicros", latencyMap(topologyLatency));
+        Map<String, Object> stages = new LinkedHashMap<>();
+        stageLatencies.forEach((stage, latency) -> stages.put(stage, latencyMap(latency)));
+        result.put("stageLatencyMicros", stages);
+        result.put("storeSizes", storeSizes);
+        result.put("outputCounts", outputCounts);
+        result.put("alerts", alerts.size());
+        return result;
+    }
+
+    public String summary() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "records=%d, elapsed=%.1fms, throughput=%.0f records/s%n",
+            records, elapsedNanos / 1_000_000.0, recordsPerSecond()));
+        text.append("latency (us)        ").append(latencyLine(topologyLatency, "topology")).append('\n');
+        stageLatencies.forEach((stage, latency) ->
+            text.append("                    ").append(latencyLine(latency, stage)).append('\n'));
+        text.append("state stores: ").append(storeSizes).append('\n');
+        text.append("outputs: ").append(outputCounts).append('\n');
+        return text.toString();
+    }
+
+    private static Map<String, Object> latencyMap(LatencyRecorder latency) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", latency.count());
+        result.put("mean", latency.meanNanos() / 1_000.0);
+        for (double percentile : PERCENTILES) {
+            result.put(percentileName(percentile), latency.percentile(percentile) / 1_000.0);
+        }
+        return result;
+    }
+
+    private static String latencyLine(LatencyRecorder latency, String name) {
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-20s mean=%.1f", name, latency.meanNanos() / 1_000.0));
+        for (double percentile : PERCENTILES) {
+            line.append(String.format(Locale.ROOT, " %s=%.1f", percentileName(percentile), latency.percentile(percentile) / 1_000.0));
+        }
+        return line.toString();
+    }
+
+    private static String percentileName(double percentile) {
+        if (percentile == 100) {
+            return "max";
+        }
+        return "p" + (percentile == Math.rint(percentile)
+            ? String.valueOf((long) percentile)
+            : String.valueOf(percentile).replace(".", ""));
+    }
+}
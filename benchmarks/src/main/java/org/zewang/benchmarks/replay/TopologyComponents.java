@@ -0,0 +1,58 @@
+package org.zewang.benchmarks.replay;
+
+
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.apache.kafka.common.serialization.Serde;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.dto.WarningAlert;
+import org.zewang.stream.config.AlertProperties;
+import org.zewang.stream.config.EngineProperties;
+import org.zewang.stream.config.LexiconProperties;
+import org.zewang.stream.config.RollupProperties;
+import org.zewang.stream.config.SerdeProperties;
+import org.zewang.stream.config.StreamConfig;
+import org.zewang.stream.config.WindowProperties;
+import org.zewang.stream.metrics.StreamMetrics;
+import org.zewang.stream.sentiment.LexiconRegistry;
+import org.zewang.stream.service.SentimentAnalysisProcessor;
+import org.zewang.stream.service.SentimentRollupProcessor;
+import org.zewang.stream.service.WarningAlertProcessor;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 按 StreamConfig 的方式装配拓扑用到的 Serde 和处理器（回放工具和 broker 基准共用）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 04:40
+ */
+
+final class TopologyComponents implements AutoCloseable {
+
+    final Serde<ChatMessage> chatMessageSerde;
+    final Serde<WarningAlert> warningAlertSerde;
+    final LexiconRegistry lexiconRegistry;
+    final SentimentAnalysisProcessor sentimentAnalysis;
+    final WarningAlertProcessor warningAlert;
+    final SentimentRollupProcessor sentimentRollup;
+
+    TopologyComponents(AlertProperties alertProperties, WindowProperties windowProperties,
+        RollupProperties rollupProperties, EngineProperties engineProperties, LexiconProperties lexiconProperties,
+        SerdeProperties serdeProperties) {
+        StreamConfig config = new StreamConfig();
+        chatMessageSerde = config.chatMessageSerde(serdeProperties);
+        warningAlertSerde = config.warningAlertSerde(serdeProperties);
+        lexiconRegistry = config.lexiconRegistry(lexiconProperties);
+        sentimentAnalysis = new SentimentAnalysisProcessor(chatMessageSerde,
+            config.sentimentScoreSerde(serdeProperties), config.pendingMessageSerde(serdeProperties), lexiconRegistry,
+            config.sentimentEngine(engineProperties, lexiconRegistry, new CompositeMeterRegistry()), engineProperties, StreamMetrics.noop());
+        warningAlert = new WarningAlertProcessor(config.sentimentScoreViewSerde(), warningAlertSerde,
+            config.sentimentStatsSerde(), alertProperties, windowProperties, StreamMetrics.noop());
+        sentimentRollup = new SentimentRollupProcessor(config.sentimentRollupSerde(serdeProperties), warningAlertSerde,
+            config.sentimentStatsSerde(), rollupProperties, alertProperties, StreamMetrics.noop());
+    }
+
+    @Override
+    public void close() {
+        lexiconRegistry.close();
+    }
+}
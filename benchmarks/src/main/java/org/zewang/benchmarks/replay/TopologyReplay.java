@@ -0,0 +1,442 @@
+package org.zewang.benchmarks.replay;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+import lombok.Getter;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.kstream.WindowedSerdes;
+import org.apache.kafka.streams.processor.StateStore;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.test.TestRecord;
+import org.springframework.util.unit.DataSize;
+import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.dto.WarningAlert;
+import org.zewang.stream.config.AlertProperties;
+import org.zewang.stream.config.BoundedMemoryRocksDBConfigSetter;
+import org.zewang.stream.config.EngineProperties;
+import org.zewang.stream.config.LexiconProperties;
+import org.zewang.stream.config.RollupProperties;
+import org.zewang.stream.config.SerdeProperties;
+import org.zewang.stream.config.StateStoreProperties;
+import org.zewang.stream.config.StreamTopologyBuilder;
+import org.zewang.stream.config.TopologyProperties;
+import org.zewang.stream.config.WindowProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 不依赖 broker 的拓扑回放工具
+ * 把数据集按顺序写入 chat-messages，用 TopologyTestDriver 驱动 StreamTopologyBuilder 构建的完整拓扑：
+ * - 时间是模拟的：每条记录使用数据集中的时间戳，wall-clock 跟随记录时间推进（异步打分的 punctuator 会按时触发）
+ * - 统计单线程吞吐、每条记录穿过整条拓扑的耗时分位数、回放结束时的状态存储大小和各输出 topic 的记录数
+ * - 各阶段耗时：按 topic 边界把拓扑拆开（与两段式拓扑的子拓扑划分一致），再回放一遍分别计时
+ * 组件的装配方式与 StreamConfig 相同，配置默认值与 application.yml 一致
+ * 用法：java -cp benchmarks.jar org.zewang.benchmarks.replay.TopologyReplay dataset.jsonl [--key=value ...]
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 02:45
+ */
+
+@Getter
+public class TopologyReplay {
+
+    public static final String STAGE_SENTIMENT = "sentiment-analysis";
+    public static final String STAGE_ALERT = "warning-alert";
+    public static final String STAGE_ROLLUP = "sentiment-rollup";
+
+    private static final String APPLICATION_ID = "stream-mind-replay";
+    // 每回放这么多条记录取走一次输出，避免 driver 的输出队列无限增长
+    private static final int DRAIN_INTERVAL = 1024;
+
+    private final AlertProperties alertProperties = new AlertProperties();
+    private final WindowProperties windowProperties = new WindowProperties();
+    private final RollupProperties rollupProperties = new RollupProperties();
+    private final EngineProperties engineProperties = new EngineProperties();
+    private final LexiconProperties lexiconProperties = new LexiconProperties();
+    private final SerdeProperties serdeProperties = new SerdeProperties();
+    private final StateStoreProperties stateStoreProperties = new StateStoreProperties();
+    private final TopologyProperties topologyProperties = new TopologyProperties();
+    private boolean stageBreakdown = true;
+
+    public TopologyReplay stageBreakdown(boolean stageBreakdown) {
+        this.stageBreakdown = stageBreakdown;
+        return this;
+    }
+
+    public ReplayReport run(List<ChatMessage> messages) throws IOException {
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("回放数据集为空");
+        }
+        Map<String, LatencyRecorder> stages = new LinkedHashMap<>();
+        if (stageBreakdown) {
+            runStages(messages, stages);
+        }
+        try (TopologyComponents components = newComponents()) {
+            StreamsBuilder builder = new StreamsBuilder();
+            new StreamTopologyBuilder(components.sentimentAnalysis, components.warningAlert, components.sentimentRollup,
+                topologyProperties).buildTopology(builder);
+
+            try (DriverHandle handle = new DriverHandle(builder, messages.get(0).getTimestamp(), streamsOverrides())) {
+                TopologyTestDriver driver = handle.driver;
+                TestInputTopic<String, ChatMessage> input = driver.createInputTopic(KafkaConstants.CHAT_MESSAGES_TOPIC,
+                    new StringSerializer(), components.chatMessageSerde.serializer());
+                // 融合拓扑不写旁路输出时拓扑里没有 sentiment-scores
+                TestOutputTopic<String, byte[]> scores = scoresWritten()
+                    ? driver.createOutputTopic(KafkaConstants.SENTIMENT_SCORES_TOPIC,
+                        new StringDeserializer(), new ByteArrayDeserializer())
+                    : null;
+                // 未启用多粒度汇总时拓扑里没有 sentiment-rollups / rollup-alerts
+                TestOutputTopic<String, byte[]> rollups = rollupEnabled()
+                    ? driver.createOutputTopic(KafkaConstants.SENTIMENT_ROLLUPS_TOPIC,
+                        new StringDeserializer(), new ByteArrayDeserializer())
+                    : null;
+                TestOutputTopic<String, byte[]> rollupAlerts = rollupEnabled()
+                    ? driver.createOutputTopic(KafkaConstants.ROLLUP_ALERTS_TOPIC,
+                        new StringDeserializer(), new ByteArrayDeserializer())
+                    : null;
+                TestOutputTopic<Windowed<String>, WarningAlert> alertTopic = driver.createOutputTopic(
+                    KafkaConstants.WARNING_ALERTS_TOPIC,
+                    WindowedSerdes.timeWindowedSerdeFrom(String.class, windowProperties.getSize().toMillis()).deserializer(),
+                    components.warningAlertSerde.deserializer());
+
+                Map<String, Long> outputCounts = new LinkedHashMap<>();
+                outputCounts.put(KafkaConstants.SENTIMENT_SCORES_TOPIC, 0L);
+                outputCounts.put(KafkaConstants.WARNING_ALERTS_TOPIC, 0L);
+                outputCounts.put(KafkaConstants.SENTIMENT_ROLLUPS_TOPIC, 0L);
+                outputCounts.put(KafkaConstants.ROLLUP_ALERTS_TOPIC, 0L);
+                List<String> alerts = new ArrayList<>();
+                LatencyRecorder latency = new LatencyRecorder();
+
+                long wallClock = messages.get(0).getTimestamp();
+                long started = System.nanoTime();
+                for (int i = 0; i < messages.size(); i++) {
+                    ChatMessage message = messages.get(i);
+                    wallClock = advanceWallClock(driver, wallClock, message.getTimestamp());
+                    long start = System.nanoTime();
+                    input.pipeInput(message.getUserId(), message, message.getTimestamp());
+                    latency.record(System.nanoTime() - start);
+                    if ((i + 1) % DRAIN_INTERVAL == 0) {
+                        drain(scores, rollups, rollupAlerts, alertTopic, outputCounts, alerts);
+                    }
+                }
+                long elapsed = System.nanoTime() - started;
+                drain(scores, rollups, rollupAlerts, alertTopic, outputCounts, alerts);
+
+                return new ReplayReport(messages.size(), elapsed, latency, stages, storeSizes(driver), outputCounts, alerts);
+            }
+        }
+    }
+
+    /**
+     * 按 topic 边界拆成三个拓扑：chat-messages -> sentiment-scores -> (预警, 多粒度汇总)
+     * 每条输入记录在各阶段的耗时分别计入对应的分位数（下游阶段计入该记录产生的全部分数的处理时间）
+     */
+    private void runStages(List<ChatMessage> messages, Map<String, LatencyRecorder> stages) throws IOException {
+        try (TopologyComponents components = newComponents()) {
+            StreamsBuilder analysisBuilder = new StreamsBuilder();
+            components.sentimentAnalysis.buildTopology(analysisBuilder);
+            StreamsBuilder alertBuilder = new StreamsBuilder();
+            components.warningAlert.buildTopology(components.warningAlert.sourceStream(alertBuilder));
+            StreamsBuilder rollupBuilder = null;
+            if (rollupEnabled()) {
+                rollupBuilder = new StreamsBuilder();
+                components.sentimentRollup.buildTopology(components.warningAlert.sourceStream(rollupBuilder));
+            }
+
+            long firstTimestamp = messages.get(0).getTimestamp();
+            try (DriverHandle analysis = new DriverHandle(analysisBuilder, firstTimestamp, streamsOverrides());
+                 DriverHandle alert = new DriverHandle(alertBuilder, firstTimestamp, streamsOverrides());
+                 DriverHandle rollup = rollupBuilder == null ? null : new DriverHandle(rollupBuilder, firstTimestamp, streamsOverrides())) {
+
+                TestInputTopic<String, ChatMessage> input = analysis.driver.createInputTopic(
+                    KafkaConstants.CHAT_MESSAGES_TOPIC, new StringSerializer(), components.chatMessageSerde.serializer());
+                TestOutputTopic<String, byte[]> scores = analysis.driver.createOutputTopic(
+                    KafkaConstants.SENTIMENT_SCORES_TOPIC, new StringDeserializer(), new ByteArrayDeserializer());
+                TestInputTopic<String, byte[]> alertInput = alert.driver.createInputTopic(
+                    KafkaConstants.SENTIMENT_SCORES_TOPIC, new StringSerializer(), new ByteArraySerializer());
+                TestInputTopic<String, byte[]> rollupInput = rollup == null ? null : rollup.driver.createInputTopic(
+                    KafkaConstants.SENTIMENT_SCORES_TOPIC, new StringSerializer(), new ByteArraySerializer());
+
+                LatencyRecorder analysisLatency = stages.computeIfAbsent(STAGE_SENTIMENT, stage -> new LatencyRecorder());
+                LatencyRecorder alertLatency = stages.computeIfAbsent(STAGE_ALERT, stage -> new LatencyRecorder());
+                LatencyRecorder rollupLatency = rollup == null
+                    ? null : stages.computeIfAbsent(STAGE_ROLLUP, stage -> new LatencyRecorder());
+
+                long wallClock = firstTimestamp;
+                for (int i = 0; i < messages.size(); i++) {
+                    ChatMessage message = messages.get(i);
+                    long previous = wallClock;
+                    wallClock = advanceWallClock(analysis.driver, previous, message.getTimestamp());
+                    advanceWallClock(alert.driver, previous, message.getTimestamp());
+                    if (rollup != null) {
+                        advanceWallClock(rollup.driver, previous, message.getTimestamp());
+                    }
+
+                    long start = System.nanoTime();
+                    input.pipeInput(message.getUserId(), message, message.getTimestamp());
+                    analysisLatency.record(System.nanoTime() - start);
+
+                    long alertNanos = 0;
+                    long rollupNanos = 0;
+                    for (TestRecord<String, byte[]> score : scores.readRecordsToList()) {
+                        start = System.nanoTime();
+                        alertInput.pipeInput(score);
+                        alertNanos += System.nanoTime() - start;
+                        if (rollupInput != null) {
+                            start = System.nanoTime();
+                            rollupInput.pipeInput(score);
+                            rollupNanos += System.nanoTime() - start;
+                        }
+                    }
+                    alertLatency.record(alertNanos);
+                    if (rollupLatency != null) {
+                        rollupLatency.record(rollupNanos);
+                    }
+                    if ((i + 1) % DRAIN_INTERVAL == 0) {
+                        analysis.drainOutputs();
+                        alert.drainOutputs();
+                        if (rollup != null) {
+                            rollup.drainOutputs();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private TopologyComponents newComponents() {
+        return new TopologyComponents(alertProperties, windowProperties, rollupProperties, engineProperties,
+            lexiconProperties, serdeProperties);
+    }
+
+    // 与 KafkaStreamConfig 一致的 RocksDB 配置
+    private Map<String, Object> streamsOverrides() {
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        StateStoreProperties.RocksDb rocksDb = stateStoreProperties.getRocksdb();
+        if (rocksDb.isBoundedMemory()) {
+            overrides.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, BoundedMemoryRocksDBConfigSetter.class);
+            overrides.putAll(BoundedMemoryRocksDBConfigSetter.configs(rocksDb));
+        }
+        return overrides;
+    }
+
+    private boolean scoresWritten() {
+        return topologyProperties.getMode() == TopologyProperties.Mode.TWO_STAGE
+            || topologyProperties.getScoresSampleRate() > 0.0;
+    }
+
+    private boolean rollupEnabled() {
+        return rollupProperties.isEnabled() && !rollupProperties.getLevels().isEmpty();
+    }
+
+    private static long advanceWallClock(TopologyTestDriver driver, long wallClock, long timestamp) {
+        if (timestamp > wallClock) {
+            driver.advanceWallClockTime(Duration.ofMillis(timestamp - wallClock));
+            return timestamp;
+        }
+        return wallClock;
+    }
+
+    private static void drain(TestOutputTopic<String, byte[]> scores, TestOutputTopic<String, byte[]> rollups,
+        TestOutputTopic<String, byte[]> rollupAlerts, TestOutputTopic<Windowed<String>, WarningAlert> alertTopic,
+        Map<String, Long> outputCounts, List<String> alerts) {
+        count(scores, KafkaConstants.SENTIMENT_SCORES_TOPIC, outputCounts);
+        count(rollups, KafkaConstants.SENTIMENT_ROLLUPS_TOPIC, outputCounts);
+        count(rollupAlerts, KafkaConstants.ROLLUP_ALERTS_TOPIC, outputCounts);
+        for (KeyValue<Windowed<String>, WarningAlert> alert : alertTopic.readKeyValuesToList()) {
+            alerts.add(formatAlert(alert.key, alert.value));
+        }
+        outputCounts.put(KafkaConstants.WARNING_ALERTS_TOPIC, (long) alerts.size());
+    }
+
+    // 只计数并清空，不保留内容；topic 不存在时为 null
+    private static void count(TestOutputTopic<String, byte[]> topic, String name, Map<String, Long> outputCounts) {
+        if (topic != null) {
+            outputCounts.merge(name, topic.getQueueSize(), Long::sum);
+            topic.readRecordsToList();
+        }
+    }
+
+    /**
+     * 预警的文本形式（回归比对用）：userId,windowStart,windowEnd,averageScore,alertMessage
+     */
+    public static String formatAlert(Windowed<String> key, WarningAlert alert) {
+        return String.format(Locale.ROOT, "%s,%d,%d,%.6f,%s", alert.getUserId(), key.window().start(),
+            alert.getWindowEnd(), alert.getAverageScore(), alert.getAlertMessage());
+    }
+
+    private static Map<String, Long> storeSizes(TopologyTestDriver driver) {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        for (Map.Entry<String, StateStore> entry : driver.getAllStateStores().entrySet()) {
+            StateStore store = entry.getValue();
+            long size = -1L; // 其他类型的存储（如 suppress 缓冲区）无法从外部统计
+            if (store instanceof KeyValueStore<?, ?> kvStore) {
+                size = count(kvStore.all());
+            } else if (store instanceof WindowStore<?, ?> windowStore) {
+                size = count(windowStore.all());
+            }
+            sizes.put(entry.getKey(), size);
+        }
+        return sizes;
+    }
+
+    private static long count(KeyValueIterator<?, ?> iterator) {
+        try (iterator) {
+            long count = 0;
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * TopologyTestDriver 和它独占的状态目录（RocksDB 存储会真正落盘）
+     */
+    private static final class DriverHandle implements AutoCloseable {
+        private final Path stateDir;
+        private final TopologyTestDriver driver;
+        private final Map<String, TestOutputTopic<byte[], byte[]>> outputs = new HashMap<>();
+
+        private DriverHandle(StreamsBuilder builder, long initialWallClock, Map<String, Object> overrides)
+            throws IOException {
+            this.stateDir = Files.createTempDirectory(APPLICATION_ID);
+            Properties props = new Properties();
+            props.put(StreamsConfig.APPLICATION_ID_CONFIG, APPLICATION_ID);
+            props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+            props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+            // 与 KafkaStreamConfig 一致：关闭缓存，每次更新立即下发
+            props.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 0L);
+            props.putAll(overrides);
+            this.driver = new TopologyTestDriver(builder.build(), props, Instant.ofEpochMilli(initialWallClock));
+        }
+
+        /**
+         * 清空 driver 写过的所有 topic（包括 repartition 等内部 topic），否则输出队列随回放长度无限增长
+         */
+        private void drainOutputs() {
+            for (String topic : driver.producedTopicNames()) {
+                outputs.computeIfAbsent(topic,
+                    name -> driver.createOutputTopic(name, new ByteArrayDeserializer(), new ByteArrayDeserializer()))
+                    .readRecordsToList();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            driver.close();
+            try (Stream<Path> paths = Files.walk(stateDir)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * 参数：数据集路径，以及可选的 --key=value：
+     * --aggregation=hopping|pane  --emit-mode=eager|final  --engine-mode=lexicon|ngram|async|tiered
+     * --ngram-model=path  --lexicon=path  --format=json|binary  --rollup=true
+     * --topology=two_stage|fused  --scores-sample-rate=0.01（融合拓扑写入 sentiment-scores 的比例）
+     * --rocksdb-bounded=false（RocksDB 使用 Kafka Streams 默认配置）  --rocksdb-memory=256MB
+     * --stages=false（不做分阶段计时）  --report=report.json  --alerts=alerts.csv
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: TopologyReplay <dataset.jsonl|dataset.csv> [--key=value ...]");
+            System.exit(2);
+        }
+        TopologyReplay replay = new TopologyReplay();
+        Path reportPath = null;
+        Path alertsPath = null;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("参数格式应为 --key=value: " + arg);
+            }
+            String key = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            String upper = value.toUpperCase(Locale.ROOT);
+            switch (key) {
+                case "aggregation" -> replay.windowProperties.setAggregation(WindowProperties.Aggregation.valueOf(upper));
+                case "emit-mode" -> replay.alertProperties.setEmitMode(AlertProperties.EmitMode.valueOf(upper));
+                case "engine-mode" -> replay.engineProperties.setMode(EngineProperties.Mode.valueOf(upper));
+                case "ngram-model" -> replay.engineProperties.setNgramModel(value);
+                case "lexicon" -> replay.lexiconProperties.setPath(value);
+                case "format" -> replay.serdeProperties.setFormat(SerdeProperties.Format.valueOf(upper));
+                case "rollup" -> {
+                    if (Boolean.parseBoolean(value)) {
+                        replay.enableDefaultRollup();
+                    }
+                }
+                case "topology" -> replay.topologyProperties.setMode(TopologyProperties.Mode.valueOf(upper.replace('-', '_')));
+                case "scores-sample-rate" -> replay.topologyProperties.setScoresSampleRate(Double.parseDouble(value));
+                case "rocksdb-bounded" -> replay.stateStoreProperties.getRocksdb().setBoundedMemory(Boolean.parseBoolean(value));
+                case "rocksdb-memory" -> replay.stateStoreProperties.getRocksdb().setTotalMemory(DataSize.parse(value));
+                case "stages" -> replay.stageBreakdown(Boolean.parseBoolean(value));
+                case "report" -> reportPath = Path.of(value);
+                case "alerts" -> alertsPath = Path.of(value);
+                default -> throw new IllegalArgumentException("未知参数: " + arg);
+            }
+        }
+
+        List<ChatMessage> messages = ReplayDataset.load(Path.of(args[0]));
+        ReplayReport report = replay.run(messages);
+        System.out.print(report.summary());
+        if (reportPath != null) {
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), report.toMap());
+        }
+        if (alertsPath != null) {
+            Files.write(alertsPath, report.getAlerts(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * application.yml 中的多粒度汇总配置（1m / 5m / 1h）
+     */
+    public TopologyReplay enableDefaultRollup() {
+        rollupProperties.setEnabled(true);
+        rollupProperties.setLevels(List.of(
+            level("1m", Duration.ofMinutes(1), null),
+            level("5m", Duration.ofMinutes(5), -0.4),
+            level("1h", Duration.ofHours(1), -0.2)));
+        return this;
+    }
+
+    private static RollupProperties.Level level(String name, Duration size, Double threshold) {
+        RollupProperties.Level level = new RollupProperties.Level();
+        level.setName(name);
+        level.setSize(size);
+        level.setThreshold(threshold);
+        return level;
+    }
+}
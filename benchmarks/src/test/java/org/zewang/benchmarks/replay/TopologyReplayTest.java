@@ -0,0 +1,115 @@
+package org.zewang.benchmarks.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.stream.config.SerdeProperties.Format;
+import org.zewang.stream.config.TopologyProperties;
+import org.zewang.stream.config.WindowProperties.Aggregation;
+import org.zewang.stream.service.WarningAlertProcessor;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 回放回归测试：固定数据集穿过完整拓扑后，预警输出必须与记录的基线一致
+ * 拓扑行为有意变化时，用 TopologyReplay 的 --alerts 参数重新生成 expected-alerts.csv
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 03:05
+ */
+class TopologyReplayTest {
+
+    private static List<ChatMessage> dataset;
+    private static List<String> expectedAlerts;
+
+    @BeforeAll
+    static void load() throws IOException {
+        try (Reader reader = resource("/replay/chat-messages.jsonl")) {
+            dataset = ReplayDataset.read(reader, ReplayDataset.Format.JSONL);
+        }
+        try (InputStream in = TopologyReplayTest.class.getResourceAsStream("/replay/expected-alerts.csv")) {
+            expectedAlerts = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+
+    @Test
+    void alertsMatchRecordedBaseline() throws IOException {
+        ReplayReport report = new TopologyReplay().run(dataset);
+
+        assertFalse(expectedAlerts.isEmpty());
+        assertEquals(expectedAlerts, report.getAlerts());
+        assertEquals(dataset.size(), report.getRecords());
+        assertEquals(dataset.size(), report.getOutputCounts().get(KafkaConstants.SENTIMENT_SCORES_TOPIC));
+        assertEquals(dataset.size(), report.getTopologyLatency().count());
+        assertTrue(report.recordsPerSecond() > 0);
+
+        assertEquals(List.of(TopologyReplay.STAGE_SENTIMENT, TopologyReplay.STAGE_ALERT),
+            List.copyOf(report.getStageLatencies().keySet()));
+        report.getStageLatencies().values().forEach(latency -> assertEquals(dataset.size(), latency.count()));
+        assertTrue(report.getStoreSizes().get(WarningAlertProcessor.SENTIMENT_STATS_STORE) > 0);
+    }
+
+    @Test
+    void paneAggregationAndBinaryFormatKeepAlertsUnchanged() throws IOException {
+        TopologyReplay replay = new TopologyReplay().stageBreakdown(false);
+        replay.getWindowProperties().setAggregation(Aggregation.PANE);
+        replay.getSerdeProperties().setFormat(Format.BINARY);
+
+        // pane 聚合按窗口批量输出，不同 key 之间的输出顺序与 suppress 不同，只比较内容
+        ReplayReport report = replay.run(dataset);
+        assertEquals(expectedAlerts.stream().sorted().toList(), report.getAlerts().stream().sorted().toList());
+        assertTrue(report.getStageLatencies().isEmpty());
+        assertTrue(report.getStoreSizes().get(WarningAlertProcessor.SENTIMENT_PANE_STORE) > 0);
+    }
+
+    @Test
+    void fusedTopologyKeepsAlertsAndSamplesScores() throws IOException {
+        TopologyReplay replay = new TopologyReplay().stageBreakdown(false);
+        replay.getTopologyProperties().setMode(TopologyProperties.Mode.FUSED);
+        replay.getTopologyProperties().setScoresSampleRate(0.1);
+
+        ReplayReport report = replay.run(dataset);
+        assertEquals(expectedAlerts, report.getAlerts());
+        long scores = report.getOutputCounts().get(KafkaConstants.SENTIMENT_SCORES_TOPIC);
+        assertTrue(scores > dataset.size() * 0.05 && scores < dataset.size() * 0.15, "sampled scores: " + scores);
+    }
+
+    @Test
+    void rollupStageIsReportedWhenEnabled() throws IOException {
+        ReplayReport report = new TopologyReplay().enableDefaultRollup().run(dataset);
+
+        assertTrue(report.getOutputCounts().get(KafkaConstants.SENTIMENT_ROLLUPS_TOPIC) > 0);
+        assertEquals(dataset.size(), report.getStageLatencies().get(TopologyReplay.STAGE_ROLLUP).count());
+        // 多粒度预警写入单独的 rollup-alerts，主预警不受影响
+        assertEquals(expectedAlerts, report.getAlerts());
+        assertTrue(report.getOutputCounts().containsKey(KafkaConstants.ROLLUP_ALERTS_TOPIC));
+    }
+
+    @Test
+    void csvDatasetMatchesJsonl() throws IOException {
+        List<ChatMessage> csv;
+        try (Reader reader = resource("/replay/chat-messages.csv")) {
+            csv = ReplayDataset.read(reader, ReplayDataset.Format.CSV);
+        }
+        assertEquals(200, csv.size());
+        for (int i = 0; i < csv.size(); i++) {
+            assertEquals(dataset.get(i).getUserId(), csv.get(i).getUserId());
+            assertEquals(dataset.get(i).getTimestamp(), csv.get(i).getTimestamp());
+            assertEquals(dataset.get(i).getMessage(), csv.get(i).getMessage());
+        }
+    }
+
+    private static Reader resource(String name) {
+        return new InputStreamReader(TopologyReplayTest.class.getResourceAsStream(name), StandardCharsets.UTF_8);
+    }
+}
@@ -2,8 +2,13 @@ package org.zewang.collectorservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.zewang.collectorservice.config.ReplayProperties;
+import org.zewang.collectorservice.config.RssHubProperties;
 
-@SpringBootApplication
+@EnableConfigurationProperties({ReplayProperties.class, RssHubProperties.class})
+@SpringBootApplication(exclude = {DataSourceAutoConfiguration.class})
 public class CollectorServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,83 @@
+package org.zewang.collectorservice.config;
+
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 历史数据集回放配置，对应 simulation.*
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 08:30
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "simulation")
+public class ReplayProperties {
+
+    /**
+     * 是否在启动后回放数据集
+     */
+    private boolean enabled = false;
+
+    /**
+     * 数据集文件路径（本地文件，按内存映射读取，不会整体加载到堆里）
+     */
+    private String datasetPath;
+
+    /**
+     * 文件格式，AUTO 按扩展名判断（.jsonl / .ndjson 为 JSONL，其余为 CSV）
+     */
+    private Format format = Format.AUTO;
+
+    /**
+     * 回放倍速：保持原始的到达间隔并除以该倍数（10 表示 1 小时的数据 6 分钟回放完）；<= 0 表示不限速
+     */
+    private double replaySpeed = 10;
+
+    /**
+     * 是否把消息时间戳改写为回放时刻（按倍速压缩后的时间线），关闭时保留数据集中的原始时间戳
+     */
+    private boolean rewriteTimestamps = true;
+
+    /**
+     * 数据集没有时间戳列（或某行时间戳无法解析）时，相邻两条记录的间隔
+     */
+    private Duration missingTimestampInterval = Duration.ofMillis(10);
+
+    /**
+     * 回放完成后是否从头再来
+     */
+    private boolean loop = false;
+
+    /**
+     * 进度日志间隔
+     */
+    private Duration reportInterval = Duration.ofSeconds(5);
+
+    /**
+     * 字段名：CSV 按表头匹配（忽略大小写），JSONL 按字段名匹配
+     */
+    private Fields fields = new Fields();
+
+    @Getter
+    @Setter
+    public static class Fields {
+
+        private String userId = "userId";
+
+        private String timestamp = "timestamp";
+
+        private String message = "message";
+    }
+
+    public enum Format {
+        AUTO,
+        CSV,
+        JSONL
+    }
+}
@@ -0,0 +1,98 @@
+package org.zewang.collectorservice.config;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: RSSHub 采集配置，对应 rsshub.*
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 09:20
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "rsshub")
+public class RssHubProperties {
+
+    /**
+     * 是否启动 RSS 采集
+     */
+    private boolean enabled = false;
+
+    /**
+     * 轮询间隔：每个间隔对所有空闲的订阅源发起一次请求（上一次请求未完成的源本轮跳过）
+     */
+    private Duration pollInterval = Duration.ofMillis(100);
+
+    /**
+     * 同时在途的请求上限，超过时本轮剩余的源跳过，不排队
+     */
+    private int maxConcurrentRequests = 64;
+
+    /**
+     * 解析线程数：响应体在解析线程上边读边解析，轮询 / 请求线程不参与
+     */
+    private int parserThreads = 4;
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    private Duration requestTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 请求失败后的最大退避时间（从 poll-interval 开始翻倍）
+     */
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    /**
+     * 统计日志间隔
+     */
+    private Duration reportInterval = Duration.ofSeconds(30);
+
+    private List<Endpoint> endpoints = new ArrayList<>();
+
+    private Dedup dedup = new Dedup();
+
+    @Getter
+    @Setter
+    public static class Endpoint {
+
+        private String url;
+
+        /**
+         * 来源平台（weibo / zhihu ...），条目没有作者时作为 userId
+         */
+        private String source;
+
+        /**
+         * 话题标签，拼在消息前面
+         */
+        private String topic;
+    }
+
+    /**
+     * 去重：两代轮换的布隆过滤器，条目在最近两代中出现过即视为重复
+     */
+    @Getter
+    @Setter
+    public static class Dedup {
+
+        /**
+         * 每一代预计容纳的条目数，当前代写满后轮换
+         */
+        private int expectedItems = 1_000_000;
+
+        private double falsePositiveRate = 0.001;
+
+        /**
+         * 即使没写满也按该间隔轮换，过期条目最多保留两个间隔
+         */
+        private Duration rotateInterval = Duration.ofHours(6);
+    }
+}
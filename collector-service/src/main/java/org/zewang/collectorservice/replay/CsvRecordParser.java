@@ -0,0 +1,102 @@
+package org.zewang.collectorservice.replay;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.zewang.collectorservice.config.ReplayProperties.Fields;
+import org.zewang.common.dto.ChatMessage;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: CSV 记录解析（RFC 4180：逗号分隔，双引号包裹的字段中可以有逗号、换行，"" 表示一个引号）
+ * 第一条记录是表头，按配置的字段名定位 userId / timestamp / message 列，timestamp 列可以没有
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 08:45
+ */
+
+public final class CsvRecordParser implements RecordParser {
+
+    private final Fields fields;
+    private final List<String> values = new ArrayList<>();
+    private int userIdColumn = -1;
+    private int timestampColumn = -1;
+    private int messageColumn = -1;
+
+    public CsvRecordParser(Fields fields) {
+        this.fields = fields;
+    }
+
+    @Override
+    public ChatMessage parse(byte[] buffer, int length) {
+        split(buffer, length);
+        if (userIdColumn < 0) {
+            readHeader();
+            return null;
+        }
+        String timestamp = timestampColumn >= 0 ? value(timestampColumn) : null;
+        return RecordParser.message(value(userIdColumn),
+            timestamp == null ? MISSING_TIMESTAMP : RecordParser.parseTimestamp(timestamp), value(messageColumn));
+    }
+
+    private void readHeader() {
+        for (int i = 0; i < values.size(); i++) {
+            String name = values.get(i).trim();
+            if (name.equalsIgnoreCase(fields.getUserId())) {
+                userIdColumn = i;
+            } else if (name.equalsIgnoreCase(fields.getTimestamp())) {
+                timestampColumn = i;
+            } else if (name.equalsIgnoreCase(fields.getMessage())) {
+                messageColumn = i;
+            }
+        }
+        if (userIdColumn < 0 || messageColumn < 0) {
+            throw new IllegalArgumentException("CSV 表头缺少字段 " + fields.getUserId() + " / " + fields.getMessage()
+                + ": " + values);
+        }
+    }
+
+    private String value(int column) {
+        return column < values.size() ? values.get(column) : null;
+    }
+
+    private void split(byte[] buffer, int length) {
+        values.clear();
+        int i = 0;
+        while (true) {
+            if (i < length && buffer[i] == '"') {
+                // 引号字段：找到后面不是引号的结束引号
+                int start = ++i;
+                boolean escaped = false;
+                while (i < length) {
+                    if (buffer[i] == '"') {
+                        if (i + 1 < length && buffer[i + 1] == '"') {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                String value = new String(buffer, start, i - start, StandardCharsets.UTF_8);
+                values.add(escaped ? value.replace("\"\"", "\"") : value);
+                // 跳过结束引号和引号与逗号之间的杂项
+                while (i < length && buffer[i] != ',') {
+                    i++;
+                }
+            } else {
+                int start = i;
+                while (i < length && buffer[i] != ',') {
+                    i++;
+                }
+                values.add(new String(buffer, start, i - start, StandardCharsets.UTF_8));
+            }
+            if (i >= length) {
+                return;
+            }
+            i++; // 逗号
+        }
+    }
+}
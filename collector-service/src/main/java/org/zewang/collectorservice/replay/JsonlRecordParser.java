@@ -0,0 +1,58 @@
+package org.zewang.collectorservice.replay;
+
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import org.zewang.collectorservice.config.ReplayProperties.Fields;
+import org.zewang.common.dto.ChatMessage;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: JSONL 记录解析：每行一个 JSON 对象
+ * 使用 Jackson 流式解析，只取 userId / timestamp / message 三个字段，其余字段（含嵌套对象）直接跳过，不构建树
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 08:50
+ */
+
+public final class JsonlRecordParser implements RecordParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Fields fields;
+
+    public JsonlRecordParser(Fields fields) {
+        this.fields = fields;
+    }
+
+    @Override
+    public ChatMessage parse(byte[] buffer, int length) {
+        try (JsonParser parser = JSON_FACTORY.createParser(buffer, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            String userId = null;
+            String message = null;
+            long timestamp = MISSING_TIMESTAMP;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if (name.equals(fields.getUserId())) {
+                    userId = parser.getValueAsString();
+                } else if (name.equals(fields.getMessage())) {
+                    message = parser.getValueAsString();
+                } else if (name.equals(fields.getTimestamp())) {
+                    // 数字和字符串形式统一按 parseTimestamp 处理（秒 / 毫秒 / 日期时间）
+                    timestamp = RecordParser.parseTimestamp(parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return RecordParser.message(userId, timestamp, message);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.zewang.collectorservice.replay;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 基于内存映射的按行记录读取
+ * - 文件按区间（默认 256MB）依次映射，超过 2GB 的文件也能读；页缓存由操作系统管理，不占用堆
+ * - 区间末尾不完整的一行留到下一个区间从行首重新映射，不需要跨区间拼接
+ * - quoteAware 时引号内的换行不算记录结束（CSV 字段中可以有换行）
+ * - 每条记录复制到一个复用的字节数组交给 handler，handler 返回后数组内容即失效
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 08:35
+ */
+
+public final class MappedRecordReader implements Closeable {
+
+    static final int DEFAULT_REGION_BYTES = 256 << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final boolean quoteAware;
+    private final int regionBytes;
+    private byte[] record = new byte[4096];
+
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        void accept(byte[] buffer, int length) throws IOException;
+    }
+
+    public MappedRecordReader(Path path, boolean quoteAware) throws IOException {
+        this(path, quoteAware, DEFAULT_REGION_BYTES);
+    }
+
+    MappedRecordReader(Path path, boolean quoteAware, int regionBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.quoteAware = quoteAware;
+        this.regionBytes = regionBytes;
+    }
+
+    /**
+     * 依次把每条记录（不含行尾的 \r\n）交给 handler，返回记录条数；空行会跳过
+     */
+    public long forEach(RecordHandler handler) throws IOException {
+        long position = skipBom();
+        long records = 0;
+        while (position < size) {
+            int length = (int) Math.min(regionBytes, size - position);
+            MappedByteBuffer region = channel.map(MapMode.READ_ONLY, position, length);
+            boolean lastRegion = position + length == size;
+            int start = 0;
+            boolean inQuotes = false;
+            for (int i = 0; i < length; i++) {
+                byte b = region.get(i);
+                if (b == '"' && quoteAware) {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    records += emit(region, start, i, handler);
+                    start = i + 1;
+                }
+            }
+            if (lastRegion) {
+                records += emit(region, start, length, handler);
+                position = size;
+            } else if (start == 0) {
+                throw new IOException("单条记录超过映射区间大小: position=" + position + ", region=" + regionBytes);
+            } else {
+                position += start;
+            }
+        }
+        return records;
+    }
+
+    private int emit(MappedByteBuffer region, int start, int end, RecordHandler handler) throws IOException {
+        if (end > start && region.get(end - 1) == '\r') {
+            end--;
+        }
+        int length = end - start;
+        if (length == 0) {
+            return 0;
+        }
+        if (length > record.length) {
+            record = new byte[Math.max(length, record.length * 2)];
+        }
+        region.get(start, record, 0, length);
+        handler.accept(record, length);
+        return 1;
+    }
+
+    // UTF-8 BOM（Excel 导出的 CSV 常带）
+    private long skipBom() throws IOException {
+        if (size < 3) {
+            return 0;
+        }
+        MappedByteBuffer head = channel.map(MapMode.READ_ONLY, 0, 3);
+        return head.get(0) == (byte) 0xEF && head.get(1) == (byte) 0xBB && head.get(2) == (byte) 0xBF ? 3 : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
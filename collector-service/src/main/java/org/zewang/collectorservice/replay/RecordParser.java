@@ -0,0 +1,61 @@
+package org.zewang.collectorservice.replay;
+
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import org.zewang.common.dto.ChatMessage;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 把一条原始记录解析为 ChatMessage
+ * 返回 null 表示跳过（表头、字段缺失、格式错误）；没有时间戳时 timestamp 为 MISSING_TIMESTAMP，由回放引擎补齐
+ * 解析器有状态（CSV 表头），每次回放新建一个，只在回放线程中使用
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 08:40
+ */
+
+public interface RecordParser {
+
+    long MISSING_TIMESTAMP = Long.MIN_VALUE;
+
+    DateTimeFormatter LOCAL_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    ChatMessage parse(byte[] buffer, int length);
+
+    /**
+     * 解析时间戳：纯数字按 epoch 毫秒（不超过 11 位时按秒），其次 ISO-8601 时刻，再次 yyyy-MM-dd HH:mm:ss（本地时区）
+     */
+    static long parseTimestamp(String value) {
+        if (value == null || value.isBlank()) {
+            return MISSING_TIMESTAMP;
+        }
+        String text = value.trim();
+        try {
+            if (text.chars().allMatch(Character::isDigit)) {
+                long number = Long.parseLong(text);
+                return text.length() <= 11 ? number * 1000 : number;
+            }
+            if (text.indexOf('T') > 0) {
+                return Instant.parse(text).toEpochMilli();
+            }
+            return LocalDateTime.parse(text, LOCAL_DATE_TIME).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return MISSING_TIMESTAMP;
+        }
+    }
+
+    static ChatMessage message(String userId, long timestamp, String text) {
+        if (userId == null || userId.isEmpty() || text == null) {
+            return null;
+        }
+        ChatMessage message = new ChatMessage();
+        message.setUserId(userId);
+        message.setTimestamp(timestamp);
+        message.setMessage(text);
+        return message;
+    }
+}
@@ -0,0 +1,192 @@
+package org.zewang.collectorservice.replay;
+
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.zewang.collectorservice.config.ReplayProperties;
+import org.zewang.collectorservice.config.ReplayProperties.Format;
+import org.zewang.common.dto.ChatMessage;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 数据集回放引擎
+ * - 内存映射逐条读取、解析，不把整个文件加载到堆里
+ * - 第 i 条记录在 回放开始 + (t_i - t_0) / 倍速 时发出：保持原始到达间隔并按倍速压缩；
+ *   发送端落后时不等待直接发出（追赶），乱序的时间戳同样立即发出
+ * - sender 是异步发送（生产者自身按 batch.size / linger.ms 攒批），缓冲区满时 send 阻塞，读取自然降速
+ * 不依赖 Spring，sender 可以替换为任意实现（单元测试中直接完成 future）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 08:55
+ */
+
+@Slf4j
+public class ReplayEngine {
+
+    // 领先计划时间不到这个值就直接发，避免高倍速下频繁 park
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final ReplayProperties properties;
+    private final Path dataset;
+    private final Format format;
+    private final Function<ChatMessage, CompletableFuture<?>> sender;
+
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public ReplayEngine(ReplayProperties properties, Function<ChatMessage, CompletableFuture<?>> sender) {
+        if (properties.getDatasetPath() == null || properties.getDatasetPath().isBlank()) {
+            throw new IllegalArgumentException("simulation.dataset-path 未配置");
+        }
+        this.properties = properties;
+        this.dataset = Path.of(properties.getDatasetPath());
+        this.format = resolveFormat(properties.getFormat(), dataset);
+        this.sender = sender;
+    }
+
+    static Format resolveFormat(Format format, Path dataset) {
+        if (format != Format.AUTO) {
+            return format;
+        }
+        String name = dataset.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? Format.JSONL : Format.CSV;
+    }
+
+    /**
+     * 回放数据集（loop 时一直重复到线程被中断），阻塞调用线程
+     */
+    public ReplayStats run() throws IOException, InterruptedException {
+        ReplayStats total = null;
+        do {
+            ReplayStats pass = replayOnce();
+            log.info("数据集回放完成: {}", pass);
+            total = total == null ? pass : total.plus(pass);
+        } while (properties.isLoop() && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    private ReplayStats replayOnce() throws IOException, InterruptedException {
+        RecordParser parser = format == Format.JSONL
+            ? new JsonlRecordParser(properties.getFields())
+            : new CsvRecordParser(properties.getFields());
+        Pass pass = new Pass(parser);
+        long ackedBefore = acked.sum();
+        long failedBefore = failed.sum();
+        try (MappedRecordReader reader = new MappedRecordReader(dataset, format == Format.CSV)) {
+            reader.forEach(pass::accept);
+        } catch (InterruptedIOException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 等在途消息确认
+        long drainStart = System.nanoTime();
+        while (acked.sum() - ackedBefore + failed.sum() - failedBefore < pass.sent
+            && System.nanoTime() - drainStart < DRAIN_TIMEOUT_NANOS) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return new ReplayStats(pass.records, pass.skipped, pass.sent, acked.sum() - ackedBefore,
+            failed.sum() - failedBefore + pass.rejected, (double) (System.nanoTime() - pass.startNanos) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    // 一次回放的状态，只在回放线程中读写
+    private final class Pass {
+
+        private final RecordParser parser;
+        private final double speed = properties.getReplaySpeed();
+        private final long missingInterval = properties.getMissingTimestampInterval().toMillis();
+        private final long reportNanos = properties.getReportInterval().toNanos();
+        private final long startNanos = System.nanoTime();
+        private final long startMillis = System.currentTimeMillis();
+
+        private long firstEventTime = Long.MIN_VALUE;
+        private long previousEventTime;
+        private long nextReport = reportNanos;
+        private long records;
+        private long skipped;
+        private long sent;
+        // sender 同步抛出的失败：不计入 sent，也不会有回调，排空时不等待
+        private long rejected;
+
+        private Pass(RecordParser parser) {
+            this.parser = parser;
+        }
+
+        private void accept(byte[] buffer, int length) throws InterruptedIOException {
+            records++;
+            ChatMessage message = parser.parse(buffer, length);
+            if (message == null) {
+                skipped++;
+                return;
+            }
+
+            long eventTime = message.getTimestamp() == RecordParser.MISSING_TIMESTAMP
+                ? (firstEventTime == Long.MIN_VALUE ? 0 : previousEventTime + missingInterval)
+                : message.getTimestamp();
+            if (firstEventTime == Long.MIN_VALUE) {
+                firstEventTime = eventTime;
+            }
+            previousEventTime = eventTime;
+
+            long offsetMillis = eventTime - firstEventTime;
+            if (speed > 0) {
+                long due = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(offsetMillis) / speed);
+                long wait;
+                while ((wait = due - System.nanoTime()) > MIN_PARK_NANOS) {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("回放被中断");
+                    }
+                }
+            }
+            if (properties.isRewriteTimestamps()) {
+                message.setTimestamp(speed > 0 ? startMillis + (long) (offsetMillis / speed) : System.currentTimeMillis());
+            } else if (message.getTimestamp() == RecordParser.MISSING_TIMESTAMP) {
+                message.setTimestamp(eventTime);
+            }
+
+            send(message);
+            if ((records & 1023) == 0) {
+                report();
+            }
+        }
+
+        private void send(ChatMessage message) {
+            CompletableFuture<?> future;
+            try {
+                future = sender.apply(message);
+            } catch (RuntimeException e) {
+                rejected++;
+                log.debug("回放消息发送失败: {}", e.getMessage());
+                return;
+            }
+            sent++;
+            future.whenComplete((result, ex) -> {
+                if (ex == null) {
+                    acked.increment();
+                } else {
+                    failed.increment();
+                }
+            });
+        }
+
+        private void report() {
+            long elapsed = System.nanoTime() - startNanos;
+            if (elapsed < nextReport) {
+                return;
+            }
+            nextReport += reportNanos;
+            double seconds = (double) elapsed / TimeUnit.SECONDS.toNanos(1);
+            log.info("回放进度: records={}, sent={}, skipped={}, failed={}, rate={}/s",
+                records, sent, skipped, failed.sum() + rejected, String.format(Locale.ROOT, "%.0f", sent / seconds));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.zewang.collectorservice.replay;
+
+
+import java.util.Locale;
+import lombok.Getter;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 一次（或多次循环）回放的统计
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 09:00
+ */
+
+@Getter
+public class ReplayStats {
+
+    private final long records;
+    private final long skipped;
+    private final long sent;
+    private final long acked;
+    private final long failed;
+    private final double seconds;
+
+    ReplayStats(long records, long skipped, long sent, long acked, long failed, double seconds) {
+        this.records = records;
+        this.skipped = skipped;
+        this.sent = sent;
+        this.acked = acked;
+        this.failed = failed;
+        this.seconds = seconds;
+    }
+
+    public double rate() {
+        return seconds > 0 ? sent / seconds : 0;
+    }
+
+    ReplayStats plus(ReplayStats other) {
+        return new ReplayStats(records + other.records, skipped + other.skipped, sent + other.sent,
+            acked + other.acked, failed + other.failed, seconds + other.seconds);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "records=%d sent=%d acked=%d failed=%d skipped=%d %.1fs %.0f/s",
+            records, sent, acked, failed, skipped, seconds, rate());
+    }
+}
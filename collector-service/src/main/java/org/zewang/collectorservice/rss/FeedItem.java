@@ -0,0 +1,45 @@
+package org.zewang.collectorservice.rss;
+
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 订阅条目（RSS item / Atom entry 中采集需要的字段）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 09:30
+ */
+
+@Getter
+@Setter
+public class FeedItem {
+
+    // RSS guid / Atom id
+    private String id;
+    private String link;
+    private String title;
+    // RSS description / Atom summary、content
+    private String description;
+    // RSS author、dc:creator / Atom author.name
+    private String author;
+    // RSS pubDate / Atom published、updated，保留原文
+    private String published;
+
+    /**
+     * 去重键：优先 id，其次 link，都没有时用 标题 + 发布时间
+     */
+    public String dedupKey() {
+        if (id != null && !id.isBlank()) {
+            return id;
+        }
+        if (link != null && !link.isBlank()) {
+            return link;
+        }
+        if (title == null || title.isBlank()) {
+            return null;
+        }
+        return published == null ? title : title + '|' + published;
+    }
+}
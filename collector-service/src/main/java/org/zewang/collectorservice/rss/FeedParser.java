@@ -0,0 +1,139 @@
+package org.zewang.collectorservice.rss;
+
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: RSS 2.0 / Atom 增量解析
+ * 基于 StAX 边读边解析：每解析完一个 item / entry 就回调一次，不构建 DOM，也不把响应体整个读进内存；
+ * 元素按本地名匹配（忽略命名空间），禁用 DTD 和外部实体
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 09:35
+ */
+
+public final class FeedParser {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createFactory();
+
+    private FeedParser() {
+    }
+
+    /**
+     * 解析订阅源，返回条目数
+     */
+    public static int parse(InputStream input, Consumer<FeedItem> handler) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(input);
+        try {
+            int items = 0;
+            FeedItem item = null;
+            // item 内的深度：1 为 item 自身，2 为字段元素
+            int depth = 0;
+            String field = null;
+            boolean collecting = false;
+            StringBuilder text = new StringBuilder();
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        String name = reader.getLocalName();
+                        if (item == null) {
+                            if (name.equals("item") || name.equals("entry")) {
+                                item = new FeedItem();
+                                depth = 1;
+                            }
+                        } else if (++depth == 2) {
+                            field = name;
+                            collecting = true;
+                            text.setLength(0);
+                            if (name.equals("link")) {
+                                readAtomLink(reader, item);
+                            }
+                        } else if (depth == 3 && "author".equals(field)) {
+                            // Atom <author><name/><email/></author> 只取 name
+                            collecting = name.equals("name");
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                        if (item != null && depth >= 2 && collecting) {
+                            text.append(reader.getText());
+                        }
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        if (item == null) {
+                            break;
+                        }
+                        if (depth == 2) {
+                            assign(item, field, text.toString().trim());
+                            field = null;
+                        } else if (depth == 3 && "author".equals(field)) {
+                            collecting = false;
+                        }
+                        if (--depth == 0) {
+                            handler.accept(item);
+                            items++;
+                            item = null;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+            return items;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void assign(FeedItem item, String field, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        switch (field) {
+            case "guid", "id" -> item.setId(value);
+            case "link" -> {
+                if (item.getLink() == null) {
+                    item.setLink(value);
+                }
+            }
+            case "title" -> item.setTitle(value);
+            case "description", "summary" -> item.setDescription(value);
+            case "content", "encoded" -> {
+                if (item.getDescription() == null) {
+                    item.setDescription(value);
+                }
+            }
+            case "author", "creator" -> item.setAuthor(value);
+            case "pubDate", "published" -> item.setPublished(value);
+            case "updated" -> {
+                if (item.getPublished() == null) {
+                    item.setPublished(value);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    // Atom：<link rel="alternate" href="..."/>，没有 rel 时同样视为 alternate
+    private static void readAtomLink(XMLStreamReader reader, FeedItem item) {
+        String href = reader.getAttributeValue(null, "href");
+        String rel = reader.getAttributeValue(null, "rel");
+        if (href != null && (rel == null || rel.equals("alternate"))) {
+            item.setLink(href);
+        }
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        return factory;
+    }
+}
@@ -0,0 +1,282 @@
+package org.zewang.collectorservice.rss;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import javax.xml.stream.XMLStreamException;
+import lombok.extern.slf4j.Slf4j;
+import org.zewang.collectorservice.config.RssHubProperties;
+import org.zewang.collectorservice.config.RssHubProperties.Endpoint;
+import org.zewang.common.dto.ChatMessage;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 非阻塞订阅源轮询
+ * - 调度线程每个 poll-interval 对所有空闲的源调用 HttpClient.sendAsync，只发请求不等待，源的数量不受线程数限制；
+ *   同一个源同时只有一个请求，全局在途请求数受 max-concurrent-requests 限制，超出的本轮跳过
+ * - 条件请求：记住每个源的 ETag / Last-Modified，带 If-None-Match / If-Modified-Since，未变化的源返回 304 不再解析
+ * - 200 响应在解析线程上边读边解析（支持 gzip），每个条目先查布隆过滤器去重，新条目才转成 ChatMessage 交给 sender；
+ *   发送确认后才写入布隆过滤器，本次拉取有条目发送失败时清空校验值，下一轮完整拉取并重发这些条目
+ * - 请求失败按 poll-interval 翻倍退避，最长 max-backoff
+ * 不依赖 Spring，sender 可以替换为任意实现（单元测试中直接收集消息）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 09:45
+ */
+
+@Slf4j
+public class FeedPoller implements Closeable {
+
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final RssHubProperties properties;
+    private final Function<ChatMessage, CompletableFuture<?>> sender;
+    private final List<Source> sources = new ArrayList<>();
+    private final RotatingBloomFilter seen;
+    private final Semaphore permits;
+    private final FeedStats stats = new FeedStats();
+    private final HttpClient client;
+    private final ExecutorService parseExecutor;
+    private final ScheduledExecutorService scheduler;
+
+    public FeedPoller(RssHubProperties properties, Function<ChatMessage, CompletableFuture<?>> sender) {
+        this.properties = properties;
+        this.sender = sender;
+        for (Endpoint endpoint : properties.getEndpoints()) {
+            sources.add(new Source(endpoint));
+        }
+        RssHubProperties.Dedup dedup = properties.getDedup();
+        this.seen = new RotatingBloomFilter(dedup.getExpectedItems(), dedup.getFalsePositiveRate(),
+            dedup.getRotateInterval().toNanos(), TimeUnit.NANOSECONDS);
+        this.permits = new Semaphore(properties.getMaxConcurrentRequests());
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(properties.getConnectTimeout())
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+        this.parseExecutor = Executors.newFixedThreadPool(properties.getParserThreads(), daemon("rss-parser"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemon("rss-poller"));
+    }
+
+    public void start() {
+        long interval = properties.getPollInterval().toNanos();
+        scheduler.scheduleWithFixedDelay(this::tick, 0, interval, TimeUnit.NANOSECONDS);
+        long report = properties.getReportInterval().toNanos();
+        scheduler.scheduleAtFixedRate(() -> log.info("RSS 采集统计: {}", stats), report, report, TimeUnit.NANOSECONDS);
+    }
+
+    public FeedStats stats() {
+        return stats;
+    }
+
+    /**
+     * 对所有空闲的源发起一轮请求，返回的 future 在这些请求处理完（包括失败）后完成
+     */
+    CompletableFuture<Void> pollOnce() {
+        List<CompletableFuture<Void>> polls = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Source source : sources) {
+            if (now - source.notBefore < 0 || !source.inFlight.compareAndSet(false, true)) {
+                stats.skipped.increment();
+                continue;
+            }
+            if (!permits.tryAcquire()) {
+                source.inFlight.set(false);
+                stats.skipped.increment();
+                continue;
+            }
+            polls.add(fetch(source));
+        }
+        return CompletableFuture.allOf(polls.toArray(CompletableFuture[]::new));
+    }
+
+    private void tick() {
+        try {
+            pollOnce();
+        } catch (RuntimeException e) {
+            log.warn("RSS 轮询失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private CompletableFuture<Void> fetch(Source source) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(source.uri)
+            .timeout(properties.getRequestTimeout())
+            .header("Accept", "application/rss+xml, application/atom+xml, application/xml;q=0.9, */*;q=0.8")
+            .header("Accept-Encoding", "gzip")
+            .GET();
+        String etag = source.etag;
+        String lastModified = source.lastModified;
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+        stats.requests.increment();
+        return client.sendAsync(request.build(), BodyHandlers.ofInputStream())
+            .thenComposeAsync(response -> handle(source, response), parseExecutor)
+            .handle((ignored, ex) -> {
+                if (ex == null) {
+                    source.failures.set(0);
+                } else {
+                    onFailure(source, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                }
+                source.inFlight.set(false);
+                permits.release();
+                return null;
+            });
+    }
+
+    /**
+     * 解析响应并发送新条目，返回的 future 在所有条目确认（或失败）、校验值更新后完成，源在此之前不会被再次请求
+     */
+    private CompletableFuture<Void> handle(Source source, HttpResponse<InputStream> response) {
+        int status = response.statusCode();
+        List<CompletableFuture<Boolean>> sends = new ArrayList<>();
+        try (InputStream body = response.body()) {
+            if (status == 304) {
+                stats.notModified.increment();
+                return CompletableFuture.completedFuture(null);
+            }
+            if (status != 200) {
+                throw new IllegalStateException("HTTP " + status);
+            }
+            boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip")).orElse(false);
+            Set<String> fetchedKeys = new HashSet<>();
+            FeedParser.parse(gzip ? new GZIPInputStream(body) : body, item -> onItem(source, item, fetchedKeys, sends));
+            stats.fetched.increment();
+        } catch (IOException | XMLStreamException e) {
+            throw new CompletionException(e);
+        }
+        // 解析成功且所有条目都已确认才保存校验值；否则清空，下一轮完整拉取，失败的条目不在布隆过滤器中会被重发
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        return CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).thenRun(() -> {
+            boolean delivered = sends.stream().allMatch(CompletableFuture::join);
+            source.etag = delivered ? etag : null;
+            source.lastModified = delivered ? lastModified : null;
+        });
+    }
+
+    private void onItem(Source source, FeedItem item, Set<String> fetchedKeys, List<CompletableFuture<Boolean>> sends) {
+        stats.items.increment();
+        String key = item.dedupKey();
+        if (key == null) {
+            return;
+        }
+        // 同一次拉取里重复的条目还没有确认，布隆过滤器里查不到，用本次的 key 集合去重
+        if (!fetchedKeys.add(key) || seen.mightContain(key)) {
+            stats.duplicates.increment();
+            return;
+        }
+        ChatMessage message = toMessage(source.endpoint, item);
+        if (message == null) {
+            seen.add(key);
+            return;
+        }
+        CompletableFuture<?> ack;
+        try {
+            ack = sender.apply(message);
+        } catch (RuntimeException e) {
+            ack = CompletableFuture.failedFuture(e);
+        }
+        sends.add(ack.handle((result, ex) -> {
+            if (ex != null) {
+                stats.sendFailed.increment();
+                log.debug("RSS 条目发送失败: {}", ex.getMessage());
+                return false;
+            }
+            seen.add(key);
+            stats.sent.increment();
+            return true;
+        }));
+    }
+
+    /**
+     * 条目转为聊天消息：作者作为 userId（没有作者时用来源平台），标题作为内容（没有标题时用去掉 HTML 的摘要），
+     * 话题标签拼在内容前面；时间戳取采集时刻，订阅源的发布时间可能远早于当前窗口
+     */
+    static ChatMessage toMessage(Endpoint endpoint, FeedItem item) {
+        String text = item.getTitle();
+        if (text == null || text.isBlank()) {
+            text = item.getDescription() == null ? null
+                : WHITESPACE.matcher(HTML_TAG.matcher(item.getDescription()).replaceAll(" ")).replaceAll(" ").trim();
+        }
+        String userId = item.getAuthor() != null && !item.getAuthor().isBlank() ? item.getAuthor() : endpoint.getSource();
+        if (text == null || text.isEmpty() || userId == null) {
+            return null;
+        }
+        ChatMessage message = new ChatMessage();
+        message.setUserId(userId);
+        message.setTimestamp(System.currentTimeMillis());
+        message.setMessage(endpoint.getTopic() == null || endpoint.getTopic().isBlank()
+            ? text : endpoint.getTopic() + " " + text);
+        return message;
+    }
+
+    private void onFailure(Source source, Throwable ex) {
+        stats.errors.increment();
+        int failures = source.failures.incrementAndGet();
+        long backoff = Math.min(properties.getMaxBackoff().toNanos(),
+            properties.getPollInterval().toNanos() << Math.min(failures, 20));
+        source.notBefore = System.nanoTime() + backoff;
+        log.warn("RSS 源请求失败 {} (连续 {} 次，{} ms 后重试): {}", source.uri, failures,
+            TimeUnit.NANOSECONDS.toMillis(backoff), ex.toString());
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        parseExecutor.shutdownNow();
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // 每个源的轮询状态；etag / lastModified 在解析线程写、调度线程读
+    private static final class Source {
+
+        private final Endpoint endpoint;
+        private final URI uri;
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile String etag;
+        private volatile String lastModified;
+        private volatile long notBefore = System.nanoTime();
+
+        private Source(Endpoint endpoint) {
+            this.endpoint = endpoint;
+            this.uri = URI.create(endpoint.getUrl());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.zewang.collectorservice.rss;
+
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 采集统计（累计值）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 09:40
+ */
+
+public class FeedStats {
+
+    final LongAdder requests = new LongAdder();
+    final LongAdder notModified = new LongAdder();
+    final LongAdder fetched = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder skipped = new LongAdder();
+    final LongAdder items = new LongAdder();
+    final LongAdder duplicates = new LongAdder();
+    final LongAdder sent = new LongAdder();
+    final LongAdder sendFailed = new LongAdder();
+
+    // 请求次数
+    public long requests() {
+        return requests.sum();
+    }
+
+    // 304 次数
+    public long notModified() {
+        return notModified.sum();
+    }
+
+    // 200 并完成解析的次数
+    public long fetched() {
+        return fetched.sum();
+    }
+
+    // 请求失败（网络错误、超时、非 200/304、解析失败）
+    public long errors() {
+        return errors.sum();
+    }
+
+    // 因源上一次请求未完成、退避中或并发已满而跳过的轮询
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    // 解析出的条目数
+    public long items() {
+        return items.sum();
+    }
+
+    // 被去重过滤的条目数
+    public long duplicates() {
+        return duplicates.sum();
+    }
+
+    public long sent() {
+        return sent.sum();
+    }
+
+    public long sendFailed() {
+        return sendFailed.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "requests=" + requests() + " notModified=" + notModified() + " fetched=" + fetched()
+            + " errors=" + errors() + " skipped=" + skipped() + " items=" + items()
+            + " duplicates=" + duplicates() + " sent=" + sent() + " sendFailed=" + sendFailed();
+    }
+}
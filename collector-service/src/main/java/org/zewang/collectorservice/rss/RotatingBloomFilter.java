@@ -0,0 +1,148 @@
+package org.zewang.collectorservice.rss;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 两代轮换的布隆过滤器，用于订阅条目去重
+ * - 查询同时看当前代和上一代；只在上一代命中的条目会补写到当前代，仍在订阅源中出现的条目因此不会随轮换被遗忘
+ * - 当前代写满 expectedItems 或超过 rotateInterval 后轮换：上一代丢弃，当前代降为上一代
+ * - 内存固定为两个位数组，误判（新条目被当成重复）概率约为 2 * falsePositiveRate，不会漏判
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 09:25
+ */
+
+public class RotatingBloomFilter {
+
+    private final int expectedItems;
+    private final int bits;
+    private final int hashes;
+    private final long rotateNanos;
+    private final LongSupplier nanoClock;
+
+    private long[] current;
+    private long[] previous;
+    private int currentCount;
+    private long rotatedAt;
+
+    public RotatingBloomFilter(int expectedItems, double falsePositiveRate, long rotateInterval, TimeUnit unit) {
+        this(expectedItems, falsePositiveRate, unit.toNanos(rotateInterval), System::nanoTime);
+    }
+
+    RotatingBloomFilter(int expectedItems, double falsePositiveRate, long rotateNanos, LongSupplier nanoClock) {
+        if (expectedItems <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedItems 必须为正数，falsePositiveRate 必须在 (0, 1) 之间");
+        }
+        // m = -n ln p / (ln 2)^2, k = m / n * ln 2
+        double m = -expectedItems * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.expectedItems = expectedItems;
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(m)));
+        this.hashes = Math.max(1, (int) Math.round(bits / (double) expectedItems * Math.log(2)));
+        this.rotateNanos = rotateNanos;
+        this.nanoClock = nanoClock;
+        this.current = new long[(bits + 63) >>> 6];
+        this.previous = new long[current.length];
+        this.rotatedAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * 记录条目，返回 true 表示第一次出现（应当发送），false 表示（很可能）已经见过
+     */
+    public synchronized boolean add(String key) {
+        maybeRotate();
+        long hash = hash(key.getBytes(StandardCharsets.UTF_8));
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        if (contains(current, h1, h2)) {
+            return false;
+        }
+        boolean seen = contains(previous, h1, h2);
+        set(h1, h2);
+        return !seen;
+    }
+
+    /**
+     * 查询条目是否（很可能）已经见过，未见过时不记录，用于发送确认后再 add 的流程；只在上一代命中时同样补写到当前代
+     */
+    public synchronized boolean mightContain(String key) {
+        maybeRotate();
+        long hash = hash(key.getBytes(StandardCharsets.UTF_8));
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        if (contains(current, h1, h2)) {
+            return true;
+        }
+        if (!contains(previous, h1, h2)) {
+            return false;
+        }
+        set(h1, h2);
+        return true;
+    }
+
+    int bits() {
+        return bits;
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    private void maybeRotate() {
+        if (currentCount >= expectedItems || nanoClock.getAsLong() - rotatedAt >= rotateNanos) {
+            rotate();
+        }
+    }
+
+    private void set(int h1, int h2) {
+        for (int i = 0; i < hashes; i++) {
+            int bit = index(h1, h2, i);
+            current[bit >>> 6] |= 1L << bit;
+        }
+        currentCount++;
+    }
+
+    private void rotate() {
+        long[] recycled = previous;
+        Arrays.fill(recycled, 0L);
+        previous = current;
+        current = recycled;
+        currentCount = 0;
+        rotatedAt = nanoClock.getAsLong();
+    }
+
+    private boolean contains(long[] bitset, int h1, int h2) {
+        for (int i = 0; i < hashes; i++) {
+            int bit = index(h1, h2, i);
+            if ((bitset[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Kirsch-Mitzenmacher 双重哈希：g_i = h1 + i * h2
+    private int index(int h1, int h2, int i) {
+        int combined = h1 + i * h2;
+        return (combined & Integer.MAX_VALUE) % bits;
+    }
+
+    // 64 位 FNV-1a 后接 murmur3 fmix64，高低 32 位分别作为两个哈希
+    private static long hash(byte[] data) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,39 @@
+package org.zewang.collectorservice.service;
+
+
+import java.util.concurrent.CompletableFuture;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.util.TraceHeaders;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 采集端统一的消息发送：按 userId 分区写入 chat-messages，并写入 sm-ingest-ts 供端到端延迟追踪
+ * 异步发送，攒批由生产者的 batch-size / linger-ms 完成
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 09:50
+ */
+
+@Component
+@RequiredArgsConstructor
+public class ChatMessageSender {
+
+    private final KafkaTemplate<String, ChatMessage> kafkaTemplate;
+
+    public CompletableFuture<SendResult<String, ChatMessage>> send(ChatMessage message) {
+        ProducerRecord<String, ChatMessage> record =
+            new ProducerRecord<>(KafkaConstants.CHAT_MESSAGES_TOPIC, message.getUserId(), message);
+        TraceHeaders.putTimestamp(record.headers(), TraceHeaders.INGEST_TS, System.currentTimeMillis());
+        return kafkaTemplate.send(record);
+    }
+
+    public void flush() {
+        kafkaTemplate.flush();
+    }
+}
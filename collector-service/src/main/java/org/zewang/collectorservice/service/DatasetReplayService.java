@@ -0,0 +1,54 @@
+package org.zewang.collectorservice.service;
+
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.zewang.collectorservice.config.ReplayProperties;
+import org.zewang.collectorservice.replay.ReplayEngine;
+import org.zewang.collectorservice.replay.ReplayStats;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 历史数据集回放（simulation.enabled=true 时启用）
+ * 应用启动完成后在独立线程中按倍速回放数据集，写入 chat-messages；
+ * 发送走 ChatMessageSender 异步发送，由生产者按 batch-size / linger-ms 攒批压缩
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 09:05
+ */
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "simulation", name = "enabled", havingValue = "true")
+public class DatasetReplayService {
+
+    private final ReplayProperties replayProperties;
+    private final ChatMessageSender chatMessageSender;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::run, "dataset-replay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        log.info("开始回放数据集: path={}, format={}, speed={}, loop={}", replayProperties.getDatasetPath(),
+            replayProperties.getFormat(), replayProperties.getReplaySpeed(), replayProperties.isLoop());
+        try {
+            ReplayStats stats = new ReplayEngine(replayProperties, chatMessageSender::send).run();
+            chatMessageSender.flush();
+            log.info("数据集回放结束: {}", stats);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("数据集回放被中断");
+        } catch (Exception e) {
+            log.error("数据集回放失败: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.zewang.collectorservice.service;
+
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.zewang.collectorservice.config.RssHubProperties;
+import org.zewang.collectorservice.rss.FeedPoller;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: RSSHub 采集（rsshub.enabled=true 时启用）
+ * 应用启动完成后开始按 poll-interval 轮询所有订阅源，去重后的新条目写入 chat-messages
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 09:55
+ */
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "rsshub", name = "enabled", havingValue = "true")
+public class RssHubCollector {
+
+    private final RssHubProperties rssHubProperties;
+    private final FeedPoller poller;
+
+    public RssHubCollector(RssHubProperties rssHubProperties, ChatMessageSender chatMessageSender) {
+        this.rssHubProperties = rssHubProperties;
+        this.poller = new FeedPoller(rssHubProperties, chatMessageSender::send);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("开始采集 RSSHub: {} 个订阅源, interval={}, maxConcurrent={}",
+            rssHubProperties.getEndpoints().size(), rssHubProperties.getPollInterval(),
+            rssHubProperties.getMaxConcurrentRequests());
+        poller.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.close();
+        log.info("RSSHub 采集结束: {}", poller.stats());
+    }
+}
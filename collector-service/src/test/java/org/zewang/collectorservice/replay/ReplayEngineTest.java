@@ -0,0 +1,169 @@
+package org.zewang.collectorservice.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zewang.collectorservice.config.ReplayProperties;
+import org.zewang.common.dto.ChatMessage;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 数据集回放测试：跨映射区域切分记录、CSV 引号 / 换行 / BOM、JSONL 字段提取与时间戳补齐、按倍速压缩到达间隔
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 09:10
+ */
+class ReplayEngineTest {
+
+    private static final String CSV = "\uFEFFuserId,timestamp,message\r\n"
+        + "U001,1700000000000,\"你好, 世界\"\r\n"
+        + "U002,1700000000500,\"第一行\n第二行\"\r\n"
+        + "U003,1700000001000,\"他说 \"\"好\"\"\"\r\n"
+        + "\r\n"
+        + ",1700000001200,缺少用户\r\n"
+        + "U004,2023-11-14 22:13:21,普通消息\r\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mappedReaderSplitsRecordsAcrossRegionBoundaries() throws IOException {
+        Path file = write("chat.csv", CSV);
+        List<String> whole = readAll(file, Integer.MAX_VALUE);
+        // 区域只有 48 字节：几乎每条记录都会跨区域
+        List<String> regional = readAll(file, 48);
+
+        assertEquals(6, whole.size());
+        assertEquals(whole, regional);
+        assertEquals("userId,timestamp,message", whole.get(0));
+        assertEquals("U002,1700000000500,\"第一行\n第二行\"", whole.get(2));
+    }
+
+    @Test
+    void replaysCsvWithQuotedFieldsAndSkipsBrokenRows() throws Exception {
+        List<ChatMessage> sent = new ArrayList<>();
+        ReplayProperties properties = properties(write("chat.csv", CSV), 0);
+        properties.setRewriteTimestamps(false);
+
+        ReplayStats stats = new ReplayEngine(properties, collect(sent)).run();
+
+        assertEquals(6, stats.getRecords());
+        assertEquals(2, stats.getSkipped()); // 表头 + 缺少 userId
+        assertEquals(4, stats.getAcked());
+        assertEquals(List.of("你好, 世界", "第一行\n第二行", "他说 \"好\"", "普通消息"),
+            sent.stream().map(ChatMessage::getMessage).toList());
+        assertEquals(1700000000500L, sent.get(1).getTimestamp());
+        assertEquals(1700000001000L, sent.get(2).getTimestamp());
+    }
+
+    @Test
+    void replaysJsonlAndFillsMissingTimestamps() throws Exception {
+        String jsonl = """
+            {"userId":"U001","timestamp":1700000000,"meta":{"tags":["a","b"]},"message":"秒级时间戳"}
+            {"message":"没有时间戳","userId":"U002"}
+            not json
+            {"userId":"U003","timestamp":"2023-11-14T22:13:20.100Z","message":"ISO 时间"}
+            """;
+        List<ChatMessage> sent = new ArrayList<>();
+        ReplayProperties properties = properties(write("chat.jsonl", jsonl), 0);
+        properties.setRewriteTimestamps(false);
+
+        ReplayStats stats = new ReplayEngine(properties, collect(sent)).run();
+
+        assertEquals(4, stats.getRecords());
+        assertEquals(1, stats.getSkipped());
+        assertEquals(List.of("U001", "U002", "U003"), sent.stream().map(ChatMessage::getUserId).toList());
+        assertEquals(1700000000000L, sent.get(0).getTimestamp());
+        // 缺失的时间戳 = 上一条 + missing-timestamp-interval
+        assertEquals(1700000000010L, sent.get(1).getTimestamp());
+        assertEquals(1700000000100L, sent.get(2).getTimestamp());
+    }
+
+    @Test
+    void compressesInterArrivalTimesBySpeedFactor() throws Exception {
+        StringBuilder csv = new StringBuilder("userId,timestamp,message\n");
+        for (int i = 0; i <= 10; i++) {
+            csv.append("U").append(i).append(',').append(1700000000000L + i * 200L).append(",m").append(i).append('\n');
+        }
+        List<ChatMessage> sent = new ArrayList<>();
+        List<Long> sentAt = new ArrayList<>();
+        ReplayProperties properties = properties(write("paced.csv", csv.toString()), 10);
+
+        long start = System.currentTimeMillis();
+        new ReplayEngine(properties, message -> {
+            sentAt.add(System.currentTimeMillis());
+            return collect(sent).apply(message);
+        }).run();
+
+        // 原始跨度 2s，10 倍速约 200ms
+        long elapsed = sentAt.get(sentAt.size() - 1) - start;
+        assertTrue(elapsed >= 190 && elapsed < 1000, "elapsed=" + elapsed);
+        // 改写后的时间戳间隔同样压缩为 20ms
+        for (int i = 1; i < sent.size(); i++) {
+            assertEquals(20, sent.get(i).getTimestamp() - sent.get(i - 1).getTimestamp(), 1);
+        }
+        assertTrue(sent.get(0).getTimestamp() >= start - 1);
+    }
+
+    @Test
+    void drainWaitsForAsyncAcksWhenSomeSendsFailSynchronously() throws Exception {
+        StringBuilder csv = new StringBuilder("userId,timestamp,message\n");
+        for (int i = 0; i < 20; i++) {
+            csv.append("U").append(i).append(',').append(1700000000000L + i).append(",m").append(i).append('\n');
+        }
+        ReplayProperties properties = properties(write("flaky.csv", csv.toString()), 0);
+        AtomicInteger calls = new AtomicInteger();
+        Executor delayed = CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS);
+
+        // 一半同步失败，另一半 200ms 后才确认：回放结束前必须等到这些确认
+        ReplayStats stats = new ReplayEngine(properties, message -> {
+            if (calls.incrementAndGet() % 2 == 0) {
+                throw new IllegalStateException("buffer full");
+            }
+            return CompletableFuture.runAsync(() -> { }, delayed);
+        }).run();
+
+        assertEquals(10, stats.getSent());
+        assertEquals(10, stats.getAcked());
+        assertEquals(10, stats.getFailed());
+    }
+
+    private static Function<ChatMessage, CompletableFuture<?>> collect(List<ChatMessage> sent) {
+        return message -> {
+            sent.add(message);
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    private static List<String> readAll(Path file, int regionBytes) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (MappedRecordReader reader = new MappedRecordReader(file, true, regionBytes)) {
+            reader.forEach((buffer, length) -> records.add(new String(buffer, 0, length, StandardCharsets.UTF_8)));
+        }
+        return records;
+    }
+
+    private ReplayProperties properties(Path file, double speed) {
+        ReplayProperties properties = new ReplayProperties();
+        properties.setDatasetPath(file.toString());
+        properties.setReplaySpeed(speed);
+        return properties;
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,349 @@
+package org.zewang.collectorservice.rss;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zewang.collectorservice.config.RssHubProperties;
+import org.zewang.collectorservice.config.RssHubProperties.Endpoint;
+import org.zewang.common.dto.ChatMessage;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: RSS 采集测试：本地桩订阅服务器上验证条件请求、RSS / Atom 解析、gzip、去重、发送失败重发、并发轮询和失败退避，
+ * 以及轮换布隆过滤器的误判率和两代保留
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 10:00
+ */
+class FeedPollerTest {
+
+    private HttpServer server;
+    private final Map<String, StubFeed> feeds = new ConcurrentHashMap<>();
+    private final List<ChatMessage> sent = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(32));
+        server.createContext("/", exchange -> {
+            StubFeed feed = feeds.get(exchange.getRequestURI().getPath());
+            if (feed == null) {
+                respond(exchange, 404, new byte[0]);
+            } else {
+                feed.serve(exchange);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void conditionalGetSkipsUnchangedFeedAndDropsSeenItems() throws Exception {
+        StubFeed feed = new StubFeed(rss(item("g1", "第一条"), item("g2", "第二条")), "\"v1\"", null);
+        feeds.put("/weibo", feed);
+
+        try (FeedPoller poller = poller(endpoint("/weibo", "weibo", "#热点#"))) {
+            for (int i = 0; i < 3; i++) {
+                poller.pollOnce().get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(3, poller.stats().requests());
+            assertEquals(2, poller.stats().notModified());
+            assertEquals(List.of("#热点# 第一条", "#热点# 第二条"), sent.stream().map(ChatMessage::getMessage).toList());
+            assertEquals("weibo", sent.get(0).getUserId());
+
+            // 源更新：旧条目 g2 仍在列表中，只有 g3 是新的
+            feed.update(rss(item("g3", "第三条"), item("g2", "第二条")), "\"v2\"", null);
+            poller.pollOnce().get(5, TimeUnit.SECONDS);
+
+            assertEquals(3, sent.size());
+            assertEquals("#热点# 第三条", sent.get(2).getMessage());
+            assertEquals(1, poller.stats().duplicates());
+            assertEquals(List.of("", "\"v1\"", "\"v1\"", "\"v1\""), feed.ifNoneMatch);
+        }
+    }
+
+    @Test
+    void failedSendIsRedeliveredOnNextPoll() throws Exception {
+        StubFeed feed = new StubFeed(rss(item("g1", "第一条"), item("g2", "第二条")), "\"v1\"", null);
+        feeds.put("/weibo", feed);
+        AtomicBoolean failNext = new AtomicBoolean(true);
+
+        // 第一条的第一次发送失败：不能记入布隆过滤器，也不能保存 ETag，否则下一轮 304 后这条就丢了
+        try (FeedPoller poller = poller(message -> {
+            if (message.getMessage().equals("第一条") && failNext.getAndSet(false)) {
+                return CompletableFuture.failedFuture(new IllegalStateException("broker 不可用"));
+            }
+            sent.add(message);
+            return CompletableFuture.completedFuture(null);
+        }, endpoint("/weibo", "weibo", null))) {
+            poller.pollOnce().get(5, TimeUnit.SECONDS);
+            assertEquals(List.of("第二条"), sent.stream().map(ChatMessage::getMessage).toList());
+            assertEquals(1, poller.stats().sendFailed());
+
+            poller.pollOnce().get(5, TimeUnit.SECONDS);
+            assertEquals(List.of("第二条", "第一条"), sent.stream().map(ChatMessage::getMessage).toList());
+            assertEquals(1, poller.stats().duplicates());
+
+            // 全部送达后才带上 ETag
+            poller.pollOnce().get(5, TimeUnit.SECONDS);
+            assertEquals(List.of("", "", "\"v1\""), feed.ifNoneMatch);
+            assertEquals(1, poller.stats().notModified());
+            assertEquals(2, sent.size());
+        }
+    }
+
+    @Test
+    void parsesGzipAtomFeedAndHonoursLastModified() throws Exception {
+        String atom = """
+            <?xml version="1.0" encoding="utf-8"?>
+            <feed xmlns="http://www.w3.org/2005/Atom">
+              <title>知乎热榜</title>
+              <entry>
+                <id>tag:zhihu,1</id>
+                <title type="html"><![CDATA[为什么 <Kafka> 这么快？]]></title>
+                <link rel="alternate" href="https://zhihu.com/q/1"/>
+                <author><name>alice</name><email>a@example.com</email></author>
+                <updated>2026-10-18T01:00:00Z</updated>
+              </entry>
+              <entry>
+                <link href="https://zhihu.com/q/2"/>
+                <title></title>
+                <summary type="html">&lt;p&gt;没有标题，&lt;b&gt;只有摘要&lt;/b&gt;&lt;/p&gt;</summary>
+              </entry>
+            </feed>
+            """;
+        StubFeed feed = new StubFeed(atom, null, "Sat, 18 Oct 2026 01:00:00 GMT");
+        feed.gzip = true;
+        feeds.put("/zhihu", feed);
+
+        try (FeedPoller poller = poller(endpoint("/zhihu", "zhihu", null))) {
+            poller.pollOnce().get(5, TimeUnit.SECONDS);
+            poller.pollOnce().get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, poller.stats().notModified());
+            assertEquals(2, sent.size());
+            assertEquals("alice", sent.get(0).getUserId());
+            assertEquals("为什么 <Kafka> 这么快？", sent.get(0).getMessage());
+            assertEquals("zhihu", sent.get(1).getUserId());
+            assertEquals("没有标题， 只有摘要", sent.get(1).getMessage());
+            assertEquals("Sat, 18 Oct 2026 01:00:00 GMT", feed.ifModifiedSince.get(1));
+        }
+    }
+
+    @Test
+    void pollsSlowEndpointsConcurrentlyAndBacksOffFailingOnes() throws Exception {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            StubFeed feed = new StubFeed(rss(item("slow-" + i, "慢源 " + i)), null, null);
+            feed.delayMillis = 300;
+            feeds.put("/slow/" + i, feed);
+            endpoints.add(endpoint("/slow/" + i, "src" + i, null));
+        }
+        StubFeed broken = new StubFeed("", null, null);
+        broken.status = 503;
+        feeds.put("/broken", broken);
+        endpoints.add(endpoint("/broken", "broken", null));
+
+        try (FeedPoller poller = poller(endpoints.toArray(Endpoint[]::new))) {
+            long start = System.nanoTime();
+            poller.pollOnce().get(10, TimeUnit.SECONDS);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // 20 个源各 300ms，串行需要 6s
+            assertTrue(elapsedMillis < 2000, "elapsed=" + elapsedMillis);
+            assertEquals(20, sent.size());
+            assertEquals(1, poller.stats().errors());
+
+            // 失败的源在退避期内跳过
+            poller.pollOnce().get(10, TimeUnit.SECONDS);
+            assertEquals(1, broken.requests.get());
+            assertEquals(1, poller.stats().errors());
+        }
+    }
+
+    @Test
+    void bloomFilterKeepsTwoGenerationsAndStaysNearTargetFalsePositiveRate() {
+        AtomicLong clock = new AtomicLong();
+        RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, TimeUnit.HOURS.toNanos(1), clock::get);
+        int accepted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.add("item-" + i)) {
+                accepted++;
+            }
+        }
+        // 写入过程中的误判只会随填充率上升，整体远低于 p
+        assertTrue(accepted > 9_950, "accepted=" + accepted);
+        // 不会漏判
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(filter.add("item-" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (!filter.add("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        // 当前代写满 10000 后，"other-*" 写入触发轮换，两代合计误判率不超过 2p
+        assertTrue(falsePositives < 200, "falsePositives=" + falsePositives);
+
+        // item-* 所在的代已经被 other-* 挤到上一代，再按时间轮换两次后被遗忘
+        clock.addAndGet(TimeUnit.HOURS.toNanos(1));
+        filter.add("tick-1");
+        clock.addAndGet(TimeUnit.HOURS.toNanos(1));
+        filter.add("tick-2");
+        int remembered = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (!filter.add("item-" + i)) {
+                remembered++;
+            }
+        }
+        assertTrue(remembered < 50, "remembered=" + remembered);
+    }
+
+    @Test
+    void bloomFilterRefreshesItemsStillPresentAcrossRotations() {
+        AtomicLong clock = new AtomicLong();
+        RotatingBloomFilter filter = new RotatingBloomFilter(1000, 0.001, 100, clock::get);
+        assertTrue(filter.add("hot"));
+        // 每一代都还能在订阅源里看到 hot：命中上一代时补写到当前代，不会在第二次轮换后被当成新条目
+        for (int generation = 0; generation < 5; generation++) {
+            clock.addAndGet(100);
+            assertFalse(filter.add("hot"));
+        }
+    }
+
+    private FeedPoller poller(Endpoint... endpoints) {
+        return poller(message -> {
+            sent.add(message);
+            return CompletableFuture.completedFuture(null);
+        }, endpoints);
+    }
+
+    private FeedPoller poller(Function<ChatMessage, CompletableFuture<?>> sender, Endpoint... endpoints) {
+        RssHubProperties properties = new RssHubProperties();
+        properties.setEndpoints(List.of(endpoints));
+        // 测试里手动调用 pollOnce；间隔只影响失败退避（首次 2s）
+        properties.setPollInterval(Duration.ofSeconds(1));
+        properties.setMaxBackoff(Duration.ofSeconds(30));
+        properties.getDedup().setExpectedItems(10_000);
+        return new FeedPoller(properties, sender);
+    }
+
+    private Endpoint endpoint(String path, String source, String topic) {
+        Endpoint endpoint = new Endpoint();
+        endpoint.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        endpoint.setSource(source);
+        endpoint.setTopic(topic);
+        return endpoint;
+    }
+
+    private static String rss(String... items) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<rss version=\"2.0\"><channel><title>热搜</title>"
+            + String.join("", items) + "</channel></rss>";
+    }
+
+    private static String item(String guid, String title) {
+        return "<item><title><![CDATA[" + title + "]]></title><guid isPermaLink=\"false\">" + guid + "</guid>"
+            + "<link>https://example.com/" + guid + "</link><description>&lt;p&gt;" + title + "&lt;/p&gt;</description>"
+            + "<pubDate>Sat, 18 Oct 2026 01:00:00 GMT</pubDate></item>";
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // 桩订阅源：支持 ETag / Last-Modified 条件请求、gzip、延迟和固定状态码
+    private static final class StubFeed {
+
+        private volatile String body;
+        private volatile String etag;
+        private volatile String lastModified;
+        private volatile boolean gzip;
+        private volatile long delayMillis;
+        private volatile int status = 200;
+        private final AtomicLong requests = new AtomicLong();
+        private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+        private final List<String> ifModifiedSince = new CopyOnWriteArrayList<>();
+
+        private StubFeed(String body, String etag, String lastModified) {
+            update(body, etag, lastModified);
+        }
+
+        private void update(String body, String etag, String lastModified) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        private void serve(HttpExchange exchange) throws IOException {
+            requests.incrementAndGet();
+            String noneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            String modifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+            ifNoneMatch.add(noneMatch == null ? "" : noneMatch);
+            ifModifiedSince.add(modifiedSince == null ? "" : modifiedSince);
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (status != 200) {
+                respond(exchange, status, new byte[0]);
+                return;
+            }
+            if ((etag != null && etag.equals(noneMatch)) || (lastModified != null && lastModified.equals(modifiedSince))) {
+                respond(exchange, 304, new byte[0]);
+                return;
+            }
+            if (etag != null) {
+                exchange.getResponseHeaders().set("ETag", etag);
+            }
+            if (lastModified != null) {
+                exchange.getResponseHeaders().set("Last-Modified", lastModified);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/xml; charset=utf-8");
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            if (gzip) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                    out.write(bytes);
+                }
+                bytes = compressed.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            respond(exchange, 200, bytes);
+        }
+    }
+}
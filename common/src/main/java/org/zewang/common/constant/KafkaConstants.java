@@ -15,6 +15,9 @@ public class KafkaConstants {
     public static final String CHAT_MESSAGES_TOPIC = "chat-messages";
     public static final String SENTIMENT_SCORES_TOPIC = "sentiment-scores";
     public static final String WARNING_ALERTS_TOPIC = "warning-alerts";
+    public static final String SENTIMENT_ROLLUPS_TOPIC = "sentiment-rollups";
+    // 多粒度预警：key 为 userId@粒度（如 U001@5m），各粒度窗口大小不同，不和 warning-alerts 的窗口 key 混用
+    public static final String ROLLUP_ALERTS_TOPIC = "rollup-alerts";
 
     // 默认配置值
     public static final String DEFAULT_BOOTSTRAP_SERVERS = "localhost:9092";
@@ -0,0 +1,39 @@
+package org.zewang.common.constant;
+
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 情感标签，value 与 SentimentScore.sentimentLabel 中的字符串一致
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 16:20
+ */
+
+public enum SentimentLabel {
+    NEUTRAL("Neutral"),
+    POSITIVE("Positive"),
+    NEGATIVE("Negative");
+
+    // 分数绝对值小于该值视为中性
+    public static final double NEUTRAL_BAND = 0.05;
+
+    private final String value;
+
+    SentimentLabel(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static SentimentLabel of(double score) {
+        if (score >= NEUTRAL_BAND) {
+            return POSITIVE;
+        }
+        if (score <= -NEUTRAL_BAND) {
+            return NEGATIVE;
+        }
+        return NEUTRAL;
+    }
+}
@@ -0,0 +1,31 @@
+package org.zewang.common.constant;
+
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 产生情感分数的打分层级，value 与 SentimentScore.tier 中的字符串一致
+ * - LEXICON：本地词典（结果足够确定，或没有配置模型）
+ * - NGRAM：本地字符 n-gram 线性模型
+ * - MODEL：外部模型
+ * - FALLBACK：本该交给模型，但延迟/并发预算耗尽或模型失败，输出的是词典结果
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 21:00
+ */
+
+public enum SentimentTier {
+    LEXICON("lexicon"),
+    NGRAM("ngram"),
+    MODEL("model"),
+    FALLBACK("fallback");
+
+    private final String value;
+
+    SentimentTier(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,28 @@
+package org.zewang.common.dto;
+
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 多粒度情感汇总结果（1m / 5m / 1h 等），供大屏和多时间尺度预警使用
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 14:50
+ */
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class SentimentRollup {
+    private String userId;
+    private String horizon;       // 粒度名称，如 "1m"、"5m"、"1h"
+    private long windowStart;
+    private long windowEnd;
+    private long count;
+    private double averageScore;
+    private double minScore;
+    private double maxScore;
+}
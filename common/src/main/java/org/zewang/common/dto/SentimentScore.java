@@ -21,4 +21,6 @@ public class SentimentScore {
     private long timestamp;
     private double sentimentScore;  // [-1.0, 1.0]
     private String sentimentLabel;      // "Positive"/"Neutral"/"Negative"
+    private String lexiconVersion;      // 打分时使用的词典/模型版本
+    private String tier;                // "lexicon"/"ngram"/"model"/"fallback"
 }
@@ -0,0 +1,24 @@
+package org.zewang.common.dto;
+
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: SentimentScore 的投影：窗口聚合只需要 userId、timestamp 和分数
+ * 由 ProjectionSerde 从 sentiment-scores 中直接取字段填充，不解析标签、版本等字符串
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 00:15
+ */
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class SentimentScoreView {
+    private String userId;
+    private long timestamp;
+    private double sentimentScore;
+}
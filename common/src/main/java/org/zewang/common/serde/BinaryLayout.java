@@ -0,0 +1,81 @@
+package org.zewang.common.serde;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 二进制编码的字段布局（格式字节之后的字段顺序和类型）
+ * 投影反序列化按布局顺序扫描，只解码需要的字段，其余字段直接跳过；
+ * 布局必须与对应 BinarySerde 的 write() 保持一致
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 00:10
+ */
+
+public final class BinaryLayout {
+
+    public enum Type {
+        STRING,
+        VARLONG,
+        DOUBLE,
+        // 1 个字节的枚举编码：0 为 null，1.. 查表，ESCAPE 后跟字符串
+        CODE
+    }
+
+    static final class Field {
+        final String name;
+        final Type type;
+        final String[] table;
+
+        private Field(String name, Type type, String[] table) {
+            this.name = name;
+            this.type = type;
+            this.table = table;
+        }
+    }
+
+    private final List<Field> fields;
+
+    private BinaryLayout(List<Field> fields) {
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    List<Field> fields() {
+        return fields;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final List<Field> fields = new ArrayList<>();
+
+        public Builder string(String name) {
+            fields.add(new Field(name, Type.STRING, null));
+            return this;
+        }
+
+        public Builder varLong(String name) {
+            fields.add(new Field(name, Type.VARLONG, null));
+            return this;
+        }
+
+        public Builder doubleValue(String name) {
+            fields.add(new Field(name, Type.DOUBLE, null));
+            return this;
+        }
+
+        public Builder code(String name, String[] table) {
+            fields.add(new Field(name, Type.CODE, table.clone()));
+            return this;
+        }
+
+        public BinaryLayout build() {
+            return new BinaryLayout(new ArrayList<>(fields));
+        }
+    }
+}
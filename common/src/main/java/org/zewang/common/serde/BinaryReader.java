@@ -0,0 +1,121 @@
+package org.zewang.common.serde;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 二进制解码读取器，与 BinaryWriter 对应；越界或格式错误时抛出 SerializationException
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 22:40
+ */
+
+public final class BinaryReader {
+
+    private final byte[] data;
+    private int position;
+
+    public BinaryReader(byte[] data, int offset) {
+        this.data = data;
+        this.position = offset;
+    }
+
+    public int readByte() {
+        require(1);
+        return data[position++] & 0xff;
+    }
+
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("varint 过长");
+    }
+
+    public long readVarLong() {
+        long zigzag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            zigzag |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new SerializationException("varlong 过长");
+    }
+
+    public double readDouble() {
+        require(8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | (data[position++] & 0xff);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    public String readString() {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        int bytes = length - 1;
+        require(bytes);
+        String value = new String(data, position, bytes, StandardCharsets.UTF_8);
+        position += bytes;
+        return value;
+    }
+
+    public byte[] readBytes() {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        int bytes = length - 1;
+        require(bytes);
+        byte[] value = Arrays.copyOfRange(data, position, position + bytes);
+        position += bytes;
+        return value;
+    }
+
+    /**
+     * 跳过一个字符串，不创建对象
+     */
+    public void skipString() {
+        int length = readVarInt();
+        if (length > 0) {
+            require(length - 1);
+            position += length - 1;
+        }
+    }
+
+    public void skipVarLong() {
+        readVarLong();
+    }
+
+    public void skipDouble() {
+        require(8);
+        position += 8;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public boolean hasRemaining() {
+        return position < data.length;
+    }
+
+    private void require(int bytes) {
+        if (bytes < 0 || position + bytes > data.length) {
+            throw new SerializationException("二进制数据不完整: position=" + position + ", need=" + bytes + ", length=" + data.length);
+        }
+    }
+}
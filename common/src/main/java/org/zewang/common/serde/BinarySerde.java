@@ -0,0 +1,115 @@
+package org.zewang.common.serde;
+
+
+import java.util.Map;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 紧凑二进制 Serde 的基类
+ * 编码：第 1 个字节为格式版本（当前 FORMAT_V1），之后是各 DTO 的定长顺序字段，
+ * 不写字段名；时间戳用 zigzag varlong，枚举类字符串（如情感标签）用 1 个字节的编码。
+ * 解码：第 1 个字节是 '{' 或空白时按旧的 JSON 格式解析，集群可以不停机从 JsonSerde 迁移过来
+ * （新旧实例混跑期间两种格式都能读）。
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 22:45
+ */
+
+public abstract class BinarySerde<T> implements Serde<T> {
+
+    public static final byte FORMAT_V1 = 0x01;
+
+    private final Class<T> targetType;
+    private final Deserializer<T> legacyJson;
+    private final Serializer<T> serializer = new BinarySerializer();
+    private final Deserializer<T> deserializer = new BinaryDeserializer();
+
+    protected BinarySerde(Class<T> targetType) {
+        this.targetType = targetType;
+        this.legacyJson = new JsonSerde<>(targetType).deserializer();
+    }
+
+    /**
+     * 写入格式版本之后的字段
+     */
+    protected abstract void write(T value, BinaryWriter writer);
+
+    /**
+     * 读取格式版本之后的字段
+     */
+    protected abstract T read(int format, BinaryReader reader);
+
+    /**
+     * 预估的编码长度，用于初始化缓冲区
+     */
+    protected int estimatedSize(T value) {
+        return 64;
+    }
+
+    public byte[] serialize(T value) {
+        if (value == null) {
+            return null;
+        }
+        BinaryWriter writer = new BinaryWriter(estimatedSize(value));
+        writer.writeByte(FORMAT_V1);
+        write(value, writer);
+        return writer.toByteArray();
+    }
+
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length == 0) {
+            throw new SerializationException("空的 " + targetType.getSimpleName() + " 数据, topic: " + topic);
+        }
+        int format = data[0] & 0xff;
+        if (format == FORMAT_V1) {
+            return read(format, new BinaryReader(data, 1));
+        }
+        if (isJsonStart(format)) {
+            return legacyJson.deserialize(topic, data);
+        }
+        throw new SerializationException("未知的 " + targetType.getSimpleName() + " 编码格式: " + format + ", topic: " + topic);
+    }
+
+    static boolean isJsonStart(int firstByte) {
+        return firstByte == '{' || firstByte == ' ' || firstByte == '\t' || firstByte == '\n' || firstByte == '\r';
+    }
+
+    @Override
+    public Serializer<T> serializer() {
+        return serializer;
+    }
+
+    @Override
+    public Deserializer<T> deserializer() {
+        return deserializer;
+    }
+
+    private class BinarySerializer implements Serializer<T> {
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {
+        }
+
+        @Override
+        public byte[] serialize(String topic, T data) {
+            return BinarySerde.this.serialize(data);
+        }
+    }
+
+    private class BinaryDeserializer implements Deserializer<T> {
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {
+        }
+
+        @Override
+        public T deserialize(String topic, byte[] data) {
+            return BinarySerde.this.deserialize(topic, data);
+        }
+    }
+}
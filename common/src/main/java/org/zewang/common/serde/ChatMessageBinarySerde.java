@@ -0,0 +1,51 @@
+package org.zewang.common.serde;
+
+
+import org.zewang.common.dto.ChatMessage;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: ChatMessage 二进制编码：[格式][userId][timestamp varlong][message]
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 22:50
+ */
+
+public class ChatMessageBinarySerde extends BinarySerde<ChatMessage> {
+
+    public ChatMessageBinarySerde() {
+        super(ChatMessage.class);
+    }
+
+    @Override
+    protected int estimatedSize(ChatMessage value) {
+        return 16 + (value.getMessage() == null ? 0 : value.getMessage().length() * 3);
+    }
+
+    @Override
+    protected void write(ChatMessage value, BinaryWriter writer) {
+        writeBody(value, writer);
+    }
+
+    @Override
+    protected ChatMessage read(int format, BinaryReader reader) {
+        return readBody(reader);
+    }
+
+    /**
+     * 不带格式字节的字段编码，供嵌套了 ChatMessage 的 DTO 复用
+     */
+    public static void writeBody(ChatMessage value, BinaryWriter writer) {
+        writer.writeString(value.getUserId())
+            .writeVarLong(value.getTimestamp())
+            .writeString(value.getMessage());
+    }
+
+    public static ChatMessage readBody(BinaryReader reader) {
+        ChatMessage message = new ChatMessage();
+        message.setUserId(reader.readString());
+        message.setTimestamp(reader.readVarLong());
+        message.setMessage(reader.readString());
+        return message;
+    }
+}
@@ -1,38 +1,82 @@
 // src/main/java/org/zewang/common/serde/JsonSerde.java
 package org.zewang.common.serde;
 
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.kafka.common.serialization.Deserializer;
-import org.apache.kafka.common.serialization.Serializer;
-import org.apache.kafka.common.serialization.Serde;
-
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
 
 public class JsonSerde<T> implements Serde<T> { // 实现 Serde 接口
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * 配置项：为 true 时使用注册了 Blackbird 模块的 ObjectMapper（用 LambdaMetafactory 生成属性访问器，代替反射）
+     * 可以放在 Kafka 客户端 / Streams 的配置中，configure() 时生效
+     */
+    public static final String BLACKBIRD_CONFIG = "stream-mind.json.blackbird";
+
+    // 所有 JsonSerde 共享预先配置好的 ObjectMapper：序列化器缓存、类型信息只需要构建一次
+    private static final ObjectMapper MAPPER = newMapper(false);
+
+    // 每个线程复用一个输出缓冲区，序列化时只在最后复制一次结果
+    private static final ThreadLocal<ByteArrayBuilder> BUFFERS = ThreadLocal.withInitial(() -> new ByteArrayBuilder(512));
+
     private final Class<T> targetType;
-    private final JsonSerializer<T> serializer;
-    private final JsonDeserializer<T> deserializer;
+    private final JsonSerializer serializer = new JsonSerializer();
+    private final JsonDeserializer deserializer = new JsonDeserializer();
+
+    // 针对 targetType 预先构建的 reader / writer，避免每次调用都走通用的类型解析
+    private volatile ObjectReader reader;
+    private volatile ObjectWriter writer;
 
     public JsonSerde(Class<T> targetType) {
+        this(targetType, false);
+    }
+
+    public JsonSerde(Class<T> targetType, boolean blackbird) {
         this.targetType = targetType;
-        this.serializer = new JsonSerializer<>();
-        this.deserializer = new JsonDeserializer<>(targetType);
+        useMapper(blackbird ? BlackbirdHolder.MAPPER : MAPPER);
     }
 
-    @Override
-    public void configure(Map<String, ?> configs, boolean isKey) {
-        // 可以在这里配置 serializer 和 deserializer
-        serializer.configure(configs, isKey);
-        deserializer.configure(configs, isKey);
+    private static ObjectMapper newMapper(boolean blackbird) {
+        ObjectMapper mapper = new ObjectMapper()
+            // 新版本 DTO 增加字段时，旧实例仍能读取（滚动升级）
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        if (blackbird) {
+            mapper.registerModule(new BlackbirdModule());
+        }
+        return mapper;
+    }
+
+    // 只有开启 Blackbird 时才创建
+    private static final class BlackbirdHolder {
+        private static final ObjectMapper MAPPER = newMapper(true);
+    }
+
+    private void useMapper(ObjectMapper mapper) {
+        this.reader = mapper.readerFor(targetType);
+        this.writer = mapper.writerFor(targetType);
     }
 
     @Override
-    public void close() {
-        serializer.close();
-        deserializer.close();
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        // 可以在这里配置 serializer 和 deserializer
+        Object blackbird = configs.get(BLACKBIRD_CONFIG);
+        if (blackbird != null && Boolean.parseBoolean(blackbird.toString())) {
+            useMapper(BlackbirdHolder.MAPPER);
+        }
     }
 
     @Override
@@ -45,62 +89,92 @@ public class JsonSerde<T> implements Serde<T> { // 实现 Serde 接口
         return deserializer;
     }
 
+    private byte[] serialize(String topic, T data) {
+        if (data == null) {
+            return null;
+        }
+        ByteArrayBuilder buffer = BUFFERS.get();
+        try {
+            writer.writeValue(buffer, data);
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            // 异常信息中不包含消息内容，避免大消息拖慢日志或泄露数据
+            throw new SerializationException("Error serializing JSON message for topic: " + topic
+                + ", data type: " + targetType.getName(), e);
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    private T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return reader.readValue(data);
+        } catch (IOException e) {
+            throw deserializationError(topic, data.length, e);
+        }
+    }
+
+    private T deserialize(String topic, ByteBuffer data) {
+        if (data == null) {
+            return null;
+        }
+        int length = data.remaining();
+        try {
+            if (data.hasArray()) {
+                // 直接读取底层数组，不复制
+                return reader.readValue(data.array(), data.arrayOffset() + data.position(), length);
+            }
+            return reader.readValue(new ByteBufferBackedInputStream(data.duplicate()));
+        } catch (IOException e) {
+            throw deserializationError(topic, length, e);
+        }
+    }
+
+    private SerializationException deserializationError(String topic, int length, IOException e) {
+        return new SerializationException("Error deserializing JSON message for topic: " + topic
+            + ", target type: " + targetType.getName() + ", data length: " + length, e);
+    }
+
     // 内部 JsonSerializer 类
-    private class JsonSerializer<T> implements Serializer<T> {
+    private class JsonSerializer implements Serializer<T> {
         @Override
         public void configure(Map<String, ?> configs, boolean isKey) {
-            // 配置逻辑（如果需要）
+            JsonSerde.this.configure(configs, isKey);
         }
 
         @Override
         public byte[] serialize(String topic, T data) {
-            if (data == null) {
-                return null;
-            }
-            try {
-                return objectMapper.writeValueAsBytes(data);
-            } catch (Exception e) {
-                throw new RuntimeException("Error serializing JSON message for topic: " + topic +
-                    ", data type: " + data.getClass().getName() +
-                    ", data: " + data, e);
-            }
+            return JsonSerde.this.serialize(topic, data);
         }
 
         @Override
-        public void close() {
-            // 清理资源（如果需要）
+        public byte[] serialize(String topic, Headers headers, T data) {
+            return JsonSerde.this.serialize(topic, data);
         }
     }
 
-    private class JsonDeserializer<T> implements Deserializer<T> {
-        private final Class<T> targetType;
-
-        public JsonDeserializer(Class<T> targetType) {
-            this.targetType = targetType;
-        }
-
+    private class JsonDeserializer implements Deserializer<T> {
         @Override
         public void configure(Map<String, ?> configs, boolean isKey) {
-            // 配置逻辑（如果需要）
+            JsonSerde.this.configure(configs, isKey);
         }
 
         @Override
         public T deserialize(String topic, byte[] data) {
-            if (data == null) {
-                return null;
-            }
-            try {
-                return objectMapper.readValue(data, targetType);
-            } catch (IOException e) {
-                throw new RuntimeException("Error deserializing JSON message for topic: " + topic +
-                    ", target type: " + targetType.getName() +
-                    ", data length: " + data.length, e);
-            }
+            return JsonSerde.this.deserialize(topic, data);
+        }
+
+        @Override
+        public T deserialize(String topic, Headers headers, byte[] data) {
+            return JsonSerde.this.deserialize(topic, data);
         }
 
         @Override
-        public void close() {
-            // 清理资源（如果需要）
+        public T deserialize(String topic, Headers headers, ByteBuffer data) {
+            return JsonSerde.this.deserialize(topic, data);
         }
     }
 }
@@ -0,0 +1,292 @@
+package org.zewang.common.serde;
+
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+import org.zewang.common.dto.SentimentScoreView;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 投影 Serde：只从编码后的消息中取出指定字段，写入一个轻量的 holder
+ * - JSON：用 Jackson 流式 parser 逐个 token 扫描，字段名由 parser 规范化（不重复创建），
+ *   不需要的值直接 skipChildren()，字符串值不解码；所需字段取齐后立即停止
+ * - 二进制（BinarySerde 格式）：按 BinaryLayout 顺序读取，不需要的字段按长度跳过
+ * deserializeInto() 把字段写入调用方传入的 holder，可以在 process() 内反复复用同一个 holder。
+ * Kafka 客户端 / Streams 的 Deserializer 路径每条消息新建一个 holder：
+ * Streams 会提前反序列化多个分区的队首记录，复用同一个 holder 会被后面的记录覆盖。
+ * 序列化时 holder 按 JSON 写出（投影结果一般不再写回 topic）。
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 00:20
+ */
+
+public class ProjectionSerde<H> implements Serde<H> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private enum Kind {
+        STRING,
+        LONG,
+        DOUBLE
+    }
+
+    private static final class Target<H> {
+        private final Kind kind;
+        private final BiConsumer<H, String> stringSetter;
+        private final ObjLongConsumer<H> longSetter;
+        private final ObjDoubleConsumer<H> doubleSetter;
+
+        private Target(Kind kind, BiConsumer<H, String> stringSetter, ObjLongConsumer<H> longSetter,
+            ObjDoubleConsumer<H> doubleSetter) {
+            this.kind = kind;
+            this.stringSetter = stringSetter;
+            this.longSetter = longSetter;
+            this.doubleSetter = doubleSetter;
+        }
+    }
+
+    private final Class<H> holderType;
+    private final Supplier<H> holderFactory;
+    private final Map<String, Target<H>> targets;
+    private final BinaryLayout.Field[] layoutFields;
+    // 与 layoutFields 一一对应，不需要的字段为 null
+    private final List<Target<H>> layoutTargets;
+    private final JsonSerde<H> jsonSerde;
+    private final Deserializer<H> deserializer = new ProjectionDeserializer();
+
+    private ProjectionSerde(Builder<H> builder) {
+        this.holderType = builder.holderType;
+        this.holderFactory = builder.holderFactory;
+        this.targets = new HashMap<>(builder.targets);
+        this.jsonSerde = new JsonSerde<>(holderType);
+
+        List<BinaryLayout.Field> fields = builder.layout == null ? List.of() : builder.layout.fields();
+        this.layoutFields = fields.toArray(new BinaryLayout.Field[0]);
+        this.layoutTargets = new ArrayList<>(layoutFields.length);
+        for (int i = 0; i < layoutFields.length; i++) {
+            Target<H> target = targets.get(layoutFields[i].name);
+            if (target != null) {
+                checkCompatible(layoutFields[i], target);
+            }
+            layoutTargets.add(target);
+        }
+    }
+
+    private static void checkCompatible(BinaryLayout.Field field, Target<?> target) {
+        boolean compatible = switch (field.type) {
+            case STRING, CODE -> target.kind == Kind.STRING;
+            case VARLONG -> target.kind == Kind.LONG || target.kind == Kind.DOUBLE;
+            case DOUBLE -> target.kind == Kind.DOUBLE;
+        };
+        if (!compatible) {
+            throw new IllegalArgumentException("field " + field.name + " is encoded as " + field.type
+                + " and cannot be projected as " + target.kind);
+        }
+    }
+
+    public static <H> Builder<H> builder(Class<H> holderType, Supplier<H> holderFactory) {
+        return new Builder<>(holderType, holderFactory);
+    }
+
+    /**
+     * 预警 / 汇总阶段使用的 SentimentScore 投影：userId、timestamp、sentimentScore
+     */
+    public static ProjectionSerde<SentimentScoreView> sentimentScoreView() {
+        return builder(SentimentScoreView.class, SentimentScoreView::new)
+            .stringField("userId", SentimentScoreView::setUserId)
+            .longField("timestamp", SentimentScoreView::setTimestamp)
+            .doubleField("sentimentScore", SentimentScoreView::setSentimentScore)
+            .binaryLayout(SentimentScoreBinarySerde.LAYOUT)
+            .build();
+    }
+
+    /**
+     * 把 data 中需要的字段写入 holder；holder 中其余字段保持不变
+     */
+    public H deserializeInto(String topic, byte[] data, H holder) {
+        if (data.length == 0) {
+            throw new SerializationException("空的投影数据, topic: " + topic);
+        }
+        int first = data[0] & 0xff;
+        if (first == BinarySerde.FORMAT_V1 && layoutFields.length > 0) {
+            projectBinary(data, holder);
+        } else if (BinarySerde.isJsonStart(first)) {
+            projectJson(topic, data, holder);
+        } else {
+            throw new SerializationException("无法投影的编码格式: " + first + ", topic: " + topic);
+        }
+        return holder;
+    }
+
+    private void projectJson(String topic, byte[] data, H holder) {
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new SerializationException("投影的 JSON 必须是对象, topic: " + topic);
+            }
+            int remaining = targets.size();
+            while (remaining > 0 && parser.nextToken() == JsonToken.FIELD_NAME) {
+                Target<H> target = targets.get(parser.currentName());
+                JsonToken value = parser.nextToken();
+                if (target == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                remaining--;
+                if (value == JsonToken.VALUE_NULL) {
+                    if (target.kind == Kind.STRING) {
+                        target.stringSetter.accept(holder, null);
+                    }
+                    continue;
+                }
+                switch (target.kind) {
+                    case STRING -> target.stringSetter.accept(holder, parser.getValueAsString());
+                    case LONG -> target.longSetter.accept(holder, parser.getValueAsLong());
+                    case DOUBLE -> target.doubleSetter.accept(holder, parser.getValueAsDouble());
+                }
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Error projecting JSON message for topic: " + topic
+                + ", holder type: " + holderType.getName() + ", data length: " + data.length, e);
+        }
+    }
+
+    private void projectBinary(byte[] data, H holder) {
+        BinaryReader reader = new BinaryReader(data, 1);
+        int remaining = targets.size();
+        for (int i = 0; i < layoutFields.length && remaining > 0; i++) {
+            BinaryLayout.Field field = layoutFields[i];
+            Target<H> target = layoutTargets.get(i);
+            if (target != null) {
+                remaining--;
+            }
+            switch (field.type) {
+                case STRING -> {
+                    if (target == null) {
+                        reader.skipString();
+                    } else {
+                        target.stringSetter.accept(holder, reader.readString());
+                    }
+                }
+                case VARLONG -> {
+                    long value = reader.readVarLong();
+                    if (target != null) {
+                        if (target.kind == Kind.LONG) {
+                            target.longSetter.accept(holder, value);
+                        } else {
+                            target.doubleSetter.accept(holder, value);
+                        }
+                    }
+                }
+                case DOUBLE -> {
+                    if (target == null) {
+                        reader.skipDouble();
+                    } else {
+                        target.doubleSetter.accept(holder, reader.readDouble());
+                    }
+                }
+                case CODE -> {
+                    int code = reader.readByte();
+                    if (code == SentimentScoreBinarySerde.ESCAPE) {
+                        if (target == null) {
+                            reader.skipString();
+                        } else {
+                            target.stringSetter.accept(holder, reader.readString());
+                        }
+                    } else if (target != null) {
+                        if (code > field.table.length) {
+                            throw new SerializationException("未知的枚举编码: " + code);
+                        }
+                        target.stringSetter.accept(holder, code == 0 ? null : field.table[code - 1]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public Serializer<H> serializer() {
+        return jsonSerde.serializer();
+    }
+
+    @Override
+    public Deserializer<H> deserializer() {
+        return deserializer;
+    }
+
+    private class ProjectionDeserializer implements Deserializer<H> {
+        @Override
+        public H deserialize(String topic, byte[] data) {
+            if (data == null) {
+                return null;
+            }
+            return deserializeInto(topic, data, holderFactory.get());
+        }
+    }
+
+    public static final class Builder<H> {
+        private final Class<H> holderType;
+        private final Supplier<H> holderFactory;
+        private final Map<String, Target<H>> targets = new HashMap<>();
+        private BinaryLayout layout;
+
+        private Builder(Class<H> holderType, Supplier<H> holderFactory) {
+            this.holderType = holderType;
+            this.holderFactory = holderFactory;
+        }
+
+        public Builder<H> stringField(String name, BiConsumer<H, String> setter) {
+            targets.put(name, new Target<>(Kind.STRING, setter, null, null));
+            return this;
+        }
+
+        public Builder<H> longField(String name, ObjLongConsumer<H> setter) {
+            targets.put(name, new Target<>(Kind.LONG, null, setter, null));
+            return this;
+        }
+
+        public Builder<H> doubleField(String name, ObjDoubleConsumer<H> setter) {
+            targets.put(name, new Target<>(Kind.DOUBLE, null, null, setter));
+            return this;
+        }
+
+        /**
+         * 二进制编码的字段布局；不设置时只支持 JSON
+         */
+        public Builder<H> binaryLayout(BinaryLayout layout) {
+            this.layout = layout;
+            return this;
+        }
+
+        public ProjectionSerde<H> build() {
+            if (targets.isEmpty()) {
+                throw new IllegalArgumentException("projection needs at least one field");
+            }
+            List<String> missing = new ArrayList<>();
+            if (layout != null) {
+                for (String name : targets.keySet()) {
+                    if (layout.fields().stream().noneMatch(field -> field.name.equals(name))) {
+                        missing.add(name);
+                    }
+                }
+            }
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("fields not in binary layout: " + missing);
+            }
+            return new ProjectionSerde<>(this);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.zewang.common.serde;
+
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.zewang.common.constant.SentimentLabel;
+import org.zewang.common.constant.SentimentTier;
+import org.zewang.common.dto.SentimentScore;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: SentimentScore 二进制编码：
+ * [格式][userId][timestamp varlong][sentimentScore double][label 编码][tier 编码][lexiconVersion]
+ * 标签和层级各占 1 个字节：0 为 null，1.. 为已知取值，ESCAPE 后跟原始字符串（未知取值）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 22:50
+ */
+
+public class SentimentScoreBinarySerde extends BinarySerde<SentimentScore> {
+
+    static final int ESCAPE = 0xff;
+
+    // 编码表只能追加，不能调整顺序
+    private static final String[] LABELS = {
+        SentimentLabel.NEUTRAL.getValue(), SentimentLabel.POSITIVE.getValue(), SentimentLabel.NEGATIVE.getValue()};
+    private static final String[] TIERS = {
+        SentimentTier.LEXICON.getValue(), SentimentTier.NGRAM.getValue(), SentimentTier.MODEL.getValue(),
+        SentimentTier.FALLBACK.getValue()};
+
+    /**
+     * 字段布局，供 ProjectionSerde 跳过不需要的字段；必须与 write() 一致
+     */
+    public static final BinaryLayout LAYOUT = BinaryLayout.builder()
+        .string("userId")
+        .varLong("timestamp")
+        .doubleValue("sentimentScore")
+        .code("sentimentLabel", LABELS)
+        .code("tier", TIERS)
+        .string("lexiconVersion")
+        .build();
+
+    public SentimentScoreBinarySerde() {
+        super(SentimentScore.class);
+    }
+
+    @Override
+    protected int estimatedSize(SentimentScore value) {
+        return 48;
+    }
+
+    @Override
+    protected void write(SentimentScore value, BinaryWriter writer) {
+        writer.writeString(value.getUserId())
+            .writeVarLong(value.getTimestamp())
+            .writeDouble(value.getSentimentScore());
+        writeCode(writer, LABELS, value.getSentimentLabel());
+        writeCode(writer, TIERS, value.getTier());
+        writer.writeString(value.getLexiconVersion());
+    }
+
+    @Override
+    protected SentimentScore read(int format, BinaryReader reader) {
+        SentimentScore score = new SentimentScore();
+        score.setUserId(reader.readString());
+        score.setTimestamp(reader.readVarLong());
+        score.setSentimentScore(reader.readDouble());
+        score.setSentimentLabel(readCode(reader, LABELS));
+        score.setTier(readCode(reader, TIERS));
+        score.setLexiconVersion(reader.readString());
+        return score;
+    }
+
+    static void writeCode(BinaryWriter writer, String[] table, String value) {
+        if (value == null) {
+            writer.writeByte(0);
+            return;
+        }
+        for (int i = 0; i < table.length; i++) {
+            if (table[i].equals(value)) {
+                writer.writeByte(i + 1);
+                return;
+            }
+        }
+        writer.writeByte(ESCAPE).writeString(value);
+    }
+
+    static String readCode(BinaryReader reader, String[] table) {
+        int code = reader.readByte();
+        if (code == 0) {
+            return null;
+        }
+        if (code == ESCAPE) {
+            return reader.readString();
+        }
+        if (code > table.length) {
+            throw new SerializationException("未知的枚举编码: " + code);
+        }
+        return table[code - 1];
+    }
+}
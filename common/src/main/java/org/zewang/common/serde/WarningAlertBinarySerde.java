@@ -0,0 +1,37 @@
+package org.zewang.common.serde;
+
+
+import org.zewang.common.dto.WarningAlert;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: WarningAlert 二进制编码：[格式][userId][windowEnd varlong][averageScore double][alertMessage]
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 22:50
+ */
+
+public class WarningAlertBinarySerde extends BinarySerde<WarningAlert> {
+
+    public WarningAlertBinarySerde() {
+        super(WarningAlert.class);
+    }
+
+    @Override
+    protected void write(WarningAlert value, BinaryWriter writer) {
+        writer.writeString(value.getUserId())
+            .writeVarLong(value.getWindowEnd())
+            .writeDouble(value.getAverageScore())
+            .writeString(value.getAlertMessage());
+    }
+
+    @Override
+    protected WarningAlert read(int format, BinaryReader reader) {
+        WarningAlert alert = new WarningAlert();
+        alert.setUserId(reader.readString());
+        alert.setWindowEnd(reader.readVarLong());
+        alert.setAverageScore(reader.readDouble());
+        alert.setAlertMessage(reader.readString());
+        return alert;
+    }
+}
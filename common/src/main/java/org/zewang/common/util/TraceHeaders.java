@@ -0,0 +1,64 @@
+package org.zewang.common.util;
+
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 端到端延迟追踪用的 record header
+ * - sm-ingest-ts：生产者发送时刻（epoch 毫秒，8 字节大端）
+ * - sm-scored-ts：stream 打分完成时刻
+ * - sm-trace-id：可选的追踪 id（UTF-8）
+ * Kafka Streams 的无状态算子和 sink 会原样带上 header，两段式拓扑中经过 sentiment-scores 也不会丢
+ * 各时刻来自不同机器的 wall-clock，跨机器的分段延迟包含时钟偏差
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 06:10
+ */
+
+public final class TraceHeaders {
+
+    public static final String INGEST_TS = "sm-ingest-ts";
+    public static final String SCORED_TS = "sm-scored-ts";
+    public static final String TRACE_ID = "sm-trace-id";
+
+    public static final long ABSENT = -1L;
+
+    private TraceHeaders() {
+    }
+
+    /**
+     * 写入时间戳，已有同名 header 时覆盖
+     */
+    public static void putTimestamp(Headers headers, String name, long epochMillis) {
+        headers.remove(name);
+        headers.add(name, ByteBuffer.allocate(Long.BYTES).putLong(epochMillis).array());
+    }
+
+    /**
+     * 读取时间戳，不存在或格式不对时返回 ABSENT
+     */
+    public static long timestamp(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        if (header == null || header.value() == null || header.value().length != Long.BYTES) {
+            return ABSENT;
+        }
+        return ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    public static void putTraceId(Headers headers, String traceId) {
+        headers.remove(TRACE_ID);
+        headers.add(TRACE_ID, traceId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 读取追踪 id，不存在时返回 null
+     */
+    public static String traceId(Headers headers) {
+        Header header = headers.lastHeader(TRACE_ID);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
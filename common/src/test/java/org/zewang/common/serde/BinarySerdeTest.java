@@ -0,0 +1,108 @@
+package org.zewang.common.serde;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.WarningAlert;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 二进制 Serde 测试：往返一致、兼容旧 JSON、编码长度
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 23:10
+ */
+class BinarySerdeTest {
+
+    private final SentimentScoreBinarySerde scoreSerde = new SentimentScoreBinarySerde();
+
+    @Test
+    void sentimentScoreRoundTripIsSmallerThanJson() {
+        SentimentScore score = score("Negative", "model");
+
+        byte[] binary = scoreSerde.serializer().serialize("sentiment-scores", score);
+        byte[] json = new JsonSerde<>(SentimentScore.class).serializer().serialize("sentiment-scores", score);
+        assertEquals(BinarySerde.FORMAT_V1, binary[0]);
+        assertTrue(binary.length * 3 < json.length, "binary=" + binary.length + ", json=" + json.length);
+
+        assertScoreEquals(score, scoreSerde.deserializer().deserialize("sentiment-scores", binary));
+        // 旧 JSON 数据（迁移期间 topic 中两种格式混杂）
+        assertScoreEquals(score, scoreSerde.deserializer().deserialize("sentiment-scores", json));
+    }
+
+    @Test
+    void unknownLabelsAndNullsSurvive() {
+        SentimentScore score = score("Mixed", null);
+        score.setUserId(null);
+        score.setLexiconVersion(null);
+        SentimentScore decoded = scoreSerde.deserializer().deserialize("t", scoreSerde.serializer().serialize("t", score));
+        assertScoreEquals(score, decoded);
+        assertNull(scoreSerde.deserializer().deserialize("t", null));
+    }
+
+    @Test
+    void chatMessageAndAlertRoundTrip() {
+        ChatMessageBinarySerde chatSerde = new ChatMessageBinarySerde();
+        ChatMessage message = new ChatMessage();
+        message.setUserId("U001");
+        message.setTimestamp(-1L);
+        message.setMessage("今天很开心 😀 é");
+        ChatMessage decoded = chatSerde.deserializer().deserialize("t", chatSerde.serializer().serialize("t", message));
+        assertEquals("U001", decoded.getUserId());
+        assertEquals(-1L, decoded.getTimestamp());
+        assertEquals("今天很开心 😀 é", decoded.getMessage());
+
+        WarningAlertBinarySerde alertSerde = new WarningAlertBinarySerde();
+        WarningAlert alert = new WarningAlert();
+        alert.setUserId("U002");
+        alert.setWindowEnd(1_760_000_000_000L);
+        alert.setAverageScore(-0.45);
+        alert.setAlertMessage("用户情绪持续低落");
+        byte[] bytes = alertSerde.serializer().serialize("t", alert);
+        WarningAlert decodedAlert = alertSerde.deserializer().deserialize("t", bytes);
+        assertEquals("U002", decodedAlert.getUserId());
+        assertEquals(1_760_000_000_000L, decodedAlert.getWindowEnd());
+        assertEquals(-0.45, decodedAlert.getAverageScore());
+        assertEquals("用户情绪持续低落", decodedAlert.getAlertMessage());
+
+        String json = "{\"userId\":\"U002\",\"windowEnd\":5,\"averageScore\":-0.5,\"alertMessage\":\"x\"}";
+        assertEquals(5L, alertSerde.deserializer().deserialize("t", json.getBytes(StandardCharsets.UTF_8)).getWindowEnd());
+    }
+
+    @Test
+    void malformedDataIsRejected() {
+        byte[] bytes = scoreSerde.serializer().serialize("t", score("Positive", "lexicon"));
+        assertThrows(SerializationException.class,
+            () -> scoreSerde.deserializer().deserialize("t", Arrays.copyOf(bytes, bytes.length - 3)));
+        assertThrows(SerializationException.class, () -> scoreSerde.deserializer().deserialize("t", new byte[]{0x7f, 1}));
+        assertThrows(SerializationException.class, () -> scoreSerde.deserializer().deserialize("t", new byte[0]));
+    }
+
+    private static SentimentScore score(String label, String tier) {
+        SentimentScore score = new SentimentScore();
+        score.setUserId("U001");
+        score.setTimestamp(1_760_000_000_123L);
+        score.setSentimentScore(-0.6);
+        score.setSentimentLabel(label);
+        score.setLexiconVersion("builtin-1");
+        score.setTier(tier);
+        return score;
+    }
+
+    private static void assertScoreEquals(SentimentScore expected, SentimentScore actual) {
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getSentimentScore(), actual.getSentimentScore());
+        assertEquals(expected.getSentimentLabel(), actual.getSentimentLabel());
+        assertEquals(expected.getLexiconVersion(), actual.getLexiconVersion());
+        assertEquals(expected.getTier(), actual.getTier());
+    }
+}
@@ -0,0 +1,116 @@
+package org.zewang.common.serde;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.zewang.common.dto.SentimentScore;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: JsonSerde 测试：共享 mapper、线程本地缓冲区、headers / ByteBuffer 重载、Blackbird 开关
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 23:40
+ */
+class JsonSerdeTest {
+
+    private final JsonSerde<SentimentScore> serde = new JsonSerde<>(SentimentScore.class);
+
+    @Test
+    void roundTripThroughAllOverloads() {
+        SentimentScore score = score("U001", -0.6);
+        RecordHeaders headers = new RecordHeaders();
+        byte[] plain = serde.serializer().serialize("t", score);
+        byte[] withHeaders = serde.serializer().serialize("t", headers, score);
+        assertArrayEquals(plain, withHeaders);
+
+        assertEquals("U001", serde.deserializer().deserialize("t", headers, plain).getUserId());
+
+        // ByteBuffer 指向更大数组中的一段
+        byte[] padded = new byte[plain.length + 10];
+        System.arraycopy(plain, 0, padded, 7, plain.length);
+        ByteBuffer slice = ByteBuffer.wrap(padded, 7, plain.length);
+        assertEquals(-0.6, serde.deserializer().deserialize("t", headers, slice).getSentimentScore());
+        ByteBuffer direct = ByteBuffer.allocateDirect(plain.length).put(plain).flip();
+        assertEquals("U001", serde.deserializer().deserialize("t", headers, direct).getUserId());
+        assertEquals(plain.length, direct.remaining());
+
+        assertNull(serde.serializer().serialize("t", null));
+        assertNull(serde.deserializer().deserialize("t", headers, (ByteBuffer) null));
+    }
+
+    @Test
+    void reusedBufferDoesNotLeakBetweenCalls() throws Exception {
+        byte[] first = serde.serializer().serialize("t", score("U001", 0.1));
+        byte[] second = serde.serializer().serialize("t", score("U002-long-user-id", 0.2));
+        assertEquals("U001", serde.deserializer().deserialize("t", first).getUserId());
+        assertEquals("U002-long-user-id", serde.deserializer().deserialize("t", second).getUserId());
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        String userId = "U" + thread + "-" + i;
+                        byte[] bytes = serde.serializer().serialize("t", score(userId, i));
+                        if (!userId.equals(serde.deserializer().deserialize("t", bytes).getUserId())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertEquals(true, result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void blackbirdProducesIdenticalJson() {
+        JsonSerde<SentimentScore> blackbird = new JsonSerde<>(SentimentScore.class);
+        blackbird.configure(Map.of(JsonSerde.BLACKBIRD_CONFIG, "true"), false);
+        SentimentScore score = score("U001", 0.8);
+        byte[] bytes = blackbird.serializer().serialize("t", score);
+        assertArrayEquals(serde.serializer().serialize("t", score), bytes);
+        assertEquals(0.8, new JsonSerde<>(SentimentScore.class, true).deserializer().deserialize("t", bytes).getSentimentScore());
+    }
+
+    @Test
+    void unknownFieldsAreIgnoredAndErrorsOmitPayload() {
+        String json = "{\"userId\":\"U001\",\"sentimentScore\":0.5,\"addedInLaterVersion\":\"secret-payload\"}";
+        assertEquals("U001", serde.deserializer().deserialize("t", json.getBytes(StandardCharsets.UTF_8)).getUserId());
+
+        byte[] broken = "{\"userId\":\"secret-payload\"".getBytes(StandardCharsets.UTF_8);
+        SerializationException e = assertThrows(SerializationException.class,
+            () -> serde.deserializer().deserialize("t", broken));
+        assertFalse(e.getMessage().contains("secret-payload"));
+    }
+
+    private static SentimentScore score(String userId, double value) {
+        SentimentScore score = new SentimentScore();
+        score.setUserId(userId);
+        score.setTimestamp(1_760_000_000_000L);
+        score.setSentimentScore(value);
+        score.setSentimentLabel("Neutral");
+        return score;
+    }
+}
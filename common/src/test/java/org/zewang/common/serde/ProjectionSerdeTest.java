@@ -0,0 +1,100 @@
+package org.zewang.common.serde;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.SentimentScoreView;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 投影 Serde 测试：JSON / 二进制两种输入、跳过无关字段、holder 复用
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 00:40
+ */
+class ProjectionSerdeTest {
+
+    private final ProjectionSerde<SentimentScoreView> viewSerde = ProjectionSerde.sentimentScoreView();
+
+    @Test
+    void projectsJsonAndBinaryEncodings() {
+        SentimentScore score = new SentimentScore();
+        score.setUserId("U007");
+        score.setTimestamp(1_700_000_000_123L);
+        score.setSentimentScore(-0.625);
+        score.setSentimentLabel("Negative");
+        score.setTier("model");
+        score.setLexiconVersion("builtin-1");
+
+        byte[] json = new JsonSerde<>(SentimentScore.class).serializer().serialize("t", score);
+        byte[] binary = new SentimentScoreBinarySerde().serializer().serialize("t", score);
+        for (byte[] data : new byte[][]{json, binary}) {
+            SentimentScoreView view = viewSerde.deserializer().deserialize("t", data);
+            assertEquals("U007", view.getUserId());
+            assertEquals(1_700_000_000_123L, view.getTimestamp());
+            assertEquals(-0.625, view.getSentimentScore());
+        }
+        assertNull(viewSerde.deserializer().deserialize("t", null));
+    }
+
+    @Test
+    void jsonFieldOrderAndUnknownStructuresAreSkipped() {
+        String json = "{\"extra\":{\"nested\":[1,{\"userId\":\"wrong\"}]},\"sentimentScore\":0.5,"
+            + "\"sentimentLabel\":\"Positive\",\"timestamp\":42,\"userId\":\"U1\",\"trailing\":\"x";
+        // 所需字段取齐后立即停止，后面被截断的内容不会被解析
+        SentimentScoreView view = viewSerde.deserializer().deserialize("t", json.getBytes(StandardCharsets.UTF_8));
+        assertEquals("U1", view.getUserId());
+        assertEquals(42L, view.getTimestamp());
+        assertEquals(0.5, view.getSentimentScore());
+
+        assertThrows(SerializationException.class,
+            () -> viewSerde.deserializer().deserialize("t", "[1,2]".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(SerializationException.class, () -> viewSerde.deserializer().deserialize("t", new byte[]{0x7f}));
+    }
+
+    @Test
+    void deserializeIntoReusesHolderAndReadsFieldsAfterSkippedOnes() {
+        ProjectionSerde<SentimentScore> tailSerde = ProjectionSerde.builder(SentimentScore.class, SentimentScore::new)
+            .stringField("sentimentLabel", SentimentScore::setSentimentLabel)
+            .stringField("lexiconVersion", SentimentScore::setLexiconVersion)
+            .binaryLayout(SentimentScoreBinarySerde.LAYOUT)
+            .build();
+        SentimentScoreBinarySerde binarySerde = new SentimentScoreBinarySerde();
+        SentimentScore holder = new SentimentScore();
+
+        SentimentScore first = new SentimentScore();
+        first.setUserId("U1");
+        first.setSentimentLabel("Positive");
+        first.setTier("custom-tier");
+        first.setLexiconVersion("v1");
+        assertSame(holder, tailSerde.deserializeInto("t", binarySerde.serializer().serialize("t", first), holder));
+        assertEquals("Positive", holder.getSentimentLabel());
+        assertEquals("v1", holder.getLexiconVersion());
+        // 未投影的字段不会写入
+        assertNull(holder.getUserId());
+
+        SentimentScore second = new SentimentScore();
+        second.setSentimentLabel("Mixed");
+        tailSerde.deserializeInto("t", binarySerde.serializer().serialize("t", second), holder);
+        assertEquals("Mixed", holder.getSentimentLabel());
+        assertNull(holder.getLexiconVersion());
+    }
+
+    @Test
+    void projectionMustMatchBinaryLayout() {
+        assertThrows(IllegalArgumentException.class, () -> ProjectionSerde.builder(SentimentScoreView.class, SentimentScoreView::new)
+            .stringField("message", SentimentScoreView::setUserId)
+            .binaryLayout(SentimentScoreBinarySerde.LAYOUT)
+            .build());
+        assertThrows(IllegalArgumentException.class, () -> ProjectionSerde.builder(SentimentScoreView.class, SentimentScoreView::new)
+            .longField("sentimentScore", SentimentScoreView::setTimestamp)
+            .binaryLayout(SentimentScoreBinarySerde.LAYOUT)
+            .build());
+    }
+}
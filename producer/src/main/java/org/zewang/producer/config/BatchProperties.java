@@ -0,0 +1,38 @@
+package org.zewang.producer.config;
+
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 批量发送配置，对应 stream-mind.batch.*
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 07:30
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream-mind.batch")
+public class BatchProperties {
+
+    /**
+     * 已交给 KafkaProducer 但还没确认的记录数上限，用尽后 sendBatch 阻塞等待
+     */
+    private int maxInFlightRecords = 10_000;
+
+    /**
+     * 在途字节数上限（按消息内容估算），应低于 spring.kafka.producer.buffer-memory，
+     * 让调用方在这里排队，而不是在 KafkaProducer.send 里阻塞到 max.block.ms 后抛异常
+     */
+    private DataSize maxInFlightBytes = DataSize.ofMegabytes(16);
+
+    /**
+     * 等待在途额度的最长时间，超时的记录按发送失败处理
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(30);
+}
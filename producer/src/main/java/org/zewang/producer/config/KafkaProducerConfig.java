@@ -9,6 +9,7 @@ import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
@@ -29,6 +30,7 @@ import org.zewang.common.serde.JsonSerde;
  */
 
 @Configuration
+@EnableConfigurationProperties({BatchProperties.class, LoadProperties.class})
 public class KafkaProducerConfig {
 
     @Value("${spring.kafka.bootstrap-servers}")
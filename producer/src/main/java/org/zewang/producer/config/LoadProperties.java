@@ -0,0 +1,123 @@
+package org.zewang.producer.config;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 压测模式配置，对应 stream-mind.load.*
+ * 开启后替换定时生产者，按目标速率（可分段爬坡）持续发送，用于对 stream 应用做容量测试
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 06:40
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream-mind.load")
+public class LoadProperties {
+
+    /**
+     * 是否开启压测模式（开启后不再运行 ScheduledMessageProducer）
+     */
+    private boolean enabled = false;
+
+    /**
+     * 起始目标速率（条/秒）；没有配置 ramp 时整个压测都保持这个速率
+     */
+    private double rate = 1000;
+
+    /**
+     * 没有配置 ramp 时的压测时长
+     */
+    private Duration duration = Duration.ofMinutes(1);
+
+    /**
+     * 爬坡计划：每一段在 duration 内从上一段的结束速率线性变化到 rate，速率不变的一段即为保持
+     */
+    private List<RampStep> ramp = new ArrayList<>();
+
+    /**
+     * 发送线程数（KafkaProducer.send 在缓冲区满时会阻塞，多个线程可以把阻塞和构造消息的开销摊开）
+     */
+    private int workers = 4;
+
+    /**
+     * 用户 id 空间大小，id 为 U1 ~ U{users}
+     */
+    private long users = 1_000_000;
+
+    /**
+     * 用户分布：UNIFORM 均匀；ZIPF 按排名的幂律分布，U1 最热
+     */
+    private KeyDistribution keyDistribution = KeyDistribution.ZIPF;
+
+    /**
+     * Zipf 指数，越大越集中（1.0 时百万用户中前 1% 约占一半流量）
+     */
+    private double zipfExponent = 1.0;
+
+    /**
+     * 消息长度分布
+     */
+    private Length length = new Length();
+
+    /**
+     * 报告间隔：输出该区间的实际速率、发送延迟分位数和背压事件
+     */
+    private Duration reportInterval = Duration.ofSeconds(5);
+
+    /**
+     * send() 调用本身阻塞超过该时长视为一次背压事件（缓冲区满或等待元数据）
+     */
+    private Duration backpressureThreshold = Duration.ofMillis(5);
+
+    @Getter
+    @Setter
+    public static class RampStep {
+
+        private double rate;
+
+        private Duration duration = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Length {
+
+        private LengthDistribution distribution = LengthDistribution.LOG_NORMAL;
+
+        /**
+         * 长度下限 / 上限（字符数），所有分布的结果都会截断到这个区间
+         */
+        private int min = 2;
+
+        private int max = 500;
+
+        /**
+         * FIXED 的长度；LOG_NORMAL 的期望长度（截断前）
+         */
+        private int mean = 20;
+
+        /**
+         * LOG_NORMAL 的对数标准差，越大长尾越明显
+         */
+        private double sigma = 0.8;
+    }
+
+    public enum KeyDistribution {
+        UNIFORM,
+        ZIPF
+    }
+
+    public enum LengthDistribution {
+        FIXED,
+        UNIFORM,
+        LOG_NORMAL
+    }
+}
@@ -0,0 +1,177 @@
+package org.zewang.producer.load;
+
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.producer.config.LoadProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 开环压测发送器
+ * - 节拍线程每 1ms 按速率曲线的积分放出发送许可，发送线程池取许可、构造消息并调用 sender
+ * - 开环：许可不受 broker 确认速度影响，发送端跟不上时许可堆积为 backlog，不会偷偷降低目标速率
+ * - 每个报告区间回调一次 reporter，结束后等待在途消息确认并返回整个压测的汇总
+ * 不依赖 Spring，sender 可以替换为任意异步发送实现（单元测试中直接完成 future）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 07:10
+ */
+
+@Slf4j
+public class LoadGenerator {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final LoadProperties properties;
+    private final RateSchedule schedule;
+    private final MessageFactory messages;
+    private final Function<ChatMessage, CompletableFuture<?>> sender;
+    private final Consumer<LoadReport> reporter;
+
+    private final Semaphore permits = new Semaphore(0);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    // send() 同步抛出的失败：没有进入 sent，也不会再有回调，不计入排空条件
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder backpressure = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    // 上一次报告时的计数，只在节拍线程中读写
+    private long lastReportNanos;
+    private long lastSent;
+    private long lastAcked;
+    private long lastFailed;
+    private long lastBackpressure;
+
+    public LoadGenerator(LoadProperties properties, Function<ChatMessage, CompletableFuture<?>> sender,
+        Consumer<LoadReport> reporter) {
+        this.properties = properties;
+        this.schedule = RateSchedule.from(properties);
+        this.messages = new MessageFactory(properties);
+        this.sender = sender;
+        this.reporter = reporter;
+    }
+
+    /**
+     * 按速率曲线运行到结束，阻塞调用线程
+     */
+    public LoadReport run() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(properties.getWorkers(), runnable -> {
+            Thread thread = new Thread(runnable, "load-sender-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            workers.execute(() -> sendLoop(running));
+        }
+
+        long reportNanos = properties.getReportInterval().toNanos();
+        long start = System.nanoTime();
+        long nextReport = reportNanos;
+        long released = 0;
+        long elapsed = 0;
+        LatencyHistogram.Snapshot total = LatencyHistogram.Snapshot.empty();
+        try {
+            while (elapsed < schedule.totalNanos()) {
+                LockSupport.parkNanos(TICK_NANOS);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException("压测被中断");
+                }
+                elapsed = Math.min(System.nanoTime() - start, schedule.totalNanos());
+                long due = schedule.expectedCount(elapsed);
+                if (due > released) {
+                    permits.release((int) Math.min(due - released, Integer.MAX_VALUE));
+                    released = due;
+                }
+                if (elapsed >= nextReport && elapsed < schedule.totalNanos()) {
+                    total = total.merge(report(elapsed, schedule.rateAt(elapsed)));
+                    nextReport += reportNanos;
+                }
+            }
+        } finally {
+            running.set(false);
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        // 等在途消息确认后再出最后一个区间的报告
+        long drainStart = System.nanoTime();
+        while (acked.sum() + failed.sum() < sent.sum() && System.nanoTime() - drainStart < DRAIN_TIMEOUT_NANOS) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        total = total.merge(report(elapsed, schedule.rateAt(elapsed)));
+        double seconds = (double) elapsed / TimeUnit.SECONDS.toNanos(1);
+        return new LoadReport(seconds, schedule.expectedCount(elapsed) / seconds, sent.sum(), acked.sum(),
+            failed.sum() + rejected.sum(), backpressure.sum(), permits.availablePermits(), total);
+    }
+
+    private void sendLoop(AtomicBoolean running) {
+        long threshold = properties.getBackpressureThreshold().toNanos();
+        try {
+            while (running.get()) {
+                if (!permits.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+                ChatMessage message = messages.next(System.currentTimeMillis());
+                long start = System.nanoTime();
+                CompletableFuture<?> future;
+                try {
+                    future = sender.apply(message);
+                } catch (RuntimeException e) {
+                    // 缓冲区满超过 max.block.ms 等同步异常
+                    rejected.increment();
+                    backpressure.increment();
+                    log.debug("压测消息发送失败: {}", e.getMessage());
+                    continue;
+                }
+                sent.increment();
+                if (System.nanoTime() - start >= threshold) {
+                    backpressure.increment();
+                }
+                future.whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        latency.record(System.nanoTime() - start);
+                        acked.increment();
+                    } else {
+                        failed.increment();
+                        log.debug("压测消息确认失败: {}", ex.getMessage());
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private LatencyHistogram.Snapshot report(long elapsed, double targetRate) {
+        long sentNow = sent.sum();
+        long ackedNow = acked.sum();
+        long failedNow = failed.sum() + rejected.sum();
+        long backpressureNow = backpressure.sum();
+        LatencyHistogram.Snapshot snapshot = latency.drain();
+        reporter.accept(new LoadReport((double) (elapsed - lastReportNanos) / TimeUnit.SECONDS.toNanos(1), targetRate,
+            sentNow - lastSent, ackedNow - lastAcked, failedNow - lastFailed, backpressureNow - lastBackpressure,
+            permits.availablePermits(), snapshot));
+        lastReportNanos = elapsed;
+        lastSent = sentNow;
+        lastAcked = ackedNow;
+        lastFailed = failedNow;
+        lastBackpressure = backpressureNow;
+        return snapshot;
+    }
+}
@@ -0,0 +1,55 @@
+package org.zewang.producer.load;
+
+
+import java.util.Locale;
+import lombok.Getter;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 压测报告（一个报告区间或整个压测）
+ * - 发送延迟：send() 调用到 broker 确认的时间，包含在生产者缓冲区中排队的时间
+ * - 背压事件：send() 调用本身阻塞超过阈值（缓冲区满 / 等待元数据）或发送失败
+ * - backlog：按速率曲线应发出但还没被发送线程取走的条数，持续增长说明生成端跟不上目标速率
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 07:05
+ */
+
+@Getter
+public class LoadReport {
+
+    private final double seconds;
+    private final double targetRate;
+    private final long sent;
+    private final long acked;
+    private final long failed;
+    private final long backpressureEvents;
+    private final long backlog;
+    private final LatencyHistogram.Snapshot latency;
+
+    LoadReport(double seconds, double targetRate, long sent, long acked, long failed, long backpressureEvents,
+        long backlog, LatencyHistogram.Snapshot latency) {
+        this.seconds = seconds;
+        this.targetRate = targetRate;
+        this.sent = sent;
+        this.acked = acked;
+        this.failed = failed;
+        this.backpressureEvents = backpressureEvents;
+        this.backlog = backlog;
+        this.latency = latency;
+    }
+
+    public double achievedRate() {
+        return seconds > 0 ? sent / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+            "%.1fs target=%.0f/s achieved=%.0f/s sent=%d acked=%d failed=%d backpressure=%d backlog=%d "
+                + "latency(ms) p50=%.2f p95=%.2f p99=%.2f p99.9=%.2f max=%.2f",
+            seconds, targetRate, achievedRate(), sent, acked, failed, backpressureEvents, backlog,
+            latency.percentileMillis(50), latency.percentileMillis(95), latency.percentileMillis(99),
+            latency.percentileMillis(99.9), latency.percentileMillis(100));
+    }
+}
@@ -0,0 +1,77 @@
+package org.zewang.producer.load;
+
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.producer.config.LoadProperties;
+import org.zewang.producer.config.LoadProperties.KeyDistribution;
+import org.zewang.producer.config.LoadProperties.Length;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 压测消息构造：按配置的用户分布选 userId，按长度分布拼接语料生成消息内容
+ * 多个发送线程共享，随机数都取自 ThreadLocalRandom
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 07:00
+ */
+
+public final class MessageFactory {
+
+    // 语料片段，拼接后截断到目标长度；正负面都有，保证下游打分和预警都有负载
+    private static final String[] PHRASES = {
+        "今天天气真不错！", "这个项目进展得很顺利。", "有点累了，需要休息一下。", "刚刚完成了一个重要功能。",
+        "遇到了一些技术难题。", "心情有点低落。", "很高兴能和大家一起工作。", "周末有什么计划吗？",
+        "这个想法很不错！", "需要进一步优化。", "今天感觉很沮丧。", "工作压力好大。", "太难过了",
+        "开会", "好的", "收到，马上处理"
+    };
+
+    private final long users;
+    private final ZipfSampler zipf;
+    private final Length length;
+
+    public MessageFactory(LoadProperties properties) {
+        this.users = properties.getUsers();
+        this.zipf = properties.getKeyDistribution() == KeyDistribution.ZIPF
+            ? new ZipfSampler(properties.getUsers(), properties.getZipfExponent())
+            : null;
+        this.length = properties.getLength();
+        if (length.getMin() < 1 || length.getMax() < length.getMin()) {
+            throw new IllegalArgumentException("消息长度区间无效: [" + length.getMin() + ", " + length.getMax() + "]");
+        }
+    }
+
+    public ChatMessage next(long timestamp) {
+        ChatMessage message = new ChatMessage();
+        message.setUserId("U" + nextUser());
+        message.setTimestamp(timestamp);
+        message.setMessage(text(nextLength()));
+        return message;
+    }
+
+    long nextUser() {
+        return zipf != null ? zipf.sample() : ThreadLocalRandom.current().nextLong(1, users + 1);
+    }
+
+    int nextLength() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double value = switch (length.getDistribution()) {
+            case FIXED -> length.getMean();
+            case UNIFORM -> random.nextInt(length.getMin(), length.getMax() + 1);
+            // E[exp(σN)] = exp(σ²/2)，乘以 exp(-σ²/2) 使期望长度等于 mean（中位数为 mean * exp(-σ²/2)）
+            case LOG_NORMAL -> length.getMean()
+                * Math.exp(length.getSigma() * random.nextGaussian() - length.getSigma() * length.getSigma() / 2);
+        };
+        return (int) Math.max(length.getMin(), Math.min(length.getMax(), Math.round(value)));
+    }
+
+    private static String text(int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(PHRASES[random.nextInt(PHRASES.length)]);
+        }
+        text.setLength(length);
+        return text.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package org.zewang.producer.load;
+
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.zewang.producer.config.LoadProperties;
+import org.zewang.producer.config.LoadProperties.RampStep;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 分段线性的目标速率曲线
+ * 按速率对时间的积分计算"到某时刻应发出的条数"，发送节奏不受调度抖动影响，落后时会自动补发
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 06:45
+ */
+
+public final class RateSchedule {
+
+    private final long[] endNanos;
+    private final double[] startRates;
+    private final double[] endRates;
+
+    private RateSchedule(long[] endNanos, double[] startRates, double[] endRates) {
+        this.endNanos = endNanos;
+        this.startRates = startRates;
+        this.endRates = endRates;
+    }
+
+    public static RateSchedule from(LoadProperties properties) {
+        List<RampStep> ramp = properties.getRamp();
+        if (ramp.isEmpty()) {
+            return new RateSchedule(new long[]{properties.getDuration().toNanos()},
+                new double[]{properties.getRate()}, new double[]{properties.getRate()});
+        }
+        long[] ends = new long[ramp.size()];
+        double[] starts = new double[ramp.size()];
+        double[] targets = new double[ramp.size()];
+        long elapsed = 0;
+        double previous = properties.getRate();
+        for (int i = 0; i < ramp.size(); i++) {
+            RampStep step = ramp.get(i);
+            elapsed += step.getDuration().toNanos();
+            ends[i] = elapsed;
+            starts[i] = previous;
+            targets[i] = step.getRate();
+            previous = step.getRate();
+        }
+        return new RateSchedule(ends, starts, targets);
+    }
+
+    public long totalNanos() {
+        return endNanos[endNanos.length - 1];
+    }
+
+    /**
+     * 某时刻的目标速率（条/秒）
+     */
+    public double rateAt(long elapsedNanos) {
+        long segmentStart = 0;
+        for (int i = 0; i < endNanos.length; i++) {
+            if (elapsedNanos < endNanos[i]) {
+                double fraction = (double) (elapsedNanos - segmentStart) / (endNanos[i] - segmentStart);
+                return startRates[i] + (endRates[i] - startRates[i]) * fraction;
+            }
+            segmentStart = endNanos[i];
+        }
+        return 0;
+    }
+
+    /**
+     * 从开始到 elapsedNanos 应发出的条数（速率曲线的积分），超过总时长后不再增长
+     */
+    public long expectedCount(long elapsedNanos) {
+        double count = 0;
+        long segmentStart = 0;
+        for (int i = 0; i < endNanos.length; i++) {
+            long segmentEnd = Math.min(elapsedNanos, endNanos[i]);
+            if (segmentEnd <= segmentStart) {
+                break;
+            }
+            double seconds = (double) (segmentEnd - segmentStart) / TimeUnit.SECONDS.toNanos(1);
+            double rateAtEnd = startRates[i] + (endRates[i] - startRates[i])
+                * (segmentEnd - segmentStart) / (endNanos[i] - segmentStart);
+            count += (startRates[i] + rateAtEnd) / 2 * seconds;
+            segmentStart = endNanos[i];
+        }
+        return (long) count;
+    }
+}
@@ -0,0 +1,40 @@
+package org.zewang.producer.service;
+
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 一个批次的发送结果：全部记录确认（或失败）后 sendBatch 的 future 才完成
+ * 部分失败不会让 future 异常完成，调用方根据 failed / firstError 决定是否重试
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 07:35
+ */
+
+@Getter
+public class BatchResult {
+
+    private final int records;
+    private final int failed;
+    private final long bytes;
+    private final Duration elapsed;
+    private final Throwable firstError;
+
+    BatchResult(int records, int failed, long bytes, Duration elapsed, Throwable firstError) {
+        this.records = records;
+        this.failed = failed;
+        this.bytes = bytes;
+        this.elapsed = elapsed;
+        this.firstError = firstError;
+    }
+
+    public int getSucceeded() {
+        return records - failed;
+    }
+
+    public boolean isSuccess() {
+        return failed == 0;
+    }
+}
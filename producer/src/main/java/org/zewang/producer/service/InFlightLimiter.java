@@ -0,0 +1,85 @@
+package org.zewang.producer.service;
+
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.zewang.producer.config.BatchProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 在途记录数和字节数的额度，发送前获取、确认后归还
+ * 额度用尽时调用线程阻塞（最多 acquireTimeout），每次需要等待都计入 producer.backpressure.wait
+ * 单条消息超过字节上限时按上限计，保证总能发出去
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 07:40
+ */
+
+final class InFlightLimiter {
+
+    private final int maxRecords;
+    private final int maxBytes;
+    private final long timeoutNanos;
+    private final Semaphore records;
+    private final Semaphore bytes;
+    private final Timer waits;
+
+    InFlightLimiter(BatchProperties properties, MeterRegistry registry) {
+        this.maxRecords = properties.getMaxInFlightRecords();
+        this.maxBytes = (int) Math.min(Integer.MAX_VALUE, properties.getMaxInFlightBytes().toBytes());
+        this.timeoutNanos = properties.getAcquireTimeout().toNanos();
+        this.records = new Semaphore(maxRecords);
+        // 公平模式，避免大消息一直被小消息抢先
+        this.bytes = new Semaphore(maxBytes, true);
+        this.waits = Timer.builder("producer.backpressure.wait")
+            .description("发送前等待在途额度的时间（只统计需要等待的情况）")
+            .register(registry);
+        Gauge.builder("producer.inflight.records", this, limiter -> limiter.maxRecords - limiter.records.availablePermits())
+            .description("已发送未确认的记录数")
+            .register(registry);
+        Gauge.builder("producer.inflight.bytes", this, limiter -> limiter.maxBytes - limiter.bytes.availablePermits())
+            .description("已发送未确认的估算字节数")
+            .register(registry);
+    }
+
+    /**
+     * 获取一条记录的额度，返回实际占用的字节数；等待超时返回 -1
+     */
+    int acquire(int size) throws InterruptedException {
+        int permits = Math.min(size, maxBytes);
+        boolean waited = false;
+        long start = 0;
+        if (!records.tryAcquire()) {
+            waited = true;
+            start = System.nanoTime();
+            if (!records.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                waits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return -1;
+            }
+        }
+        if (!bytes.tryAcquire(permits)) {
+            if (!waited) {
+                waited = true;
+                start = System.nanoTime();
+            }
+            long remaining = timeoutNanos - (System.nanoTime() - start);
+            if (!bytes.tryAcquire(permits, Math.max(0L, remaining), TimeUnit.NANOSECONDS)) {
+                records.release();
+                waits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return -1;
+            }
+        }
+        if (waited) {
+            waits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return permits;
+    }
+
+    void release(int permits) {
+        bytes.release(permits);
+        records.release();
+    }
+}
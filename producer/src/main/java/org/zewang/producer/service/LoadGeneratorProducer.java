@@ -0,0 +1,56 @@
+package org.zewang.producer.service;
+
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.zewang.producer.config.LoadProperties;
+import org.zewang.producer.load.LoadGenerator;
+import org.zewang.producer.load.LoadReport;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 压测模式生产者（stream-mind.load.enabled=true 时替换 ScheduledMessageProducer）
+ * 应用启动完成后在独立线程中运行压测，按区间输出实际速率、发送延迟分位数和背压事件
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 07:15
+ */
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "stream-mind.load", name = "enabled", havingValue = "true")
+public class LoadGeneratorProducer {
+
+    private final LoadProperties loadProperties;
+    private final MessageProducerService messageProducerService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::run, "load-generator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        log.info("开始压测: rate={}/s, ramp={} 段, workers={}, users={} ({}), length={}",
+            loadProperties.getRate(), loadProperties.getRamp().size(), loadProperties.getWorkers(),
+            loadProperties.getUsers(), loadProperties.getKeyDistribution(),
+            loadProperties.getLength().getDistribution());
+        LoadGenerator generator = new LoadGenerator(loadProperties, messageProducerService::send,
+            report -> log.info("压测区间 {}", report));
+        try {
+            LoadReport total = generator.run();
+            log.info("压测结束 {}", total);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("压测被中断");
+        } catch (RuntimeException e) {
+            log.error("压测失败: {}", e.getMessage(), e);
+        }
+    }
+}
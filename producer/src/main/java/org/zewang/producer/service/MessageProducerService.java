@@ -1,12 +1,30 @@
 package org.zewang.producer.service;
 
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 import org.zewang.common.constant.KafkaConstants;
 import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.serde.BinaryWriter;
+import org.zewang.common.util.TraceHeaders;
+import org.zewang.producer.config.BatchProperties;
 
 /**
  * @author "Zewang"
@@ -18,15 +36,47 @@ import org.zewang.common.dto.ChatMessage;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class MessageProducerService {
 
-    private final KafkaTemplate<String, ChatMessage> kafkaTemplate;;
+    // 估算单条记录大小时附加的固定开销：JSON 字段名、时间戳、header、记录头
+    private static final int RECORD_OVERHEAD_BYTES = 96;
+
+    private final KafkaTemplate<String, ChatMessage> kafkaTemplate;
+    private final InFlightLimiter inFlightLimiter;
+    private final Timer batchLatency;
+    private final DistributionSummary batchSize;
+    private final Counter recordsSucceeded;
+    private final Counter recordsFailed;
+
+    // 是否为每条消息生成追踪 id（写入 sm-trace-id header，stream 输出预警时随延迟一起记录）
+    @Value("${stream-mind.trace.trace-id:false}")
+    private boolean traceIdEnabled;
+
+    public MessageProducerService(KafkaTemplate<String, ChatMessage> kafkaTemplate, BatchProperties batchProperties,
+        MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.inFlightLimiter = new InFlightLimiter(batchProperties, meterRegistry);
+        this.batchLatency = Timer.builder("producer.batch.latency")
+            .description("sendBatch 调用到整批确认的耗时")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("producer.batch.size")
+            .description("每批记录数")
+            .register(meterRegistry);
+        this.recordsSucceeded = Counter.builder("producer.batch.records")
+            .description("批量发送的记录数")
+            .tag("result", "success")
+            .register(meterRegistry);
+        this.recordsFailed = Counter.builder("producer.batch.records")
+            .description("批量发送的记录数")
+            .tag("result", "failure")
+            .register(meterRegistry);
+    }
 
     public void sendMessage(ChatMessage message) {
         try {
             // 异步发送
-            kafkaTemplate.send(KafkaConstants.CHAT_MESSAGES_TOPIC, message.getUserId(), message)
+            send(message)
                     .whenComplete((result, ex) -> {
                         if (ex == null) {
                             log.debug("消息发送成功：user={}, timestamp={}",
@@ -40,4 +90,97 @@ public class MessageProducerService {
             log.error("发送消息失败: {}", e.getMessage(), e);
         }
     }
+
+    /**
+     * 不打日志的异步发送（压测模式使用），生产者缓冲区满时 send 调用本身会阻塞
+     */
+    public CompletableFuture<SendResult<String, ChatMessage>> send(ChatMessage message) {
+        // 发送时刻写入 header，stream 在预警输出时据此统计端到端延迟
+        ProducerRecord<String, ChatMessage> record =
+            new ProducerRecord<>(KafkaConstants.CHAT_MESSAGES_TOPIC, message.getUserId(), message);
+        TraceHeaders.putTimestamp(record.headers(), TraceHeaders.INGEST_TS, System.currentTimeMillis());
+        if (traceIdEnabled) {
+            TraceHeaders.putTraceId(record.headers(), UUID.randomUUID().toString());
+        }
+        return kafkaTemplate.send(record);
+    }
+
+    /**
+     * 批量发送，返回整批确认后完成的 future
+     * - 每条记录发送前获取在途额度（记录数 + 估算字节数），额度用尽时调用线程阻塞，
+     *   避免在 KafkaProducer 内部因 buffer.memory 耗尽阻塞到 max.block.ms 后抛异常
+     * - 等待额度超时或发送失败的记录计入 BatchResult.failed，future 本身不会异常完成
+     * - 只记录批次级指标，不逐条打日志
+     */
+    public CompletableFuture<BatchResult> sendBatch(List<ChatMessage> messages) {
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> acks = new ArrayList<>(messages.size());
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        long bytes = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            ChatMessage message = messages.get(i);
+            int size = estimateSize(message);
+            int permits;
+            try {
+                permits = inFlightLimiter.acquire(size);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.addAndGet(messages.size() - i);
+                firstError.compareAndSet(null, e);
+                break;
+            }
+            if (permits < 0) {
+                failed.incrementAndGet();
+                firstError.compareAndSet(null, new TimeoutException("等待在途额度超时"));
+                continue;
+            }
+            CompletableFuture<SendResult<String, ChatMessage>> ack;
+            try {
+                ack = send(message);
+            } catch (RuntimeException e) {
+                inFlightLimiter.release(permits);
+                failed.incrementAndGet();
+                firstError.compareAndSet(null, e);
+                continue;
+            }
+            bytes += size;
+            acks.add(ack.whenComplete((result, ex) -> {
+                inFlightLimiter.release(permits);
+                if (ex != null) {
+                    failed.incrementAndGet();
+                    firstError.compareAndSet(null, ex);
+                }
+            }));
+        }
+
+        long batchBytes = bytes;
+        return CompletableFuture.allOf(acks.toArray(new CompletableFuture<?>[0])).handle((ignored, ex) -> {
+            long elapsed = System.nanoTime() - start;
+            BatchResult result = new BatchResult(messages.size(), failed.get(), batchBytes,
+                Duration.ofNanos(elapsed), firstError.get());
+            batchLatency.record(elapsed, TimeUnit.NANOSECONDS);
+            batchSize.record(result.getRecords());
+            recordsSucceeded.increment(result.getSucceeded());
+            recordsFailed.increment(result.getFailed());
+            if (!result.isSuccess()) {
+                log.warn("批量发送部分失败: {}/{} 条, 首个错误: {}", result.getFailed(), result.getRecords(),
+                    result.getFirstError() == null ? null : result.getFirstError().getMessage());
+            }
+            return result;
+        });
+    }
+
+    static int estimateSize(ChatMessage message) {
+        int size = RECORD_OVERHEAD_BYTES;
+        if (message.getUserId() != null) {
+            // key 和 value 中各一份
+            size += 2 * message.getUserId().length();
+        }
+        if (message.getMessage() != null) {
+            // 只数 UTF-8 字节数，不在发送热路径上为每条消息分配 byte[]
+            size += BinaryWriter.utf8Length(message.getMessage());
+        }
+        return size;
+    }
 }
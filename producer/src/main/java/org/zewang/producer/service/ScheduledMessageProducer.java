@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Random;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.zewang.common.dto.ChatMessage;
@@ -14,7 +15,7 @@ import org.zewang.common.dto.ChatMessage;
 /**
  * @author "Zewang"
  * @version 1.0
- * @description: 定时任务生产者
+ * @description: 定时任务生产者（压测模式开启时不创建）
  * @email "Zewang0217@outlook.com"
  * @date 2025/11/05 18:51
  */
@@ -22,6 +23,7 @@ import org.zewang.common.dto.ChatMessage;
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "stream-mind.load", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class ScheduledMessageProducer {
 
     private final MessageProducerService messageProducerService;
@@ -60,7 +62,9 @@ public class ScheduledMessageProducer {
             messages.add(createRandomChatMessage());
         }
 
-        messages.forEach(messageProducerService::sendMessage);
+        messageProducerService.sendBatch(messages)
+            .thenAccept(result -> log.debug("批次发送完成: {} 条, 失败 {} 条, 耗时 {}ms",
+                result.getRecords(), result.getFailed(), result.getElapsed().toMillis()));
     }
 
     private ChatMessage createRandomChatMessage() {
@@ -0,0 +1,167 @@
+package org.zewang.producer.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.producer.config.LoadProperties;
+import org.zewang.producer.config.LoadProperties.KeyDistribution;
+import org.zewang.producer.config.LoadProperties.LengthDistribution;
+import org.zewang.producer.config.LoadProperties.RampStep;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 压测模式测试：速率曲线积分、Zipf 分布、长度截断、延迟直方图精度，以及发送器按目标速率发完
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 07:20
+ */
+class LoadGeneratorTest {
+
+    @Test
+    void rampScheduleIntegratesPiecewiseLinearRate() {
+        LoadProperties properties = new LoadProperties();
+        properties.setRate(1000);
+        properties.setRamp(List.of(step(2000, Duration.ofSeconds(2)), step(2000, Duration.ofSeconds(1))));
+        RateSchedule schedule = RateSchedule.from(properties);
+
+        assertEquals(TimeUnit.SECONDS.toNanos(3), schedule.totalNanos());
+        assertEquals(1500.0, schedule.rateAt(TimeUnit.SECONDS.toNanos(1)), 1e-9);
+        assertEquals(1250, schedule.expectedCount(TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(3000, schedule.expectedCount(TimeUnit.SECONDS.toNanos(2)));
+        assertEquals(5000, schedule.expectedCount(TimeUnit.SECONDS.toNanos(3)));
+        assertEquals(5000, schedule.expectedCount(TimeUnit.SECONDS.toNanos(10)));
+    }
+
+    @Test
+    void zipfSamplerMatchesRankOneProbabilityOverMillionsOfIds() {
+        long users = 5_000_000;
+        ZipfSampler sampler = new ZipfSampler(users, 1.0);
+        int samples = 400_000;
+        int rankOne = 0;
+        int rankTwo = 0;
+        for (int i = 0; i < samples; i++) {
+            long rank = sampler.sample();
+            assertTrue(rank >= 1 && rank <= users);
+            if (rank == 1) {
+                rankOne++;
+            } else if (rank == 2) {
+                rankTwo++;
+            }
+        }
+        // P(1) = 1 / H(n)，H(n) ≈ ln(n) + 0.5772
+        double expected = 1 / (Math.log(users) + 0.5772156649);
+        assertEquals(expected, (double) rankOne / samples, expected * 0.05);
+        assertEquals(2.0, (double) rankOne / rankTwo, 0.15);
+    }
+
+    @Test
+    void messageLengthsStayInsideConfiguredBounds() {
+        LoadProperties properties = new LoadProperties();
+        properties.setKeyDistribution(KeyDistribution.UNIFORM);
+        properties.setUsers(10);
+        properties.getLength().setDistribution(LengthDistribution.LOG_NORMAL);
+        properties.getLength().setMin(5);
+        properties.getLength().setMax(40);
+        properties.getLength().setSigma(2.0);
+        MessageFactory factory = new MessageFactory(properties);
+
+        for (int i = 0; i < 10_000; i++) {
+            ChatMessage message = factory.next(1L);
+            int length = message.getMessage().length();
+            assertTrue(length >= 5 && length <= 40, "length=" + length);
+            long user = Long.parseLong(message.getUserId().substring(1));
+            assertTrue(user >= 1 && user <= 10);
+        }
+    }
+
+    @Test
+    void logNormalLengthsAverageToConfiguredMean() {
+        LoadProperties properties = new LoadProperties();
+        properties.getLength().setDistribution(LengthDistribution.LOG_NORMAL);
+        properties.getLength().setMin(1);
+        properties.getLength().setMax(100_000);
+        properties.getLength().setMean(20);
+        properties.getLength().setSigma(0.8);
+        MessageFactory factory = new MessageFactory(properties);
+
+        long total = 0;
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            total += factory.nextLength();
+        }
+        assertEquals(20.0, (double) total / samples, 0.5);
+    }
+
+    @Test
+    void histogramPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10_000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.drain();
+
+        assertEquals(10_000, snapshot.count());
+        assertEquals(5.0, snapshot.percentileMillis(50), 5.0 * 0.07);
+        assertEquals(9.9, snapshot.percentileMillis(99), 9.9 * 0.07);
+        assertEquals(0, histogram.drain().count());
+    }
+
+    @Test
+    void generatorSendsTheScheduledCountAndReportsEachInterval() throws InterruptedException {
+        LoadProperties properties = new LoadProperties();
+        properties.setRate(2000);
+        properties.setDuration(Duration.ofSeconds(1));
+        properties.setWorkers(2);
+        properties.setReportInterval(Duration.ofMillis(200));
+        List<LoadReport> intervals = new CopyOnWriteArrayList<>();
+
+        LoadReport total = new LoadGenerator(properties, message -> CompletableFuture.completedFuture(null),
+            intervals::add).run();
+
+        assertEquals(2000, total.getSent() + total.getBacklog());
+        assertTrue(total.getSent() >= 1900, "sent=" + total.getSent());
+        assertEquals(total.getSent(), total.getAcked());
+        assertEquals(0, total.getFailed());
+        assertEquals(total.getSent(), total.getLatency().count());
+        assertTrue(intervals.size() >= 4, "intervals=" + intervals.size());
+        assertEquals(total.getSent(), intervals.stream().mapToLong(LoadReport::getSent).sum());
+    }
+
+    @Test
+    void drainWaitsForAsyncAcksWhenSomeSendsFailSynchronously() throws InterruptedException {
+        LoadProperties properties = new LoadProperties();
+        properties.setRate(1000);
+        properties.setDuration(Duration.ofMillis(500));
+        properties.setWorkers(1);
+        AtomicLong calls = new AtomicLong();
+        Executor delayed = CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS);
+
+        // 一半同步失败，另一半在 300ms 后才确认：排空阶段必须等到这些确认
+        LoadReport total = new LoadGenerator(properties, message -> {
+            if (calls.incrementAndGet() % 2 == 0) {
+                throw new IllegalStateException("buffer full");
+            }
+            return CompletableFuture.runAsync(() -> { }, delayed);
+        }, report -> { }).run();
+
+        assertTrue(total.getSent() > 0);
+        assertEquals(total.getSent(), total.getAcked());
+        assertEquals(calls.get() - total.getSent(), total.getFailed());
+    }
+
+    private static RampStep step(double rate, Duration duration) {
+        RampStep step = new RampStep();
+        step.setRate(rate);
+        step.setDuration(duration);
+        return step;
+    }
+}
@@ -0,0 +1,157 @@
+package org.zewang.producer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.producer.config.BatchProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 批量发送测试：整批结果聚合、在途额度用尽时阻塞调用方、等待超时按失败计、批次指标
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 07:55
+ */
+class MessageProducerServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<CompletableFuture<SendResult<String, ChatMessage>>> pending = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, ChatMessage> kafkaTemplate = mock(KafkaTemplate.class);
+
+    @Test
+    void batchFutureCompletesAfterEveryAckAndCountsFailures() throws Exception {
+        MessageProducerService service = service(new BatchProperties());
+
+        CompletableFuture<BatchResult> batch = service.sendBatch(messages(3));
+        assertEquals(3, pending.size());
+        assertEquals(3.0, registry.get("producer.inflight.records").gauge().value());
+        pending.get(0).complete(null);
+        pending.get(1).completeExceptionally(new IllegalStateException("broker 不可用"));
+        assertFalse(batch.isDone());
+        pending.get(2).complete(null);
+
+        BatchResult result = batch.get(1, TimeUnit.SECONDS);
+        assertEquals(3, result.getRecords());
+        assertEquals(1, result.getFailed());
+        assertInstanceOf(IllegalStateException.class, result.getFirstError());
+        assertEquals(0.0, registry.get("producer.inflight.records").gauge().value());
+        assertEquals(0.0, registry.get("producer.inflight.bytes").gauge().value());
+        assertEquals(2.0, registry.get("producer.batch.records").tag("result", "success").counter().count());
+        assertEquals(1.0, registry.get("producer.batch.records").tag("result", "failure").counter().count());
+        assertEquals(1, registry.get("producer.batch.latency").timer().count());
+    }
+
+    @Test
+    void callerBlocksWhenInFlightRecordsAreExhausted() throws Exception {
+        BatchProperties properties = new BatchProperties();
+        properties.setMaxInFlightRecords(2);
+        MessageProducerService service = service(properties);
+
+        CompletableFuture<CompletableFuture<BatchResult>> caller =
+            CompletableFuture.supplyAsync(() -> service.sendBatch(messages(3)));
+        verify(kafkaTemplate, timeout(1_000).times(2)).send(anyRecord());
+        Thread.sleep(100);
+        verify(kafkaTemplate, times(2)).send(anyRecord());
+        assertFalse(caller.isDone());
+
+        completePending(0);
+        verify(kafkaTemplate, timeout(1_000).times(3)).send(anyRecord());
+        completePending(1);
+        completePending(2);
+        BatchResult result = caller.get(1, TimeUnit.SECONDS).get(1, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess());
+        assertEquals(1, registry.get("producer.backpressure.wait").timer().count());
+    }
+
+    @Test
+    void acquireTimeoutCountsAsFailedRecord() throws Exception {
+        BatchProperties properties = new BatchProperties();
+        properties.setMaxInFlightRecords(1);
+        properties.setAcquireTimeout(Duration.ofMillis(50));
+        MessageProducerService service = service(properties);
+
+        CompletableFuture<BatchResult> batch = service.sendBatch(messages(2));
+        completePending(0);
+
+        BatchResult result = batch.get(1, TimeUnit.SECONDS);
+        assertEquals(1, result.getFailed());
+        assertInstanceOf(TimeoutException.class, result.getFirstError());
+        verify(kafkaTemplate, times(1)).send(anyRecord());
+    }
+
+    @Test
+    void estimatedSizeCountsUtf8BytesOfTheMessage() {
+        for (String text : List.of("", "hello", "今天很开心", "emoji \uD83D\uDE00 ok", "lone \uD800 surrogate")) {
+            ChatMessage message = new ChatMessage();
+            message.setUserId("U001");
+            message.setMessage(text);
+            int base = MessageProducerService.estimateSize(new ChatMessage());
+            assertEquals(base + 2 * "U001".length() + text.getBytes(StandardCharsets.UTF_8).length,
+                MessageProducerService.estimateSize(message), text);
+        }
+    }
+
+    private MessageProducerService service(BatchProperties properties) {
+        when(kafkaTemplate.send(anyRecord())).thenAnswer(invocation -> {
+            CompletableFuture<SendResult<String, ChatMessage>> future = new CompletableFuture<>();
+            synchronized (pending) {
+                pending.add(future);
+            }
+            return future;
+        });
+        return new MessageProducerService(kafkaTemplate, properties, registry);
+    }
+
+    private static ProducerRecord<String, ChatMessage> anyRecord() {
+        return ArgumentMatchers.<ProducerRecord<String, ChatMessage>>any();
+    }
+
+    // mock 记录调用次数先于 answer 执行，等对应的 future 真正放进 pending 再完成它
+    private void completePending(int index) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (true) {
+            synchronized (pending) {
+                if (pending.size() > index || System.nanoTime() > deadline) {
+                    pending.get(index).complete(null);
+                    return;
+                }
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static List<ChatMessage> messages(int count) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setUserId("U00" + i);
+            message.setTimestamp(1_700_000_000_000L + i);
+            message.setMessage("今天很开心");
+            messages.add(message);
+        }
+        return messages;
+    }
+}
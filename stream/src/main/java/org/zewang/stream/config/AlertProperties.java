@@ -0,0 +1,40 @@
+package org.zewang.stream.config;
+
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 预警策略配置（阈值、输出模式、预警文案），对应 stream-mind.alert.*
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 11:05
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream-mind.alert")
+public class AlertProperties {
+
+    /**
+     * 预警阈值：窗口平均分严格低于该值时才生成预警
+     */
+    private double threshold = -0.3;
+
+    /**
+     * 输出模式：EAGER 每次窗口更新都输出；FINAL 只在窗口关闭（含宽限期）后输出一次最终结果
+     */
+    private EmitMode emitMode = EmitMode.FINAL;
+
+    /**
+     * 预警文案
+     */
+    private String message = "用户情绪持续低落";
+
+    public enum EmitMode {
+        EAGER,
+        FINAL
+    }
+}
@@ -0,0 +1,173 @@
+package org.zewang.stream.config;
+
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.state.RocksDBConfigSetter;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.CompressionType;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.WriteBufferManager;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 内存有上限的 RocksDB 配置
+ * Kafka Streams 默认给每个 RocksDB 实例（每个窗口 segment 都是一个实例）单独分配 block cache 和 memtable，
+ * 总内存随 store、分区、segment 数线性增长。这里让进程内所有实例共享：
+ * - 一个 LRU block cache，index / filter block 也放进 cache（高优先级），不再常驻在每个实例的堆外内存里
+ * - 一个 write buffer manager，memtable 计入同一个 cache，总量达到预算后强制 flush
+ * - bloom filter：pane / KV 存储按 key 精确读取时可以跳过不包含该 key 的 SST
+ * - 窗口 segment（名字形如 store.1700000000000）使用 universal 压缩
+ * Kafka Streams 通过类名实例化本类，参数从 streams 配置中的 stream-mind.rocksdb.* 读取（见 configs()）
+ * 共享资源在第一次使用时按当时的参数创建，进程内只创建一次，不随单个 store 关闭而释放
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 03:40
+ */
+
+@Slf4j
+public class BoundedMemoryRocksDBConfigSetter implements RocksDBConfigSetter {
+
+    public static final String TOTAL_MEMORY_CONFIG = "stream-mind.rocksdb.total-memory-bytes";
+    public static final String WRITE_BUFFER_RATIO_CONFIG = "stream-mind.rocksdb.write-buffer-ratio";
+    public static final String INDEX_FILTER_RATIO_CONFIG = "stream-mind.rocksdb.index-filter-ratio";
+    public static final String WRITE_BUFFER_SIZE_CONFIG = "stream-mind.rocksdb.write-buffer-size-bytes";
+    public static final String MAX_WRITE_BUFFERS_CONFIG = "stream-mind.rocksdb.max-write-buffers";
+    public static final String BLOCK_SIZE_CONFIG = "stream-mind.rocksdb.block-size-bytes";
+    public static final String BLOOM_BITS_PER_KEY_CONFIG = "stream-mind.rocksdb.bloom-bits-per-key";
+    public static final String SEGMENT_COMPACTION_CONFIG = "stream-mind.rocksdb.segment-compaction";
+
+    // 窗口 / session 存储的 segment 名：<store>.<segmentId>
+    private static final Pattern SEGMENT_NAME = Pattern.compile(".+\\.\\d+$");
+
+    private static SharedResources shared;
+
+    // 每个实例自己的 filter，随 store 关闭
+    private BloomFilter filter;
+
+    /**
+     * 把配置属性转换成 streams 配置项（与 ROCKSDB_CONFIG_SETTER_CLASS_CONFIG 一起放进 streams 配置）
+     */
+    public static Map<String, Object> configs(StateStoreProperties.RocksDb rocksDb) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(TOTAL_MEMORY_CONFIG, rocksDb.getTotalMemory().toBytes());
+        configs.put(WRITE_BUFFER_RATIO_CONFIG, rocksDb.getWriteBufferRatio());
+        configs.put(INDEX_FILTER_RATIO_CONFIG, rocksDb.getIndexFilterRatio());
+        configs.put(WRITE_BUFFER_SIZE_CONFIG, rocksDb.getWriteBufferSize().toBytes());
+        configs.put(MAX_WRITE_BUFFERS_CONFIG, rocksDb.getMaxWriteBuffers());
+        configs.put(BLOCK_SIZE_CONFIG, rocksDb.getBlockSize().toBytes());
+        configs.put(BLOOM_BITS_PER_KEY_CONFIG, rocksDb.getBloomBitsPerKey());
+        configs.put(SEGMENT_COMPACTION_CONFIG, rocksDb.getSegmentCompaction().name());
+        return configs;
+    }
+
+    @Override
+    public void setConfig(String storeName, Options options, Map<String, Object> configs) {
+        StateStoreProperties.RocksDb defaults = new StateStoreProperties.RocksDb();
+        SharedResources resources = shared(
+            longConfig(configs, TOTAL_MEMORY_CONFIG, defaults.getTotalMemory().toBytes()),
+            doubleConfig(configs, WRITE_BUFFER_RATIO_CONFIG, defaults.getWriteBufferRatio()),
+            doubleConfig(configs, INDEX_FILTER_RATIO_CONFIG, defaults.getIndexFilterRatio()));
+
+        // Kafka Streams 传进来的 Options 已经带有 BlockBasedTableConfig，在它的基础上修改
+        BlockBasedTableConfig tableConfig = options.tableFormatConfig() instanceof BlockBasedTableConfig existing
+            ? existing
+            : new BlockBasedTableConfig();
+        tableConfig.setBlockCache(resources.cache);
+        tableConfig.setCacheIndexAndFilterBlocks(true);
+        tableConfig.setCacheIndexAndFilterBlocksWithHighPriority(true);
+        tableConfig.setPinTopLevelIndexAndFilter(true);
+        tableConfig.setBlockSize(longConfig(configs, BLOCK_SIZE_CONFIG, defaults.getBlockSize().toBytes()));
+        int bloomBitsPerKey = (int) longConfig(configs, BLOOM_BITS_PER_KEY_CONFIG, defaults.getBloomBitsPerKey());
+        if (bloomBitsPerKey > 0) {
+            filter = new BloomFilter(bloomBitsPerKey);
+            tableConfig.setFilterPolicy(filter);
+        }
+        options.setTableFormatConfig(tableConfig);
+
+        options.setWriteBufferManager(resources.writeBufferManager);
+        options.setWriteBufferSize(longConfig(configs, WRITE_BUFFER_SIZE_CONFIG, defaults.getWriteBufferSize().toBytes()));
+        options.setMaxWriteBufferNumber((int) longConfig(configs, MAX_WRITE_BUFFERS_CONFIG, defaults.getMaxWriteBuffers()));
+        options.setCompressionType(CompressionType.LZ4_COMPRESSION);
+
+        if (isSegment(storeName)) {
+            Object compaction = configs.get(SEGMENT_COMPACTION_CONFIG);
+            StateStoreProperties.Compaction style = compaction == null
+                ? defaults.getSegmentCompaction()
+                : StateStoreProperties.Compaction.valueOf(compaction.toString().toUpperCase(Locale.ROOT));
+            if (style == StateStoreProperties.Compaction.UNIVERSAL) {
+                options.setCompactionStyle(CompactionStyle.UNIVERSAL);
+            } else {
+                options.setCompactionStyle(CompactionStyle.LEVEL);
+                options.setLevelCompactionDynamicLevelBytes(true);
+            }
+        }
+    }
+
+    @Override
+    public void close(String storeName, Options options) {
+        // 共享的 cache / write buffer manager 不能关闭，其他 store 仍在使用
+        if (filter != null) {
+            filter.close();
+            filter = null;
+        }
+    }
+
+    static boolean isSegment(String storeName) {
+        return SEGMENT_NAME.matcher(storeName).matches();
+    }
+
+    static synchronized SharedResources shared(long totalMemory, double writeBufferRatio, double indexFilterRatio) {
+        if (shared == null) {
+            shared = new SharedResources(totalMemory, writeBufferRatio, indexFilterRatio);
+            log.info("RocksDB 共享内存: total={}B, writeBuffer={}B, indexFilterRatio={}",
+                totalMemory, shared.writeBufferBytes, indexFilterRatio);
+        } else if (shared.totalMemory != totalMemory) {
+            log.warn("RocksDB 共享内存已按 {}B 创建，忽略新的预算 {}B", shared.totalMemory, totalMemory);
+        }
+        return shared;
+    }
+
+    private static long longConfig(Map<String, Object> configs, String name, long defaultValue) {
+        Object value = configs.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString().trim());
+    }
+
+    private static double doubleConfig(Map<String, Object> configs, String name, double defaultValue) {
+        Object value = configs.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value instanceof Number number ? number.doubleValue() : Double.parseDouble(value.toString().trim());
+    }
+
+    static final class SharedResources {
+        final long totalMemory;
+        final long writeBufferBytes;
+        final Cache cache;
+        final WriteBufferManager writeBufferManager;
+
+        private SharedResources(long totalMemory, double writeBufferRatio, double indexFilterRatio) {
+            if (totalMemory <= 0 || writeBufferRatio <= 0 || writeBufferRatio >= 1
+                || indexFilterRatio < 0 || indexFilterRatio >= 1) {
+                throw new IllegalArgumentException("invalid RocksDB memory budget: total=" + totalMemory
+                    + ", writeBufferRatio=" + writeBufferRatio + ", indexFilterRatio=" + indexFilterRatio);
+            }
+            this.totalMemory = totalMemory;
+            this.writeBufferBytes = (long) (totalMemory * writeBufferRatio);
+            // strictCapacityLimit=false：超出时允许短暂超额，而不是让读写失败
+            this.cache = new LRUCache(totalMemory, -1, false, indexFilterRatio);
+            this.writeBufferManager = new WriteBufferManager(writeBufferBytes, cache);
+        }
+    }
+}
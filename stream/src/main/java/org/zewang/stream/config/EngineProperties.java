@@ -0,0 +1,115 @@
+package org.zewang.stream.config;
+
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 情感打分引擎配置，对应 stream-mind.engine.*
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 19:15
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream-mind.engine")
+public class EngineProperties {
+
+    /**
+     * LEXICON：在 mapValues 中用本地词典同步打分；NGRAM：在 mapValues 中用本地 n-gram 模型同步打分；
+     * ASYNC：异步微批调用 SentimentEngine；
+     * TIERED：异步微批，先用词典打分，词典不确定的消息在预算内交给 SentimentEngine
+     */
+    private Mode mode = Mode.LEXICON;
+
+    /**
+     * NGRAM 模式的二进制模型文件（由 NgramModelTrainer 生成）
+     */
+    private String ngramModel;
+
+    /**
+     * 外部模型服务地址；ASYNC 模式下为空时使用本地词典引擎
+     */
+    private String url;
+
+    /**
+     * 每批最多消息数
+     */
+    private int batchSize = 32;
+
+    /**
+     * 批次未满时最长等待时间
+     */
+    private Duration maxBatchDelay = Duration.ofMillis(20);
+
+    /**
+     * 每个 task 同时在途的最大批次数
+     */
+    private int maxInFlight = 4;
+
+    /**
+     * 单次请求超时，超时的批次用本地词典兜底
+     */
+    private Duration requestTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 外部模型结果缓存（本地词典打分比查缓存还快，不使用缓存）
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * TIERED 模式的置信度和预算
+     */
+    private Tier tier = new Tier();
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        /**
+         * 是否缓存相同消息的打分结果
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最多缓存的消息数，超出后按访问频率淘汰（W-TinyLFU）
+         */
+        private long maximumSize = 100_000;
+
+        /**
+         * 结果写入后的有效期
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Tier {
+
+        /**
+         * 词典分数绝对值不小于该值时直接使用词典结果
+         */
+        private double minConfidence = 0.5;
+
+        /**
+         * 模型结果的延迟预算，超时输出词典结果（标记为 fallback）
+         */
+        private Duration latencyBudget = Duration.ofMillis(200);
+
+        /**
+         * 全局同时在途的模型请求数上限，用完时输出词典结果（标记为 fallback）
+         */
+        private int maxConcurrent = 16;
+    }
+
+    public enum Mode {
+        LEXICON,
+        NGRAM,
+        ASYNC,
+        TIERED
+    }
+}
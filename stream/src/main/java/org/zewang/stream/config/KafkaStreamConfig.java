@@ -36,6 +36,8 @@ public class KafkaStreamConfig {
 
     private final WarningAlertProcessor warningAlertProcessor;
     private final SentimentAnalysisProcessor sentimentAnalysisProcessor;
+    private final StateStoreProperties stateStoreProperties;
+    private final RuntimeProperties runtimeProperties;
 
 
     @Bean(name = KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME)
@@ -47,20 +49,32 @@ public class KafkaStreamConfig {
         props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
         props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, JsonSerde.class.getName());
 
-        // 【4. 保持】使用 java.io.tmpdir（一个安全可写的目录）
-        String stateDirLocation = Paths.get(
-            System.getProperty("java.io.tmpdir"), // "C:\Users\zewan\AppData\Local\Temp"
-            "stream-mind-app" // 在其中创建一个唯一的子目录
-        ).toString();
+        // 【4】状态目录可配置（stream-mind.state.dir），未配置时仍使用 java.io.tmpdir（一个安全可写的目录）
+        String stateDirLocation = stateStoreProperties.getDir() != null && !stateStoreProperties.getDir().isBlank()
+            ? stateStoreProperties.getDir()
+            : Paths.get(
+                System.getProperty("java.io.tmpdir"), // "C:\Users\zewan\AppData\Local\Temp"
+                "stream-mind-app" // 在其中创建一个唯一的子目录
+            ).toString();
 
         props.put(StreamsConfig.STATE_DIR_CONFIG, stateDirLocation);
         log.info("Kafka Streams 状态目录设置为: {}", stateDirLocation);
 
+        // 所有 RocksDB 实例共享有上限的 block cache 和 memtable 内存
+        StateStoreProperties.RocksDb rocksDb = stateStoreProperties.getRocksdb();
+        if (rocksDb.isBoundedMemory()) {
+            props.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, BoundedMemoryRocksDBConfigSetter.class);
+            props.putAll(BoundedMemoryRocksDBConfigSetter.configs(rocksDb));
+            log.info("RocksDB 内存上限: total={}, writeBufferRatio={}", rocksDb.getTotalMemory(), rocksDb.getWriteBufferRatio());
+        }
+
         // 【5. 保持】清理过的配置
         props.put(StreamsConfig.RETRY_BACKOFF_MS_CONFIG, 1000);
-        props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, 1);
-        props.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, 1000);
-        props.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 0L); // 禁用缓存以便实时处理
+
+        // 线程数 / 缓存 / 提交间隔 / 生产者攒批 / 消费者拉取 / 处理语义由运行档位整体决定
+        props.putAll(runtimeProperties.streamsConfigs());
+        log.info("Kafka Streams 运行档位: {}, threads={}, overrides={}", runtimeProperties.getProfile(),
+            props.get(StreamsConfig.NUM_STREAM_THREADS_CONFIG), runtimeProperties.getOverrides().keySet());
 
         return new KafkaStreamsConfiguration(props);
     }
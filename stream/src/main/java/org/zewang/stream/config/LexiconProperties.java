@@ -0,0 +1,31 @@
+package org.zewang.stream.config;
+
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 情感词典配置（词典文件、热加载间隔），对应 stream-mind.lexicon.*
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 18:10
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream-mind.lexicon")
+public class LexiconProperties {
+
+    /**
+     * 词典 JSON 文件路径；为空时使用内置词典，不做热加载
+     */
+    private String path;
+
+    /**
+     * 检查词典文件是否变更的间隔
+     */
+    private Duration reloadInterval = Duration.ofSeconds(30);
+}
@@ -0,0 +1,69 @@
+package org.zewang.stream.config;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 多粒度汇总配置，对应 stream-mind.rollup.*
+ * 所有粒度共享一个按 pane 切分的状态存储，粗粒度由相邻的细粒度结果增量合并得到
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 14:55
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream-mind.rollup")
+public class RollupProperties {
+
+    /**
+     * 是否启用多粒度汇总
+     */
+    private boolean enabled = false;
+
+    /**
+     * 最细的 pane 长度，第一个粒度的窗口大小必须是它的整数倍
+     */
+    private Duration pane = Duration.ofMinutes(1);
+
+    /**
+     * 宽限期，所有粒度共用
+     */
+    private Duration grace = Duration.ofSeconds(30);
+
+    /**
+     * 汇总粒度（翻滚窗口），按窗口大小升序排列，每个粒度的大小必须是前一个粒度的整数倍
+     */
+    private List<Level> levels = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Level {
+
+        /**
+         * 粒度名称，会出现在输出结果和状态存储名中，如 "1m"
+         */
+        private String name;
+
+        /**
+         * 窗口大小
+         */
+        private Duration size;
+
+        /**
+         * 预警阈值：平均分低于该值时输出预警；不配置则该粒度只输出汇总，不预警
+         */
+        private Double threshold;
+
+        /**
+         * 预警文案，不配置时使用 stream-mind.alert.message 加上粒度名称
+         */
+        private String message;
+    }
+}
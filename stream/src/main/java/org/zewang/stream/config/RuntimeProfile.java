@@ -0,0 +1,87 @@
+package org.zewang.stream.config;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.streams.StreamsConfig;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: Kafka Streams 运行档位：线程数、记录缓存、提交间隔、生产者批量、消费者拉取和处理语义作为一组整体设置
+ * - LOW_LATENCY：结果立即可见。不缓存、不攒批、拉到数据马上返回；单线程，与原来的硬编码配置一致
+ * - THROUGHPUT：吞吐优先。记录缓存合并同一 key 的窗口更新，生产者攒批压缩，消费者大批量拉取，
+ *   结果最多延迟一个提交间隔（缓存在提交时刷出）
+ * - EXACTLY_ONCE：exactly_once_v2。提交间隔就是事务长度，下游 read_committed 的可见延迟至少是一个提交间隔；
+ *   broker 需要支持事务（单 broker 时 transaction.state.log.replication.factor=1）
+ * 生产者 / 消费者配置通过 producer. / consumer. 前缀作用于所有内部客户端（包括 changelog 和 repartition topic）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 04:20
+ */
+
+public enum RuntimeProfile {
+
+    LOW_LATENCY(1, 0L, 1_000L, StreamsConfig.AT_LEAST_ONCE,
+        0, 16 * 1024, "none",
+        1, 10, 100),
+
+    THROUGHPUT(3, 64L * 1024 * 1024, 10_000L, StreamsConfig.AT_LEAST_ONCE,
+        50, 256 * 1024, "lz4",
+        64 * 1024, 200, 2_000),
+
+    EXACTLY_ONCE(3, 16L * 1024 * 1024, 200L, StreamsConfig.EXACTLY_ONCE_V2,
+        10, 128 * 1024, "lz4",
+        16 * 1024, 100, 1_000);
+
+    private final int streamThreads;
+    private final long cacheMaxBytes;
+    private final long commitIntervalMs;
+    private final String processingGuarantee;
+    private final int lingerMs;
+    private final int batchSize;
+    private final String compressionType;
+    private final int fetchMinBytes;
+    private final int fetchMaxWaitMs;
+    private final int maxPollRecords;
+
+    RuntimeProfile(int streamThreads, long cacheMaxBytes, long commitIntervalMs, String processingGuarantee,
+        int lingerMs, int batchSize, String compressionType,
+        int fetchMinBytes, int fetchMaxWaitMs, int maxPollRecords) {
+        this.streamThreads = streamThreads;
+        this.cacheMaxBytes = cacheMaxBytes;
+        this.commitIntervalMs = commitIntervalMs;
+        this.processingGuarantee = processingGuarantee;
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+        this.fetchMinBytes = fetchMinBytes;
+        this.fetchMaxWaitMs = fetchMaxWaitMs;
+        this.maxPollRecords = maxPollRecords;
+    }
+
+    public int getStreamThreads() {
+        return streamThreads;
+    }
+
+    /**
+     * 该档位的全部 streams 配置项
+     */
+    public Map<String, Object> streamsConfigs() {
+        Map<String, Object> props = new LinkedHashMap<>();
+        props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, streamThreads);
+        props.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, cacheMaxBytes);
+        props.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, commitIntervalMs);
+        props.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, processingGuarantee);
+
+        props.put(StreamsConfig.producerPrefix(ProducerConfig.LINGER_MS_CONFIG), lingerMs);
+        props.put(StreamsConfig.producerPrefix(ProducerConfig.BATCH_SIZE_CONFIG), batchSize);
+        props.put(StreamsConfig.producerPrefix(ProducerConfig.COMPRESSION_TYPE_CONFIG), compressionType);
+
+        props.put(StreamsConfig.consumerPrefix(ConsumerConfig.FETCH_MIN_BYTES_CONFIG), fetchMinBytes);
+        props.put(StreamsConfig.consumerPrefix(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG), fetchMaxWaitMs);
+        props.put(StreamsConfig.consumerPrefix(ConsumerConfig.MAX_POLL_RECORDS_CONFIG), maxPollRecords);
+        return props;
+    }
+}
@@ -0,0 +1,50 @@
+package org.zewang.stream.config;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.kafka.streams.StreamsConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: Kafka Streams 运行档位配置，对应 stream-mind.runtime.*
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 04:30
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream-mind.runtime")
+public class RuntimeProperties {
+
+    /**
+     * 运行档位：low-latency / throughput / exactly-once，每个部署单独选择
+     */
+    private RuntimeProfile profile = RuntimeProfile.LOW_LATENCY;
+
+    /**
+     * 覆盖档位的 stream 线程数（为空时使用档位默认值）
+     */
+    private Integer streamThreads;
+
+    /**
+     * 覆盖档位中的任意 streams 配置项（原始 key，如 producer.linger.ms），优先级最高
+     */
+    private Map<String, String> overrides = new LinkedHashMap<>();
+
+    /**
+     * 档位配置 + 线程数覆盖 + 任意覆盖项
+     */
+    public Map<String, Object> streamsConfigs() {
+        Map<String, Object> props = profile.streamsConfigs();
+        if (streamThreads != null) {
+            props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, streamThreads);
+        }
+        props.putAll(overrides);
+        return props;
+    }
+}
@@ -0,0 +1,37 @@
+package org.zewang.stream.config;
+
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 内部 topic 的序列化格式配置，对应 stream-mind.serde.*
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 23:05
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream-mind.serde")
+public class SerdeProperties {
+
+    /**
+     * 内部 topic（sentiment-scores、changelog）使用的格式
+     * BINARY 的反序列化器同时能读旧的 JSON 数据：先把所有实例切到 BINARY 即可滚动升级，无需停机
+     * warning-alerts / sentiment-rollups 会被 stream 以外的服务消费，保持 JSON
+     */
+    private Format format = Format.JSON;
+
+    /**
+     * JSON 格式是否启用 Jackson Blackbird 模块（生成的访问器代替反射读写字段）
+     */
+    private boolean blackbird = false;
+
+    public enum Format {
+        JSON,
+        BINARY
+    }
+}
@@ -0,0 +1,79 @@
+package org.zewang.stream.config;
+
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 状态存储配置，对应 stream-mind.state.*
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 03:30
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream-mind.state")
+public class StateStoreProperties {
+
+    /**
+     * 状态目录；为空时使用 ${java.io.tmpdir}/stream-mind-app
+     * 临时目录可能被系统清理，生产环境应指向持久化磁盘，否则重启后要从 changelog 全量恢复
+     */
+    private String dir;
+
+    private RocksDb rocksdb = new RocksDb();
+
+    @Getter
+    @Setter
+    public static class RocksDb {
+
+        /**
+         * 所有 RocksDB 实例（包括每个窗口 segment）共享一个 LRU block cache 和 write buffer manager，
+         * 总内存不再随存储 / segment 数量增长；关闭时使用 Kafka Streams 默认配置（每个实例独立的缓存和 memtable）
+         */
+        private boolean boundedMemory = true;
+
+        /**
+         * 堆外内存总预算：block cache + memtable（memtable 的内存计入 cache）
+         */
+        private DataSize totalMemory = DataSize.ofMegabytes(256);
+
+        /**
+         * 总预算中 memtable 可以占用的比例，写满后强制 flush
+         */
+        private double writeBufferRatio = 0.5;
+
+        /**
+         * block cache 中留给 index / filter block 的高优先级比例
+         */
+        private double indexFilterRatio = 0.1;
+
+        /**
+         * 单个 memtable 的大小和每个实例的 memtable 数量（window segment 写入量小，不需要默认的 3 x 16MB）
+         */
+        private DataSize writeBufferSize = DataSize.ofMegabytes(8);
+        private int maxWriteBuffers = 2;
+
+        private DataSize blockSize = DataSize.ofKilobytes(16);
+
+        /**
+         * bloom filter 每个 key 的位数（10 位约 1% 误判率），0 表示不使用
+         */
+        private int bloomBitsPerKey = 10;
+
+        /**
+         * 窗口 segment 的压缩策略
+         */
+        private Compaction segmentCompaction = Compaction.UNIVERSAL;
+    }
+
+    public enum Compaction {
+        // segment 按时间顺序写入、整体过期删除，universal 写放大小，不会把即将删除的数据反复压到下层
+        UNIVERSAL,
+        LEVEL
+    }
+}
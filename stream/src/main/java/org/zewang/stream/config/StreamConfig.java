@@ -1,15 +1,37 @@
 package org.zewang.stream.config;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.net.URI;
+import java.nio.file.Path;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.common.serialization.Serde;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.zewang.common.constant.KafkaConstants;
 import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.dto.SentimentRollup;
 import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.SentimentScoreView;
 import org.zewang.common.dto.WarningAlert;
+import org.zewang.common.serde.ChatMessageBinarySerde;
 import org.zewang.common.serde.JsonSerde;
+import org.zewang.common.serde.ProjectionSerde;
+import org.zewang.common.serde.SentimentScoreBinarySerde;
+import org.zewang.stream.config.SerdeProperties.Format;
+import org.zewang.stream.metrics.StreamMetrics;
+import org.zewang.stream.model.PendingMessage;
+import org.zewang.stream.model.SentimentStats;
+import org.zewang.stream.sentiment.CachingSentimentEngine;
+import org.zewang.stream.sentiment.HttpSentimentEngine;
+import org.zewang.stream.sentiment.LexiconRegistry;
+import org.zewang.stream.sentiment.LexiconSentimentEngine;
+import org.zewang.stream.sentiment.SentimentEngine;
+import org.zewang.stream.sentiment.SentimentLexicon;
+import org.zewang.stream.serde.PendingMessageBinarySerde;
+import org.zewang.stream.serde.SentimentStatsSerde;
 
 /**
  * @author "Zewang"
@@ -20,23 +42,91 @@ import org.zewang.common.serde.JsonSerde;
  */
 
 @Configuration
+@EnableConfigurationProperties({AlertProperties.class, WindowProperties.class, RollupProperties.class,
+    LexiconProperties.class, EngineProperties.class, SerdeProperties.class, StateStoreProperties.class,
+    RuntimeProperties.class, TopologyProperties.class})
 public class StreamConfig {
 
     // --- Serde Beans ---
 
+    // BINARY 格式的反序列化器兼容 JSON，chat-messages 的生产者不需要同时切换
     @Bean
-    public Serde<ChatMessage> chatMessageSerde() {
-        return new JsonSerde<>(ChatMessage.class);
+    public Serde<ChatMessage> chatMessageSerde(SerdeProperties serdeProperties) {
+        return serdeProperties.getFormat() == Format.BINARY
+            ? new ChatMessageBinarySerde()
+            : new JsonSerde<>(ChatMessage.class, serdeProperties.isBlackbird());
     }
 
     @Bean
-    public Serde<SentimentScore> sentimentScoreSerde() {
-        return new JsonSerde<>(SentimentScore.class);
+    public Serde<SentimentScore> sentimentScoreSerde(SerdeProperties serdeProperties) {
+        return serdeProperties.getFormat() == Format.BINARY
+            ? new SentimentScoreBinarySerde()
+            : new JsonSerde<>(SentimentScore.class, serdeProperties.isBlackbird());
     }
 
+    // 预警 / 汇总阶段读取 sentiment-scores 时只取需要的字段，JSON 和二进制格式都能读
     @Bean
-    public Serde<WarningAlert> warningAlertSerde() {
-        return new JsonSerde<>(WarningAlert.class);
+    public Serde<SentimentScoreView> sentimentScoreViewSerde() {
+        return ProjectionSerde.sentimentScoreView();
+    }
+
+    @Bean
+    public Serde<WarningAlert> warningAlertSerde(SerdeProperties serdeProperties) {
+        return new JsonSerde<>(WarningAlert.class, serdeProperties.isBlackbird());
+    }
+
+    @Bean
+    public Serde<SentimentRollup> sentimentRollupSerde(SerdeProperties serdeProperties) {
+        return new JsonSerde<>(SentimentRollup.class, serdeProperties.isBlackbird());
+    }
+
+    @Bean
+    public Serde<SentimentStats> sentimentStatsSerde() {
+        return new SentimentStatsSerde();
+    }
+
+    @Bean
+    public Serde<PendingMessage> pendingMessageSerde(SerdeProperties serdeProperties) {
+        return serdeProperties.getFormat() == Format.BINARY
+            ? new PendingMessageBinarySerde()
+            : new JsonSerde<>(PendingMessage.class, serdeProperties.isBlackbird());
+    }
+
+    // --- Sentiment Beans ---
+
+    @Bean(destroyMethod = "close")
+    public LexiconRegistry lexiconRegistry(LexiconProperties lexiconProperties) {
+        // 词典在启动/变更时编译成自动机，处理消息时只做查表
+        if (lexiconProperties.getPath() == null || lexiconProperties.getPath().isBlank()) {
+            return new LexiconRegistry(SentimentLexicon.defaults());
+        }
+        return new LexiconRegistry(Path.of(lexiconProperties.getPath()), lexiconProperties.getReloadInterval(),
+            SentimentLexicon.defaults());
+    }
+
+    @Bean
+    public SentimentEngine sentimentEngine(EngineProperties engineProperties, LexiconRegistry lexiconRegistry,
+        MeterRegistry meterRegistry) {
+        if (engineProperties.getUrl() == null || engineProperties.getUrl().isBlank()) {
+            return new LexiconSentimentEngine(lexiconRegistry);
+        }
+        SentimentEngine engine = new HttpSentimentEngine(URI.create(engineProperties.getUrl()),
+            engineProperties.getRequestTimeout());
+        EngineProperties.Cache cache = engineProperties.getCache();
+        if (!cache.isEnabled()) {
+            return engine;
+        }
+        // 重复消息直接使用缓存结果，不再请求模型；命中率、淘汰数通过 cache.* 指标（cache=sentiment）观察
+        CachingSentimentEngine cachingEngine = new CachingSentimentEngine(engine, cache.getMaximumSize(), cache.getTtl());
+        CaffeineCacheMetrics.monitor(meterRegistry, cachingEngine.cache(), "sentiment");
+        return cachingEngine;
+    }
+
+    // --- Metrics Beans ---
+
+    @Bean
+    public StreamMetrics streamMetrics(MeterRegistry meterRegistry) {
+        return new StreamMetrics(meterRegistry);
     }
 
     // --- Topic Beans ---
@@ -50,4 +140,14 @@ public class StreamConfig {
     public NewTopic warningAlertsTopic() {
         return new NewTopic(KafkaConstants.WARNING_ALERTS_TOPIC, 3, (short) 1);
     }
+
+    @Bean
+    public NewTopic sentimentRollupsTopic() {
+        return new NewTopic(KafkaConstants.SENTIMENT_ROLLUPS_TOPIC, 3, (short) 1);
+    }
+
+    @Bean
+    public NewTopic rollupAlertsTopic() {
+        return new NewTopic(KafkaConstants.ROLLUP_ALERTS_TOPIC, 3, (short) 1);
+    }
 }
\ No newline at end of file
@@ -4,9 +4,14 @@ package org.zewang.stream.config;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.KStream;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.SentimentScoreView;
+import org.zewang.stream.config.TopologyProperties.Mode;
 import org.zewang.stream.service.SentimentAnalysisProcessor;
+import org.zewang.stream.service.SentimentRollupProcessor;
 import org.zewang.stream.service.WarningAlertProcessor;
 
 /**
@@ -23,6 +28,8 @@ import org.zewang.stream.service.WarningAlertProcessor;
 public class StreamTopologyBuilder {
     private final SentimentAnalysisProcessor sentimentAnalysisProcessor;
     private final WarningAlertProcessor warningAlertProcessor;
+    private final SentimentRollupProcessor sentimentRollupProcessor;
+    private final TopologyProperties topologyProperties;
 
     /**
      * 【关键】使用此方法构建拓扑.
@@ -33,14 +40,71 @@ public class StreamTopologyBuilder {
      */
     @Autowired
     public void buildTopology(StreamsBuilder streamsBuilder) {
+        if (topologyProperties.getMode() == Mode.FUSED) {
+            buildFusedTopology(streamsBuilder);
+            return;
+        }
+
         // 2.【关键】在这里按顺序构建拓扑
         log.info("StreamTopologyBuilder: 构建情感分析拓扑...");
         sentimentAnalysisProcessor.buildTopology(streamsBuilder);
 
+        // sentiment-scores 只能注册一次 source，预警和多粒度汇总共享同一个流
+        KStream<String, SentimentScoreView> sentimentScores = warningAlertProcessor.sourceStream(streamsBuilder);
+
+        buildDownstream(sentimentScores);
+    }
+
+    /**
+     * 融合拓扑：打分结果在同一个子拓扑里直接进入窗口聚合，省掉 sentiment-scores 的 produce / 复制 / fetch / 反序列化
+     * chat-messages 本身以 userId 为 key，各引擎模式的打分都用 mapValues / processValues，不改变 key，
+     * 聚合前不需要 repartition（StreamTopologyBuilderTest 对每种引擎模式检查子拓扑数）
+     * sentiment-scores 只按采样比例写一份旁路输出
+     */
+    private void buildFusedTopology(StreamsBuilder streamsBuilder) {
+        log.info("StreamTopologyBuilder: 构建融合拓扑（打分 + 聚合在同一个子拓扑）...");
+        KStream<String, SentimentScore> scored = sentimentAnalysisProcessor.scoreStream(streamsBuilder);
+
+        double sampleRate = topologyProperties.getScoresSampleRate();
+        if (sampleRate >= 1.0) {
+            sentimentAnalysisProcessor.writeScores(scored);
+        } else if (sampleRate > 0.0) {
+            sentimentAnalysisProcessor.writeScores(
+                scored.filter((userId, score) -> sampled(score.getUserId(), score.getTimestamp(), sampleRate)));
+        }
+        log.info("sentiment-scores 旁路输出采样比例: {}", sampleRate);
+
+        buildDownstream(scored.mapValues(StreamTopologyBuilder::toView));
+    }
+
+    private void buildDownstream(KStream<String, SentimentScoreView> sentimentScores) {
         log.info("StreamTopologyBuilder: 构建预警处理器拓扑...");
-        warningAlertProcessor.buildTopology(streamsBuilder);
+        warningAlertProcessor.buildTopology(sentimentScores);
+
+        log.info("StreamTopologyBuilder: 构建多粒度汇总拓扑...");
+        sentimentRollupProcessor.buildTopology(sentimentScores);
 
         log.info("StreamTopologyBuilder: 所有拓扑构建完毕。Spring Boot 将自动管理 KafkaStreams 实例的启动。");
     }
 
+    private static SentimentScoreView toView(SentimentScore score) {
+        SentimentScoreView view = new SentimentScoreView();
+        view.setUserId(score.getUserId());
+        view.setTimestamp(score.getTimestamp());
+        view.setSentimentScore(score.getSentimentScore());
+        return view;
+    }
+
+    /**
+     * 按 userId + 时间戳确定性采样：同一条消息无论重放多少次、落在哪个实例上，是否写出都一致
+     */
+    static boolean sampled(String userId, long timestamp, double rate) {
+        long hash = (userId == null ? 0L : userId.hashCode()) * 0x9E3779B97F4A7C15L + timestamp;
+        // SplitMix64 的混合步骤，让相邻时间戳的结果也足够分散
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return (hash >>> 11) * 0x1.0p-53 < rate;
+    }
+
 }
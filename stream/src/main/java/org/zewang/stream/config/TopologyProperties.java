@@ -0,0 +1,36 @@
+package org.zewang.stream.config;
+
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 拓扑形态配置，对应 stream-mind.topology.*
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 05:20
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream-mind.topology")
+public class TopologyProperties {
+
+    /**
+     * TWO_STAGE：打分结果写入 sentiment-scores，预警 / 汇总再从 topic 读回（两个子拓扑，可以分开扩缩容）
+     * FUSED：打分结果在进程内直接进入窗口聚合（一个子拓扑），sentiment-scores 只是可选的旁路输出
+     */
+    private Mode mode = Mode.TWO_STAGE;
+
+    /**
+     * FUSED 模式下写入 sentiment-scores 的比例 [0, 1]，0 表示不写；按 userId + 时间戳确定性采样
+     */
+    private double scoresSampleRate = 1.0;
+
+    public enum Mode {
+        TWO_STAGE,
+        FUSED
+    }
+}
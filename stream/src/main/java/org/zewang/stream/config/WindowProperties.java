@@ -0,0 +1,92 @@
+package org.zewang.stream.config;
+
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 预警窗口配置（窗口大小、步长、宽限期、聚合方式），对应 stream-mind.window.*
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 13:30
+ */
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream-mind.window")
+public class WindowProperties {
+
+    /**
+     * 窗口大小
+     */
+    private Duration size = Duration.ofSeconds(60);
+
+    /**
+     * 步长：每隔多久开启一个新窗口
+     */
+    private Duration advance = Duration.ofSeconds(30);
+
+    /**
+     * 宽限期：允许迟到数据进入窗口的时间
+     */
+    private Duration grace = Duration.ofSeconds(30);
+
+    /**
+     * 聚合方式：HOPPING 使用 DSL 的 TimeWindows；PANE 按步长切分不重叠的 pane，输出时再合并
+     */
+    private Aggregation aggregation = Aggregation.HOPPING;
+
+    /**
+     * 热点 key 打散（两阶段聚合），对应 stream-mind.window.hot-keys.*
+     */
+    private HotKeys hotKeys = new HotKeys();
+
+    public enum Aggregation {
+        HOPPING,
+        PANE
+    }
+
+    @Getter
+    @Setter
+    public static class HotKeys {
+
+        /**
+         * 是否开启两阶段聚合：热点用户按加盐 key 分散到多个 task 做部分聚合，再按 userId 合并（只支持 FINAL 输出）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每个热点用户分散成多少个分片
+         */
+        private int salts = 8;
+
+        /**
+         * 固定的热点用户列表
+         */
+        private Set<String> keys = new LinkedHashSet<>();
+
+        /**
+         * 是否按流量动态识别热点：一个检测周期内记录数达到阈值即视为热点，下一个周期不再达到阈值时取消
+         */
+        private boolean detect = true;
+
+        private long detectThreshold = 1000;
+
+        private Duration detectInterval = Duration.ofSeconds(10);
+
+        /**
+         * 每个检测周期最多统计的用户数，防止百万级用户时计数表无限增长（热点用户通常很早就会出现）
+         */
+        private int maxTrackedKeys = 100_000;
+
+        /**
+         * 第二阶段等待各分片部分结果的宽限期，需要覆盖各分片所在 task 之间流时间的差距
+         */
+        private Duration mergeGrace = Duration.ofSeconds(30);
+    }
+}
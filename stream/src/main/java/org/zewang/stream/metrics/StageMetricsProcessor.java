@@ -0,0 +1,38 @@
+package org.zewang.stream.metrics;
+
+
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.streams.processor.api.ContextualFixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 阶段入口的透传节点
+ * forward 是同步调用，下游节点（聚合、状态存储读写、suppress、sink 序列化）都在 forward 返回前执行完，
+ * 所以 forward 前后的时间差就是这条记录在该阶段的处理耗时
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 05:45
+ */
+
+final class StageMetricsProcessor<K, V> extends ContextualFixedKeyProcessor<K, V, V> {
+
+    private final StreamMetrics metrics;
+    private final Timer latency;
+    private final Timer lag;
+
+    StageMetricsProcessor(StreamMetrics metrics, Timer latency, Timer lag) {
+        this.metrics = metrics;
+        this.latency = latency;
+        this.lag = lag;
+    }
+
+    @Override
+    public void process(FixedKeyRecord<K, V> record) {
+        metrics.recordLag(lag, record.timestamp());
+        long start = System.nanoTime();
+        context().forward(record);
+        latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
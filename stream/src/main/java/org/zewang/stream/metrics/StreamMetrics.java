@@ -0,0 +1,185 @@
+package org.zewang.stream.metrics;
+
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
+import org.zewang.common.constant.SentimentLabel;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.util.TraceHeaders;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 拓扑内的自定义指标（Kafka Streams 客户端自身的指标由 Spring Boot 通过 KafkaStreamsMicrometerListener 绑定）
+ * - stream-mind.stage.latency{stage}：每条记录在各阶段的处理耗时直方图（scoring 只含打分本身，aggregation / rollup 含状态存储读写和下游输出）
+ * - stream-mind.event.lag{stage}：记录到达该阶段时 wall-clock 与事件时间的差（端到端的事件时间延迟）
+ * - stream-mind.sentiment.labels{label}：按情感标签计数
+ * - stream-mind.alerts{source}：输出的预警数，每秒预警数用 rate() 计算
+ * - stream-mind.e2e.latency{sink, hop}：从生产者发送（sm-ingest-ts header）到预警写入 sink 的分段 / 总延迟，
+ *   客户端分位数由 HdrHistogram 计算，同时发布直方图桶
+ * 所有 Timer 都发布直方图桶，Prometheus 端可以按任意分位数聚合
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 05:40
+ */
+
+public class StreamMetrics {
+
+    public static final String STAGE_SCORING = "scoring";
+    public static final String STAGE_AGGREGATION = "aggregation";
+    public static final String STAGE_ROLLUP = "rollup";
+
+    public static final String ALERT_WINDOW = "window";
+    public static final String ALERT_ROLLUP = "rollup";
+
+    public static final String HOP_INGEST_TO_SCORED = "ingest-to-scored";
+    public static final String HOP_SCORED_TO_ALERT = "scored-to-alert";
+    public static final String HOP_TOTAL = "total";
+
+    private final Clock clock;
+    private final Timer scoringLatency;
+    private final Timer scoringLag;
+    private final Map<String, Timer> stageLatencies;
+    private final Map<String, Timer> stageLags;
+    private final Map<SentimentLabel, Counter> labels = new EnumMap<>(SentimentLabel.class);
+    private final Map<String, Counter> alerts;
+    private final Map<String, Timer[]> endToEnd;
+
+    public StreamMetrics(MeterRegistry registry) {
+        this.clock = registry.config().clock();
+        this.scoringLatency = latencyTimer(registry, STAGE_SCORING);
+        this.scoringLag = lagTimer(registry, STAGE_SCORING);
+        this.stageLatencies = Map.of(
+            STAGE_AGGREGATION, latencyTimer(registry, STAGE_AGGREGATION),
+            STAGE_ROLLUP, latencyTimer(registry, STAGE_ROLLUP));
+        this.stageLags = Map.of(
+            STAGE_AGGREGATION, lagTimer(registry, STAGE_AGGREGATION),
+            STAGE_ROLLUP, lagTimer(registry, STAGE_ROLLUP));
+        for (SentimentLabel label : SentimentLabel.values()) {
+            labels.put(label, Counter.builder("stream-mind.sentiment.labels")
+                .description("按情感标签统计的打分结果数")
+                .tag("label", label.getValue())
+                .register(registry));
+        }
+        this.alerts = Map.of(
+            ALERT_WINDOW, alertCounter(registry, ALERT_WINDOW),
+            ALERT_ROLLUP, alertCounter(registry, ALERT_ROLLUP));
+        this.endToEnd = Map.of(
+            ALERT_WINDOW, endToEndTimers(registry, ALERT_WINDOW),
+            ALERT_ROLLUP, endToEndTimers(registry, ALERT_ROLLUP));
+    }
+
+    /**
+     * 不注册到任何后端的指标（单元测试、回放工具使用）
+     */
+    public static StreamMetrics noop() {
+        return new StreamMetrics(new CompositeMeterRegistry());
+    }
+
+    /**
+     * 同步打分并记录耗时（异步引擎的耗时按批次发生，不计入单条记录）
+     */
+    public <T> T timeScoring(Supplier<T> scoring) {
+        return scoringLatency.record(scoring);
+    }
+
+    /**
+     * 记录一条打分结果：标签计数 + 打分阶段的事件时间延迟
+     */
+    public void scored(SentimentScore score) {
+        labels.get(SentimentLabel.of(score.getSentimentScore())).increment();
+        recordLag(scoringLag, score.getTimestamp());
+    }
+
+    public void alertEmitted(String source) {
+        alerts.get(source).increment();
+    }
+
+    /**
+     * 插在某个阶段入口的透传节点：记录下游（同一子拓扑内）处理这条记录的总耗时和到达时的事件时间延迟
+     * 使用 processValues，不改变 key，不会引入 repartition
+     */
+    public <V> FixedKeyProcessorSupplier<String, V, V> stage(String stage) {
+        Timer latency = stageLatencies.get(stage);
+        Timer lag = stageLags.get(stage);
+        if (latency == null) {
+            throw new IllegalArgumentException("未知阶段: " + stage);
+        }
+        return () -> new StageMetricsProcessor<>(this, latency, lag);
+    }
+
+    /**
+     * 打分完成后写入 sm-scored-ts header（两段式拓扑中随 sentiment-scores 一起写出）
+     */
+    public <V> FixedKeyProcessorSupplier<String, V, V> stampScored() {
+        return () -> new TraceStampProcessor<>(clock, TraceHeaders.SCORED_TS);
+    }
+
+    /**
+     * 预警 sink 之前的透传节点：按 header 记录端到端延迟
+     */
+    public <K, V> FixedKeyProcessorSupplier<K, V, V> traceSink(String source) {
+        Timer[] timers = endToEnd.get(source);
+        if (timers == null) {
+            throw new IllegalArgumentException("未知预警来源: " + source);
+        }
+        return () -> new TraceSinkProcessor<>(clock, timers[0], timers[1], timers[2]);
+    }
+
+    void recordLag(Timer lag, long eventTimestamp) {
+        lag.record(Math.max(0L, clock.wallTime() - eventTimestamp), TimeUnit.MILLISECONDS);
+    }
+
+    private static Timer latencyTimer(MeterRegistry registry, String stage) {
+        return Timer.builder("stream-mind.stage.latency")
+            .description("每条记录在该阶段的处理耗时")
+            .tag("stage", stage)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofNanos(500))
+            .maximumExpectedValue(Duration.ofSeconds(1))
+            .register(registry);
+    }
+
+    private static Timer lagTimer(MeterRegistry registry, String stage) {
+        return Timer.builder("stream-mind.event.lag")
+            .description("记录到达该阶段时 wall-clock 与事件时间的差")
+            .tag("stage", stage)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofHours(1))
+            .register(registry);
+    }
+
+    // 顺序：ingest-to-scored, scored-to-alert, total
+    private static Timer[] endToEndTimers(MeterRegistry registry, String sink) {
+        String[] hops = {HOP_INGEST_TO_SCORED, HOP_SCORED_TO_ALERT, HOP_TOTAL};
+        Timer[] timers = new Timer[hops.length];
+        for (int i = 0; i < hops.length; i++) {
+            timers[i] = Timer.builder("stream-mind.e2e.latency")
+                .description("从生产者发送到预警写入 sink 的延迟")
+                .tag("sink", sink)
+                .tag("hop", hops[i])
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofHours(2))
+                .register(registry);
+        }
+        return timers;
+    }
+
+    private static Counter alertCounter(MeterRegistry registry, String source) {
+        return Counter.builder("stream-mind.alerts")
+            .description("输出到 warning-alerts 的预警数")
+            .tag("source", source)
+            .register(registry);
+    }
+}
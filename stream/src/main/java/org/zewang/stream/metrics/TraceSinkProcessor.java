@@ -0,0 +1,65 @@
+package org.zewang.stream.metrics;
+
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.streams.processor.api.ContextualFixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.zewang.common.util.TraceHeaders;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 预警写入 sink 之前的透传节点：按 header 中的时刻记录各分段和总的端到端延迟
+ * 没有 sm-ingest-ts 的记录（旧生产者、回放数据）只记录能算出来的分段
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 06:25
+ */
+
+@Slf4j
+final class TraceSinkProcessor<K, V> extends ContextualFixedKeyProcessor<K, V, V> {
+
+    private final Clock clock;
+    private final Timer ingestToScored;
+    private final Timer scoredToAlert;
+    private final Timer total;
+
+    TraceSinkProcessor(Clock clock, Timer ingestToScored, Timer scoredToAlert, Timer total) {
+        this.clock = clock;
+        this.ingestToScored = ingestToScored;
+        this.scoredToAlert = scoredToAlert;
+        this.total = total;
+    }
+
+    @Override
+    public void process(FixedKeyRecord<K, V> record) {
+        Headers headers = record.headers();
+        long now = clock.wallTime();
+        long ingestTs = TraceHeaders.timestamp(headers, TraceHeaders.INGEST_TS);
+        long scoredTs = TraceHeaders.timestamp(headers, TraceHeaders.SCORED_TS);
+        if (ingestTs != TraceHeaders.ABSENT) {
+            record(total, now - ingestTs);
+            if (scoredTs != TraceHeaders.ABSENT) {
+                record(ingestToScored, scoredTs - ingestTs);
+            }
+        }
+        if (scoredTs != TraceHeaders.ABSENT) {
+            record(scoredToAlert, now - scoredTs);
+        }
+
+        String traceId = TraceHeaders.traceId(headers);
+        if (traceId != null) {
+            log.debug("预警端到端延迟: traceId={}, key={}, totalMs={}", traceId, record.key(),
+                ingestTs == TraceHeaders.ABSENT ? null : now - ingestTs);
+        }
+        context().forward(record);
+    }
+
+    // 跨机器的时钟偏差可能让分段为负，按 0 计
+    private static void record(Timer timer, long millis) {
+        timer.record(Math.max(0L, millis), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,35 @@
+package org.zewang.stream.metrics;
+
+
+import io.micrometer.core.instrument.Clock;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.streams.processor.api.ContextualFixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.zewang.common.util.TraceHeaders;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 在 record header 中写入经过某一跳的时刻
+ * 复制一份 header 再写入：上游可能把同一个 Headers 对象转发给多条记录
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 06:20
+ */
+
+final class TraceStampProcessor<K, V> extends ContextualFixedKeyProcessor<K, V, V> {
+
+    private final Clock clock;
+    private final String header;
+
+    TraceStampProcessor(Clock clock, String header) {
+        this.clock = clock;
+        this.header = header;
+    }
+
+    @Override
+    public void process(FixedKeyRecord<K, V> record) {
+        RecordHeaders headers = new RecordHeaders(record.headers().toArray());
+        TraceHeaders.putTimestamp(headers, header, clock.wallTime());
+        context().forward(record.withHeaders(headers));
+    }
+}
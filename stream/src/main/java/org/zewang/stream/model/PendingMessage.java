@@ -0,0 +1,40 @@
+package org.zewang.stream.model;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.zewang.common.dto.ChatMessage;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 已经从 chat-messages 消费、但还没拿到模型打分结果的消息
+ * 保存在带 changelog 的状态存储里，offset 提交后即使进程崩溃也能在重启时重新提交给模型
+ * headers 保存原记录的 header（如 sm-ingest-ts），重新提交后输出的结果仍带着追踪信息；同名 header 只保留最后一个
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 19:05
+ */
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class PendingMessage {
+    private String key;
+    private long timestamp;
+    private ChatMessage message;
+    private Map<String, byte[]> headers = new LinkedHashMap<>();
+
+    public PendingMessage(String key, long timestamp, ChatMessage message) {
+        this.key = key;
+        this.timestamp = timestamp;
+        this.message = message;
+    }
+
+    public PendingMessage(String key, long timestamp, ChatMessage message, Map<String, byte[]> headers) {
+        this(key, timestamp, message);
+        this.headers = headers;
+    }
+}
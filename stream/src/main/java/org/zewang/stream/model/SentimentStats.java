@@ -0,0 +1,64 @@
+package org.zewang.stream.model;
+
+
+import lombok.Getter;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 窗口内情感分数的紧凑累加器（sum / count / min / max），一次遍历即可得到平均分
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 10:12
+ */
+
+@Getter
+public class SentimentStats {
+    private double sum;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public SentimentStats() {
+    }
+
+    public SentimentStats(double sum, long count, double min, double max) {
+        this.sum = sum;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+    }
+
+    // 累加一条情感分数，直接修改并返回自身，避免每条记录都创建新对象
+    public SentimentStats add(double score) {
+        sum += score;
+        count++;
+        if (score < min) {
+            min = score;
+        }
+        if (score > max) {
+            max = score;
+        }
+        return this;
+    }
+
+    // 合并另一个累加器（用于窗口/分片的合并）
+    public SentimentStats merge(SentimentStats other) {
+        if (other == null || other.count == 0) {
+            return this;
+        }
+        sum += other.sum;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public double average() {
+        return count == 0 ? 0.0 : sum / count; // 避免除以零
+    }
+
+    @Override
+    public String toString() {
+        return "SentimentStats{sum=" + sum + ", count=" + count + ", min=" + min + ", max=" + max + '}';
+    }
+}
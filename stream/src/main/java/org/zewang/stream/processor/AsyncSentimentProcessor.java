@@ -0,0 +1,326 @@
+package org.zewang.stream.processor;
+
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.Cancellable;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorSupplier;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.processor.api.InternalFixedKeyRecordFactory;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.zewang.common.constant.SentimentLabel;
+import org.zewang.common.constant.SentimentTier;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.stream.model.PendingMessage;
+import org.zewang.stream.sentiment.SentimentEngine;
+import org.zewang.stream.sentiment.SentimentResult;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 异步、微批的情感打分处理器
+ * 在 mapValues 里同步调用模型服务，每个流线程每次只能有一个请求在路上，吞吐被往返时延限制。
+ * 这里把消息攒成微批（满 batchSize 条或等待超过 maxBatchDelay 就发送），最多 maxInFlight 个批次同时在途：
+ * - 顺序：批次按提交顺序排队，只有队首批次完成后才输出，同一分区（task）的输出顺序与输入一致
+ * - 背压：在途批次已满时阻塞等待最早的批次，在途请求数有上限
+ * - 提交安全：消息在 process() 返回前写入带 changelog 的 pending 存储，输出后才删除；
+ *   offset 提交时尚未输出的消息（连同 header）都在 pending 存储里，崩溃重启后在 init() 中按原顺序读出，
+ *   第一次 process() / punctuate 时重新提交
+ *   （至少一次：崩溃前已输出但未删除的消息可能重复输出）
+ * - 容错：批次失败或超时时用 fallback 引擎（本地词典）对该批打分
+ * 结果只在流线程上（process / punctuate）输出，引擎回调线程不接触 ProcessorContext。
+ * 输出 key 与输入相同（FixedKeyProcessor，经 processValues 接入），下游按 userId 聚合时不需要 repartition。
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 19:20
+ */
+
+@Slf4j
+public class AsyncSentimentProcessor implements FixedKeyProcessor<String, ChatMessage, SentimentScore> {
+
+    private final String storeName;
+    private final SentimentEngine engine;
+    private final SentimentEngine fallback;
+    private final int batchSize;
+    private final long maxBatchDelayMs;
+    private final int maxInFlight;
+
+    private FixedKeyProcessorContext<String, SentimentScore> context;
+    private KeyValueStore<Long, PendingMessage> pendingStore;
+    private Cancellable punctuator;
+
+    // 正在攒的批次，以及它第一条消息进入时的墙钟时间
+    private final List<Pending> batch = new ArrayList<>();
+    private long batchStartedAt;
+    // 已发送、按提交顺序排列的批次
+    private final ArrayDeque<InFlightBatch> inFlight = new ArrayDeque<>();
+    // init() 时从 pending 存储恢复、还没重新提交的消息
+    private final ArrayDeque<Pending> restored = new ArrayDeque<>();
+    private long nextSequence;
+
+    public AsyncSentimentProcessor(String storeName, SentimentEngine engine, SentimentEngine fallback,
+        int batchSize, Duration maxBatchDelay, int maxInFlight) {
+        this.storeName = storeName;
+        this.engine = engine;
+        this.fallback = fallback;
+        this.batchSize = batchSize;
+        this.maxBatchDelayMs = maxBatchDelay.toMillis();
+        this.maxInFlight = maxInFlight;
+        validate(batchSize, maxInFlight);
+    }
+
+    /**
+     * 创建处理器的 Supplier，同时声明 pending 状态存储（内存 + changelog）
+     */
+    public static FixedKeyProcessorSupplier<String, ChatMessage, SentimentScore> supplier(
+        String storeName, SentimentEngine engine, SentimentEngine fallback,
+        int batchSize, Duration maxBatchDelay, int maxInFlight, Serde<PendingMessage> pendingSerde) {
+
+        validate(batchSize, maxInFlight);
+        // key 是单调递增的序号，Long 序列化为大端字节，遍历顺序就是提交顺序
+        StoreBuilder<KeyValueStore<Long, PendingMessage>> storeBuilder = Stores.keyValueStoreBuilder(
+            Stores.inMemoryKeyValueStore(storeName),
+            Serdes.Long(),
+            pendingSerde);
+
+        return new FixedKeyProcessorSupplier<>() {
+            @Override
+            public FixedKeyProcessor<String, ChatMessage, SentimentScore> get() {
+                return new AsyncSentimentProcessor(storeName, engine, fallback, batchSize, maxBatchDelay, maxInFlight);
+            }
+
+            @Override
+            public Set<StoreBuilder<?>> stores() {
+                return Set.of(storeBuilder);
+            }
+        };
+    }
+
+    private static void validate(int batchSize, int maxInFlight) {
+        if (batchSize <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("batchSize and maxInFlight must be positive, batchSize=" + batchSize
+                + ", maxInFlight=" + maxInFlight);
+        }
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, SentimentScore> context) {
+        this.context = context;
+        this.pendingStore = context.getStateStore(storeName);
+
+        // 上次运行时已消费但没有输出的消息：init() 中不能 forward，这里只按原顺序排队，
+        // 由第一次 process() / punctuate 重新提交（提交时背压可能要求先输出最早的批次）
+        try (KeyValueIterator<Long, PendingMessage> iterator = pendingStore.all()) {
+            while (iterator.hasNext()) {
+                KeyValue<Long, PendingMessage> entry = iterator.next();
+                PendingMessage pending = entry.value;
+                nextSequence = entry.key + 1;
+                // 恢复的消息没有对应的输入记录，key 仍是原来的 userId，按原记录重建
+                restored.add(new Pending(entry.key, InternalFixedKeyRecordFactory.create(new Record<>(pending.getKey(),
+                    pending.getMessage(), pending.getTimestamp(), toHeaders(pending.getHeaders())))));
+            }
+        }
+        if (!restored.isEmpty()) {
+            log.info("上次未完成的情感打分将重新提交: task={}, count={}", context.taskId(), restored.size());
+        }
+
+        this.punctuator = context.schedule(Duration.ofMillis(Math.max(1L, maxBatchDelayMs)),
+            PunctuationType.WALL_CLOCK_TIME, this::onWallClock);
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, ChatMessage> record) {
+        if (record.value() == null) {
+            log.debug("跳过 value 为空的记录: key={}", record.key());
+            return;
+        }
+        resubmitRestored();
+        long sequence = nextSequence++;
+        pendingStore.put(sequence, new PendingMessage(record.key(), record.timestamp(), record.value(),
+            headersOf(record.headers())));
+        add(new Pending(sequence, record));
+        forwardCompleted();
+    }
+
+    private void add(Pending pending) {
+        if (batch.isEmpty()) {
+            batchStartedAt = context.currentSystemTimeMs();
+        }
+        batch.add(pending);
+        if (batch.size() >= batchSize) {
+            submitBatch();
+        }
+    }
+
+    private void resubmitRestored() {
+        while (!restored.isEmpty()) {
+            add(restored.poll());
+        }
+    }
+
+    private void onWallClock(long now) {
+        resubmitRestored();
+        if (!batch.isEmpty() && now - batchStartedAt >= maxBatchDelayMs) {
+            submitBatch();
+        }
+        forwardCompleted();
+    }
+
+    private void submitBatch() {
+        // 背压：在途批次已满时等待最早的批次完成并输出
+        while (inFlight.size() >= maxInFlight) {
+            awaitHead();
+        }
+
+        List<Pending> items = new ArrayList<>(batch);
+        batch.clear();
+        List<String> texts = texts(items);
+        CompletableFuture<List<SentimentResult>> future;
+        try {
+            future = engine.scoreBatch(texts);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        inFlight.add(new InFlightBatch(items, future));
+    }
+
+    private void awaitHead() {
+        try {
+            inFlight.peek().future.join();
+        } catch (CompletionException | CancellationException e) {
+            // 失败在 forward 时处理
+        }
+        forwardCompleted();
+    }
+
+    /**
+     * 按提交顺序输出已完成的批次；队首没完成时后面的批次即使完成也要等待
+     */
+    private void forwardCompleted() {
+        while (!inFlight.isEmpty() && inFlight.peek().future.isDone()) {
+            forward(inFlight.poll());
+        }
+    }
+
+    private void forward(InFlightBatch inFlightBatch) {
+        List<Pending> items = inFlightBatch.items;
+        List<SentimentResult> results;
+        try {
+            results = inFlightBatch.future.join();
+            if (results == null || results.size() != items.size()) {
+                throw new IllegalStateException("engine returned " + (results == null ? "null" : results.size())
+                    + " results for " + items.size() + " messages");
+            }
+        } catch (CompletionException | IllegalStateException e) {
+            log.warn("情感引擎 {} 打分失败，使用 {} 兜底: size={}, error={}",
+                engine.name(), fallback.name(), items.size(), e.toString());
+            List<SentimentResult> fallbackResults = fallback.scoreBatch(texts(items)).join();
+            results = new ArrayList<>(fallbackResults.size());
+            for (SentimentResult result : fallbackResults) {
+                results.add(result.withTier(SentimentTier.FALLBACK));
+            }
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            Pending pending = items.get(i);
+            ChatMessage message = pending.record.value();
+            context.forward(pending.record.withValue(toSentimentScore(message, results.get(i))));
+            pendingStore.delete(pending.sequence);
+        }
+    }
+
+    private static List<String> texts(List<Pending> items) {
+        List<String> texts = new ArrayList<>(items.size());
+        for (Pending pending : items) {
+            texts.add(pending.record.value().getMessage());
+        }
+        return texts;
+    }
+
+    private static Map<String, byte[]> headersOf(Headers headers) {
+        Map<String, byte[]> values = new LinkedHashMap<>();
+        for (Header header : headers) {
+            values.put(header.key(), header.value());
+        }
+        return values;
+    }
+
+    private static Headers toHeaders(Map<String, byte[]> values) {
+        RecordHeaders headers = new RecordHeaders();
+        if (values != null) {
+            values.forEach(headers::add);
+        }
+        return headers;
+    }
+
+    static SentimentScore toSentimentScore(ChatMessage message, SentimentResult result) {
+        SentimentScore score = new SentimentScore();
+        score.setUserId(message.getUserId());
+        score.setTimestamp(message.getTimestamp());
+        score.setSentimentScore(result.getScore());
+        score.setSentimentLabel(SentimentLabel.of(result.getScore()).getValue());
+        score.setLexiconVersion(result.getVersion());
+        score.setTier(result.getTier().getValue());
+        return score;
+    }
+
+    @Override
+    public void close() {
+        if (punctuator != null) {
+            punctuator.cancel();
+        }
+        // close() 中不能再输出；未完成的消息仍在 pending 存储中，重启后重新提交
+        int unfinished = restored.size() + batch.size();
+        for (InFlightBatch inFlightBatch : inFlight) {
+            unfinished += inFlightBatch.items.size();
+        }
+        if (unfinished > 0) {
+            log.info("关闭时仍有未输出的情感打分，将在重启后重新提交: count={}", unfinished);
+        }
+        restored.clear();
+        batch.clear();
+        inFlight.clear();
+    }
+
+    private static final class Pending {
+        private final long sequence;
+        private final FixedKeyRecord<String, ChatMessage> record;
+
+        private Pending(long sequence, FixedKeyRecord<String, ChatMessage> record) {
+            this.sequence = sequence;
+            this.record = record;
+        }
+    }
+
+    private static final class InFlightBatch {
+        private final List<Pending> items;
+        private final CompletableFuture<List<SentimentResult>> future;
+
+        private InFlightBatch(List<Pending> items, CompletableFuture<List<SentimentResult>> future) {
+            this.items = items;
+            this.future = future;
+        }
+    }
+}
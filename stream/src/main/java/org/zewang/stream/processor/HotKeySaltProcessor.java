@@ -0,0 +1,103 @@
+package org.zewang.stream.processor;
+
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.processor.api.Record;
+import org.zewang.stream.config.WindowProperties.HotKeys;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 热点 key 加盐：热点用户的记录轮流改写为 userId#0 ~ userId#(N-1)，其他用户固定为 userId#0
+ * - 热点来源：配置的固定列表 + 按检测周期（wall-clock）统计的记录数达到阈值的用户
+ * - 每个 task 独立统计，不需要状态存储；重启后重新识别，判定变化不影响正确性（第二阶段会合并所有分片）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 08:10
+ */
+
+@Slf4j
+public class HotKeySaltProcessor<V> implements Processor<String, V, String, V> {
+
+    public static final char SALT_SEPARATOR = '#';
+
+    private final Set<String> staticKeys;
+    private final int salts;
+    private final HotKeys hotKeys;
+
+    private final Map<String, Integer> counts = new HashMap<>();
+    private final Set<String> detected = new HashSet<>();
+    private ProcessorContext<String, V> context;
+    private int next;
+
+    public HotKeySaltProcessor(HotKeys hotKeys) {
+        if (hotKeys.getSalts() < 1) {
+            throw new IllegalArgumentException("Hot key salts must be positive, salts=" + hotKeys.getSalts());
+        }
+        this.staticKeys = Set.copyOf(hotKeys.getKeys());
+        this.salts = hotKeys.getSalts();
+        this.hotKeys = hotKeys;
+    }
+
+    public static <V> ProcessorSupplier<String, V, String, V> supplier(HotKeys hotKeys) {
+        return () -> new HotKeySaltProcessor<>(hotKeys);
+    }
+
+    /**
+     * 去掉加盐后缀，得到原始 userId
+     */
+    public static String unsalted(String saltedKey) {
+        int separator = saltedKey.lastIndexOf(SALT_SEPARATOR);
+        return separator < 0 ? saltedKey : saltedKey.substring(0, separator);
+    }
+
+    @Override
+    public void init(ProcessorContext<String, V> context) {
+        this.context = context;
+        if (hotKeys.isDetect()) {
+            context.schedule(hotKeys.getDetectInterval(), PunctuationType.WALL_CLOCK_TIME, timestamp -> rotate());
+        }
+    }
+
+    @Override
+    public void process(Record<String, V> record) {
+        if (record.key() == null) {
+            context.forward(record);
+            return;
+        }
+        int salt = isHot(record.key()) ? Math.floorMod(next++, salts) : 0;
+        context.forward(record.withKey(record.key() + SALT_SEPARATOR + salt));
+    }
+
+    private boolean isHot(String key) {
+        if (staticKeys.contains(key)) {
+            return true;
+        }
+        if (!hotKeys.isDetect()) {
+            return false;
+        }
+        Integer count = counts.get(key);
+        if (count == null && counts.size() >= hotKeys.getMaxTrackedKeys()) {
+            return detected.contains(key);
+        }
+        int updated = count == null ? 1 : count + 1;
+        counts.put(key, updated);
+        if (updated >= hotKeys.getDetectThreshold() && detected.add(key)) {
+            log.info("识别到热点用户: userId={}, 分散为 {} 个分片", key, salts);
+        }
+        return detected.contains(key);
+    }
+
+    // 检测周期结束：本周期没有达到阈值的用户不再视为热点
+    private void rotate() {
+        detected.removeIf(key -> counts.getOrDefault(key, 0) < hotKeys.getDetectThreshold());
+        counts.clear();
+    }
+}
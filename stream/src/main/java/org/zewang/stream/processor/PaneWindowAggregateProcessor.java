@@ -0,0 +1,243 @@
+package org.zewang.stream.processor;
+
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.kstream.internals.TimeWindow;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.TimestampedWindowStore;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.zewang.stream.model.SentimentStats;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 基于 pane 的跳动窗口聚合处理器
+ * 跳动窗口（size=60s, advance=30s）会让每条记录落入 size/advance 个窗口，每个窗口都要写一次状态。
+ * 这里按 advance 把时间切成互不重叠的 pane，每条记录只写一次所属 pane；
+ * 输出时再把相邻的 size/advance 个 pane 合并成跳动窗口的结果，语义与 TimeWindows 一致：
+ * - 窗口起点按 advance 对齐且不小于 0
+ * - 窗口在 (窗口结束 + 宽限期) <= 观察到的流时间 时关闭，之后不再更新
+ * - EAGER 模式下每条记录按窗口起点升序输出它所在的每个未关闭窗口；FINAL 模式只在窗口关闭时输出一次
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 13:42
+ */
+
+@Slf4j
+public class PaneWindowAggregateProcessor<V> implements Processor<String, V, Windowed<String>, SentimentStats> {
+
+    private static final String STREAM_TIME = "stream-time";
+    private static final String LATEST_PANE_START = "latest-pane-start";
+    private static final String EMITTED_UP_TO = "emitted-up-to";
+
+    private final String storeName;
+    private final long sizeMs;
+    private final long advanceMs;
+    private final long graceMs;
+    private final boolean emitFinal;
+    private final ToDoubleFunction<V> scoreOf;
+
+    private ProcessorContext<Windowed<String>, SentimentStats> context;
+    private TimestampedWindowStore<String, SentimentStats> paneStore;
+    private KeyValueStore<String, Long> watermarkStore;
+
+    private long observedStreamTime = -1L;
+    private long latestPaneStart = -1L;
+    // FINAL 模式：已经输出过的最大窗口结束时间
+    private long emittedUpTo = -1L;
+
+    public PaneWindowAggregateProcessor(String storeName, Duration size, Duration advance, Duration grace,
+        boolean emitFinal, ToDoubleFunction<V> scoreOf) {
+        this.storeName = storeName;
+        this.sizeMs = size.toMillis();
+        this.advanceMs = advance.toMillis();
+        this.graceMs = grace.toMillis();
+        this.emitFinal = emitFinal;
+        this.scoreOf = scoreOf;
+        validate(sizeMs, advanceMs);
+    }
+
+    /**
+     * 创建处理器的 Supplier，同时声明它需要的 pane 状态存储（自动加入拓扑）
+     */
+    public static <V> ProcessorSupplier<String, V, Windowed<String>, SentimentStats> supplier(
+        String storeName, Duration size, Duration advance, Duration grace, boolean emitFinal,
+        ToDoubleFunction<V> scoreOf, Serde<SentimentStats> statsSerde) {
+
+        validate(size.toMillis(), advance.toMillis());
+        // pane 需要保留到包含它的最后一个窗口关闭为止，再多留一个 pane 作为余量
+        Duration retention = size.plus(grace).plus(advance);
+        StoreBuilder<TimestampedWindowStore<String, SentimentStats>> storeBuilder = Stores.timestampedWindowStoreBuilder(
+            Stores.persistentTimestampedWindowStore(storeName, retention, advance, false),
+            Serdes.String(),
+            statsSerde);
+
+        return new ProcessorSupplier<>() {
+            @Override
+            public Processor<String, V, Windowed<String>, SentimentStats> get() {
+                return new PaneWindowAggregateProcessor<>(storeName, size, advance, grace, emitFinal, scoreOf);
+            }
+
+            @Override
+            public Set<StoreBuilder<?>> stores() {
+                return Set.of(storeBuilder, WatermarkStore.builder(watermarkStoreName(storeName)));
+            }
+        };
+    }
+
+    private static String watermarkStoreName(String storeName) {
+        return storeName + "-watermarks";
+    }
+
+    private static void validate(long sizeMs, long advanceMs) {
+        if (advanceMs <= 0 || sizeMs < advanceMs || sizeMs % advanceMs != 0) {
+            throw new IllegalArgumentException("Pane aggregation requires the window size to be a positive multiple of the advance, "
+                + "size=" + sizeMs + "ms, advance=" + advanceMs + "ms");
+        }
+    }
+
+    @Override
+    public void init(ProcessorContext<Windowed<String>, SentimentStats> context) {
+        this.context = context;
+        this.paneStore = context.getStateStore(storeName);
+        this.watermarkStore = context.getStateStore(watermarkStoreName(storeName));
+        this.observedStreamTime = WatermarkStore.get(watermarkStore, STREAM_TIME);
+        this.latestPaneStart = WatermarkStore.get(watermarkStore, LATEST_PANE_START);
+        this.emittedUpTo = WatermarkStore.get(watermarkStore, EMITTED_UP_TO);
+    }
+
+    @Override
+    public void process(Record<String, V> record) {
+        if (record.key() == null || record.value() == null) {
+            log.debug("跳过 key 或 value 为空的记录: key={}", record.key());
+            return;
+        }
+
+        long timestamp = record.timestamp();
+        if (timestamp > observedStreamTime) {
+            observedStreamTime = timestamp;
+            watermarkStore.put(STREAM_TIME, observedStreamTime);
+        }
+        long paneStart = timestamp - timestamp % advanceMs;
+
+        // 包含该记录的最后一个窗口是 [paneStart, paneStart + size)，
+        // 如果连这个窗口都已关闭，TimeWindows 也会丢弃这条记录
+        if (paneStart + sizeMs + graceMs <= observedStreamTime) {
+            log.debug("丢弃迟到记录: key={}, timestamp={}, streamTime={}", record.key(), timestamp, observedStreamTime);
+            if (emitFinal) {
+                emitClosedWindows(record.headers());
+            }
+            return;
+        }
+
+        if (emitFinal) {
+            if (emittedUpTo < 0) {
+                // 第一次看到数据：只有此刻已经关闭的窗口才能跳过；之后宽限期内的乱序记录
+                // 仍可能落进第一条记录之前、尚未关闭的窗口，这些窗口关闭时同样要输出
+                long closed = observedStreamTime - graceMs;
+                emittedUpTo = Math.max(0, closed - Math.floorMod(closed, advanceMs));
+                watermarkStore.put(EMITTED_UP_TO, emittedUpTo);
+            }
+            // 先输出已关闭的窗口再写入：流时间大幅跳跃时，写入会让旧 segment 过期
+            emitClosedWindows(record.headers());
+        }
+
+        // 每条记录只写一次：更新所属 pane
+        ValueAndTimestamp<SentimentStats> pane = paneStore.fetch(record.key(), paneStart);
+        SentimentStats stats = pane == null ? new SentimentStats() : pane.value();
+        long paneTimestamp = pane == null ? timestamp : Math.max(pane.timestamp(), timestamp);
+        paneStore.put(record.key(), ValueAndTimestamp.make(stats.add(scoreOf.applyAsDouble(record.value())), paneTimestamp), paneStart);
+        if (paneStart > latestPaneStart) {
+            latestPaneStart = paneStart;
+            watermarkStore.put(LATEST_PANE_START, latestPaneStart);
+        }
+
+        if (emitFinal) {
+            return;
+        }
+
+        // EAGER：按起点升序输出包含该记录且未关闭的窗口
+        for (long windowStart = Math.max(0, paneStart + advanceMs - sizeMs); windowStart <= paneStart; windowStart += advanceMs) {
+            long windowEnd = windowStart + sizeMs;
+            if (windowEnd + graceMs <= observedStreamTime) {
+                continue; // 已关闭的窗口不再更新
+            }
+            ValueAndTimestamp<SentimentStats> merged = mergePanes(record.key(), windowStart);
+            context.forward(record
+                .withKey(new Windowed<>(record.key(), new TimeWindow(windowStart, windowEnd)))
+                .withValue(merged.value())
+                .withTimestamp(merged.timestamp()));
+        }
+    }
+
+    // 合并某个 key 在窗口 [windowStart, windowStart + size) 内的所有 pane
+    private ValueAndTimestamp<SentimentStats> mergePanes(String key, long windowStart) {
+        SentimentStats merged = new SentimentStats();
+        long timestamp = -1L;
+        try (WindowStoreIterator<ValueAndTimestamp<SentimentStats>> panes =
+                 paneStore.fetch(key, windowStart, windowStart + sizeMs - advanceMs)) {
+            while (panes.hasNext()) {
+                ValueAndTimestamp<SentimentStats> pane = panes.next().value;
+                merged.merge(pane.value());
+                timestamp = Math.max(timestamp, pane.timestamp());
+            }
+        }
+        return ValueAndTimestamp.make(merged, timestamp);
+    }
+
+    // FINAL：输出所有已经关闭但尚未输出的窗口（窗口结束按 advance 对齐）
+    // 输出带上推进流时间、使窗口关闭的那条记录的 header（端到端延迟从它的发送时刻算起）
+    private void emitClosedWindows(Headers headers) {
+        if (emittedUpTo < 0) {
+            return;
+        }
+        long lastClosable = observedStreamTime - graceMs;
+        lastClosable -= lastClosable % advanceMs;
+        // 起点晚于最新 pane 的窗口不包含任何数据，直接跳过
+        for (long windowEnd = emittedUpTo + advanceMs;
+             windowEnd <= lastClosable && windowEnd - sizeMs <= latestPaneStart; windowEnd += advanceMs) {
+            long windowStart = windowEnd - sizeMs;
+            if (windowStart >= 0) {
+                emitWindow(windowStart, windowEnd, headers);
+            }
+        }
+        if (lastClosable > emittedUpTo) {
+            emittedUpTo = lastClosable;
+            watermarkStore.put(EMITTED_UP_TO, emittedUpTo);
+        }
+    }
+
+    private void emitWindow(long windowStart, long windowEnd, Headers headers) {
+        // fetchAll 在不同 segment 之间不保证按 key 有序，这里先按 key 合并
+        Map<String, SentimentStats> statsByKey = new LinkedHashMap<>();
+        Map<String, Long> timestampByKey = new LinkedHashMap<>();
+        try (KeyValueIterator<Windowed<String>, ValueAndTimestamp<SentimentStats>> panes =
+                 paneStore.fetchAll(windowStart, windowEnd - advanceMs)) {
+            while (panes.hasNext()) {
+                KeyValue<Windowed<String>, ValueAndTimestamp<SentimentStats>> pane = panes.next();
+                String key = pane.key.key();
+                statsByKey.computeIfAbsent(key, k -> new SentimentStats()).merge(pane.value.value());
+                timestampByKey.merge(key, pane.value.timestamp(), Math::max);
+            }
+        }
+        statsByKey.forEach((key, stats) -> context.forward(new Record<>(
+            new Windowed<>(key, new TimeWindow(windowStart, windowEnd)), stats, timestampByKey.get(key), headers)));
+    }
+}
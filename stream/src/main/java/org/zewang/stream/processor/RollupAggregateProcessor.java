@@ -0,0 +1,250 @@
+package org.zewang.stream.processor;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.ProcessorSupplier;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
+import org.zewang.common.dto.SentimentRollup;
+import org.zewang.stream.model.SentimentStats;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 多粒度（翻滚窗口）情感汇总处理器
+ * - 每条记录只更新一次最细粒度的 pane
+ * - 第 0 级窗口关闭时由 pane 合并得到结果；第 L 级窗口关闭时由第 L-1 级已关闭的结果合并得到
+ * - 每一级只为下一级保留自己的结果（每个用户每个窗口一条），额外状态很小
+ * 迟到数据以第 0 级窗口的关闭时间为准，超过宽限期的记录对所有粒度都会被丢弃
+ * 流时间和每一级已输出的窗口边界保存在进度存储中，重启后恢复，停机期间关闭的窗口在下一条记录推进流时间时补发
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 15:05
+ */
+
+@Slf4j
+public class RollupAggregateProcessor<V> implements Processor<String, V, String, SentimentRollup> {
+
+    private static final String STREAM_TIME = "stream-time";
+    private static final String LATEST_PANE_START = "latest-pane-start";
+    private static final String EMITTED_UP_TO = "emitted-up-to@";
+
+    private final String paneStoreName;
+    private final String watermarkStoreName;
+    private final long paneMs;
+    private final long graceMs;
+    private final String[] levelNames;
+    private final long[] levelSizes;
+    private final String[] levelStoreNames; // 最后一级不需要保留结果，为 null
+    private final ToDoubleFunction<V> scoreOf;
+
+    private ProcessorContext<String, SentimentRollup> context;
+    private WindowStore<String, SentimentStats> paneStore;
+    private final List<WindowStore<String, SentimentStats>> levelStores = new ArrayList<>();
+    private KeyValueStore<String, Long> watermarkStore;
+
+    private long observedStreamTime = -1L;
+    private long latestPaneStart = -1L;
+    private long[] emittedUpTo; // 每一级已经输出过的最大窗口结束时间
+
+    private RollupAggregateProcessor(String paneStoreName, String watermarkStoreName, long paneMs, long graceMs,
+        String[] levelNames, long[] levelSizes, String[] levelStoreNames, ToDoubleFunction<V> scoreOf) {
+        this.paneStoreName = paneStoreName;
+        this.watermarkStoreName = watermarkStoreName;
+        this.paneMs = paneMs;
+        this.graceMs = graceMs;
+        this.levelNames = levelNames;
+        this.levelSizes = levelSizes;
+        this.levelStoreNames = levelStoreNames;
+        this.scoreOf = scoreOf;
+    }
+
+    /**
+     * 创建处理器的 Supplier，并声明 pane 存储和各级结果存储
+     *
+     * @param storePrefix 状态存储名前缀
+     * @param levels      按窗口大小升序的粒度（名称 -> 大小）
+     */
+    public static <V> ProcessorSupplier<String, V, String, SentimentRollup> supplier(String storePrefix,
+        Duration pane, Duration grace, Map<String, Duration> levels, ToDoubleFunction<V> scoreOf,
+        Serde<SentimentStats> statsSerde) {
+
+        if (levels.isEmpty()) {
+            throw new IllegalArgumentException("Rollup requires at least one level");
+        }
+        int n = levels.size();
+        String[] names = levels.keySet().toArray(new String[0]);
+        long[] sizes = levels.values().stream().mapToLong(Duration::toMillis).toArray();
+        long previous = pane.toMillis();
+        for (int i = 0; i < n; i++) {
+            if (previous <= 0 || sizes[i] < previous || sizes[i] % previous != 0) {
+                throw new IllegalArgumentException("Rollup level '" + names[i] + "' (" + sizes[i]
+                    + "ms) must be a positive multiple of the previous level or pane (" + previous + "ms)");
+            }
+            previous = sizes[i];
+        }
+
+        Set<StoreBuilder<?>> stores = new HashSet<>();
+        String paneStoreName = storePrefix + "-pane-store";
+        // pane 保留到第 0 级窗口关闭为止
+        stores.add(windowStore(paneStoreName, sizes[0] + grace.toMillis() + pane.toMillis(), pane.toMillis(), statsSerde));
+
+        String[] levelStoreNames = new String[n];
+        for (int i = 0; i < n - 1; i++) {
+            // 第 i 级结果保留到第 i+1 级窗口关闭为止
+            levelStoreNames[i] = storePrefix + "-" + names[i] + "-store";
+            stores.add(windowStore(levelStoreNames[i], sizes[i + 1] + grace.toMillis() + sizes[i], sizes[i], statsSerde));
+        }
+        String watermarkStoreName = storePrefix + "-watermark-store";
+        stores.add(WatermarkStore.builder(watermarkStoreName));
+
+        return new ProcessorSupplier<>() {
+            @Override
+            public Processor<String, V, String, SentimentRollup> get() {
+                return new RollupAggregateProcessor<>(paneStoreName, watermarkStoreName, pane.toMillis(), grace.toMillis(),
+                    names, sizes, levelStoreNames, scoreOf);
+            }
+
+            @Override
+            public Set<StoreBuilder<?>> stores() {
+                return stores;
+            }
+        };
+    }
+
+    private static StoreBuilder<WindowStore<String, SentimentStats>> windowStore(String name, long retentionMs,
+        long windowSizeMs, Serde<SentimentStats> statsSerde) {
+        return Stores.windowStoreBuilder(
+            Stores.persistentWindowStore(name, Duration.ofMillis(retentionMs), Duration.ofMillis(windowSizeMs), false),
+            Serdes.String(),
+            statsSerde);
+    }
+
+    @Override
+    public void init(ProcessorContext<String, SentimentRollup> context) {
+        this.context = context;
+        this.paneStore = context.getStateStore(paneStoreName);
+        for (String levelStoreName : levelStoreNames) {
+            levelStores.add(levelStoreName == null ? null : context.getStateStore(levelStoreName));
+        }
+        this.watermarkStore = context.getStateStore(watermarkStoreName);
+        this.observedStreamTime = WatermarkStore.get(watermarkStore, STREAM_TIME);
+        this.latestPaneStart = WatermarkStore.get(watermarkStore, LATEST_PANE_START);
+        this.emittedUpTo = new long[levelSizes.length];
+        for (int i = 0; i < levelSizes.length; i++) {
+            emittedUpTo[i] = WatermarkStore.get(watermarkStore, EMITTED_UP_TO + levelNames[i]);
+        }
+    }
+
+    @Override
+    public void process(Record<String, V> record) {
+        if (record.key() == null || record.value() == null) {
+            return;
+        }
+        long timestamp = record.timestamp();
+        if (timestamp > observedStreamTime) {
+            observedStreamTime = timestamp;
+            watermarkStore.put(STREAM_TIME, observedStreamTime);
+        }
+
+        long firstLevelEnd = timestamp - timestamp % levelSizes[0] + levelSizes[0];
+        if (firstLevelEnd + graceMs <= observedStreamTime) {
+            log.debug("丢弃迟到记录: key={}, timestamp={}, streamTime={}", record.key(), timestamp, observedStreamTime);
+            emitClosedWindows();
+            return;
+        }
+
+        if (emittedUpTo[0] < 0) {
+            // 第一次看到数据：每一级只跳过此刻已经关闭的窗口，宽限期内的乱序记录仍可能落进更早的窗口
+            long closed = observedStreamTime - graceMs;
+            for (int i = 0; i < levelSizes.length; i++) {
+                emittedUpTo[i] = Math.max(0, closed - Math.floorMod(closed, levelSizes[i]));
+                watermarkStore.put(EMITTED_UP_TO + levelNames[i], emittedUpTo[i]);
+            }
+        }
+        // 先输出已关闭的窗口再写入：流时间大幅跳跃时，写入会让旧 segment 过期
+        emitClosedWindows();
+
+        // 每条记录只写一次 pane
+        long paneStart = timestamp - timestamp % paneMs;
+        SentimentStats pane = paneStore.fetch(record.key(), paneStart);
+        paneStore.put(record.key(),
+            (pane == null ? new SentimentStats() : pane).add(scoreOf.applyAsDouble(record.value())), paneStart);
+        if (paneStart > latestPaneStart) {
+            latestPaneStart = paneStart;
+            watermarkStore.put(LATEST_PANE_START, latestPaneStart);
+        }
+    }
+
+    // 从细到粗依次输出已经关闭的窗口，保证粗粒度合并时细粒度结果已经写好
+    private void emitClosedWindows() {
+        if (emittedUpTo[0] < 0) {
+            return;
+        }
+        for (int level = 0; level < levelSizes.length; level++) {
+            long size = levelSizes[level];
+            long lastClosable = observedStreamTime - graceMs;
+            lastClosable -= lastClosable % size;
+            // 起点晚于最新 pane 的窗口不包含任何数据，直接跳过
+            for (long windowEnd = emittedUpTo[level] + size;
+                 windowEnd <= lastClosable && windowEnd - size <= latestPaneStart; windowEnd += size) {
+                emitWindow(level, windowEnd - size, windowEnd);
+            }
+            if (lastClosable > emittedUpTo[level]) {
+                emittedUpTo[level] = lastClosable;
+                watermarkStore.put(EMITTED_UP_TO + levelNames[level], lastClosable);
+            }
+        }
+    }
+
+    private void emitWindow(int level, long windowStart, long windowEnd) {
+        WindowStore<String, SentimentStats> source = level == 0 ? paneStore : levelStores.get(level - 1);
+        long granularity = level == 0 ? paneMs : levelSizes[level - 1];
+
+        Map<String, SentimentStats> statsByKey = new LinkedHashMap<>();
+        try (KeyValueIterator<Windowed<String>, SentimentStats> parts = source.fetchAll(windowStart, windowEnd - granularity)) {
+            while (parts.hasNext()) {
+                KeyValue<Windowed<String>, SentimentStats> part = parts.next();
+                statsByKey.computeIfAbsent(part.key.key(), k -> new SentimentStats()).merge(part.value);
+            }
+        }
+
+        WindowStore<String, SentimentStats> target = levelStores.get(level);
+        statsByKey.forEach((key, stats) -> {
+            if (target != null) {
+                target.put(key, stats, windowStart);
+            }
+            context.forward(new Record<>(key, toRollup(key, level, windowStart, windowEnd, stats), windowEnd - 1));
+        });
+    }
+
+    private SentimentRollup toRollup(String key, int level, long windowStart, long windowEnd, SentimentStats stats) {
+        SentimentRollup rollup = new SentimentRollup();
+        rollup.setUserId(key);
+        rollup.setHorizon(levelNames[level]);
+        rollup.setWindowStart(windowStart);
+        rollup.setWindowEnd(windowEnd);
+        rollup.setCount(stats.getCount());
+        rollup.setAverageScore(stats.average());
+        rollup.setMinScore(stats.getMin());
+        rollup.setMaxScore(stats.getMax());
+        return rollup;
+    }
+}
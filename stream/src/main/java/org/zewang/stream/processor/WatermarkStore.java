@@ -0,0 +1,35 @@
+package org.zewang.stream.processor;
+
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.Stores;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 窗口处理器的进度存储（观察到的流时间、已输出的窗口边界等）
+ * 持久化并写 changelog，重启 / 再平衡后处理器从这里恢复进度，不会跳过停机期间关闭的窗口，也不会重新接收已经过期的迟到记录；
+ * 开启缓存，同一个 key 的频繁更新在提交前合并，每次提交只写一条 changelog
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 10:10
+ */
+
+final class WatermarkStore {
+
+    static final long NONE = -1L;
+
+    private WatermarkStore() {
+    }
+
+    static StoreBuilder<KeyValueStore<String, Long>> builder(String name) {
+        return Stores.keyValueStoreBuilder(Stores.persistentKeyValueStore(name), Serdes.String(), Serdes.Long())
+            .withCachingEnabled();
+    }
+
+    static long get(KeyValueStore<String, Long> store, String key) {
+        Long value = store.get(key);
+        return value == null ? NONE : value;
+    }
+}
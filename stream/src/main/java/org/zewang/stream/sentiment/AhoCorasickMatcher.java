@@ -0,0 +1,181 @@
+package org.zewang.stream.sentiment;
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 编译后的 Aho-Corasick 多模式匹配自动机
+ * 所有转移边压平成基本类型数组（按字符排序，二分查找），匹配过程不创建任何对象，
+ * 每个状态记录"以当前位置结尾的最长模式"和状态深度，调用方据此做最左最长匹配。
+ * 大小写不敏感：编译时和匹配时都对单个 char 做 Character.toLowerCase，不会生成新字符串。
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 16:30
+ */
+
+public final class AhoCorasickMatcher {
+
+    public static final int ROOT = 0;
+    public static final int NO_MATCH = -1;
+
+    private final int[] edgeStart;   // 状态 s 的边为 [edgeStart[s], edgeStart[s + 1])
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] fail;
+    private final int[] depth;        // 状态对应前缀的长度
+    private final int[] longestMatch; // 以该状态结尾的最长模式编号，没有则为 NO_MATCH
+    private final int[] patternLengths;
+
+    private AhoCorasickMatcher(int[] edgeStart, char[] edgeChars, int[] edgeTargets, int[] fail, int[] depth,
+        int[] longestMatch, int[] patternLengths) {
+        this.edgeStart = edgeStart;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.depth = depth;
+        this.longestMatch = longestMatch;
+        this.patternLengths = patternLengths;
+    }
+
+    /**
+     * 编译模式列表，模式编号即列表下标
+     */
+    public static AhoCorasickMatcher compile(List<String> patterns) {
+        // 1. 构建 trie（编译期可以使用集合类，匹配期只用数组）
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        children.add(new TreeMap<>());
+        terminal.add(NO_MATCH);
+
+        int[] patternLengths = new int[patterns.size()];
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            if (pattern == null || pattern.isEmpty()) {
+                throw new IllegalArgumentException("Empty pattern at index " + id);
+            }
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = Character.toLowerCase(pattern.charAt(i));
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    terminal.add(NO_MATCH);
+                    children.get(state).put(c, next);
+                }
+                state = next;
+            }
+            // 重复的模式保留后出现的那个
+            terminal.set(state, id);
+            patternLengths[id] = pattern.length();
+        }
+
+        // 2. 压平转移边
+        int stateCount = children.size();
+        int[] edgeStart = new int[stateCount + 1];
+        int edgeCount = 0;
+        for (int s = 0; s < stateCount; s++) {
+            edgeStart[s] = edgeCount;
+            edgeCount += children.get(s).size();
+        }
+        edgeStart[stateCount] = edgeCount;
+        char[] edgeChars = new char[edgeCount];
+        int[] edgeTargets = new int[edgeCount];
+        for (int s = 0; s < stateCount; s++) {
+            int e = edgeStart[s];
+            for (var entry : children.get(s).entrySet()) {
+                edgeChars[e] = entry.getKey();
+                edgeTargets[e] = entry.getValue();
+                e++;
+            }
+        }
+
+        // 3. BFS 计算失败指针和最长输出
+        int[] fail = new int[stateCount];
+        int[] depth = new int[stateCount];
+        int[] longestMatch = new int[stateCount];
+        Arrays.fill(longestMatch, NO_MATCH);
+        AhoCorasickMatcher partial = new AhoCorasickMatcher(edgeStart, edgeChars, edgeTargets, fail, depth,
+            longestMatch, patternLengths);
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+            int child = edgeTargets[e];
+            fail[child] = ROOT;
+            depth[child] = 1;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            // 自身是模式结尾时，它就是以此处结尾的最长模式；否则沿失败指针继承
+            longestMatch[state] = terminal.get(state) != NO_MATCH ? terminal.get(state) : longestMatch[fail[state]];
+            for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+                int child = edgeTargets[e];
+                fail[child] = partial.next(fail[state], edgeChars[e]);
+                depth[child] = depth[state] + 1;
+                queue.add(child);
+            }
+        }
+        return partial;
+    }
+
+    /**
+     * 从 state 读入字符 c 后到达的状态（c 需要已经转为小写）
+     */
+    public int next(int state, char c) {
+        while (true) {
+            int target = edge(state, c);
+            if (target >= 0) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * 以该状态结尾的最长模式编号
+     */
+    public int longestMatch(int state) {
+        return longestMatch[state];
+    }
+
+    /**
+     * 状态对应前缀的长度：之后出现的任何匹配，起点都不会早于 (当前位置 - depth + 1)
+     */
+    public int depth(int state) {
+        return depth[state];
+    }
+
+    public int patternLength(int patternId) {
+        return patternLengths[patternId];
+    }
+
+    public int stateCount() {
+        return fail.length;
+    }
+
+    private int edge(int state, char c) {
+        int low = edgeStart[state];
+        int high = edgeStart[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = edgeChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,270 @@
+package org.zewang.stream.sentiment;
+
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ToLongFunction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 带结果缓存的情感引擎（装饰器）
+ * 聊天里重复消息很多（"太难过了"、"好的"），外部模型对每条重复消息都要做一次完整推理。
+ * - key：归一化文本（去首尾空白、合并连续空白、转小写）的 64 位哈希；value 里同时保存归一化文本，
+ *   命中时逐字符比较，哈希碰撞按未命中处理
+ * - 淘汰：Caffeine 的 W-TinyLFU，按访问频率淘汰，偶发的长尾消息不会把高频消息挤出去；写入后 ttl 过期
+ * - 失效：引擎版本（词典/模型）变化时清空缓存，版本不一致的缓存结果视为未命中
+ * - 同一批里重复的消息只向下游引擎发送一次
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 20:10
+ */
+
+@Slf4j
+public class CachingSentimentEngine implements SentimentEngine {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final SentimentEngine delegate;
+    private final Cache<Long, CachedResult> cache;
+    private final ToLongFunction<String> hasher;
+    private volatile String cachedVersion;
+
+    public CachingSentimentEngine(SentimentEngine delegate, long maximumSize, Duration ttl) {
+        this(delegate, Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl));
+    }
+
+    CachingSentimentEngine(SentimentEngine delegate, Caffeine<Object, Object> cacheBuilder) {
+        this(delegate, cacheBuilder, CachingSentimentEngine::contentHash);
+    }
+
+    CachingSentimentEngine(SentimentEngine delegate, Caffeine<Object, Object> cacheBuilder, ToLongFunction<String> hasher) {
+        this.delegate = delegate;
+        this.cache = cacheBuilder.recordStats().build();
+        this.hasher = hasher;
+        this.cachedVersion = delegate.version();
+    }
+
+    @Override
+    public String name() {
+        return "cached:" + delegate.name();
+    }
+
+    @Override
+    public String version() {
+        return delegate.version();
+    }
+
+    @Override
+    public CompletableFuture<List<SentimentResult>> scoreBatch(List<String> messages) {
+        String version = checkVersion(delegate.version());
+
+        SentimentResult[] results = new SentimentResult[messages.size()];
+        // 未命中的归一化文本 -> 批内位置（重复消息共用一次打分）
+        Map<String, Miss> misses = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            String message = messages.get(i);
+            long key = hasher.applyAsLong(message);
+            CachedResult cached = cache.getIfPresent(key);
+            // 哈希相同但原文不同（碰撞）按未命中处理
+            if (cached != null && Objects.equals(cached.result.getVersion(), version)
+                && matchesNormalized(message, cached.text)) {
+                results[i] = cached.result;
+            } else {
+                misses.computeIfAbsent(normalize(message), text -> new Miss(key, text)).positions.add(i);
+            }
+        }
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(results));
+        }
+
+        List<String> texts = new ArrayList<>(misses.size());
+        for (Miss miss : misses.values()) {
+            texts.add(messages.get(miss.positions.get(0)));
+        }
+        return delegate.scoreBatch(texts).thenApply(scored -> {
+            if (scored.size() != texts.size()) {
+                throw new IllegalStateException("engine returned " + scored.size() + " results for " + texts.size() + " messages");
+            }
+            int j = 0;
+            for (Miss miss : misses.values()) {
+                SentimentResult result = scored.get(j++);
+                checkVersion(result.getVersion());
+                cache.put(miss.key, new CachedResult(miss.text, result));
+                for (int position : miss.positions) {
+                    results[position] = result;
+                }
+            }
+            return Arrays.asList(results);
+        });
+    }
+
+    /**
+     * 版本变化时清空缓存
+     * @return 当前版本
+     */
+    private String checkVersion(String version) {
+        if (version != null && !version.equals(cachedVersion)) {
+            synchronized (this) {
+                if (!version.equals(cachedVersion)) {
+                    log.info("情感引擎版本变化，清空结果缓存: {} -> {}, size={}", cachedVersion, version, cache.estimatedSize());
+                    cache.invalidateAll();
+                    cachedVersion = version;
+                }
+            }
+        }
+        return cachedVersion;
+    }
+
+    /**
+     * 底层缓存（已开启 recordStats），用于注册 Micrometer 指标
+     */
+    public Cache<?, ?> cache() {
+        return cache;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 归一化文本：去首尾空白、连续空白合并为一个空格、转小写；null 视为空串
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        boolean inWhitespace = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                inWhitespace = true;
+                continue;
+            }
+            if (inWhitespace) {
+                normalized.append(' ');
+                inWhitespace = false;
+            }
+            normalized.append(Character.toLowerCase(c));
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * text 归一化后是否等于 normalized，逐字符比较，不创建中间字符串（命中路径上使用）
+     */
+    static boolean matchesNormalized(String text, String normalized) {
+        if (text == null) {
+            return normalized.isEmpty();
+        }
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        int j = 0;
+        int length = normalized.length();
+        boolean inWhitespace = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                inWhitespace = true;
+                continue;
+            }
+            if (inWhitespace) {
+                if (j >= length || normalized.charAt(j++) != ' ') {
+                    return false;
+                }
+                inWhitespace = false;
+            }
+            if (j >= length || normalized.charAt(j++) != Character.toLowerCase(c)) {
+                return false;
+            }
+        }
+        return j == length;
+    }
+
+    /**
+     * 归一化文本的 FNV-1a 64 位哈希，逐字符计算，不创建中间字符串
+     */
+    static long contentHash(String text) {
+        long hash = FNV_OFFSET;
+        if (text == null) {
+            return hash;
+        }
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        boolean inWhitespace = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                inWhitespace = true;
+                continue;
+            }
+            if (inWhitespace) {
+                hash = (hash ^ ' ') * FNV_PRIME;
+                inWhitespace = false;
+            }
+            c = Character.toLowerCase(c);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * 缓存值：归一化文本 + 打分结果；命中时比较文本，64 位哈希碰撞不会返回别的消息的结果
+     */
+    private static final class CachedResult {
+        private final String text;
+        private final SentimentResult result;
+
+        private CachedResult(String text, SentimentResult result) {
+            this.text = text;
+            this.result = result;
+        }
+    }
+
+    private static final class Miss {
+        private final long key;
+        private final String text;
+        private final List<Integer> positions = new ArrayList<>(1);
+
+        private Miss(long key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+}
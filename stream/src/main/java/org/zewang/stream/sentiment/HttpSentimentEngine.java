@@ -0,0 +1,114 @@
+package org.zewang.stream.sentiment;
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.zewang.common.constant.SentimentTier;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 外部模型服务引擎：一批消息一次 HTTP 请求，异步发送
+ * 请求：POST {"messages": ["...", "..."]}
+ * 响应：{"model": "模型版本", "scores": [0.8, -0.6]}，scores 与 messages 等长
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 19:10
+ */
+
+public class HttpSentimentEngine implements SentimentEngine {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final URI endpoint;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+    // 最近一次响应中的模型版本
+    private volatile String modelVersion;
+
+    public HttpSentimentEngine(URI endpoint, Duration requestTimeout) {
+        this(endpoint, requestTimeout, HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(requestTimeout)
+            .build());
+    }
+
+    public HttpSentimentEngine(URI endpoint, Duration requestTimeout, HttpClient httpClient) {
+        this.endpoint = endpoint;
+        this.requestTimeout = requestTimeout;
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public String name() {
+        return "http:" + endpoint;
+    }
+
+    @Override
+    public String version() {
+        return modelVersion;
+    }
+
+    @Override
+    public CompletableFuture<List<SentimentResult>> scoreBatch(List<String> messages) {
+        ObjectNode body = OBJECT_MAPPER.createObjectNode();
+        ArrayNode array = body.putArray("messages");
+        messages.forEach(array::add);
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(endpoint)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(OBJECT_MAPPER.writeValueAsBytes(body)))
+                .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(response -> {
+                List<SentimentResult> results = parse(response, messages.size());
+                if (!results.isEmpty()) {
+                    modelVersion = results.get(0).getVersion();
+                }
+                return results;
+            })
+            // 连接建立后 HttpClient 的超时不覆盖读取整个响应体，这里兜底
+            .orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static List<SentimentResult> parse(HttpResponse<byte[]> response, int expected) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("情感模型服务返回 HTTP " + response.statusCode());
+        }
+        JsonNode root;
+        try {
+            root = OBJECT_MAPPER.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        JsonNode scores = root.path("scores");
+        if (!scores.isArray() || scores.size() != expected) {
+            throw new IllegalStateException("情感模型服务返回的结果数量不匹配: expected=" + expected + ", actual=" + scores.size());
+        }
+        String model = root.path("model").asText("unknown");
+        List<SentimentResult> results = new ArrayList<>(expected);
+        for (JsonNode score : scores) {
+            results.add(new SentimentResult(Math.max(-1.0, Math.min(1.0, score.asDouble())), model, SentimentTier.MODEL));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,96 @@
+package org.zewang.stream.sentiment;
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 从 JSON 文件读取情感词典
+ * 文件格式：
+ * {
+ *   "version": "2026-10-17",
+ *   "terms": {"开心": 0.8, "难过": -0.8},
+ *   "negators": ["不", "没有"],
+ *   "intensifiers": {"很": 1.5}
+ * }
+ * 未写 version 时使用文件内容的 CRC32 作为版本号，内容不变则版本不变
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 18:15
+ */
+
+public final class LexiconFileLoader {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private LexiconFileLoader() {
+    }
+
+    public static SentimentLexicon load(Path path) throws IOException {
+        return parse(Files.readAllBytes(path));
+    }
+
+    static SentimentLexicon parse(byte[] content) throws IOException {
+        JsonNode root = OBJECT_MAPPER.readTree(content);
+        if (root == null || !root.isObject()) {
+            throw new IOException("词典文件必须是 JSON 对象");
+        }
+
+        JsonNode versionNode = root.get("version");
+        String version = versionNode != null && versionNode.isTextual() && !versionNode.asText().isBlank()
+            ? versionNode.asText()
+            : "crc32-" + Long.toHexString(crc32(content));
+
+        SentimentLexicon.Builder builder = SentimentLexicon.builder(version);
+        for (Iterator<Map.Entry<String, JsonNode>> it = fields(root, "terms"); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            builder.term(entry.getKey(), number(entry, "terms"));
+        }
+        JsonNode negators = root.get("negators");
+        if (negators != null) {
+            if (!negators.isArray()) {
+                throw new IOException("negators 必须是数组");
+            }
+            for (JsonNode negator : negators) {
+                builder.negator(negator.asText());
+            }
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = fields(root, "intensifiers"); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            builder.intensifier(entry.getKey(), number(entry, "intensifiers"));
+        }
+        return builder.build();
+    }
+
+    private static Iterator<Map.Entry<String, JsonNode>> fields(JsonNode root, String name) throws IOException {
+        JsonNode node = root.get(name);
+        if (node == null) {
+            return Collections.emptyIterator();
+        }
+        if (!node.isObject()) {
+            throw new IOException(name + " 必须是 {词: 数值} 对象");
+        }
+        return node.fields();
+    }
+
+    private static double number(Map.Entry<String, JsonNode> entry, String section) throws IOException {
+        if (!entry.getValue().isNumber()) {
+            throw new IOException(section + "." + entry.getKey() + " 必须是数值");
+        }
+        return entry.getValue().asDouble();
+    }
+
+    private static long crc32(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+}
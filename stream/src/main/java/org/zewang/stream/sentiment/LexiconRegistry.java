@@ -0,0 +1,110 @@
+package org.zewang.stream.sentiment;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 持有当前生效的词典打分器，支持热加载
+ * 词典文件变更后由后台线程读取并编译成新的自动机，编译完成后通过 volatile 引用原子替换。
+ * 流处理线程每条消息只读一次引用，不加锁、不暂停；同一条消息的分数和版本号来自同一个打分器。
+ * 新词典加载或编译失败时继续使用旧词典。
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 18:20
+ */
+
+@Slf4j
+public class LexiconRegistry implements AutoCloseable {
+
+    private final Path path;
+    private final ScheduledExecutorService reloader;
+
+    private volatile LexiconSentimentScorer current;
+    private FileTime lastModified;
+
+    /**
+     * 只使用给定词典，不做热加载
+     */
+    public LexiconRegistry(SentimentLexicon lexicon) {
+        this.path = null;
+        this.reloader = null;
+        this.current = LexiconSentimentScorer.compile(lexicon);
+    }
+
+    /**
+     * 从文件加载词典并按 reloadInterval 检查变更；启动时文件不可用则回退到 fallback
+     */
+    public LexiconRegistry(Path path, Duration reloadInterval, SentimentLexicon fallback) {
+        this.path = path;
+        this.current = LexiconSentimentScorer.compile(fallback);
+        reloadIfChanged();
+
+        this.reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lexicon-reloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = reloadInterval.toMillis();
+        reloader.scheduleWithFixedDelay(this::reloadIfChanged, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 当前生效的打分器，每条消息取一次
+     */
+    public LexiconSentimentScorer current() {
+        return current;
+    }
+
+    /**
+     * 在调用线程上编译并替换词典
+     */
+    public void swap(SentimentLexicon lexicon) {
+        LexiconSentimentScorer next = LexiconSentimentScorer.compile(lexicon);
+        LexiconSentimentScorer previous = current;
+        current = next;
+        log.info("情感词典已切换: {} -> {}", previous.getVersion(), next.getVersion());
+    }
+
+    /**
+     * 文件修改时间变化时重新加载；版本号没变则不替换
+     * @return 是否切换了词典
+     */
+    synchronized boolean reloadIfChanged() {
+        if (path == null) {
+            return false;
+        }
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            if (modified.equals(lastModified)) {
+                return false;
+            }
+            // 先记录修改时间：文件内容有误时只告警一次，等下次修改再重试
+            lastModified = modified;
+            SentimentLexicon lexicon = LexiconFileLoader.load(path);
+            if (lexicon.getVersion().equals(current.getVersion())) {
+                return false;
+            }
+            swap(lexicon);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("加载情感词典失败，继续使用版本 {}: path={}, error={}", current.getVersion(), path, e.toString());
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.zewang.stream.sentiment;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.zewang.common.constant.SentimentTier;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 本地词典引擎：在调用线程上同步打分，直接返回已完成的 future
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 19:02
+ */
+
+public class LexiconSentimentEngine implements SentimentEngine {
+
+    private final LexiconRegistry lexiconRegistry;
+
+    public LexiconSentimentEngine(LexiconRegistry lexiconRegistry) {
+        this.lexiconRegistry = lexiconRegistry;
+    }
+
+    @Override
+    public String name() {
+        return "lexicon";
+    }
+
+    @Override
+    public String version() {
+        return lexiconRegistry.current().getVersion();
+    }
+
+    @Override
+    public CompletableFuture<List<SentimentResult>> scoreBatch(List<String> messages) {
+        // 整批使用同一个词典版本
+        LexiconSentimentScorer scorer = lexiconRegistry.current();
+        List<SentimentResult> results = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            results.add(new SentimentResult(scorer.score(message), scorer.getVersion(), SentimentTier.LEXICON));
+        }
+        return CompletableFuture.completedFuture(results);
+    }
+}
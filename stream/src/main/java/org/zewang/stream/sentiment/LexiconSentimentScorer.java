@@ -0,0 +1,186 @@
+package org.zewang.stream.sentiment;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 基于 Aho-Corasick 自动机的词典情感打分器
+ * 一次遍历消息即可完成打分（确认词条时最多回退一个词条长度），匹配过程中不分配对象：
+ * - 最左最长匹配："不好" 作为一个词条整体匹配，不会再被 "好" 计为正面
+ * - 否定词：翻转并减弱后面 NEGATION_WINDOW 个字符内的第一个情感词，连续否定会相互抵消
+ * - 程度副词：放大/减弱后面 INTENSIFIER_WINDOW 个字符内的第一个情感词
+ * - 标点视为子句边界，清空否定和程度修饰
+ * 多个情感词的权重累加后归一化到 [-1, 1]。
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 17:00
+ */
+
+public final class LexiconSentimentScorer {
+
+    static final byte TERM = 0;
+    static final byte NEGATOR = 1;
+    static final byte INTENSIFIER = 2;
+
+    static final int NEGATION_WINDOW = 3;
+    static final int INTENSIFIER_WINDOW = 2;
+    static final double NEGATION_SCALAR = -0.75;
+    // 归一化参数：score = sum / sqrt(sum^2 + ALPHA)
+    static final double ALPHA = 0.5;
+
+    private final String version;
+    private final AhoCorasickMatcher matcher;
+    private final byte[] kinds;
+    private final double[] weights;
+
+    private LexiconSentimentScorer(String version, AhoCorasickMatcher matcher, byte[] kinds, double[] weights) {
+        this.version = version;
+        this.matcher = matcher;
+        this.kinds = kinds;
+        this.weights = weights;
+    }
+
+    /**
+     * 把词典编译成自动机（开销较大，只在启动或词典变更时调用）
+     */
+    public static LexiconSentimentScorer compile(SentimentLexicon lexicon) {
+        List<String> patterns = new ArrayList<>();
+        List<Byte> kinds = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        // 同一个词同时出现在多个分类时，后加入的覆盖先加入的：程度副词 < 否定词 < 情感词
+        for (Map.Entry<String, Double> entry : lexicon.getIntensifiers().entrySet()) {
+            patterns.add(entry.getKey());
+            kinds.add(INTENSIFIER);
+            weights.add(entry.getValue());
+        }
+        for (String negator : lexicon.getNegators()) {
+            patterns.add(negator);
+            kinds.add(NEGATOR);
+            weights.add(0.0);
+        }
+        for (Map.Entry<String, Double> entry : lexicon.getTerms().entrySet()) {
+            patterns.add(entry.getKey());
+            kinds.add(TERM);
+            weights.add(entry.getValue());
+        }
+
+        byte[] kindArray = new byte[kinds.size()];
+        double[] weightArray = new double[weights.size()];
+        for (int i = 0; i < kindArray.length; i++) {
+            kindArray[i] = kinds.get(i);
+            weightArray[i] = weights.get(i);
+        }
+        return new LexiconSentimentScorer(lexicon.getVersion(), AhoCorasickMatcher.compile(patterns), kindArray, weightArray);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * 对整条消息打分，返回 [-1, 1] 之间的分数，没有命中任何情感词时为 0
+     * 采用最左最长匹配：在最靠左的起点上取最长的词条，确认后从词条末尾继续扫描
+     */
+    public double score(CharSequence text) {
+        if (text == null) {
+            return 0.0;
+        }
+
+        double sum = 0.0;
+        boolean negated = false;
+        int negationExpiry = -1;
+        double multiplier = 1.0;
+        int intensifierExpiry = -1;
+
+        // 当前最佳候选：起点最靠左、同起点时最长
+        int bestId = AhoCorasickMatcher.NO_MATCH;
+        int bestStart = 0;
+        int bestEnd = 0;
+
+        int state = AhoCorasickMatcher.ROOT;
+        int length = text.length();
+        int i = 0;
+        while (true) {
+            boolean atEnd = i >= length;
+            boolean boundary = atEnd || isBoundary(text.charAt(i));
+            if (!boundary) {
+                state = matcher.next(state, Character.toLowerCase(text.charAt(i)));
+                int matchId = matcher.longestMatch(state);
+                if (matchId != AhoCorasickMatcher.NO_MATCH) {
+                    int matchStart = i - matcher.patternLength(matchId) + 1;
+                    // 起点相同的新匹配结束得更晚，一定更长
+                    if (bestId == AhoCorasickMatcher.NO_MATCH || matchStart <= bestStart) {
+                        bestId = matchId;
+                        bestStart = matchStart;
+                        bestEnd = i;
+                    }
+                }
+                // 仍存在起点不晚于候选起点的前缀时，可能出现更长的匹配，继续读
+                if (bestId == AhoCorasickMatcher.NO_MATCH || i - matcher.depth(state) + 1 <= bestStart) {
+                    i++;
+                    continue;
+                }
+            } else if (bestId == AhoCorasickMatcher.NO_MATCH) {
+                if (atEnd) {
+                    break;
+                }
+                // 子句边界：清空修饰状态，自动机回到根
+                negated = false;
+                multiplier = 1.0;
+                intensifierExpiry = -1;
+                state = AhoCorasickMatcher.ROOT;
+                i++;
+                continue;
+            }
+
+            // 确认候选词条
+            byte kind = kinds[bestId];
+            if (kind == NEGATOR) {
+                // 窗口内连续两个否定词相互抵消
+                negated = !(negated && bestStart <= negationExpiry);
+                negationExpiry = bestEnd + NEGATION_WINDOW;
+            } else if (kind == INTENSIFIER) {
+                multiplier = (bestStart <= intensifierExpiry ? multiplier : 1.0) * weights[bestId];
+                intensifierExpiry = bestEnd + INTENSIFIER_WINDOW;
+            } else {
+                double weight = weights[bestId];
+                if (negated && bestStart <= negationExpiry) {
+                    weight *= NEGATION_SCALAR;
+                }
+                if (bestStart <= intensifierExpiry) {
+                    weight *= multiplier;
+                }
+                sum += weight;
+                negated = false;
+                multiplier = 1.0;
+                intensifierExpiry = -1;
+            }
+
+            // 从词条末尾之后重新扫描（回退最多一个词条长度）
+            i = bestEnd + 1;
+            state = AhoCorasickMatcher.ROOT;
+            bestId = AhoCorasickMatcher.NO_MATCH;
+        }
+        return normalize(sum);
+    }
+
+    static double normalize(double sum) {
+        if (sum == 0.0) {
+            return 0.0;
+        }
+        return sum / Math.sqrt(sum * sum + ALPHA);
+    }
+
+    private static boolean isBoundary(char c) {
+        switch (c) {
+            case '，': case '。': case '！': case '？': case '；': case '…':
+            case ',': case '.': case '!': case '?': case ';': case '\n':
+                return true;
+            default:
+                return false;
+        }
+    }
+}
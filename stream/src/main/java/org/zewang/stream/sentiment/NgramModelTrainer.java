@@ -0,0 +1,99 @@
+package org.zewang.stream.sentiment;
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 离线训练 n-gram 情感模型并写出二进制模型文件
+ * 训练数据每行一条：分数[-1, 1] \t 消息文本，分数换算成正面概率 (score + 1) / 2 作为软标签
+ * 用法：NgramModelTrainer <训练数据.tsv> <输出模型文件> [模型版本]
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 22:05
+ */
+
+public final class NgramModelTrainer {
+
+    private int minN = 1;
+    private int maxN = 3;
+    private int bits = 18;
+    private int epochs = 20;
+    private double learningRate = 0.1;
+    private double l2 = 1e-5;
+    private long seed = 42L;
+
+    public NgramModelTrainer nRange(int minN, int maxN) {
+        this.minN = minN;
+        this.maxN = maxN;
+        return this;
+    }
+
+    public NgramModelTrainer bits(int bits) {
+        this.bits = bits;
+        return this;
+    }
+
+    public NgramModelTrainer epochs(int epochs) {
+        this.epochs = epochs;
+        return this;
+    }
+
+    public NgramModelTrainer learningRate(double learningRate) {
+        this.learningRate = learningRate;
+        return this;
+    }
+
+    public NgramSentimentModel train(String version, List<String> texts, List<Double> scores) {
+        if (texts.size() != scores.size()) {
+            throw new IllegalArgumentException("texts and scores must have the same size");
+        }
+        NgramSentimentModel model = NgramSentimentModel.empty(version, minN, maxN, bits);
+        List<Integer> order = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            order.add(i);
+        }
+        Random random = new Random(seed);
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            Collections.shuffle(order, random);
+            // 学习率逐轮衰减
+            double rate = learningRate / (1.0 + epoch * 0.1);
+            for (int i : order) {
+                double target = (Math.max(-1.0, Math.min(1.0, scores.get(i))) + 1.0) / 2.0;
+                model.update(texts.get(i), target, rate, l2);
+            }
+        }
+        return model;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: NgramModelTrainer <train.tsv> <model.bin> [version]");
+            System.exit(1);
+        }
+        List<String> texts = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        for (String line : Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (line.isBlank() || line.startsWith("#") || tab < 0) {
+                continue;
+            }
+            scores.add(Double.parseDouble(line.substring(0, tab).trim()));
+            texts.add(line.substring(tab + 1));
+        }
+        String version = args.length > 2 ? args[2] : "ngram-" + Path.of(args[0]).getFileName();
+        NgramSentimentModel model = new NgramModelTrainer().train(version, texts, scores);
+        try (OutputStream out = Files.newOutputStream(Path.of(args[1]))) {
+            model.write(out);
+        }
+        System.out.println("trained " + version + " on " + texts.size() + " messages -> " + args[1]);
+    }
+}
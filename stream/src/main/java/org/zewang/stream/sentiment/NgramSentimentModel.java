@@ -0,0 +1,197 @@
+package org.zewang.stream.sentiment;
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 字符 n-gram 哈希 + 逻辑回归情感模型
+ * 直接在消息的 char 上滚动计算每个 n-gram（minN..maxN 个字符，忽略大小写）的哈希，
+ * 映射到 2^bits 维的 float 权重数组中累加，再经过 sigmoid 得到正面概率 p，分数为 2p - 1。
+ * 不切词、不创建 n-gram 字符串，打分过程不分配对象。
+ * 二进制模型文件（大端）：
+ *   int   magic "SMNG"
+ *   byte  格式版本（当前 1）
+ *   byte  minN
+ *   byte  maxN
+ *   byte  bits（权重维度 = 2^bits）
+ *   UTF   模型版本
+ *   float bias
+ *   float[2^bits] weights
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 21:50
+ */
+
+public final class NgramSentimentModel {
+
+    static final int MAGIC = 0x534d4e47; // "SMNG"
+    static final byte FORMAT_VERSION = 1;
+    static final int MAX_N = 8;
+    static final int MAX_BITS = 26;
+
+    private static final int FNV_OFFSET = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final String version;
+    private final int minN;
+    private final int maxN;
+    private final int mask;
+    private final float[] weights;
+    private float bias;
+
+    NgramSentimentModel(String version, int minN, int maxN, int bits, float[] weights, float bias) {
+        if (minN < 1 || maxN < minN || maxN > MAX_N) {
+            throw new IllegalArgumentException("n-gram range must satisfy 1 <= minN <= maxN <= " + MAX_N
+                + ", minN=" + minN + ", maxN=" + maxN);
+        }
+        if (bits < 1 || bits > MAX_BITS || weights.length != 1 << bits) {
+            throw new IllegalArgumentException("weights must have 2^bits entries, bits=" + bits + ", length=" + weights.length);
+        }
+        this.version = version;
+        this.minN = minN;
+        this.maxN = maxN;
+        this.mask = weights.length - 1;
+        this.weights = weights;
+        this.bias = bias;
+    }
+
+    /**
+     * 创建全零权重的模型（用于训练）
+     */
+    public static NgramSentimentModel empty(String version, int minN, int maxN, int bits) {
+        return new NgramSentimentModel(version, minN, maxN, bits, new float[1 << bits], 0f);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * 情感分数 [-1, 1]
+     */
+    public double score(CharSequence text) {
+        return 2.0 * probability(text) - 1.0;
+    }
+
+    /**
+     * 正面概率 (0, 1)，空消息为 0.5（偏置项除外）
+     */
+    public double probability(CharSequence text) {
+        return sigmoid(bias + dot(text));
+    }
+
+    private double dot(CharSequence text) {
+        if (text == null) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        int length = text.length();
+        for (int start = 0; start < length; start++) {
+            int hash = FNV_OFFSET;
+            int limit = Math.min(maxN, length - start);
+            for (int n = 1; n <= limit; n++) {
+                hash = (hash ^ Character.toLowerCase(text.charAt(start + n - 1))) * FNV_PRIME;
+                if (n >= minN) {
+                    sum += weights[index(hash, n)];
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 一步 SGD（逻辑损失 + L2），target 为正面概率 [0, 1]
+     */
+    void update(CharSequence text, double target, double learningRate, double l2) {
+        double gradient = probability(text) - target;
+        bias -= (float) (learningRate * gradient);
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        for (int start = 0; start < length; start++) {
+            int hash = FNV_OFFSET;
+            int limit = Math.min(maxN, length - start);
+            for (int n = 1; n <= limit; n++) {
+                hash = (hash ^ Character.toLowerCase(text.charAt(start + n - 1))) * FNV_PRIME;
+                if (n >= minN) {
+                    int i = index(hash, n);
+                    weights[i] -= (float) (learningRate * (gradient + l2 * weights[i]));
+                }
+            }
+        }
+    }
+
+    private int index(int hash, int n) {
+        // 混入 n 并做 murmur3 fmix，避免低位分布不均
+        int h = hash + n * 0x9e3779b9;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private static double sigmoid(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    public static NgramSentimentModel load(Path path) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            return read(in);
+        }
+    }
+
+    public static NgramSentimentModel read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("不是 n-gram 情感模型文件");
+        }
+        byte format = data.readByte();
+        if (format != FORMAT_VERSION) {
+            throw new IOException("不支持的模型格式版本: " + format);
+        }
+        int minN = data.readByte();
+        int maxN = data.readByte();
+        int bits = data.readByte();
+        if (bits < 1 || bits > MAX_BITS) {
+            throw new IOException("模型维度不合法: bits=" + bits);
+        }
+        String version = data.readUTF();
+        float bias = data.readFloat();
+        float[] weights = new float[1 << bits];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = data.readFloat();
+        }
+        try {
+            return new NgramSentimentModel(version, minN, maxN, bits, weights, bias);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeByte(FORMAT_VERSION);
+        data.writeByte(minN);
+        data.writeByte(maxN);
+        data.writeByte(Integer.numberOfTrailingZeros(weights.length));
+        data.writeUTF(version);
+        data.writeFloat(bias);
+        for (float weight : weights) {
+            data.writeFloat(weight);
+        }
+        data.flush();
+    }
+}
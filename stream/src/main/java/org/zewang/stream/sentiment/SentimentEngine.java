@@ -0,0 +1,36 @@
+package org.zewang.stream.sentiment;
+
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 可插拔的情感打分引擎（本地词典、外部模型服务等）
+ * 按批打分：返回结果与输入一一对应、顺序一致；远程实现必须是非阻塞的，不能占用调用线程等待响应
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 19:00
+ */
+
+public interface SentimentEngine {
+
+    /**
+     * 引擎名称，用于日志
+     */
+    String name();
+
+    /**
+     * 当前词典/模型版本；未知时返回 null。缓存据此判断结果是否过期
+     */
+    default String version() {
+        return null;
+    }
+
+    /**
+     * 对一批消息打分
+     * @param messages 消息文本，元素可能为 null
+     * @return 与 messages 等长、顺序一致的结果
+     */
+    CompletableFuture<List<SentimentResult>> scoreBatch(List<String> messages);
+}
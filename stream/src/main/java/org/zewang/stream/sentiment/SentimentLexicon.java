@@ -0,0 +1,90 @@
+package org.zewang.stream.sentiment;
+
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 情感词典：带权重的情感词、否定词、程度副词
+ * 多字词条优先于其中包含的短词条（最长匹配），例如 "不错" 不会被拆成 否定词"不" + "错"
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 16:45
+ */
+
+@Getter
+public class SentimentLexicon {
+
+    private final String version;
+    private final Map<String, Double> terms;         // 情感词 -> 权重 [-1, 1]
+    private final Set<String> negators;              // 否定词
+    private final Map<String, Double> intensifiers;  // 程度副词 -> 倍数
+
+    private SentimentLexicon(Builder builder) {
+        this.version = builder.version;
+        this.terms = Collections.unmodifiableMap(new LinkedHashMap<>(builder.terms));
+        this.negators = Collections.unmodifiableSet(new LinkedHashSet<>(builder.negators));
+        this.intensifiers = Collections.unmodifiableMap(new LinkedHashMap<>(builder.intensifiers));
+    }
+
+    public static Builder builder(String version) {
+        return new Builder(version);
+    }
+
+    /**
+     * 内置默认词典（覆盖原来 if/else 中的关键词，并补充常见表达）
+     */
+    public static SentimentLexicon defaults() {
+        return builder("builtin-1")
+            // 正面
+            .term("开心", 0.8).term("高兴", 0.8).term("不错", 0.7).term("好", 0.5)
+            .term("顺利", 0.6).term("喜欢", 0.7).term("满意", 0.7).term("棒", 0.8)
+            .term("快乐", 0.8).term("期待", 0.5).term("感谢", 0.6).term("完成", 0.3)
+            // 负面
+            .term("难过", -0.8).term("沮丧", -0.8).term("糟", -0.7).term("糟糕", -0.8)
+            .term("低落", -0.7).term("伤心", -0.8).term("失望", -0.8).term("烦", -0.6)
+            .term("累", -0.3).term("难题", -0.4).term("压力", -0.4).term("压力大", -0.6)
+            .term("压力好大", -0.7).term("崩溃", -0.9).term("错", -0.4).term("不好", -0.6)
+            // 否定词
+            .negator("不").negator("没").negator("没有").negator("别").negator("无").negator("并非")
+            // 程度副词
+            .intensifier("很", 1.5).intensifier("太", 1.8).intensifier("非常", 2.0).intensifier("特别", 1.8)
+            .intensifier("真", 1.3).intensifier("超级", 2.0).intensifier("有点", 0.6).intensifier("有些", 0.6)
+            .build();
+    }
+
+    public static class Builder {
+        private final String version;
+        private final Map<String, Double> terms = new LinkedHashMap<>();
+        private final Set<String> negators = new LinkedHashSet<>();
+        private final Map<String, Double> intensifiers = new LinkedHashMap<>();
+
+        private Builder(String version) {
+            this.version = version;
+        }
+
+        public Builder term(String term, double weight) {
+            terms.put(term, weight);
+            return this;
+        }
+
+        public Builder negator(String negator) {
+            negators.add(negator);
+            return this;
+        }
+
+        public Builder intensifier(String intensifier, double multiplier) {
+            intensifiers.put(intensifier, multiplier);
+            return this;
+        }
+
+        public SentimentLexicon build() {
+            return new SentimentLexicon(this);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.zewang.stream.sentiment;
+
+
+import lombok.Getter;
+import org.zewang.common.constant.SentimentTier;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 单条消息的打分结果：分数 [-1, 1]、打分所用的词典/模型版本，以及产生结果的层级
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 19:00
+ */
+
+@Getter
+public class SentimentResult {
+
+    private final double score;
+    private final String version;
+    private final SentimentTier tier;
+
+    public SentimentResult(double score, String version, SentimentTier tier) {
+        this.score = score;
+        this.version = version;
+        this.tier = tier;
+    }
+
+    public SentimentResult withTier(SentimentTier tier) {
+        return tier == this.tier ? this : new SentimentResult(score, version, tier);
+    }
+}
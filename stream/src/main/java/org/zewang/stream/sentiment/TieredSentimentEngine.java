@@ -0,0 +1,117 @@
+package org.zewang.stream.sentiment;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.zewang.common.constant.SentimentTier;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 分层情感引擎：先用便宜的词典打分，只有词典不确定的消息才交给昂贵的模型
+ * - 置信度：词典分数绝对值 >= minConfidence 视为确定，直接输出（LEXICON）
+ * - 延迟预算：模型结果必须在 latencyBudget 内返回（从提交给模型开始计时），超时则输出词典结果
+ * - 并发预算：全局同时在途的模型请求不超过 maxConcurrent，预算用完时不等待，直接输出词典结果
+ * 因预算耗尽、超时或模型失败而输出的词典结果标记为 FALLBACK。
+ * 超时的模型请求不会被取消，完成前一直占用并发预算，避免在模型变慢时继续加压。
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 21:10
+ */
+
+@Slf4j
+public class TieredSentimentEngine implements SentimentEngine {
+
+    private final SentimentEngine fast;
+    private final SentimentEngine slow;
+    private final double minConfidence;
+    private final long latencyBudgetMs;
+    private final Semaphore concurrencyBudget;
+
+    public TieredSentimentEngine(SentimentEngine fast, SentimentEngine slow, double minConfidence,
+        Duration latencyBudget, int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive, maxConcurrent=" + maxConcurrent);
+        }
+        this.fast = fast;
+        this.slow = slow;
+        this.minConfidence = minConfidence;
+        this.latencyBudgetMs = latencyBudget.toMillis();
+        this.concurrencyBudget = new Semaphore(maxConcurrent);
+    }
+
+    @Override
+    public String name() {
+        return "tiered:" + fast.name() + ">" + slow.name();
+    }
+
+    @Override
+    public CompletableFuture<List<SentimentResult>> scoreBatch(List<String> messages) {
+        // 词典是同步引擎，join 不会阻塞
+        List<SentimentResult> results = new ArrayList<>(fast.scoreBatch(messages).join());
+
+        List<Integer> uncertain = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            SentimentResult result = results.get(i);
+            if (Math.abs(result.getScore()) >= minConfidence) {
+                results.set(i, result.withTier(SentimentTier.LEXICON));
+            } else {
+                uncertain.add(i);
+            }
+        }
+        if (uncertain.isEmpty()) {
+            return CompletableFuture.completedFuture(results);
+        }
+
+        if (!concurrencyBudget.tryAcquire()) {
+            log.debug("模型并发预算已用完，{} 条消息使用词典结果", uncertain.size());
+            return CompletableFuture.completedFuture(markFallback(results, uncertain));
+        }
+
+        List<String> texts = new ArrayList<>(uncertain.size());
+        for (int index : uncertain) {
+            texts.add(messages.get(index));
+        }
+        CompletableFuture<List<SentimentResult>> modelFuture;
+        try {
+            modelFuture = slow.scoreBatch(texts);
+        } catch (RuntimeException e) {
+            modelFuture = CompletableFuture.failedFuture(e);
+        }
+        // 请求真正结束时才归还并发预算
+        modelFuture.whenComplete((scored, error) -> concurrencyBudget.release());
+
+        // 在副本上计时，超时只影响本批输出，不影响原始请求
+        return modelFuture.copy()
+            .orTimeout(latencyBudgetMs, TimeUnit.MILLISECONDS)
+            .handle((scored, error) -> {
+                if (error != null || scored == null || scored.size() != uncertain.size()) {
+                    log.debug("模型未在预算内返回，{} 条消息使用词典结果: error={}", uncertain.size(),
+                        error == null ? "result size mismatch" : error.toString());
+                    return markFallback(results, uncertain);
+                }
+                for (int j = 0; j < uncertain.size(); j++) {
+                    results.set(uncertain.get(j), scored.get(j).withTier(SentimentTier.MODEL));
+                }
+                return results;
+            });
+    }
+
+    private static List<SentimentResult> markFallback(List<SentimentResult> results, List<Integer> uncertain) {
+        for (int index : uncertain) {
+            results.set(index, results.get(index).withTier(SentimentTier.FALLBACK));
+        }
+        return results;
+    }
+
+    /**
+     * 当前可用的模型并发预算
+     */
+    public int availableConcurrency() {
+        return concurrencyBudget.availablePermits();
+    }
+}
@@ -0,0 +1,69 @@
+package org.zewang.stream.serde;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.serde.BinaryReader;
+import org.zewang.common.serde.BinarySerde;
+import org.zewang.common.serde.BinaryWriter;
+import org.zewang.common.serde.ChatMessageBinarySerde;
+import org.zewang.stream.model.PendingMessage;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: PendingMessage 二进制编码（异步打分 pending 存储的 changelog）：
+ * [格式][key][timestamp varlong][ChatMessage 字段][header 个数 varint][(name, value)...]
+ * 没有 header 部分的旧数据按无 header 读取
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 23:00
+ */
+
+public class PendingMessageBinarySerde extends BinarySerde<PendingMessage> {
+
+    public PendingMessageBinarySerde() {
+        super(PendingMessage.class);
+    }
+
+    @Override
+    protected int estimatedSize(PendingMessage value) {
+        String text = value.getMessage() == null ? null : value.getMessage().getMessage();
+        return 64 + (text == null ? 0 : text.length() * 3);
+    }
+
+    @Override
+    protected void write(PendingMessage value, BinaryWriter writer) {
+        writer.writeString(value.getKey())
+            .writeVarLong(value.getTimestamp());
+        if (value.getMessage() == null) {
+            writer.writeByte(0);
+        } else {
+            writer.writeByte(1);
+            ChatMessageBinarySerde.writeBody(value.getMessage(), writer);
+        }
+        Map<String, byte[]> headers = value.getHeaders();
+        writer.writeVarInt(headers == null ? 0 : headers.size());
+        if (headers != null) {
+            for (Map.Entry<String, byte[]> header : headers.entrySet()) {
+                writer.writeString(header.getKey())
+                    .writeBytes(header.getValue());
+            }
+        }
+    }
+
+    @Override
+    protected PendingMessage read(int format, BinaryReader reader) {
+        String key = reader.readString();
+        long timestamp = reader.readVarLong();
+        ChatMessage message = reader.readByte() == 0 ? null : ChatMessageBinarySerde.readBody(reader);
+        Map<String, byte[]> headers = new LinkedHashMap<>();
+        if (reader.hasRemaining()) {
+            int count = reader.readVarInt();
+            for (int i = 0; i < count; i++) {
+                headers.put(reader.readString(), reader.readBytes());
+            }
+        }
+        return new PendingMessage(key, timestamp, message, headers);
+    }
+}
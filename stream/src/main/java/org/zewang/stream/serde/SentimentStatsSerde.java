@@ -0,0 +1,56 @@
+package org.zewang.stream.serde;
+
+
+import java.nio.ByteBuffer;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+import org.zewang.stream.model.SentimentStats;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: SentimentStats 的定长二进制 Serde（32 字节：sum, count, min, max），用于窗口状态存储和 changelog
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 10:20
+ */
+
+public class SentimentStatsSerde implements Serde<SentimentStats> {
+
+    public static final int SIZE = Double.BYTES + Long.BYTES + Double.BYTES + Double.BYTES;
+
+    private final Serializer<SentimentStats> serializer = (topic, stats) -> {
+        if (stats == null) {
+            return null;
+        }
+        return ByteBuffer.allocate(SIZE)
+            .putDouble(stats.getSum())
+            .putLong(stats.getCount())
+            .putDouble(stats.getMin())
+            .putDouble(stats.getMax())
+            .array();
+    };
+
+    private final Deserializer<SentimentStats> deserializer = (topic, data) -> {
+        if (data == null) {
+            return null;
+        }
+        if (data.length != SIZE) {
+            throw new SerializationException("Invalid SentimentStats payload for topic: " + topic +
+                ", expected " + SIZE + " bytes but got " + data.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        return new SentimentStats(buffer.getDouble(), buffer.getLong(), buffer.getDouble(), buffer.getDouble());
+    };
+
+    @Override
+    public Serializer<SentimentStats> serializer() {
+        return serializer;
+    }
+
+    @Override
+    public Deserializer<SentimentStats> deserializer() {
+        return deserializer;
+    }
+}
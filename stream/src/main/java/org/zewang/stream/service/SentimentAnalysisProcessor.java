@@ -1,6 +1,9 @@
 // src/main/java/org/zewang/stream/service/SentimentAnalysisProcessor.java
 package org.zewang.stream.service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.serialization.Serde;
@@ -8,11 +11,25 @@ import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.Consumed;
 import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Named;
 import org.apache.kafka.streams.kstream.Produced;
 import org.springframework.stereotype.Component;
 import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.constant.SentimentLabel;
+import org.zewang.common.constant.SentimentTier;
 import org.zewang.common.dto.ChatMessage;
 import org.zewang.common.dto.SentimentScore;
+import org.zewang.stream.config.EngineProperties;
+import org.zewang.stream.config.EngineProperties.Mode;
+import org.zewang.stream.metrics.StreamMetrics;
+import org.zewang.stream.model.PendingMessage;
+import org.zewang.stream.processor.AsyncSentimentProcessor;
+import org.zewang.stream.sentiment.LexiconRegistry;
+import org.zewang.stream.sentiment.LexiconSentimentEngine;
+import org.zewang.stream.sentiment.LexiconSentimentScorer;
+import org.zewang.stream.sentiment.NgramSentimentModel;
+import org.zewang.stream.sentiment.SentimentEngine;
+import org.zewang.stream.sentiment.TieredSentimentEngine;
 
 /**
  * @author "Zewang"
@@ -26,51 +43,122 @@ import org.zewang.common.dto.SentimentScore;
 @RequiredArgsConstructor // Lombok 注解，自动生成构造函数
 public class SentimentAnalysisProcessor {
 
+    // 异步打分阶段的 pending 状态存储名
+    public static final String PENDING_SENTIMENT_STORE = "pending-sentiment-store";
 
     // 注入自定义的 Serdes
     private final Serde<ChatMessage> chatMessageSerde;
     private final Serde<SentimentScore> sentimentScoreSerde;
+    private final Serde<PendingMessage> pendingMessageSerde;
+    private final LexiconRegistry lexiconRegistry;
+    private final SentimentEngine sentimentEngine;
+    private final EngineProperties engineProperties;
+    private final StreamMetrics streamMetrics;
 
     public void buildTopology(StreamsBuilder streamsBuilder) {
+        KStream<String, SentimentScore> sentimentScores = scoreStream(streamsBuilder);
+
+        // 3. 将结果写入 sentiment-scores 主题
+        writeScores(sentimentScores);
+
+        log.info("情感分析处理器拓扑构建完毕");
+    }
+
+    /**
+     * 把情感分数写入 sentiment-scores（融合拓扑的旁路输出与两段式使用同一个 Serde）
+     */
+    public void writeScores(KStream<String, SentimentScore> sentimentScores) {
+        sentimentScores.to(KafkaConstants.SENTIMENT_SCORES_TOPIC, Produced.with(Serdes.String(), sentimentScoreSerde));
+    }
+
+    /**
+     * 读取 chat-messages 并打分，返回以 userId 为 key 的情感分数流（不写 topic，融合拓扑直接在进程内消费）
+     */
+    public KStream<String, SentimentScore> scoreStream(StreamsBuilder streamsBuilder) {
         // 1. 从 chat-messages 主题读取消息
         KStream<String, ChatMessage> chatMessages = streamsBuilder
             .stream(KafkaConstants.CHAT_MESSAGES_TOPIC, Consumed.with(Serdes.String(), chatMessageSerde));
 
         // 2. 对每条消息进行情感分析
-        KStream<String, SentimentScore> sentimentScores = chatMessages
-            .mapValues(this::analyzeSentiment); // 使用 mapValues 转换值
-
+        KStream<String, SentimentScore> sentimentScores = switch (engineProperties.getMode()) {
+            // 使用 mapValues 转换值
+            case LEXICON -> chatMessages.mapValues(chatMessage -> streamMetrics.timeScoring(() -> analyzeSentiment(chatMessage)));
+            case NGRAM -> ngramAnalyze(chatMessages);
+            case ASYNC, TIERED -> asyncAnalyze(chatMessages);
+        };
+        // 标签计数和打分阶段的事件时间延迟；打分完成时刻写入 header，供预警输出时统计端到端延迟
+        return sentimentScores
+            .peek((userId, score) -> streamMetrics.scored(score))
+            .processValues(streamMetrics.<SentimentScore>stampScored(), Named.as("sentiment-scored-stamp"));
+    }
 
-        // 3. 将结果写入 sentiment-scores 主题
-        sentimentScores.to(KafkaConstants.SENTIMENT_SCORES_TOPIC, Produced.with(Serdes.String(), sentimentScoreSerde));
+    /**
+     * 异步微批打分：外部模型服务的吞吐由批大小和在途批次数决定，而不是单次往返时延
+     * TIERED 模式下先走词典，只有不确定的消息才在延迟/并发预算内交给模型
+     * 引擎失败时用本地词典兜底
+     */
+    private KStream<String, SentimentScore> asyncAnalyze(KStream<String, ChatMessage> chatMessages) {
+        LexiconSentimentEngine lexiconEngine = new LexiconSentimentEngine(lexiconRegistry);
+        SentimentEngine engine = sentimentEngine;
+        if (engineProperties.getMode() == Mode.TIERED) {
+            // 所有 task 共用同一个分层引擎，并发预算是全局的
+            EngineProperties.Tier tier = engineProperties.getTier();
+            engine = new TieredSentimentEngine(lexiconEngine, sentimentEngine, tier.getMinConfidence(),
+                tier.getLatencyBudget(), tier.getMaxConcurrent());
+        }
+        log.info("情感分析使用异步引擎: engine={}, batchSize={}, maxBatchDelay={}, maxInFlight={}", engine.name(),
+            engineProperties.getBatchSize(), engineProperties.getMaxBatchDelay(), engineProperties.getMaxInFlight());
+        // processValues 不改变 key：融合拓扑里打分和窗口聚合仍在同一个子拓扑，不会插入 repartition topic
+        return chatMessages.processValues(
+            AsyncSentimentProcessor.supplier(PENDING_SENTIMENT_STORE, engine, lexiconEngine,
+                engineProperties.getBatchSize(), engineProperties.getMaxBatchDelay(), engineProperties.getMaxInFlight(),
+                pendingMessageSerde),
+            Named.as("sentiment-async-engine"));
+    }
 
-        log.info("情感分析处理器拓扑构建完毕");
+    /**
+     * 本地 n-gram 线性模型打分：在 CPU 上微秒级完成，不依赖外部服务
+     * 模型文件在构建拓扑时加载，加载失败则启动失败
+     */
+    private KStream<String, SentimentScore> ngramAnalyze(KStream<String, ChatMessage> chatMessages) {
+        String modelPath = engineProperties.getNgramModel();
+        if (modelPath == null || modelPath.isBlank()) {
+            throw new IllegalStateException("stream-mind.engine.mode=ngram 需要配置 stream-mind.engine.ngram-model");
+        }
+        NgramSentimentModel model;
+        try {
+            model = NgramSentimentModel.load(Path.of(modelPath));
+        } catch (IOException e) {
+            throw new UncheckedIOException("加载 n-gram 情感模型失败: " + modelPath, e);
+        }
+        log.info("情感分析使用 n-gram 模型: path={}, version={}", modelPath, model.getVersion());
+        return chatMessages.mapValues(chatMessage -> streamMetrics.timeScoring(() -> toSentimentScore(chatMessage,
+            model.score(chatMessage.getMessage()), model.getVersion(), SentimentTier.NGRAM)));
     }
 
     /**
-     * 模拟情感分析，实际项目中需要调用 AI API
+     * 基于词典的情感分析：单次遍历 Aho-Corasick 自动机，返回聚合分数
+     * 实际项目中可以替换为调用 AI API
      *
      * @param chatMessage 聊天消息
      * @return 情感分析结果
      */
     private SentimentScore analyzeSentiment(ChatMessage chatMessage) {
-        // TODO: 调用 Gemini API 进行情感分析
-        // 这里先模拟一个简单的实现
+        // 不再 toLowerCase + 多次 contains：自动机逐字符折叠大小写，一次扫描得到分数
+        // 每条消息只取一次当前词典，词典热替换时分数和版本号保持一致
+        LexiconSentimentScorer scorer = lexiconRegistry.current();
+        return toSentimentScore(chatMessage, scorer.score(chatMessage.getMessage()), scorer.getVersion(),
+            SentimentTier.LEXICON);
+    }
+
+    private SentimentScore toSentimentScore(ChatMessage chatMessage, double sentiment, String version, SentimentTier tier) {
         SentimentScore score = new SentimentScore();
         score.setUserId(chatMessage.getUserId());
         score.setTimestamp(chatMessage.getTimestamp());
-
-        String message = chatMessage.getMessage().toLowerCase();
-        if (message.contains("开心") || message.contains("高兴") || message.contains("不错") || message.contains("好")) {
-            score.setSentimentScore(0.8);
-            score.setSentimentLabel("Positive");
-        } else if (message.contains("难过") || message.contains("沮丧") || message.contains("不好") || message.contains("糟")) {
-            score.setSentimentScore(-0.6);
-            score.setSentimentLabel("Negative");
-        } else {
-            score.setSentimentScore(0.0);
-            score.setSentimentLabel("Neutral");
-        }
+        score.setSentimentScore(sentiment);
+        score.setSentimentLabel(SentimentLabel.of(sentiment).getValue());
+        score.setLexiconVersion(version);
+        score.setTier(tier.getValue());
 
 //        log.debug("分析情感结果如下：user: {}: {} ({})", chatMessage.getUserId(), score.getSentimentScore(), score.getSentimentLabel());
 
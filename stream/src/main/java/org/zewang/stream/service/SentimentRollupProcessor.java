@@ -0,0 +1,117 @@
+package org.zewang.stream.service;
+
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Named;
+import org.apache.kafka.streams.kstream.Produced;
+import org.springframework.stereotype.Component;
+import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.dto.SentimentRollup;
+import org.zewang.common.dto.SentimentScoreView;
+import org.zewang.common.dto.WarningAlert;
+import org.zewang.stream.config.AlertProperties;
+import org.zewang.stream.config.RollupProperties;
+import org.zewang.stream.config.RollupProperties.Level;
+import org.zewang.stream.metrics.StreamMetrics;
+import org.zewang.stream.model.SentimentStats;
+import org.zewang.stream.processor.RollupAggregateProcessor;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 多粒度情感汇总（如 1m / 5m / 1h），结果写入 sentiment-rollups，按各粒度阈值输出预警到 rollup-alerts
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 15:30
+ */
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SentimentRollupProcessor {
+
+    public static final String ROLLUP_STORE_PREFIX = "sentiment-rollup";
+
+    private final Serde<SentimentRollup> sentimentRollupSerde;
+    private final Serde<WarningAlert> warningAlertSerde;
+    private final Serde<SentimentStats> sentimentStatsSerde;
+    private final RollupProperties rollupProperties;
+    private final AlertProperties alertProperties;
+    private final StreamMetrics streamMetrics;
+
+    /**
+     * 在情感分数流上构建多粒度汇总拓扑
+     * @param sentimentScores 以 userId 为 key 的情感分数流
+     */
+    public void buildTopology(KStream<String, SentimentScoreView> sentimentScores) {
+        if (!rollupProperties.isEnabled() || rollupProperties.getLevels().isEmpty()) {
+            log.info("多粒度汇总未启用，跳过");
+            return;
+        }
+
+        // 1. 粒度按窗口大小升序排列
+        List<Level> levels = rollupProperties.getLevels().stream()
+            .sorted(Comparator.comparing(Level::getSize))
+            .toList();
+        Map<String, Duration> sizes = new LinkedHashMap<>();
+        Map<String, Level> levelByName = new LinkedHashMap<>();
+        for (Level level : levels) {
+            sizes.put(level.getName(), level.getSize());
+            levelByName.put(level.getName(), level);
+        }
+
+        // 2. 单个处理器维护 pane 和各级结果，窗口关闭时输出汇总
+        KStream<String, SentimentRollup> rollups = sentimentScores
+            .processValues(streamMetrics.<SentimentScoreView>stage(StreamMetrics.STAGE_ROLLUP), Named.as("sentiment-rollup-metrics"))
+            .process(
+                RollupAggregateProcessor.supplier(ROLLUP_STORE_PREFIX, rollupProperties.getPane(), rollupProperties.getGrace(),
+                    sizes, SentimentScoreView::getSentimentScore, sentimentStatsSerde),
+                Named.as("sentiment-rollup-aggregate"));
+
+        rollups.to(KafkaConstants.SENTIMENT_ROLLUPS_TOPIC, Produced.with(Serdes.String(), sentimentRollupSerde));
+
+        // 3. 按各粒度的阈值生成预警，写入单独的 rollup-alerts 主题
+        // 窗口 key 只序列化窗口起点，不同粒度的窗口在线上无法区分，这里 key 直接带上粒度：userId@5m
+        rollups
+            .filter((userId, rollup) -> {
+                Double threshold = levelByName.get(rollup.getHorizon()).getThreshold();
+                return threshold != null && rollup.getAverageScore() < threshold;
+            })
+            .map((userId, rollup) -> {
+                Level level = levelByName.get(rollup.getHorizon());
+                WarningAlert alert = new WarningAlert();
+                alert.setUserId(userId);
+                alert.setWindowEnd(rollup.getWindowEnd());
+                alert.setAverageScore(rollup.getAverageScore());
+                alert.setAlertMessage(level.getMessage() != null
+                    ? level.getMessage()
+                    : alertProperties.getMessage() + "（" + level.getName() + "）");
+                streamMetrics.alertEmitted(StreamMetrics.ALERT_ROLLUP);
+
+                log.info("生成多粒度预警: userId={}, horizon={}, windowEnd={}, averageScore={}",
+                    userId, rollup.getHorizon(), rollup.getWindowEnd(), rollup.getAverageScore());
+                return new KeyValue<>(rollupAlertKey(userId, rollup.getHorizon()), alert);
+            })
+            .processValues(streamMetrics.<String, WarningAlert>traceSink(StreamMetrics.ALERT_ROLLUP),
+                Named.as("sentiment-rollup-alert-trace"))
+            .to(KafkaConstants.ROLLUP_ALERTS_TOPIC, Produced.with(Serdes.String(), warningAlertSerde));
+
+        log.info("多粒度汇总拓扑构建完毕: pane={}, levels={}", rollupProperties.getPane(), sizes);
+    }
+
+    /**
+     * rollup-alerts 的 key：userId@粒度名称
+     */
+    public static String rollupAlertKey(String userId, String horizon) {
+        return userId + "@" + horizon;
+    }
+}
@@ -5,21 +5,40 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
 import org.apache.kafka.streams.kstream.KGroupedStream;
 import org.apache.kafka.streams.kstream.KStream;
 import org.apache.kafka.streams.kstream.KTable;
 import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Named;
 import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.kstream.Suppressed;
+import org.apache.kafka.streams.kstream.Suppressed.BufferConfig;
 import org.apache.kafka.streams.kstream.TimeWindows;
 import org.apache.kafka.streams.kstream.Windowed;
 import org.apache.kafka.streams.kstream.WindowedSerdes;
+import org.apache.kafka.streams.kstream.internals.TimeWindow;
+import org.apache.kafka.streams.processor.api.ContextualFixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.WindowStore;
 import org.springframework.stereotype.Component;
 import org.zewang.common.constant.KafkaConstants;
-import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.SentimentScoreView;
 import org.zewang.common.dto.WarningAlert;
+import org.zewang.stream.config.AlertProperties;
+import org.zewang.stream.config.AlertProperties.EmitMode;
+import org.zewang.stream.config.WindowProperties;
+import org.zewang.stream.config.WindowProperties.Aggregation;
+import org.zewang.stream.config.WindowProperties.HotKeys;
+import org.zewang.stream.metrics.StreamMetrics;
+import org.zewang.stream.model.SentimentStats;
+import org.zewang.stream.processor.HotKeySaltProcessor;
+import org.zewang.stream.processor.PaneWindowAggregateProcessor;
 
 /**
  * @author "Zewang"
@@ -34,9 +53,19 @@ import org.zewang.common.dto.WarningAlert;
 @RequiredArgsConstructor // Lombok: 自动为此类中所有 final 字段生成构造函数（用于依赖注入）
 public class WarningAlertProcessor {
 
+    // 窗口统计状态存储名（同时决定 changelog topic 的名字）
+    public static final String SENTIMENT_STATS_STORE = "sentiment-stats-store";
+    public static final String SENTIMENT_PANE_STORE = "sentiment-pane-store";
+    public static final String SENTIMENT_MERGE_STORE = "sentiment-merge-store";
+
     // 依赖注入：Kafka Streams 需要知道如何序列化/反序列化（Serde）自定义Java对象
-    private final Serde<SentimentScore> sentimentScoreSerde;
+    // 预警只需要 userId/timestamp/分数，source 使用投影 Serde，不解析标签、版本等字段
+    private final Serde<SentimentScoreView> sentimentScoreViewSerde;
     private final Serde<WarningAlert> warningAlertSerde;
+    private final Serde<SentimentStats> sentimentStatsSerde;
+    private final AlertProperties alertProperties;
+    private final WindowProperties windowProperties;
+    private final StreamMetrics streamMetrics;
 
 
     /**
@@ -45,22 +74,35 @@ public class WarningAlertProcessor {
      * @param streamsBuilder Spring Boot 自动配置并传入的构建器
      */
     public void buildTopology(StreamsBuilder streamsBuilder) {
+        buildTopology(sourceStream(streamsBuilder));
+    }
 
-        // 1. 定义数据源 (Source Processor)
-        // 从 "sentiment-scores" 主题读取数据
-        KStream<String, SentimentScore> sentimentScores = streamsBuilder
+    /**
+     * 定义数据源 (Source Processor)：从 "sentiment-scores" 主题读取数据
+     * 同一个 topic 在拓扑里只能注册一次 source，需要多个下游阶段时共享这个 KStream
+     */
+    public KStream<String, SentimentScoreView> sourceStream(StreamsBuilder streamsBuilder) {
+        KStream<String, SentimentScoreView> sentimentScores = streamsBuilder
             .stream(
                 KafkaConstants.SENTIMENT_SCORES_TOPIC, // 指定要消费的主题
-                Consumed.with(Serdes.String(), sentimentScoreSerde) // 指定 Key 和 Value 的 Serde
+                Consumed.with(Serdes.String(), sentimentScoreViewSerde) // 指定 Key 和 Value 的 Serde
             );
 
         log.info("已建立从 sentiment-scores 读取数据的流，topic: {}", KafkaConstants.SENTIMENT_SCORES_TOPIC);
+        return sentimentScores;
+    }
+
+    /**
+     * 在情感分数流上构建预警拓扑
+     * @param sentimentScores 以 userId 为 key 的情感分数流
+     */
+    public void buildTopology(KStream<String, SentimentScoreView> sentimentScores) {
 
-        // 2. 定义窗口参数
+        // 1. 定义窗口参数（来自 stream-mind.window.*，默认 60s 窗口 / 30s 步长 / 30s 宽限期）
         // 这是一个 "Hopping Window"（跳动窗口）
-        Duration windowSize = Duration.ofSeconds(60);   // 窗口大小：每个窗口包含 60 秒的数据
-        Duration gracePeriod = Duration.ofSeconds(30);  // 宽限期：允许 30 秒内的迟到数据被正确处理
-        Duration advanceBy = Duration.ofSeconds(30);    // 步长：每 30 秒（而不是60秒）就创建一个新窗口
+        Duration windowSize = windowProperties.getSize();     // 窗口大小：每个窗口包含 60 秒的数据
+        Duration gracePeriod = windowProperties.getGrace();   // 宽限期：允许 30 秒内的迟到数据被正确处理
+        Duration advanceBy = windowProperties.getAdvance();   // 步长：每 30 秒（而不是60秒）就创建一个新窗口
 
         // 举例：
         // 窗口 1: [00:00 - 01:00]
@@ -68,92 +110,40 @@ public class WarningAlertProcessor {
         // 窗口 3: [01:00 - 02:00]
         // 这意味着在 00:30 到 01:00 之间的数据会同时属于窗口 1 和 2
 
-        // 3. 定义窗口规格
-        TimeWindows timeWindows = TimeWindows.ofSizeAndGrace(windowSize, gracePeriod)
-            .advanceBy(advanceBy);
-
-        // 4. 按 Key 分组 (Group By Key)
-        // 聚合（如 sum, count, aggregate）之前必须先分组
-        // 这里的 Key 假定是 userId（来自 SentimentScore 消息）
-        // 这会触发一次 "repartition"（重新分区），确保具有相同 Key (userId) 的所有消息
-        // 都被发送到同一个 Kafka Streams 实例（Task）进行处理
-        KGroupedStream<String, SentimentScore> groupedStream = sentimentScores.groupByKey();
+        // 2. 窗口聚合，得到每个 (userId, 窗口) 的统计结果
+        // 入口的透传节点统计聚合阶段（含状态存储和下游输出）的单条耗时和事件时间延迟
+        KStream<String, SentimentScoreView> timedScores = sentimentScores.processValues(
+            streamMetrics.<SentimentScoreView>stage(StreamMetrics.STAGE_AGGREGATION), Named.as("sentiment-alert-metrics"));
+        boolean emitFinal = alertProperties.getEmitMode() == EmitMode.FINAL;
+        KStream<Windowed<String>, SentimentStats> windowStats;
+        if (windowProperties.getHotKeys().isEnabled()) {
+            windowStats = saltedAggregate(timedScores, windowSize, advanceBy, gracePeriod, emitFinal);
+        } else {
+            windowStats = windowProperties.getAggregation() == Aggregation.PANE
+                ? paneAggregate(timedScores, windowSize, advanceBy, gracePeriod, emitFinal)
+                : hoppingAggregate(timedScores, windowSize, advanceBy, gracePeriod, emitFinal);
+        }
 
-        // 5. 聚合计算窗口内的总分 (sum)
-        // .windowedBy() 将 KGroupedStream 转换为 KWindowedStream
-        KTable<Windowed<String>, Double> sumScores = groupedStream
-            .windowedBy(timeWindows) // 应用上面定义的跳动窗口
-            .aggregate(
-                // Initializer：定义聚合的初始值（每个新窗口开始时，总分都是 0.0）
-                () -> 0.0,
-                // Aggregator：定义如何将新值合并到聚合值中
-                // (key, value, aggregate) -> (消息Key, SentimentScore对象, 当前窗口的聚合值)
-                (key, value, aggregate) -> {
-                    double newAggregate = aggregate + value.getSentimentScore();
-                    return newAggregate;
-                },
-                // Materialized：定义如何 "物化"（即存储）这个中间状态
-                // Kafka Streams 使用一个 "状态存储"（State Store，默认是 RocksDB）来保存窗口的
-                // 实时聚合值。这使得流处理具有容错性。
-                Materialized.with(Serdes.String(), Serdes.Double())
-            )
-            .mapValues((readOnlyKey, value) -> {
-                // readOnlyKey 是一个 Windowed<String> 对象，包含了 Key 和窗口信息
-                log.debug("窗口总分计算完成: window={}, sum={}", readOnlyKey, value);
-                return value;
-            });
-
-        // 6. 聚合计算窗口内的消息数 (count)
-        // .count() 是 .aggregate() 的一个特例，更简洁
-        KTable<Windowed<String>, Long> countScores = groupedStream
-            .windowedBy(timeWindows) // 必须使用完全相同的窗口定义！
-            .count(
-                // 同样，需要物化这个计数值
-                Materialized.with(Serdes.String(), Serdes.Long())
-            )
-            .mapValues((readOnlyKey, value) -> {
-                log.debug("窗口计数: window={}, count={}", readOnlyKey, value);
-                return value;
-            });
-
-        // 7. 连接（Join）两个 KTable 以计算平均分
-        // KTable-KTable Join：
-        // 因为 sumScores 和 countScores 都是从 *同一个* groupedStream 以 *相同* 方式
-        // 派生出来的，它们具有相同的分区和窗口键，连接（Join）操作会非常高效。
-        // 当 sumScores 或 countScores 中任何一个的窗口值更新时，join 都会被触发。
-        KTable<Windowed<String>, Double> avgScores = sumScores.join(
-                countScores,
-                // Joiner lambda: (左表的值, 右表的值) -> (新表的值)
-                (sum, count) -> {
-                    if (count == 0) return 0.0; // 避免除以零
-                    double avg = sum / count;
-                    return avg;
-                }
-            )
-            .mapValues((readOnlyKey, value) -> {
-                log.debug("窗口平均分计算完成: window={}, avg={}", readOnlyKey, value);
-                return value;
-            });
-
-        // 8. 转换 KTable 为 KStream 并生成预警
-        // KTable（表）代表一个 key 的 *当前* 值。
-        // KStream（流）代表一个 key 的 *所有* 变化。
-        // 为了将结果发送到另一个 Kafka 主题，我们需要将 KTable 的 "更新日志" 转换回 KStream
-        KStream<Windowed<String>, WarningAlert> alerts = avgScores
-            .toStream() // KTable -> KStream
-            .peek((key, avgScore) -> log.debug("窗口结果输出到流: userId={}, windowEnd={}, averageScore={} timestamp={}",
-                key.key(), key.window().end(), avgScore, key.window().start()))
-            // 【注意】这里没有 .filter() 步骤！
-            // 这意味着 *每一个* 窗口计算（无论平均分高低）都会生成一个 WarningAlert。
-            // 如果你只想在 "分数低于某个阈值" 时才发送预警，
-            // 你应该在这里添加一个 .filter((key, avgScore) -> avgScore < YOUR_THRESHOLD)
+        // 3. 从累加器计算平均分并生成预警
+        double threshold = alertProperties.getThreshold();
+        String alertMessage = alertProperties.getMessage();
+        KStream<Windowed<String>, WarningAlert> alerts = windowStats
+            .mapValues((key, stats) -> {
+                double avg = stats.average();
+                log.debug("窗口结果输出到流: userId={}, windowStart={}, windowEnd={}, stats={}, averageScore={}",
+                    key.key(), key.window().start(), key.window().end(), stats, avg);
+                return avg;
+            })
+            // 只有平均分低于阈值的窗口才会生成预警
+            .filter((key, avgScore) -> avgScore < threshold)
             .map((key, avgScore) -> {
                 // 将 (Windowed<String>, Double) 格式的消息 转换为 (Windowed<String>, WarningAlert)
                 WarningAlert alert = new WarningAlert();
                 alert.setUserId(key.key()); // key.key() 获取原始的 String key (userId)
                 alert.setWindowEnd(key.window().end()); // key.window().end() 获取窗口结束时间戳
                 alert.setAverageScore(avgScore);
-                alert.setAlertMessage("用户情绪持续低落"); // 消息是硬编码的
+                alert.setAlertMessage(alertMessage); // 预警文案来自配置
+                streamMetrics.alertEmitted(StreamMetrics.ALERT_WINDOW);
 
                 log.info("生成预警消息: userId={}, windowEnd={}, averageScore={}, message={} topic={}",
                     alert.getUserId(), alert.getWindowEnd(), alert.getAverageScore(), alert.getAlertMessage(), KafkaConstants.WARNING_ALERTS_TOPIC);
@@ -162,7 +152,7 @@ public class WarningAlertProcessor {
                 return new KeyValue<>(key, alert);
             });
 
-        // 9. 定义数据汇 (Sink Processor)
+        // 4. 定义数据汇 (Sink Processor)
         // 在将数据发送到 Kafka 之前，必须为 *Key* 和 *Value* 指定 Serde
 
         // 这是一个常见的易错点：
@@ -170,12 +160,126 @@ public class WarningAlertProcessor {
         // 所以我们需要一个能处理 Windowed<String> 的 Serde
         Serde<Windowed<String>> windowedSerde = WindowedSerdes.timeWindowedSerdeFrom(String.class, windowSize.toMillis());
 
-        // 将 'alerts' 流写入 "warning-alerts" 主题
-        alerts.to(
+        // 将 'alerts' 流写入 "warning-alerts" 主题，写出前按 trace header 记录端到端延迟
+        alerts
+            .processValues(streamMetrics.<Windowed<String>, WarningAlert>traceSink(StreamMetrics.ALERT_WINDOW),
+                Named.as("warning-alert-trace"))
+            .to(
             KafkaConstants.WARNING_ALERTS_TOPIC,
             Produced.with(windowedSerde, warningAlertSerde) // 提供 Key 和 Value 的 Serde
         );
 
-        log.info("预警拓扑已经构建完成");
+        log.info("预警拓扑已经构建完成: aggregation={}, emitMode={}, hotKeys={}", windowProperties.getAggregation(),
+            alertProperties.getEmitMode(), windowProperties.getHotKeys().isEnabled());
+    }
+
+    /**
+     * DSL 跳动窗口聚合：每条记录会写入它所属的 size/advance 个窗口
+     */
+    private KStream<Windowed<String>, SentimentStats> hoppingAggregate(KStream<String, SentimentScoreView> sentimentScores,
+        Duration windowSize, Duration advanceBy, Duration gracePeriod, boolean emitFinal) {
+
+        // 定义窗口规格
+        TimeWindows timeWindows = TimeWindows.ofSizeAndGrace(windowSize, gracePeriod)
+            .advanceBy(advanceBy);
+
+        // 按 Key 分组 (Group By Key)
+        // 聚合（如 sum, count, aggregate）之前必须先分组
+        // 这里的 Key 假定是 userId（来自 SentimentScore 消息）
+        // 这会触发一次 "repartition"（重新分区），确保具有相同 Key (userId) 的所有消息
+        // 都被发送到同一个 Kafka Streams 实例（Task）进行处理
+        KGroupedStream<String, SentimentScoreView> groupedStream = sentimentScores.groupByKey();
+
+        // 单次遍历的窗口聚合：sum / count / min / max 放在同一个累加器里
+        // 以前是 aggregate(sum) + count() 两个窗口 KTable 再 join，
+        // 每条记录 * 每个窗口要写两个 RocksDB store、两个 changelog，外加一次 join 查询。
+        // 现在只有一个 store、一个 changelog，平均分直接从累加器中算出来。
+        KTable<Windowed<String>, SentimentStats> windowStats = groupedStream
+            .windowedBy(timeWindows) // 应用上面定义的跳动窗口
+            .aggregate(
+                // Initializer：每个新窗口开始时的空累加器
+                SentimentStats::new,
+                // Aggregator：把新分数累加进当前窗口的累加器
+                (key, value, stats) -> stats.add(value.getSentimentScore()),
+                // Materialized：物化到一个命名的窗口状态存储，值使用定长二进制 Serde
+                Materialized.<String, SentimentStats, WindowStore<Bytes, byte[]>>as(SENTIMENT_STATS_STORE)
+                    .withKeySerde(Serdes.String())
+                    .withValueSerde(sentimentStatsSerde)
+            );
+
+        // 输出模式
+        // EAGER：窗口每次更新都向下游输出（实时，但每条输入 * 每个窗口都会产生一条结果）
+        // FINAL：使用 suppress 把结果缓存到窗口关闭（窗口结束 + 宽限期）后只输出一次最终值
+        if (emitFinal) {
+            windowStats = windowStats.suppress(
+                Suppressed.untilWindowCloses(BufferConfig.unbounded()).withName("sentiment-stats-final"));
+        }
+
+        // KTable（表）代表一个 key 的 *当前* 值。
+        // KStream（流）代表一个 key 的 *所有* 变化。
+        // 为了将结果发送到另一个 Kafka 主题，我们需要将 KTable 的 "更新日志" 转换回 KStream
+        return windowStats.toStream();
+    }
+
+    /**
+     * pane 聚合：按步长切成不重叠的 pane，每条记录只写一次，输出时再合并成跳动窗口
+     * 不需要 groupByKey：source topic 已经按 userId 分区
+     */
+    private KStream<Windowed<String>, SentimentStats> paneAggregate(KStream<String, SentimentScoreView> sentimentScores,
+        Duration windowSize, Duration advanceBy, Duration gracePeriod, boolean emitFinal) {
+
+        return sentimentScores.process(
+            PaneWindowAggregateProcessor.supplier(SENTIMENT_PANE_STORE, windowSize, advanceBy, gracePeriod, emitFinal,
+                SentimentScoreView::getSentimentScore, sentimentStatsSerde),
+            Named.as("sentiment-pane-aggregate"));
+    }
+
+    /**
+     * 热点 key 两阶段聚合（只支持 FINAL）
+     * 阶段一：按加盐 key 重分区，热点用户的记录分散到多个 task，各分片独立做窗口聚合，窗口关闭后输出部分结果
+     * 阶段二：部分结果按 userId 重分区，以窗口起点作为时间戳落入长度为 advance 的滚动桶
+     *        （跳动窗口起点按 advance 对齐，一个桶恰好对应一个窗口），合并所有分片后再等 mergeGrace 输出一次
+     * 非热点用户固定为 #0 分片，热点判定中途变化时同一窗口分布在多个分片上，阶段二照样合并，结果与不打散时一致
+     */
+    private KStream<Windowed<String>, SentimentStats> saltedAggregate(KStream<String, SentimentScoreView> sentimentScores,
+        Duration windowSize, Duration advanceBy, Duration gracePeriod, boolean emitFinal) {
+
+        // EAGER 的每次更新都需要该用户全部分片的当前值，只能在一个 task 上串行计算，打散没有意义
+        if (!emitFinal) {
+            throw new IllegalStateException("Hot key salting requires stream-mind.alert.emit-mode=FINAL");
+        }
+        HotKeys hotKeys = windowProperties.getHotKeys();
+        KStream<String, SentimentScoreView> salted = sentimentScores
+            .process(HotKeySaltProcessor.<SentimentScoreView>supplier(hotKeys), Named.as("sentiment-hot-key-salt"))
+            .repartition(Repartitioned.with(Serdes.String(), sentimentScoreViewSerde).withName("sentiment-salted"));
+
+        KStream<Windowed<String>, SentimentStats> partials = windowProperties.getAggregation() == Aggregation.PANE
+            ? paneAggregate(salted, windowSize, advanceBy, gracePeriod, true)
+            : hoppingAggregate(salted, windowSize, advanceBy, gracePeriod, true);
+
+        long sizeMs = windowSize.toMillis();
+        return partials
+            .processValues(() -> new ContextualFixedKeyProcessor<Windowed<String>, SentimentStats, SentimentStats>() {
+                @Override
+                public void process(FixedKeyRecord<Windowed<String>, SentimentStats> record) {
+                    context().forward(record.withTimestamp(record.key().window().start()));
+                }
+            }, Named.as("sentiment-partial-window-start"))
+            .map((key, stats) -> KeyValue.pair(HotKeySaltProcessor.unsalted(key.key()), stats),
+                Named.as("sentiment-partial-unsalt"))
+            .groupByKey(Grouped.with("sentiment-merge", Serdes.String(), sentimentStatsSerde))
+            .windowedBy(TimeWindows.ofSizeAndGrace(advanceBy, hotKeys.getMergeGrace()))
+            .aggregate(
+                SentimentStats::new,
+                (userId, partial, merged) -> merged.merge(partial),
+                Materialized.<String, SentimentStats, WindowStore<Bytes, byte[]>>as(SENTIMENT_MERGE_STORE)
+                    .withKeySerde(Serdes.String())
+                    .withValueSerde(sentimentStatsSerde))
+            .suppress(Suppressed.untilWindowCloses(BufferConfig.unbounded()).withName("sentiment-merge-final"))
+            .toStream()
+            // 滚动桶还原成原来的跳动窗口
+            .map((bucket, merged) -> KeyValue.pair(new Windowed<>(bucket.key(),
+                new TimeWindow(bucket.window().start(), bucket.window().start() + sizeMs)), merged),
+                Named.as("sentiment-merge-window"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,124 @@
+package org.zewang.stream.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.ValueAndTimestamp;
+import org.apache.kafka.streams.state.WindowStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.Options;
+import org.springframework.util.unit.DataSize;
+import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.WarningAlert;
+import org.zewang.common.serde.JsonSerde;
+import org.zewang.common.serde.ProjectionSerde;
+import org.zewang.stream.config.WindowProperties.Aggregation;
+import org.zewang.stream.metrics.StreamMetrics;
+import org.zewang.stream.model.SentimentStats;
+import org.zewang.stream.serde.SentimentStatsSerde;
+import org.zewang.stream.service.WarningAlertProcessor;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: RocksDB 内存上限配置测试：共享 cache、bloom filter、segment 压缩策略，以及真实窗口存储可以正常读写
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 03:55
+ */
+class BoundedMemoryRocksDBConfigSetterTest {
+
+    @Test
+    void storesShareOneCacheAndSegmentsUseUniversalCompaction() {
+        StateStoreProperties.RocksDb rocksDb = new StateStoreProperties.RocksDb();
+        rocksDb.setWriteBufferSize(DataSize.ofMegabytes(4));
+        rocksDb.setBloomBitsPerKey(12);
+        Map<String, Object> configs = BoundedMemoryRocksDBConfigSetter.configs(rocksDb);
+
+        BoundedMemoryRocksDBConfigSetter kvSetter = new BoundedMemoryRocksDBConfigSetter();
+        BoundedMemoryRocksDBConfigSetter segmentSetter = new BoundedMemoryRocksDBConfigSetter();
+        try (Options kvOptions = new Options(); Options segmentOptions = new Options()) {
+            kvSetter.setConfig("pending-sentiment-store", kvOptions, configs);
+            segmentSetter.setConfig("sentiment-pane-store.1700000000000", segmentOptions, configs);
+
+            assertEquals(4L * 1024 * 1024, kvOptions.writeBufferSize());
+            assertEquals(rocksDb.getMaxWriteBuffers(), kvOptions.maxWriteBufferNumber());
+            BlockBasedTableConfig tableConfig = (BlockBasedTableConfig) kvOptions.tableFormatConfig();
+            assertTrue(tableConfig.cacheIndexAndFilterBlocks());
+            assertEquals(rocksDb.getBlockSize().toBytes(), tableConfig.blockSize());
+            assertInstanceOf(BloomFilter.class, tableConfig.filterPolicy());
+
+            assertEquals(CompactionStyle.LEVEL, kvOptions.compactionStyle());
+            assertEquals(CompactionStyle.UNIVERSAL, segmentOptions.compactionStyle());
+
+            // 进程内只有一份共享资源，预算不随 store 数增长
+            assertSame(BoundedMemoryRocksDBConfigSetter.shared(1, 0.5, 0.1),
+                BoundedMemoryRocksDBConfigSetter.shared(rocksDb.getTotalMemory().toBytes(), 0.5, 0.1));
+        } finally {
+            kvSetter.close("pending-sentiment-store", null);
+            segmentSetter.close("sentiment-pane-store.1700000000000", null);
+        }
+    }
+
+    @Test
+    void bloomFilterCanBeDisabled() {
+        StateStoreProperties.RocksDb rocksDb = new StateStoreProperties.RocksDb();
+        rocksDb.setBloomBitsPerKey(0);
+        BoundedMemoryRocksDBConfigSetter setter = new BoundedMemoryRocksDBConfigSetter();
+        try (Options options = new Options()) {
+            setter.setConfig("store", options, new HashMap<>(BoundedMemoryRocksDBConfigSetter.configs(rocksDb)));
+            assertNull(((BlockBasedTableConfig) options.tableFormatConfig()).filterPolicy());
+        }
+        assertFalse(BoundedMemoryRocksDBConfigSetter.isSegment("sentiment-stats-store"));
+        assertTrue(BoundedMemoryRocksDBConfigSetter.isSegment("sentiment-stats-store.1700000000000"));
+    }
+
+    @Test
+    void windowStoresWorkWithBoundedMemory(@TempDir Path stateDir) {
+        WindowProperties windowProperties = new WindowProperties();
+        windowProperties.setAggregation(Aggregation.PANE);
+        StreamsBuilder builder = new StreamsBuilder();
+        new WarningAlertProcessor(ProjectionSerde.sentimentScoreView(), new JsonSerde<>(WarningAlert.class),
+            new SentimentStatsSerde(), new AlertProperties(), windowProperties, StreamMetrics.noop()).buildTopology(builder);
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "rocksdb-config-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        props.put(StreamsConfig.ROCKSDB_CONFIG_SETTER_CLASS_CONFIG, BoundedMemoryRocksDBConfigSetter.class);
+        props.putAll(BoundedMemoryRocksDBConfigSetter.configs(new StateStoreProperties.RocksDb()));
+
+        JsonSerde<SentimentScore> scoreSerde = new JsonSerde<>(SentimentScore.class);
+        try (TopologyTestDriver driver = new TopologyTestDriver(builder.build(), props)) {
+            TestInputTopic<String, SentimentScore> input = driver.createInputTopic(KafkaConstants.SENTIMENT_SCORES_TOPIC,
+                new StringSerializer(), scoreSerde.serializer());
+            for (int i = 0; i < 10; i++) {
+                SentimentScore score = new SentimentScore();
+                score.setUserId("U1");
+                score.setSentimentScore(-0.5);
+                input.pipeInput("U1", score, Instant.ofEpochMilli(i * 1_000L));
+            }
+            WindowStore<String, ValueAndTimestamp<SentimentStats>> panes =
+                driver.getTimestampedWindowStore(WarningAlertProcessor.SENTIMENT_PANE_STORE);
+            assertEquals(10L, panes.fetch("U1", 0L).value().getCount());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.zewang.stream.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.streams.StreamsConfig;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 运行档位测试：各档位的配置能被 StreamsConfig 接受，默认档位与原来的硬编码配置一致，覆盖项优先
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 05:00
+ */
+class RuntimePropertiesTest {
+
+    @Test
+    void everyProfileIsAValidStreamsConfig() {
+        for (RuntimeProfile profile : RuntimeProfile.values()) {
+            Map<String, Object> props = new HashMap<>(profile.streamsConfigs());
+            props.put(StreamsConfig.APPLICATION_ID_CONFIG, "stream-mind-app");
+            props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+            StreamsConfig config = new StreamsConfig(props);
+
+            assertEquals(profile.getStreamThreads(), config.getInt(StreamsConfig.NUM_STREAM_THREADS_CONFIG));
+            Map<String, Object> producer = config.getProducerConfigs("client");
+            Map<String, Object> consumer = config.getMainConsumerConfigs("group", "client", 0);
+            assertEquals(profile.streamsConfigs().get(StreamsConfig.producerPrefix(ProducerConfig.LINGER_MS_CONFIG)),
+                producer.get(ProducerConfig.LINGER_MS_CONFIG), profile.name());
+            assertEquals(profile.streamsConfigs().get(StreamsConfig.consumerPrefix(ConsumerConfig.FETCH_MIN_BYTES_CONFIG)),
+                consumer.get(ConsumerConfig.FETCH_MIN_BYTES_CONFIG), profile.name());
+        }
+    }
+
+    @Test
+    void defaultProfileKeepsLowLatencySettings() {
+        Map<String, Object> props = new RuntimeProperties().streamsConfigs();
+
+        assertEquals(1, props.get(StreamsConfig.NUM_STREAM_THREADS_CONFIG));
+        assertEquals(0L, props.get(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG));
+        assertEquals(1_000L, props.get(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG));
+        assertEquals(StreamsConfig.AT_LEAST_ONCE, props.get(StreamsConfig.PROCESSING_GUARANTEE_CONFIG));
+        assertEquals(0, props.get(StreamsConfig.producerPrefix(ProducerConfig.LINGER_MS_CONFIG)));
+    }
+
+    @Test
+    void threadCountAndOverridesWinOverTheProfile() {
+        RuntimeProperties properties = new RuntimeProperties();
+        properties.setProfile(RuntimeProfile.EXACTLY_ONCE);
+        properties.setStreamThreads(6);
+        properties.getOverrides().put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, "500");
+        Map<String, Object> props = properties.streamsConfigs();
+
+        assertEquals(StreamsConfig.EXACTLY_ONCE_V2, props.get(StreamsConfig.PROCESSING_GUARANTEE_CONFIG));
+        assertEquals(6, props.get(StreamsConfig.NUM_STREAM_THREADS_CONFIG));
+        assertEquals("500", props.get(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG));
+        assertTrue((long) props.get(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG) > 0L);
+    }
+}
@@ -0,0 +1,95 @@
+package org.zewang.stream.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.TopologyDescription;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.dto.SentimentRollup;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.WarningAlert;
+import org.zewang.common.serde.JsonSerde;
+import org.zewang.common.serde.ProjectionSerde;
+import org.zewang.stream.config.EngineProperties.Mode;
+import org.zewang.stream.metrics.StreamMetrics;
+import org.zewang.stream.model.PendingMessage;
+import org.zewang.stream.sentiment.LexiconRegistry;
+import org.zewang.stream.sentiment.LexiconSentimentEngine;
+import org.zewang.stream.sentiment.NgramSentimentModel;
+import org.zewang.stream.sentiment.SentimentLexicon;
+import org.zewang.stream.serde.SentimentStatsSerde;
+import org.zewang.stream.service.SentimentAnalysisProcessor;
+import org.zewang.stream.service.SentimentRollupProcessor;
+import org.zewang.stream.service.WarningAlertProcessor;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 拓扑结构测试：融合拓扑在每种引擎模式下都只有一个子拓扑（打分不改变 key，聚合前没有 repartition）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 10:40
+ */
+class StreamTopologyBuilderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fusedTopologyIsOneSubTopologyForEveryEngineMode() throws IOException {
+        for (Mode mode : Mode.values()) {
+            TopologyDescription description = describe(TopologyProperties.Mode.FUSED, mode);
+            assertEquals(1, description.subtopologies().size(), mode + "\n" + description);
+            assertFalse(description.toString().contains("-repartition"), mode + "\n" + description);
+        }
+    }
+
+    @Test
+    void twoStageTopologyReadsScoresBackFromTheTopic() throws IOException {
+        for (Mode mode : Mode.values()) {
+            TopologyDescription description = describe(TopologyProperties.Mode.TWO_STAGE, mode);
+            assertEquals(2, description.subtopologies().size(), mode + "\n" + description);
+        }
+    }
+
+    private TopologyDescription describe(TopologyProperties.Mode topologyMode, Mode engineMode) throws IOException {
+        EngineProperties engineProperties = new EngineProperties();
+        engineProperties.setMode(engineMode);
+        if (engineMode == Mode.NGRAM) {
+            Path model = tempDir.resolve("ngram.bin");
+            try (OutputStream out = Files.newOutputStream(model)) {
+                NgramSentimentModel.empty("test", 1, 2, 4).write(out);
+            }
+            engineProperties.setNgramModel(model.toString());
+        }
+        TopologyProperties topologyProperties = new TopologyProperties();
+        topologyProperties.setMode(topologyMode);
+        RollupProperties rollupProperties = new RollupProperties();
+        rollupProperties.setEnabled(true);
+        AlertProperties alertProperties = new AlertProperties();
+        StreamMetrics metrics = StreamMetrics.noop();
+
+        StreamsBuilder builder = new StreamsBuilder();
+        try (LexiconRegistry lexicon = new LexiconRegistry(SentimentLexicon.defaults())) {
+            SentimentAnalysisProcessor sentimentAnalysisProcessor = new SentimentAnalysisProcessor(
+                new JsonSerde<>(ChatMessage.class), new JsonSerde<>(SentimentScore.class),
+                new JsonSerde<>(PendingMessage.class), lexicon, new LexiconSentimentEngine(lexicon), engineProperties,
+                metrics);
+            WarningAlertProcessor warningAlertProcessor = new WarningAlertProcessor(ProjectionSerde.sentimentScoreView(),
+                new JsonSerde<>(WarningAlert.class), new SentimentStatsSerde(), alertProperties, new WindowProperties(),
+                metrics);
+            SentimentRollupProcessor sentimentRollupProcessor = new SentimentRollupProcessor(
+                new JsonSerde<>(SentimentRollup.class), new JsonSerde<>(WarningAlert.class), new SentimentStatsSerde(),
+                rollupProperties, alertProperties, metrics);
+            new StreamTopologyBuilder(sentimentAnalysisProcessor, warningAlertProcessor, sentimentRollupProcessor,
+                topologyProperties).buildTopology(builder);
+        }
+        return builder.build().describe();
+    }
+}
@@ -0,0 +1,205 @@
+package org.zewang.stream.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.kstream.WindowedSerdes;
+import org.apache.kafka.streams.test.TestRecord;
+import org.junit.jupiter.api.Test;
+import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.dto.SentimentRollup;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.WarningAlert;
+import org.zewang.common.serde.JsonSerde;
+import org.zewang.common.serde.ProjectionSerde;
+import org.zewang.common.util.TraceHeaders;
+import org.zewang.stream.config.AlertProperties;
+import org.zewang.stream.config.AlertProperties.EmitMode;
+import org.zewang.stream.config.EngineProperties;
+import org.zewang.stream.config.RollupProperties;
+import org.zewang.stream.config.StreamTopologyBuilder;
+import org.zewang.stream.config.TopologyProperties;
+import org.zewang.stream.config.WindowProperties;
+import org.zewang.stream.model.PendingMessage;
+import org.zewang.stream.sentiment.LexiconRegistry;
+import org.zewang.stream.sentiment.LexiconSentimentEngine;
+import org.zewang.stream.sentiment.SentimentLexicon;
+import org.zewang.stream.serde.SentimentStatsSerde;
+import org.zewang.stream.service.SentimentAnalysisProcessor;
+import org.zewang.stream.service.SentimentRollupProcessor;
+import org.zewang.stream.service.WarningAlertProcessor;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 拓扑内自定义指标测试：打分耗时和标签计数、聚合阶段耗时、事件时间延迟、预警计数、端到端延迟
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 05:55
+ */
+class StreamMetricsTest {
+
+    private static final long NOW = 1_700_000_100_000L;
+
+    private final MockClock clock = new MockClock();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    private final StreamMetrics metrics = new StreamMetrics(registry);
+
+    @Test
+    void scoringRecordsLatencyLabelsAndEventLag() {
+        clock.add(NOW - clock.wallTime(), TimeUnit.MILLISECONDS);
+        JsonSerde<ChatMessage> chatMessageSerde = new JsonSerde<>(ChatMessage.class);
+        StreamsBuilder builder = new StreamsBuilder();
+        try (LexiconRegistry lexicon = new LexiconRegistry(SentimentLexicon.defaults())) {
+            new SentimentAnalysisProcessor(chatMessageSerde, new JsonSerde<>(SentimentScore.class),
+                new JsonSerde<>(PendingMessage.class), lexicon, new LexiconSentimentEngine(lexicon), new EngineProperties(),
+                metrics).buildTopology(builder);
+
+            try (TopologyTestDriver driver = new TopologyTestDriver(builder.build(), driverProperties())) {
+                TestInputTopic<String, ChatMessage> input = driver.createInputTopic(KafkaConstants.CHAT_MESSAGES_TOPIC,
+                    new StringSerializer(), chatMessageSerde.serializer());
+                List<String> texts = List.of("今天很开心", "压力好大，很沮丧", "开会", "项目顺利完成");
+                for (String text : texts) {
+                    ChatMessage message = new ChatMessage();
+                    message.setUserId("U001");
+                    message.setTimestamp(NOW - 2_000);
+                    message.setMessage(text);
+                    input.pipeInput(message.getUserId(), message, message.getTimestamp());
+                }
+            }
+        }
+
+        assertEquals(4, timer("stream-mind.stage.latency", StreamMetrics.STAGE_SCORING).count());
+        assertEquals(2.0, registry.get("stream-mind.sentiment.labels").tag("label", "Positive").counter().count());
+        assertEquals(1.0, registry.get("stream-mind.sentiment.labels").tag("label", "Negative").counter().count());
+        assertEquals(1.0, registry.get("stream-mind.sentiment.labels").tag("label", "Neutral").counter().count());
+        Timer lag = timer("stream-mind.event.lag", StreamMetrics.STAGE_SCORING);
+        assertEquals(4, lag.count());
+        assertEquals(2_000.0, lag.max(TimeUnit.MILLISECONDS), 1e-9);
+    }
+
+    @Test
+    void aggregationStageCountsEveryRecordAndEveryAlert() {
+        clock.add(NOW - clock.wallTime(), TimeUnit.MILLISECONDS);
+        AlertProperties alertProperties = new AlertProperties();
+        alertProperties.setEmitMode(EmitMode.EAGER);
+        alertProperties.setThreshold(0.0);
+        WindowProperties windowProperties = new WindowProperties();
+        JsonSerde<SentimentScore> scoreSerde = new JsonSerde<>(SentimentScore.class);
+        JsonSerde<WarningAlert> alertSerde = new JsonSerde<>(WarningAlert.class);
+
+        StreamsBuilder builder = new StreamsBuilder();
+        new WarningAlertProcessor(ProjectionSerde.sentimentScoreView(), alertSerde, new SentimentStatsSerde(),
+            alertProperties, windowProperties, metrics).buildTopology(builder);
+
+        int alerts;
+        try (TopologyTestDriver driver = new TopologyTestDriver(builder.build(), driverProperties())) {
+            TestInputTopic<String, SentimentScore> input = driver.createInputTopic(KafkaConstants.SENTIMENT_SCORES_TOPIC,
+                new StringSerializer(), scoreSerde.serializer());
+            TestOutputTopic<Windowed<String>, WarningAlert> output = driver.createOutputTopic(
+                KafkaConstants.WARNING_ALERTS_TOPIC,
+                WindowedSerdes.timeWindowedSerdeFrom(String.class, windowProperties.getSize().toMillis()).deserializer(),
+                alertSerde.deserializer());
+            double[] values = {-0.5, 0.8, -0.9};
+            for (int i = 0; i < values.length; i++) {
+                SentimentScore score = new SentimentScore();
+                score.setUserId("U001");
+                score.setTimestamp(NOW - 5_000 + i * 1_000L);
+                score.setSentimentScore(values[i]);
+                input.pipeInput("U001", score, Instant.ofEpochMilli(score.getTimestamp()));
+            }
+            alerts = output.readRecordsToList().size();
+        }
+
+        assertTrue(alerts > 0);
+        assertEquals(3, timer("stream-mind.stage.latency", StreamMetrics.STAGE_AGGREGATION).count());
+        assertEquals(5_000.0, timer("stream-mind.event.lag", StreamMetrics.STAGE_AGGREGATION).max(TimeUnit.MILLISECONDS), 1e-9);
+        assertEquals(alerts, registry.get("stream-mind.alerts").tag("source", StreamMetrics.ALERT_WINDOW).counter().count());
+    }
+
+    @Test
+    void endToEndLatencyFollowsTraceHeadersInBothTopologyModes() {
+        for (TopologyProperties.Mode mode : TopologyProperties.Mode.values()) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+            StreamMetrics metrics = new StreamMetrics(registry);
+            clock.add(NOW - clock.wallTime(), TimeUnit.MILLISECONDS);
+
+            AlertProperties alertProperties = new AlertProperties();
+            alertProperties.setEmitMode(EmitMode.EAGER);
+            alertProperties.setThreshold(1.0);
+            TopologyProperties topologyProperties = new TopologyProperties();
+            topologyProperties.setMode(mode);
+            JsonSerde<ChatMessage> chatMessageSerde = new JsonSerde<>(ChatMessage.class);
+            JsonSerde<WarningAlert> alertSerde = new JsonSerde<>(WarningAlert.class);
+
+            StreamsBuilder builder = new StreamsBuilder();
+            try (LexiconRegistry lexicon = new LexiconRegistry(SentimentLexicon.defaults())) {
+                new StreamTopologyBuilder(
+                    new SentimentAnalysisProcessor(chatMessageSerde, new JsonSerde<>(SentimentScore.class),
+                        new JsonSerde<>(PendingMessage.class), lexicon, new LexiconSentimentEngine(lexicon),
+                        new EngineProperties(), metrics),
+                    new WarningAlertProcessor(ProjectionSerde.sentimentScoreView(), alertSerde, new SentimentStatsSerde(),
+                        alertProperties, new WindowProperties(), metrics),
+                    new SentimentRollupProcessor(new JsonSerde<>(SentimentRollup.class), alertSerde,
+                        new SentimentStatsSerde(), new RollupProperties(), alertProperties, metrics),
+                    topologyProperties).buildTopology(builder);
+
+                try (TopologyTestDriver driver = new TopologyTestDriver(builder.build(), driverProperties())) {
+                    TestInputTopic<String, ChatMessage> input = driver.createInputTopic(
+                        KafkaConstants.CHAT_MESSAGES_TOPIC, new StringSerializer(), chatMessageSerde.serializer());
+                    ChatMessage message = new ChatMessage();
+                    message.setUserId("U001");
+                    message.setTimestamp(NOW - 10_000);
+                    message.setMessage("今天很沮丧");
+                    RecordHeaders headers = new RecordHeaders();
+                    TraceHeaders.putTimestamp(headers, TraceHeaders.INGEST_TS, NOW - 3_000);
+                    TraceHeaders.putTraceId(headers, "trace-1");
+                    input.pipeInput(new TestRecord<>("U001", message, headers, message.getTimestamp()));
+                }
+            }
+
+            // 一条消息落在两个跳动窗口里，产生两条预警；同一个 driver 内 sentiment-scores 的往返不经过时钟
+            Timer total = registry.get("stream-mind.e2e.latency")
+                .tags("sink", StreamMetrics.ALERT_WINDOW, "hop", StreamMetrics.HOP_TOTAL).timer();
+            assertEquals(2, total.count(), mode.name());
+            assertEquals(3_000.0, total.max(TimeUnit.MILLISECONDS), 1e-9, mode.name());
+            Timer ingestToScored = registry.get("stream-mind.e2e.latency")
+                .tags("sink", StreamMetrics.ALERT_WINDOW, "hop", StreamMetrics.HOP_INGEST_TO_SCORED).timer();
+            assertEquals(3_000.0, ingestToScored.max(TimeUnit.MILLISECONDS), 1e-9, mode.name());
+            Timer scoredToAlert = registry.get("stream-mind.e2e.latency")
+                .tags("sink", StreamMetrics.ALERT_WINDOW, "hop", StreamMetrics.HOP_SCORED_TO_ALERT).timer();
+            assertEquals(2, scoredToAlert.count(), mode.name());
+            assertEquals(0.0, scoredToAlert.max(TimeUnit.MILLISECONDS), 1e-9, mode.name());
+        }
+    }
+
+    private Timer timer(String name, String stage) {
+        return registry.get(name).tag("stage", stage).timer();
+    }
+
+    private static Properties driverProperties() {
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "stream-metrics-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        props.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 0L);
+        return props;
+    }
+}
@@ -0,0 +1,333 @@
+package org.zewang.stream.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Named;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.processor.Cancellable;
+import org.apache.kafka.streams.processor.Punctuator;
+import org.apache.kafka.streams.processor.TaskId;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.processor.api.MockProcessorContext;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zewang.common.constant.SentimentTier;
+import org.zewang.common.dto.ChatMessage;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.serde.JsonSerde;
+import org.zewang.common.util.TraceHeaders;
+import org.zewang.stream.model.PendingMessage;
+import org.zewang.stream.sentiment.HttpSentimentEngine;
+import org.zewang.stream.sentiment.LexiconRegistry;
+import org.zewang.stream.sentiment.LexiconSentimentEngine;
+import org.zewang.stream.sentiment.SentimentEngine;
+import org.zewang.stream.sentiment.SentimentLexicon;
+import org.zewang.stream.sentiment.SentimentResult;
+import org.zewang.stream.serde.PendingMessageBinarySerde;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 异步微批打分测试：本地桩 HTTP 服务人为加入延迟
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 19:40
+ */
+class AsyncSentimentProcessorTest {
+
+    private static final String STORE = "pending-sentiment-store";
+    private static final long LATENCY_MS = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private volatile boolean failing;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    @BeforeEach
+    void startStubServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server.setExecutor(serverExecutor);
+        // 桩模型：消息 "m-<n>" 的分数为 ((n % 21) - 10) / 10，每个请求固定延迟 LATENCY_MS
+        server.createContext("/score", exchange -> {
+            int now = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(now, Math::max);
+            requests.incrementAndGet();
+            try {
+                JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+                Thread.sleep(LATENCY_MS);
+                byte[] response;
+                int status;
+                if (failing) {
+                    status = 503;
+                    response = new byte[0];
+                } else {
+                    StringBuilder scores = new StringBuilder();
+                    for (JsonNode message : body.get("messages")) {
+                        int n = Integer.parseInt(message.asText().substring(2));
+                        scores.append(scores.length() == 0 ? "" : ",").append(((n % 21) - 10) / 10.0);
+                    }
+                    status = 200;
+                    response = ("{\"model\":\"stub-model\",\"scores\":[" + scores + "]}").getBytes(StandardCharsets.UTF_8);
+                }
+                exchange.sendResponseHeaders(status, response.length == 0 ? -1 : response.length);
+                exchange.getResponseBody().write(response);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void batchesAreSentConcurrentlyAndOutputKeepsInputOrder() {
+        int messages = 200;
+        int batchSize = 20;
+        int maxInFlight = 4;
+
+        try (Harness harness = new Harness(batchSize, maxInFlight)) {
+            long started = System.nanoTime();
+            for (int n = 0; n < messages; n++) {
+                harness.send("U" + (n % 7), n);
+            }
+            List<KeyValue<String, SentimentScore>> output = harness.awaitOutput(messages);
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+            for (int n = 0; n < messages; n++) {
+                KeyValue<String, SentimentScore> record = output.get(n);
+                assertEquals("U" + (n % 7), record.key);
+                assertEquals(n, record.value.getTimestamp());
+                assertEquals(((n % 21) - 10) / 10.0, record.value.getSentimentScore(), 1e-9);
+                assertEquals("stub-model", record.value.getLexiconVersion());
+                assertEquals("model", record.value.getTier());
+            }
+            assertEquals(messages / batchSize, requests.get());
+            assertTrue(maxConcurrent.get() <= maxInFlight, "max concurrent " + maxConcurrent.get());
+            assertTrue(maxConcurrent.get() > 1, "batches were not pipelined");
+            // 逐条同步调用需要 messages * LATENCY_MS = 20s；批次并发时约为 messages / batchSize / maxInFlight * LATENCY_MS
+            assertTrue(elapsedMs < messages * LATENCY_MS / 4, "elapsed " + elapsedMs + "ms");
+            assertEquals(0, harness.pendingCount());
+        }
+    }
+
+    @Test
+    void pendingMessagesStayInStoreUntilForwarded() {
+        try (Harness harness = new Harness(10, 2)) {
+            for (int n = 0; n < 3; n++) {
+                harness.send("U001", n);
+            }
+            // 批次未满且没有到达 maxBatchDelay：消息只在 pending 存储中（offset 提交后可恢复）
+            assertTrue(harness.output.isEmpty());
+            assertEquals(3, harness.pendingCount());
+            assertEquals(0, requests.get());
+
+            List<KeyValue<String, SentimentScore>> output = harness.awaitOutput(3);
+            assertEquals(3, output.size());
+            assertEquals(1, requests.get());
+            assertEquals(0, harness.pendingCount());
+        }
+    }
+
+    @Test
+    void failedBatchFallsBackToLexicon() {
+        failing = true;
+        try (Harness harness = new Harness(2, 2)) {
+            harness.send("U001", 0);
+            harness.send("U002", 1);
+            List<KeyValue<String, SentimentScore>> output = harness.awaitOutput(2);
+            assertEquals("U001", output.get(0).key);
+            assertEquals("U002", output.get(1).key);
+            assertEquals("builtin-1", output.get(0).value.getLexiconVersion());
+            assertEquals("fallback", output.get(0).value.getTier());
+            assertEquals(0, harness.pendingCount());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void restoredMessagesAreResubmittedAfterInitWithTheirHeaders() {
+        KeyValueStore<Long, PendingMessage> store = Stores.keyValueStoreBuilder(Stores.inMemoryKeyValueStore(STORE),
+                Serdes.Long(), new PendingMessageBinarySerde())
+            .withLoggingDisabled()
+            .build();
+        store.init(new MockProcessorContext<>().getStateStoreContext(), store);
+
+        FixedKeyProcessorContext<String, SentimentScore> context = mock(FixedKeyProcessorContext.class);
+        List<Punctuator> punctuators = new ArrayList<>();
+        List<FixedKeyRecord<String, SentimentScore>> forwarded = new ArrayList<>();
+        doReturn(store).when(context).getStateStore(STORE);
+        when(context.taskId()).thenReturn(new TaskId(0, 0));
+        when(context.currentSystemTimeMs()).thenReturn(20L);
+        when(context.schedule(any(), any(), any())).thenAnswer(invocation -> {
+            punctuators.add(invocation.getArgument(2));
+            return (Cancellable) () -> { };
+        });
+        doAnswer(invocation -> forwarded.add(invocation.getArgument(0))).when(context).forward(any(FixedKeyRecord.class));
+
+        // 上次运行留下的 10 条消息，超过 batchSize * maxInFlight，重新提交时背压需要先输出最早的批次
+        int messages = 10;
+        for (int n = 0; n < messages; n++) {
+            RecordHeaders headers = new RecordHeaders();
+            TraceHeaders.putTimestamp(headers, TraceHeaders.INGEST_TS, 1_000L + n);
+            store.put((long) n, new PendingMessage("U001", n, chatMessage("U001", n),
+                Map.of(TraceHeaders.INGEST_TS, headers.lastHeader(TraceHeaders.INGEST_TS).value())));
+        }
+
+        AtomicInteger batches = new AtomicInteger();
+        SentimentEngine engine = new SentimentEngine() {
+            @Override
+            public String name() {
+                return "stub";
+            }
+
+            @Override
+            public CompletableFuture<List<SentimentResult>> scoreBatch(List<String> texts) {
+                batches.incrementAndGet();
+                List<SentimentResult> results = new ArrayList<>();
+                for (int i = 0; i < texts.size(); i++) {
+                    results.add(new SentimentResult(0.5, "stub-model", SentimentTier.MODEL));
+                }
+                return CompletableFuture.completedFuture(results);
+            }
+        };
+        AsyncSentimentProcessor processor = new AsyncSentimentProcessor(STORE, engine,
+            new LexiconSentimentEngine(new LexiconRegistry(SentimentLexicon.defaults())), 2, Duration.ofMillis(20), 2);
+
+        processor.init(context);
+        // init() 中不能 forward：恢复的消息只排队，不提交给引擎
+        assertTrue(forwarded.isEmpty());
+        assertEquals(0, batches.get());
+
+        punctuators.get(0).punctuate(20);
+
+        assertEquals(messages, forwarded.size());
+        for (int n = 0; n < messages; n++) {
+            assertEquals("U001", forwarded.get(n).key());
+            assertEquals(n, forwarded.get(n).timestamp());
+            assertEquals(1_000L + n, TraceHeaders.timestamp(forwarded.get(n).headers(), TraceHeaders.INGEST_TS));
+        }
+        assertEquals(messages / 2, batches.get());
+        assertEquals(0, store.approximateNumEntries());
+        processor.close();
+    }
+
+    private static ChatMessage chatMessage(String userId, long timestamp) {
+        ChatMessage message = new ChatMessage();
+        message.setUserId(userId);
+        message.setTimestamp(timestamp);
+        message.setMessage("m-" + timestamp);
+        return message;
+    }
+
+    private final class Harness implements AutoCloseable {
+
+        private final TopologyTestDriver driver;
+        private final TestInputTopic<String, ChatMessage> input;
+        private final TestOutputTopic<String, SentimentScore> outputTopic;
+        private final List<KeyValue<String, SentimentScore>> output = new ArrayList<>();
+
+        private Harness(int batchSize, int maxInFlight) {
+            SentimentEngine engine = new HttpSentimentEngine(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/score"), Duration.ofSeconds(5));
+            SentimentEngine fallback = new LexiconSentimentEngine(new LexiconRegistry(SentimentLexicon.defaults()));
+
+            StreamsBuilder builder = new StreamsBuilder();
+            builder.stream("chat-messages", Consumed.with(Serdes.String(), new JsonSerde<>(ChatMessage.class)))
+                .processValues(AsyncSentimentProcessor.supplier(STORE, engine, fallback, batchSize, Duration.ofMillis(20),
+                    maxInFlight, new JsonSerde<>(PendingMessage.class)), Named.as("sentiment-async-engine"))
+                .to("sentiment-scores", Produced.with(Serdes.String(), new JsonSerde<>(SentimentScore.class)));
+
+            Properties props = new Properties();
+            props.put(StreamsConfig.APPLICATION_ID_CONFIG, "async-sentiment-test");
+            props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+            driver = new TopologyTestDriver(builder.build(), props, Instant.EPOCH);
+            input = driver.createInputTopic("chat-messages", new StringSerializer(),
+                new JsonSerde<>(ChatMessage.class).serializer());
+            outputTopic = driver.createOutputTopic("sentiment-scores", new StringDeserializer(),
+                new JsonSerde<>(SentimentScore.class).deserializer());
+        }
+
+        private void send(String userId, long timestamp) {
+            ChatMessage message = chatMessage(userId, timestamp);
+            input.pipeInput(userId, message, timestamp);
+            output.addAll(outputTopic.readKeyValuesToList());
+        }
+
+        /**
+         * 推进墙钟触发 punctuator，直到输出足够多的结果
+         */
+        private List<KeyValue<String, SentimentScore>> awaitOutput(int expected) {
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (output.size() < expected && System.nanoTime() < deadline) {
+                driver.advanceWallClockTime(Duration.ofMillis(20));
+                output.addAll(outputTopic.readKeyValuesToList());
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return output;
+        }
+
+        private long pendingCount() {
+            KeyValueStore<Long, PendingMessage> store = driver.getKeyValueStore(STORE);
+            return store.approximateNumEntries();
+        }
+
+        @Override
+        public void close() {
+            driver.close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.zewang.stream.sentiment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.zewang.common.constant.SentimentTier;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 情感结果缓存测试：归一化命中、批内去重、哈希碰撞、版本失效、淘汰与过期
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 20:40
+ */
+class CachingSentimentEngineTest {
+
+    private final CountingEngine delegate = new CountingEngine();
+    private final AtomicLong nanos = new AtomicLong();
+
+    private CachingSentimentEngine cachingEngine(long maximumSize) {
+        return new CachingSentimentEngine(delegate, Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .executor(Runnable::run)
+            .ticker(nanos::get));
+    }
+
+    @Test
+    void repeatedMessagesAreScoredOnce() {
+        CachingSentimentEngine engine = cachingEngine(100);
+
+        List<SentimentResult> first = engine.scoreBatch(List.of("太难过了", "  太难过了 ", "好的", "OK  then")).join();
+        // 批内重复消息只发送一次
+        assertEquals(List.of("太难过了", "好的", "OK  then"), delegate.seen);
+        assertEquals(4, first.size());
+        assertEquals(first.get(0).getScore(), first.get(1).getScore());
+
+        List<SentimentResult> second = engine.scoreBatch(List.of("太难过了", "ok then", "新消息")).join();
+        assertEquals(List.of("太难过了", "好的", "OK  then", "新消息"), delegate.seen);
+        assertEquals(first.get(0).getScore(), second.get(0).getScore());
+        assertEquals(first.get(3).getScore(), second.get(1).getScore());
+        assertEquals(2, engine.stats().hitCount());
+    }
+
+    @Test
+    void statsAreExposedThroughMicrometer() {
+        CachingSentimentEngine engine = cachingEngine(100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CaffeineCacheMetrics.monitor(registry, engine.cache(), "sentiment");
+
+        engine.scoreBatch(List.of("太难过了", "好的")).join();
+        engine.scoreBatch(List.of("太难过了")).join();
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "sentiment", "result", "hit").functionCounter().count());
+        assertEquals(2.0, registry.get("cache.gets").tags("cache", "sentiment", "result", "miss").functionCounter().count());
+        assertEquals(2.0, registry.get("cache.size").tag("cache", "sentiment").gauge().value());
+    }
+
+    @Test
+    void versionChangeInvalidatesCache() {
+        CachingSentimentEngine engine = cachingEngine(100);
+        engine.scoreBatch(List.of("太难过了")).join();
+        engine.scoreBatch(List.of("太难过了")).join();
+        assertEquals(1, delegate.seen.size());
+
+        delegate.version = "v2";
+        SentimentResult result = engine.scoreBatch(List.of("太难过了")).join().get(0);
+        assertEquals(2, delegate.seen.size());
+        assertEquals("v2", result.getVersion());
+        assertEquals(1, engine.estimatedSize());
+    }
+
+    @Test
+    void boundedSizeAndTtlAreReported() {
+        CachingSentimentEngine engine = cachingEngine(10);
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            messages.add("message-" + i);
+        }
+        engine.scoreBatch(messages).join();
+        assertTrue(engine.estimatedSize() <= 10);
+        assertTrue(engine.stats().evictionCount() >= 40);
+
+        engine.scoreBatch(List.of("hot")).join();
+        nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+        engine.scoreBatch(List.of("hot")).join();
+        assertEquals(2, delegate.seen.stream().filter("hot"::equals).count());
+    }
+
+    @Test
+    void hashCollisionIsTreatedAsMiss() {
+        // 所有文本哈希到同一个 key：命中时比较原文，不能把别的消息的结果返回出去
+        CachingSentimentEngine engine = new CachingSentimentEngine(delegate, Caffeine.newBuilder()
+            .maximumSize(100)
+            .executor(Runnable::run), text -> 42L);
+
+        List<SentimentResult> first = engine.scoreBatch(List.of("开心", "难过", " 开心")).join();
+        assertEquals(List.of("开心", "难过"), delegate.seen);
+        assertNotEquals(first.get(0).getScore(), first.get(1).getScore());
+        assertEquals(first.get(0).getScore(), first.get(2).getScore());
+
+        // 缓存里是 "难过"，"开心" 虽然 key 相同也要重新打分
+        SentimentResult happy = engine.scoreBatch(List.of("开心")).join().get(0);
+        assertEquals(List.of("开心", "难过", "开心"), delegate.seen);
+        SentimentResult happyAgain = engine.scoreBatch(List.of("  开心 ")).join().get(0);
+        assertEquals(3, delegate.seen.size());
+        assertEquals(happy.getScore(), happyAgain.getScore());
+    }
+
+    @Test
+    void normalizedTextIsComparedWithoutAllocating() {
+        assertEquals("hello world", CachingSentimentEngine.normalize(" Hello \t WORLD\n"));
+        assertTrue(CachingSentimentEngine.matchesNormalized(" Hello \t WORLD\n", "hello world"));
+        assertFalse(CachingSentimentEngine.matchesNormalized("helloworld", "hello world"));
+        assertFalse(CachingSentimentEngine.matchesNormalized("hello world!", "hello world"));
+        assertFalse(CachingSentimentEngine.matchesNormalized("hello", "hello world"));
+        assertTrue(CachingSentimentEngine.matchesNormalized(null, CachingSentimentEngine.normalize(null)));
+    }
+
+    @Test
+    void normalizationCollapsesWhitespaceAndCase() {
+        assertEquals(CachingSentimentEngine.contentHash("Hello World"), CachingSentimentEngine.contentHash(" hello \t world\n"));
+        assertNotEquals(CachingSentimentEngine.contentHash("helloworld"), CachingSentimentEngine.contentHash("hello world"));
+        assertNotEquals(CachingSentimentEngine.contentHash("开心"), CachingSentimentEngine.contentHash("难过"));
+    }
+
+    private static final class CountingEngine implements SentimentEngine {
+        private final List<String> seen = new ArrayList<>();
+        private volatile String version = "v1";
+
+        @Override
+        public String name() {
+            return "counting";
+        }
+
+        @Override
+        public String version() {
+            return version;
+        }
+
+        @Override
+        public CompletableFuture<List<SentimentResult>> scoreBatch(List<String> messages) {
+            List<SentimentResult> results = new ArrayList<>();
+            for (String message : messages) {
+                seen.add(message);
+                results.add(new SentimentResult((seen.size() % 10) / 10.0, version, SentimentTier.MODEL));
+            }
+            return CompletableFuture.completedFuture(results);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.zewang.stream.sentiment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 词典热加载测试：文件变更后切换版本，坏文件不影响当前词典
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 18:40
+ */
+class LexiconRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reloadsChangedFileAndKeepsOldLexiconOnError() throws Exception {
+        Path file = dir.resolve("lexicon.json");
+        write(file, "{\"version\":\"v1\",\"terms\":{\"摸鱼\":0.6}}", 1);
+
+        try (LexiconRegistry registry = new LexiconRegistry(file, Duration.ofHours(1), SentimentLexicon.defaults())) {
+            LexiconSentimentScorer v1 = registry.current();
+            assertEquals("v1", v1.getVersion());
+            assertTrue(v1.score("今天摸鱼") > 0);
+            assertEquals(0.0, v1.score("今天很开心"));
+
+            // 修改时间不变时不重新加载
+            assertFalse(registry.reloadIfChanged());
+
+            write(file, "{\"version\":\"v2\",\"terms\":{\"摸鱼\":-0.6},\"negators\":[\"不\"],\"intensifiers\":{\"很\":1.5}}", 2);
+            assertTrue(registry.reloadIfChanged());
+            assertEquals("v2", registry.current().getVersion());
+            assertTrue(registry.current().score("今天摸鱼") < 0);
+            assertTrue(registry.current().score("今天不摸鱼") > 0);
+            // 旧打分器仍然可用（正在处理的消息不受切换影响）
+            assertTrue(v1.score("今天摸鱼") > 0);
+
+            write(file, "{\"version\":\"v3\",\"terms\":{\"摸鱼\":\"high\"}}", 3);
+            assertFalse(registry.reloadIfChanged());
+            assertEquals("v2", registry.current().getVersion());
+        }
+    }
+
+    @Test
+    void fallsBackToBuiltinAndDerivesVersionFromContent() throws Exception {
+        Path missing = dir.resolve("missing.json");
+        try (LexiconRegistry registry = new LexiconRegistry(missing, Duration.ofHours(1), SentimentLexicon.defaults())) {
+            assertEquals("builtin-1", registry.current().getVersion());
+
+            write(missing, "{\"terms\":{\"开心\":0.8}}", 1);
+            assertTrue(registry.reloadIfChanged());
+            String version = registry.current().getVersion();
+            assertTrue(version.startsWith("crc32-"), version);
+
+            // 内容相同只是修改时间变了，版本号不变，不会重新切换
+            write(missing, "{\"terms\":{\"开心\":0.8}}", 2);
+            assertFalse(registry.reloadIfChanged());
+            assertEquals(version, registry.current().getVersion());
+        }
+    }
+
+    private static void write(Path file, String json, long seconds) throws Exception {
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(seconds * 1000));
+    }
+}
@@ -0,0 +1,76 @@
+package org.zewang.stream.sentiment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+import org.zewang.common.constant.SentimentLabel;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 词典打分器测试：最长匹配、否定、程度副词、无分配
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 17:30
+ */
+class LexiconSentimentScorerTest {
+
+    private final LexiconSentimentScorer scorer = LexiconSentimentScorer.compile(SentimentLexicon.defaults());
+
+    @Test
+    void longestMatchAndNegation() {
+        // 旧实现中 "不好" 包含 "好"，会被判为正面
+        assertEquals(SentimentLabel.NEGATIVE, label("今天心情不好"));
+        assertEquals(SentimentLabel.NEGATIVE, label("一点都不开心"));
+        assertEquals(SentimentLabel.POSITIVE, label("这个想法很不错！"));
+        assertEquals(SentimentLabel.POSITIVE, label("今天天气真不错！"));
+        assertEquals(SentimentLabel.NEUTRAL, label("周末有什么计划吗？"));
+        assertEquals(SentimentLabel.NEUTRAL, label(""));
+        assertEquals(0.0, scorer.score(null));
+    }
+
+    @Test
+    void phrasesAreNotCountedTwice() {
+        // "压力好大" 作为整体匹配，"压力" 和 "好" 不会再单独计分
+        double phrase = scorer.score("工作压力好大。");
+        assertEquals(LexiconSentimentScorer.normalize(-0.7), phrase, 1e-9);
+    }
+
+    @Test
+    void intensifiersAndClauseBoundaries() {
+        assertTrue(scorer.score("太难过了") < scorer.score("难过"));
+        assertTrue(scorer.score("有点累") > scorer.score("累"));
+        // 否定只作用于同一子句
+        assertEquals(SentimentLabel.POSITIVE, label("没什么，开心"));
+        // 双重否定相互抵消
+        assertEquals(SentimentLabel.POSITIVE, label("不是不开心"));
+        assertEquals(SentimentLabel.POSITIVE, label("VERY 开心"));
+    }
+
+    @Test
+    void mixedMessagesAggregate() {
+        double mixed = scorer.score("项目很顺利，但是压力大");
+        assertTrue(mixed > 0 && mixed < scorer.score("项目很顺利"));
+    }
+
+    @Test
+    void scoringDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String[] messages = {"今天感觉很沮丧。", "这个想法很不错！", "工作压力好大。", "周末有什么计划吗？"};
+        double sink = 0;
+        for (int i = 0; i < 20_000; i++) { // 预热
+            sink += scorer.score(messages[i & 3]);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            sink += scorer.score(messages[i & 3]);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes, sink=" + sink);
+    }
+
+    private SentimentLabel label(String message) {
+        return SentimentLabel.of(scorer.score(message));
+    }
+}
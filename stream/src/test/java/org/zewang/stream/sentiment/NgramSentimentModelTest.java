@@ -0,0 +1,99 @@
+package org.zewang.stream.sentiment;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: n-gram 情感模型测试：训练、二进制读写、无分配打分
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 22:20
+ */
+class NgramSentimentModelTest {
+
+    private static final String[] SUBJECTS = {"今天", "这次项目", "周末", "考试", "新工作", "和朋友聊天", "最近"};
+    private static final String[] POSITIVE = {"很开心", "挺顺利的", "让人满意", "太棒了", "心情不错"};
+    private static final String[] NEGATIVE = {"很沮丧", "不开心", "让人失望", "太糟糕了", "压力好大"};
+
+    @Test
+    void learnsPolarityOfUnseenCombinations() {
+        List<String> texts = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        // 只用前 5 个主语训练，后 2 个主语的组合留作测试
+        for (int s = 0; s < 5; s++) {
+            for (String phrase : POSITIVE) {
+                texts.add(SUBJECTS[s] + phrase);
+                scores.add(1.0);
+            }
+            for (String phrase : NEGATIVE) {
+                texts.add(SUBJECTS[s] + phrase);
+                scores.add(-1.0);
+            }
+        }
+        NgramSentimentModel model = new NgramModelTrainer().bits(16).train("test-1", texts, scores);
+
+        for (int s = 5; s < SUBJECTS.length; s++) {
+            for (String phrase : POSITIVE) {
+                assertTrue(model.score(SUBJECTS[s] + phrase) > 0.2, SUBJECTS[s] + phrase);
+            }
+            for (String phrase : NEGATIVE) {
+                assertTrue(model.score(SUBJECTS[s] + phrase) < -0.2, SUBJECTS[s] + phrase);
+            }
+        }
+        // "不开心" 与 "很开心" 共享 "开心"，模型仍能通过 "不开" 区分
+        assertTrue(model.score("最近不开心") < 0);
+    }
+
+    @Test
+    void binaryRoundTripPreservesScores() throws IOException {
+        NgramSentimentModel model = new NgramModelTrainer().bits(12)
+            .train("round-trip", List.of("好开心", "好难过"), List.of(1.0, -1.0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        model.write(out);
+        byte[] bytes = out.toByteArray();
+        assertEquals(4 + 4 + 2 + "round-trip".length() + 4 + 4 * (1 << 12), bytes.length);
+
+        NgramSentimentModel loaded = NgramSentimentModel.read(new ByteArrayInputStream(bytes));
+        assertEquals("round-trip", loaded.getVersion());
+        for (String text : List.of("好开心", "好难过", "", "HELLO")) {
+            assertEquals(model.score(text), loaded.score(text), 0.0);
+        }
+        assertEquals(0.0, NgramSentimentModel.empty("zero", 1, 3, 4).score(null));
+
+        ByteArrayOutputStream again = new ByteArrayOutputStream();
+        loaded.write(again);
+        assertArrayEquals(bytes, again.toByteArray());
+
+        bytes[0] = 'X';
+        assertThrows(IOException.class, () -> NgramSentimentModel.read(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void scoringDoesNotAllocate() {
+        NgramSentimentModel model = new NgramModelTrainer().bits(12)
+            .train("alloc", List.of("今天很开心", "今天很难过"), List.of(1.0, -1.0));
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String[] messages = {"今天感觉很沮丧。", "这个想法很不错！", "工作压力好大。", "周末有什么计划吗？"};
+        double sink = 0;
+        for (int i = 0; i < 20_000; i++) { // 预热
+            sink += model.score(messages[i & 3]);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            sink += model.score(messages[i & 3]);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes, sink=" + sink);
+    }
+}
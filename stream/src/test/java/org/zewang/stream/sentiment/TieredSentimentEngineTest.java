@@ -0,0 +1,108 @@
+package org.zewang.stream.sentiment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.zewang.common.constant.SentimentTier;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 分层引擎测试：词典确定时不调用模型，超出延迟/并发预算时输出标记为 fallback 的词典结果
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 21:30
+ */
+class TieredSentimentEngineTest {
+
+    private final SentimentEngine lexicon = new LexiconSentimentEngine(new LexiconRegistry(SentimentLexicon.defaults()));
+    private final ManualEngine model = new ManualEngine();
+
+    @Test
+    void confidentLexiconResultsSkipTheModel() {
+        TieredSentimentEngine engine = new TieredSentimentEngine(lexicon, model, 0.5, Duration.ofSeconds(1), 2);
+
+        List<SentimentResult> results = engine.scoreBatch(List.of("太难过了", "今天非常开心")).join();
+        assertEquals(SentimentTier.LEXICON, results.get(0).getTier());
+        assertEquals(SentimentTier.LEXICON, results.get(1).getTier());
+        assertTrue(model.requests.isEmpty());
+    }
+
+    @Test
+    void uncertainMessagesGoToTheModel() {
+        TieredSentimentEngine engine = new TieredSentimentEngine(lexicon, model, 0.5, Duration.ofSeconds(5), 2);
+
+        CompletableFuture<List<SentimentResult>> future = engine.scoreBatch(List.of("太难过了", "周末有什么计划吗？"));
+        assertEquals(List.of(List.of("周末有什么计划吗？")), model.requests);
+        model.complete(0, 0.4);
+
+        List<SentimentResult> results = future.join();
+        assertEquals(SentimentTier.LEXICON, results.get(0).getTier());
+        assertEquals(SentimentTier.MODEL, results.get(1).getTier());
+        assertEquals(0.4, results.get(1).getScore());
+        assertEquals("model-1", results.get(1).getVersion());
+        assertEquals(2, engine.availableConcurrency());
+    }
+
+    @Test
+    void slowModelFallsBackButKeepsItsConcurrencySlot() {
+        TieredSentimentEngine engine = new TieredSentimentEngine(lexicon, model, 0.5, Duration.ofMillis(50), 1);
+
+        SentimentResult result = engine.scoreBatch(List.of("周末有什么计划吗？")).join().get(0);
+        assertEquals(SentimentTier.FALLBACK, result.getTier());
+        assertEquals(0.0, result.getScore());
+        assertEquals("builtin-1", result.getVersion());
+        // 超时的请求还没结束，仍占用并发预算
+        assertEquals(0, engine.availableConcurrency());
+
+        // 并发预算已用完：不再请求模型，直接输出词典结果
+        SentimentResult rejected = engine.scoreBatch(List.of("有点累")).join().get(0);
+        assertEquals(SentimentTier.FALLBACK, rejected.getTier());
+        assertEquals(1, model.requests.size());
+
+        model.complete(0, 0.9);
+        assertEquals(1, engine.availableConcurrency());
+    }
+
+    @Test
+    void failedModelFallsBack() {
+        TieredSentimentEngine engine = new TieredSentimentEngine(lexicon, model, 0.5, Duration.ofSeconds(5), 1);
+
+        CompletableFuture<List<SentimentResult>> future = engine.scoreBatch(List.of("有点累"));
+        model.futures.get(0).completeExceptionally(new IllegalStateException("boom"));
+        SentimentResult result = future.join().get(0);
+        assertEquals(SentimentTier.FALLBACK, result.getTier());
+        assertTrue(result.getScore() < 0);
+        assertEquals(1, engine.availableConcurrency());
+    }
+
+    private static final class ManualEngine implements SentimentEngine {
+        private final List<List<String>> requests = new ArrayList<>();
+        private final List<CompletableFuture<List<SentimentResult>>> futures = new ArrayList<>();
+
+        @Override
+        public String name() {
+            return "manual";
+        }
+
+        @Override
+        public CompletableFuture<List<SentimentResult>> scoreBatch(List<String> messages) {
+            requests.add(List.copyOf(messages));
+            CompletableFuture<List<SentimentResult>> future = new CompletableFuture<>();
+            futures.add(future);
+            return future;
+        }
+
+        private void complete(int request, double score) {
+            List<SentimentResult> results = new ArrayList<>();
+            for (int i = 0; i < requests.get(request).size(); i++) {
+                results.add(new SentimentResult(score, "model-1", SentimentTier.MODEL));
+            }
+            futures.get(request).complete(results);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.zewang.stream.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.dto.SentimentRollup;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.SentimentScoreView;
+import org.zewang.common.dto.WarningAlert;
+import org.zewang.common.serde.JsonSerde;
+import org.zewang.common.serde.ProjectionSerde;
+import org.zewang.stream.config.AlertProperties;
+import org.zewang.stream.config.RollupProperties;
+import org.zewang.stream.config.RollupProperties.Level;
+import org.zewang.stream.metrics.StreamMetrics;
+import org.zewang.stream.serde.SentimentStatsSerde;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 多粒度汇总拓扑测试
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 15:50
+ */
+class SentimentRollupProcessorTest {
+
+    private final JsonSerde<SentimentScore> sentimentScoreSerde = new JsonSerde<>(SentimentScore.class);
+    private final ProjectionSerde<SentimentScoreView> sentimentScoreViewSerde = ProjectionSerde.sentimentScoreView();
+    private final JsonSerde<SentimentRollup> sentimentRollupSerde = new JsonSerde<>(SentimentRollup.class);
+    private final JsonSerde<WarningAlert> warningAlertSerde = new JsonSerde<>(WarningAlert.class);
+
+    @Test
+    void coarseLevelsAreMergedFromFinerLevels() {
+        // 期望值：直接按翻滚窗口计算
+        Map<String, double[]> expected = new HashMap<>();
+        for (ScoreInput input : inputs()) {
+            accumulate(expected, input.userId() + "@1m@" + (input.timestamp() / 60_000 * 60_000), input.score());
+            accumulate(expected, input.userId() + "@5m@" + (input.timestamp() / 300_000 * 300_000), input.score());
+        }
+
+        List<SentimentRollup> rollups = new ArrayList<>();
+        List<KeyValue<String, WarningAlert>> alerts = new ArrayList<>();
+        run(inputs(), null, List.of(), rollups, alerts);
+
+        // 10 个 1m 窗口 * 2 个用户 + 2 个 5m 窗口 * 2 个用户
+        assertEquals(24, rollups.size());
+        for (SentimentRollup rollup : rollups) {
+            double[] sumCount = expected.get(rollup.getUserId() + "@" + rollup.getHorizon() + "@" + rollup.getWindowStart());
+            assertEquals((long) sumCount[1], rollup.getCount());
+            assertEquals(sumCount[0] / sumCount[1], rollup.getAverageScore(), 1e-9);
+        }
+
+        // 只有 5m 粒度配置了阈值，且只有 U001 低于阈值；key 带上粒度，和 1m 的窗口区分开
+        assertEquals(2, alerts.size());
+        assertTrue(alerts.stream().allMatch(alert -> alert.key.equals("U001@5m")));
+        assertTrue(alerts.stream().allMatch(alert -> alert.value.getUserId().equals("U001")));
+        assertTrue(alerts.stream().allMatch(alert -> alert.value.getAlertMessage().endsWith("（5m）")));
+    }
+
+    @Test
+    void lateRecordBeforeFirstWindowIsRolledUp() {
+        // 50s 的记录晚于 61s 到达，但 [0,60) 要到 70s 才关闭
+        List<ScoreInput> inputs = List.of(
+            new ScoreInput("U001", 61_000, -0.2),
+            new ScoreInput("U001", 50_000, -0.6),
+            new ScoreInput("U002", 400_000, 0.0));
+        List<SentimentRollup> rollups = new ArrayList<>();
+        run(inputs, null, List.of(), rollups, new ArrayList<>());
+
+        Map<String, String> summary = summary(rollups);
+        assertEquals("1/-0.6", summary.get("U001@1m@0"));
+        assertEquals("1/-0.2", summary.get("U001@1m@60000"));
+        assertEquals("2/-0.4", summary.get("U001@5m@0"));
+    }
+
+    @Test
+    void rollupsResumeAfterRestart(@TempDir Path stateDir) {
+        List<SentimentRollup> uninterrupted = new ArrayList<>();
+        run(inputs(), null, List.of(), uninterrupted, new ArrayList<>());
+
+        // 第一次在 1m 窗口中间重启；第二次重启前最后一批记录之后，流时间一次跳过所有窗口
+        List<SentimentRollup> restarted = new ArrayList<>();
+        List<ScoreInput> inputs = inputs();
+        run(inputs, stateDir, List.of(50, inputs.size() - 1), restarted, new ArrayList<>());
+
+        assertEquals(summary(uninterrupted), summary(restarted));
+    }
+
+    private void run(List<ScoreInput> inputs, Path stateDir, List<Integer> restartsAt,
+        List<SentimentRollup> rollups, List<KeyValue<String, WarningAlert>> alerts) {
+
+        RollupProperties properties = new RollupProperties();
+        properties.setEnabled(true);
+        properties.setPane(Duration.ofSeconds(30));
+        properties.setGrace(Duration.ofSeconds(10));
+        properties.setLevels(List.of(level("5m", 5, -0.5), level("1m", 1, null)));
+
+        StreamsBuilder builder = new StreamsBuilder();
+        KStream<String, SentimentScoreView> scores = builder.stream(KafkaConstants.SENTIMENT_SCORES_TOPIC,
+            Consumed.with(Serdes.String(), sentimentScoreViewSerde));
+        new SentimentRollupProcessor(sentimentRollupSerde, warningAlertSerde, new SentimentStatsSerde(), properties,
+            new AlertProperties(), StreamMetrics.noop()).buildTopology(scores);
+        Topology topology = builder.build();
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "rollup-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        if (stateDir != null) {
+            TopologyRestarts.configure(props, stateDir);
+        }
+
+        List<Integer> bounds = new ArrayList<>(restartsAt);
+        bounds.add(inputs.size());
+        int from = 0;
+        for (int to : bounds) {
+            Path backup = null;
+            try (TopologyTestDriver driver = new TopologyTestDriver(topology, props)) {
+                TestInputTopic<String, SentimentScore> input = driver.createInputTopic(KafkaConstants.SENTIMENT_SCORES_TOPIC,
+                    new StringSerializer(), sentimentScoreSerde.serializer());
+                for (ScoreInput score : inputs.subList(from, to)) {
+                    pipe(input, score.userId(), score.timestamp(), score.score());
+                }
+                rollups.addAll(driver.createOutputTopic(KafkaConstants.SENTIMENT_ROLLUPS_TOPIC, new StringDeserializer(),
+                    sentimentRollupSerde.deserializer()).readValuesToList());
+                alerts.addAll(driver.createOutputTopic(KafkaConstants.ROLLUP_ALERTS_TOPIC, new StringDeserializer(),
+                    warningAlertSerde.deserializer()).readKeyValuesToList());
+                if (to < inputs.size()) {
+                    backup = TopologyRestarts.backup(driver, stateDir);
+                }
+            }
+            if (backup != null) {
+                TopologyRestarts.restore(backup, stateDir);
+            }
+            from = to;
+        }
+    }
+
+    private static List<ScoreInput> inputs() {
+        List<ScoreInput> inputs = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            long timestamp = i * 5_000L;
+            String userId = i % 3 == 0 ? "U001" : "U002";
+            double score = userId.equals("U001") ? -0.8 : (i % 2 == 0 ? 0.5 : -0.1);
+            inputs.add(new ScoreInput(userId, timestamp, score));
+        }
+        inputs.add(new ScoreInput("U003", 1_000_000L, 0.0)); // 推进流时间，关闭之前所有窗口
+        return inputs;
+    }
+
+    private static Map<String, String> summary(List<SentimentRollup> rollups) {
+        Map<String, String> summary = new TreeMap<>();
+        rollups.forEach(rollup -> assertNull(summary.put(
+            rollup.getUserId() + "@" + rollup.getHorizon() + "@" + rollup.getWindowStart(),
+            rollup.getCount() + "/" + rollup.getAverageScore())));
+        return summary;
+    }
+
+    private static Level level(String name, int minutes, Double threshold) {
+        Level level = new Level();
+        level.setName(name);
+        level.setSize(Duration.ofMinutes(minutes));
+        level.setThreshold(threshold);
+        return level;
+    }
+
+    private static void accumulate(Map<String, double[]> expected, String key, double score) {
+        double[] sumCount = expected.computeIfAbsent(key, k -> new double[2]);
+        sumCount[0] += score;
+        sumCount[1]++;
+    }
+
+    private void pipe(TestInputTopic<String, SentimentScore> input, String userId, long timestamp, double score) {
+        SentimentScore value = new SentimentScore();
+        value.setUserId(userId);
+        value.setTimestamp(timestamp);
+        value.setSentimentScore(score);
+        input.pipeInput(userId, value, Instant.ofEpochMilli(timestamp));
+    }
+
+    private record ScoreInput(String userId, long timestamp, double score) {
+    }
+}
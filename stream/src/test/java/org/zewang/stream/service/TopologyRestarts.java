@@ -0,0 +1,70 @@
+package org.zewang.stream.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.stream.Stream;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.processor.StateStore;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 在 TopologyTestDriver 上模拟重启：TopologyTestDriver 关闭时会清空状态目录，
+ * 关闭前先关闭所有存储（RocksDB 停止后台 compaction，目录内容不再变化）再备份状态目录，
+ * driver 关闭后拷回去，下一个 driver 在同一个状态目录上打开
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/18 10:20
+ */
+final class TopologyRestarts {
+
+    private TopologyRestarts() {
+    }
+
+    /**
+     * 使用同一个状态目录并关闭记录缓存：存储提前关闭后，driver 关闭时不会再刷缓存
+     */
+    static void configure(Properties props, Path stateDir) {
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        props.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 0L);
+    }
+
+    /**
+     * 在 driver 关闭前调用，关闭所有存储后返回备份目录
+     */
+    static Path backup(TopologyTestDriver driver, Path stateDir) {
+        driver.getAllStateStores().values().forEach(StateStore::close);
+        try {
+            return copy(stateDir, Files.createTempDirectory("topology-restart"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 在 driver 关闭后调用，把备份拷回状态目录
+     */
+    static void restore(Path backup, Path stateDir) {
+        copy(backup, stateDir);
+    }
+
+    private static Path copy(Path source, Path target) {
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : files.toList()) {
+                Path destination = target.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(destination);
+                } else {
+                    Files.copy(file, destination, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
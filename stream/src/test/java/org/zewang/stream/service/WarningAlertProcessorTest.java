@@ -0,0 +1,331 @@
+package org.zewang.stream.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeMap;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.kstream.WindowedSerdes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zewang.common.constant.KafkaConstants;
+import org.zewang.common.dto.SentimentScore;
+import org.zewang.common.dto.WarningAlert;
+import org.zewang.common.serde.JsonSerde;
+import org.zewang.common.serde.ProjectionSerde;
+import org.zewang.stream.config.AlertProperties;
+import org.zewang.stream.config.AlertProperties.EmitMode;
+import org.zewang.stream.config.WindowProperties;
+import org.zewang.stream.config.WindowProperties.Aggregation;
+import org.zewang.stream.metrics.StreamMetrics;
+import org.zewang.stream.processor.HotKeySaltProcessor;
+import org.zewang.stream.serde.SentimentStatsSerde;
+
+/**
+ * @author "Zewang"
+ * @version 1.0
+ * @description: 预警拓扑测试（基于 TopologyTestDriver，无需 Kafka）
+ * @email "Zewang0217@outlook.com"
+ * @date 2026/10/17 10:40
+ */
+class WarningAlertProcessorTest {
+
+    private final JsonSerde<SentimentScore> sentimentScoreSerde = new JsonSerde<>(SentimentScore.class);
+    private final JsonSerde<WarningAlert> warningAlertSerde = new JsonSerde<>(WarningAlert.class);
+
+    @Test
+    void averageComesFromSingleAccumulator() {
+        AlertProperties alertProperties = alertProperties(EmitMode.EAGER, 1.0);
+        List<ScoreInput> inputs = List.of(
+            new ScoreInput("U001", 0, -0.6),
+            new ScoreInput("U001", 10_000, 0.8),
+            new ScoreInput("U001", 40_000, -0.6)); // 同时属于 [0,60) 和 [30,90)
+
+        List<KeyValue<Windowed<String>, WarningAlert>> output = run(alertProperties, new WindowProperties(), inputs);
+
+        // 每条记录、每个所属窗口只输出一次（不再有 join 两侧各触发一次的中间结果）
+        assertEquals(4, output.size());
+        WarningAlert first = output.get(2).value;
+        assertEquals(60_000L, first.getWindowEnd());
+        assertEquals((-0.6 + 0.8 - 0.6) / 3, first.getAverageScore(), 1e-9);
+        WarningAlert second = output.get(3).value;
+        assertEquals(90_000L, second.getWindowEnd());
+        assertEquals(-0.6, second.getAverageScore(), 1e-9);
+    }
+
+    @Test
+    void finalModeEmitsOnceAfterWindowClosesAndOnlyBelowThreshold() {
+        AlertProperties alertProperties = alertProperties(EmitMode.FINAL, -0.3);
+        alertProperties.setMessage("测试预警");
+
+        List<ScoreInput> inputs = new ArrayList<>(List.of(
+            new ScoreInput("U001", 0, -0.6),
+            new ScoreInput("U001", 10_000, -0.6),
+            new ScoreInput("U002", 20_000, 0.8)));
+        assertTrue(run(alertProperties, new WindowProperties(), inputs).isEmpty()); // 窗口尚未关闭
+
+        // 推进流时间到 [0,60) 的关闭时刻（60s + 30s 宽限期）
+        inputs.add(new ScoreInput("U003", 90_000, 0.0));
+        List<KeyValue<Windowed<String>, WarningAlert>> output = run(alertProperties, new WindowProperties(), inputs);
+
+        assertEquals(1, output.size());
+        assertEquals("U001", output.get(0).value.getUserId());
+        assertEquals(60_000L, output.get(0).value.getWindowEnd());
+        assertEquals(-0.6, output.get(0).value.getAverageScore(), 1e-9);
+        assertEquals("测试预警", output.get(0).value.getAlertMessage());
+    }
+
+    @Test
+    void paneAggregationMatchesHoppingWindowsInEagerMode() {
+        for (long[] window : new long[][] {{60, 30, 30}, {90, 30, 10}, {40, 10, 0}}) {
+            AlertProperties alertProperties = alertProperties(EmitMode.EAGER, 2.0);
+            List<ScoreInput> inputs = randomInputs(window[0] * 1000);
+
+            List<KeyValue<Windowed<String>, WarningAlert>> hopping =
+                run(alertProperties, windowProperties(Aggregation.HOPPING, window), inputs);
+            List<KeyValue<Windowed<String>, WarningAlert>> pane =
+                run(alertProperties, windowProperties(Aggregation.PANE, window), inputs);
+
+            // 逐条输出一致（包括顺序和迟到数据的丢弃）
+            assertFalse(hopping.isEmpty());
+            assertEquals(hopping.size(), pane.size());
+            for (int i = 0; i < hopping.size(); i++) {
+                assertEquals(hopping.get(i).key, pane.get(i).key);
+                assertEquals(hopping.get(i).value.getAverageScore(), pane.get(i).value.getAverageScore(), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void paneAggregationMatchesHoppingWindowsInFinalMode() {
+        long[] window = {60, 30, 30};
+        AlertProperties alertProperties = alertProperties(EmitMode.FINAL, 0.1);
+        List<ScoreInput> inputs = randomInputs(window[0] * 1000);
+
+        Map<String, Double> hopping = byWindow(run(alertProperties, windowProperties(Aggregation.HOPPING, window), inputs));
+        Map<String, Double> pane = byWindow(run(alertProperties, windowProperties(Aggregation.PANE, window), inputs));
+
+        assertFalse(hopping.isEmpty());
+        assertEquals(hopping.keySet(), pane.keySet());
+        hopping.forEach((window1, avg) -> assertEquals(avg, pane.get(window1), 1e-9));
+    }
+
+    @Test
+    void paneAggregationEmitsWindowsOpenedByLateRecordsBeforeTheFirstPane() {
+        long[] window = {60, 30, 30};
+        AlertProperties alertProperties = alertProperties(EmitMode.FINAL, 2.0);
+        // 50s 的记录晚于 100s 到达但仍在宽限期内，[0,60) 和 [30,90) 都在第一条记录的 pane 之前
+        List<ScoreInput> inputs = List.of(
+            new ScoreInput("U001", 100_000, -0.4),
+            new ScoreInput("U001", 50_000, -0.8),
+            new ScoreInput("U002", 400_000, 0.0));
+
+        Map<String, Double> hopping = byWindow(run(alertProperties, windowProperties(Aggregation.HOPPING, window), inputs));
+        Map<String, Double> pane = byWindow(run(alertProperties, windowProperties(Aggregation.PANE, window), inputs));
+
+        assertTrue(hopping.containsKey("U001@30000"), hopping.toString());
+        assertEquals(hopping, pane);
+    }
+
+    @Test
+    void paneAggregationResumesAfterRestartInFinalMode(@TempDir Path stateDir) {
+        long[] window = {60, 30, 30};
+        AlertProperties alertProperties = alertProperties(EmitMode.FINAL, 0.1);
+        List<ScoreInput> inputs = randomInputs(window[0] * 1000);
+        // 第二次重启后流时间直接跳过好几个窗口：停机期间关闭的窗口要在下一条记录到来时补发
+        long last = inputs.stream().mapToLong(ScoreInput::timestamp).max().orElseThrow();
+        inputs.add(new ScoreInput("U009", last + 300_000, 0.0));
+
+        Map<String, Double> hopping = byWindow(run(alertProperties, windowProperties(Aggregation.HOPPING, window), inputs));
+        Map<String, Double> pane = byWindow(run(alertProperties, windowProperties(Aggregation.PANE, window), inputs,
+            stateDir, List.of(150, inputs.size() - 1)));
+
+        assertFalse(hopping.isEmpty());
+        assertEquals(hopping.keySet(), pane.keySet());
+        hopping.forEach((window1, avg) -> assertEquals(avg, pane.get(window1), 1e-9));
+    }
+
+    @Test
+    void saltedTwoPhaseAggregationMatchesUnsaltedPath() {
+        long[] window = {60, 30, 30};
+        AlertProperties alertProperties = alertProperties(EmitMode.FINAL, 2.0);
+        List<ScoreInput> inputs = randomInputs(window[0] * 1000);
+        // 两条远在后面的记录把所有窗口（包括第二阶段的合并桶）推到关闭
+        long last = inputs.stream().mapToLong(ScoreInput::timestamp).max().orElseThrow();
+        inputs.add(new ScoreInput("U009", last + 600_000, 0.0));
+        inputs.add(new ScoreInput("U009", last + 1_200_000, 0.0));
+
+        for (Aggregation aggregation : Aggregation.values()) {
+            Map<String, Double> unsalted = byWindow(run(alertProperties, windowProperties(aggregation, window), inputs));
+            WindowProperties saltedProperties = windowProperties(aggregation, window);
+            saltedProperties.getHotKeys().setEnabled(true);
+            saltedProperties.getHotKeys().setSalts(4);
+            saltedProperties.getHotKeys().getKeys().add("U001");
+            // U002 在检测中途变成热点，同一窗口的数据分布在 #0 和其他分片上
+            saltedProperties.getHotKeys().setDetectThreshold(30);
+            Map<String, Double> salted = byWindow(run(alertProperties, saltedProperties, inputs));
+
+            unsalted.keySet().removeIf(key -> key.startsWith("U009"));
+            salted.keySet().removeIf(key -> key.startsWith("U009"));
+            assertFalse(unsalted.isEmpty());
+            assertEquals(unsalted.keySet(), salted.keySet(), aggregation.name());
+            unsalted.forEach((window1, avg) -> assertEquals(avg, salted.get(window1), 1e-9));
+        }
+    }
+
+    @Test
+    void saltingKeepsHotKeysOnSeparateShardsAndColdKeysOnShardZero() {
+        WindowProperties.HotKeys hotKeys = new WindowProperties.HotKeys();
+        hotKeys.getKeys().add("U001");
+        hotKeys.setSalts(3);
+        hotKeys.setDetectThreshold(2);
+
+        StreamsBuilder builder = new StreamsBuilder();
+        builder.<String, String>stream("in")
+            .process(HotKeySaltProcessor.<String>supplier(hotKeys))
+            .to("out");
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "hot-key-salt-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+        props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass().getName());
+
+        try (TopologyTestDriver driver = new TopologyTestDriver(builder.build(), props)) {
+            TestInputTopic<String, String> in = driver.createInputTopic("in", new StringSerializer(), new StringSerializer());
+            TestOutputTopic<String, String> out = driver.createOutputTopic("out", new StringDeserializer(), new StringDeserializer());
+            for (String key : List.of("U001", "U001", "U001", "U002", "U003", "U003", "U003")) {
+                in.pipeInput(key, "v");
+            }
+            // 分片轮流分配；U003 第二条起达到阈值
+            assertEquals(List.of("U001#0", "U001#1", "U001#2", "U002#0", "U003#0", "U003#0", "U003#1"), keys(out));
+
+            // 检测周期结束时 U003 没有再达到阈值，重新回到 #0
+            driver.advanceWallClockTime(hotKeys.getDetectInterval());
+            driver.advanceWallClockTime(hotKeys.getDetectInterval());
+            in.pipeInput("U003", "v");
+            assertEquals(List.of("U003#0"), keys(out));
+        }
+        assertEquals("U00#1", HotKeySaltProcessor.unsalted("U00#1#2"));
+    }
+
+    private List<KeyValue<Windowed<String>, WarningAlert>> run(AlertProperties alertProperties,
+        WindowProperties windowProperties, List<ScoreInput> inputs) {
+        return run(alertProperties, windowProperties, inputs, null, List.of());
+    }
+
+    /**
+     * 依次在多个 TopologyTestDriver 上处理 inputs，restartsAt 处关闭当前 driver 并在同一个状态目录上重新打开
+     */
+    private List<KeyValue<Windowed<String>, WarningAlert>> run(AlertProperties alertProperties,
+        WindowProperties windowProperties, List<ScoreInput> inputs, Path stateDir, List<Integer> restartsAt) {
+
+        StreamsBuilder builder = new StreamsBuilder();
+        new WarningAlertProcessor(ProjectionSerde.sentimentScoreView(), warningAlertSerde, new SentimentStatsSerde(),
+            alertProperties, windowProperties, StreamMetrics.noop()).buildTopology(builder);
+        Topology topology = builder.build();
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "warning-alert-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATESTORE_CACHE_MAX_BYTES_CONFIG, 0L);
+        if (stateDir != null) {
+            TopologyRestarts.configure(props, stateDir);
+        }
+
+        List<KeyValue<Windowed<String>, WarningAlert>> output = new ArrayList<>();
+        List<Integer> bounds = new ArrayList<>(restartsAt);
+        bounds.add(inputs.size());
+        int from = 0;
+        for (int to : bounds) {
+            boolean restart = to < inputs.size();
+            Path backup = null;
+            try (TopologyTestDriver driver = new TopologyTestDriver(topology, props)) {
+                TestInputTopic<String, SentimentScore> scores = driver.createInputTopic(KafkaConstants.SENTIMENT_SCORES_TOPIC,
+                    new StringSerializer(), sentimentScoreSerde.serializer());
+                TestOutputTopic<Windowed<String>, WarningAlert> alerts = driver.createOutputTopic(KafkaConstants.WARNING_ALERTS_TOPIC,
+                    WindowedSerdes.timeWindowedSerdeFrom(String.class, windowProperties.getSize().toMillis()).deserializer(),
+                    warningAlertSerde.deserializer());
+
+                for (ScoreInput input : inputs.subList(from, to)) {
+                    SentimentScore value = new SentimentScore();
+                    value.setUserId(input.userId());
+                    value.setTimestamp(input.timestamp());
+                    value.setSentimentScore(input.score());
+                    value.setSentimentLabel(input.score() < 0 ? "Negative" : "Positive");
+                    scores.pipeInput(input.userId(), value, Instant.ofEpochMilli(input.timestamp()));
+                }
+                output.addAll(alerts.readKeyValuesToList());
+                if (restart) {
+                    backup = TopologyRestarts.backup(driver, stateDir);
+                }
+            }
+            if (backup != null) {
+                TopologyRestarts.restore(backup, stateDir);
+            }
+            from = to;
+        }
+        return output;
+    }
+
+    private static List<String> keys(TestOutputTopic<String, String> topic) {
+        return topic.readKeyValuesToList().stream().map(kv -> kv.key).toList();
+    }
+
+    // 随机生成多用户、带乱序和迟到的数据
+    private static List<ScoreInput> randomInputs(long windowSizeMs) {
+        Random random = new Random(42);
+        List<ScoreInput> inputs = new ArrayList<>();
+        long time = 5_000;
+        for (int i = 0; i < 400; i++) {
+            time += random.nextInt(3_000);
+            long jitter = random.nextInt(10) == 0 ? random.nextInt((int) (windowSizeMs * 2)) : 0; // 约 10% 迟到
+            double score = Math.round((random.nextDouble() * 2 - 1) * 10) / 10.0;
+            inputs.add(new ScoreInput("U00" + random.nextInt(4), Math.max(0, time - jitter), score));
+        }
+        return inputs;
+    }
+
+    private static Map<String, Double> byWindow(List<KeyValue<Windowed<String>, WarningAlert>> output) {
+        Map<String, Double> result = new TreeMap<>();
+        output.forEach(kv -> assertEquals(null, result.put(kv.key.key() + "@" + kv.key.window().start(), kv.value.getAverageScore())));
+        return result;
+    }
+
+    private static AlertProperties alertProperties(EmitMode emitMode, double threshold) {
+        AlertProperties properties = new AlertProperties();
+        properties.setEmitMode(emitMode);
+        properties.setThreshold(threshold);
+        return properties;
+    }
+
+    private static WindowProperties windowProperties(Aggregation aggregation, long[] sizeAdvanceGraceSeconds) {
+        WindowProperties properties = new WindowProperties();
+        properties.setAggregation(aggregation);
+        properties.setSize(Duration.ofSeconds(sizeAdvanceGraceSeconds[0]));
+        properties.setAdvance(Duration.ofSeconds(sizeAdvanceGraceSeconds[1]));
+        properties.setGrace(Duration.ofSeconds(sizeAdvanceGraceSeconds[2]));
+        return properties;
+    }
+
+    private record ScoreInput(String userId, long timestamp, double score) {
+    }
+}